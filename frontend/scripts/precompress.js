@@ -0,0 +1,58 @@
+// Writes gzip (.gz) and brotli (.br) copies of the text assets in build/
+// next to the originals.  Spring's EncodedResourceResolver serves them
+// directly when the browser's Accept-Encoding allows it, so the server
+// never compresses the bundle per request.
+//
+// Runs automatically after `npm run build` (the "postbuild" script).
+
+const fs = require("fs");
+const path = require("path");
+const zlib = require("zlib");
+
+const BUILD_DIR = path.join(__dirname, "..", "build");
+const EXTENSIONS = new Set([".js", ".css", ".html", ".json", ".svg", ".txt", ".map", ".ico"]);
+const MIN_BYTES = 1024;
+
+const encoders = {
+  ".gz": (data) => zlib.gzipSync(data, { level: zlib.constants.Z_BEST_COMPRESSION }),
+  ".br": (data) =>
+    zlib.brotliCompressSync(data, {
+      params: {
+        [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+        [zlib.constants.BROTLI_PARAM_SIZE_HINT]: data.length,
+      },
+    }),
+};
+
+function* files(dir) {
+  for (const entry of fs.readdirSync(dir, { withFileTypes: true })) {
+    const full = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      yield* files(full);
+    } else {
+      yield full;
+    }
+  }
+}
+
+let written = 0;
+let saved = 0;
+for (const file of files(BUILD_DIR)) {
+  if (!EXTENSIONS.has(path.extname(file))) {
+    continue;
+  }
+  const data = fs.readFileSync(file);
+  if (data.length < MIN_BYTES) {
+    continue;
+  }
+  for (const [suffix, encode] of Object.entries(encoders)) {
+    const encoded = encode(data);
+    // a variant that is not smaller would only cost a disk read
+    if (encoded.length < data.length) {
+      fs.writeFileSync(file + suffix, encoded);
+      written += 1;
+      saved += data.length - encoded.length;
+    }
+  }
+}
+console.log(`precompress: wrote ${written} files, ${(saved / 1024).toFixed(0)} KiB smaller than the originals`);
@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+// The application context used by the benchmarks that need repositories or
+// services.  It scans the same packages as ExampleApplication, but skips the
+// test configuration (which is also on the benchmark classpath) and runs
+// against a private in-memory H2 database migrated by Liquibase.
+
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@AutoConfigurationPackage(basePackageClasses = ExampleApplication.class)
+@ComponentScan(basePackageClasses = ExampleApplication.class, excludeFilters = {
+    @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ExampleApplication.class),
+    @ComponentScan.Filter(type = FilterType.REGEX, pattern = "edu\\.ucsb\\.cs156\\.example\\.(testconfig|benchmarks)\\..*")
+})
+public class BenchmarkApplication {
+
+  public static ConfigurableApplicationContext start(String databaseName) {
+    String url = "jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE".formatted(databaseName);
+    // devtools would otherwise rerun the application in a restart classloader
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    // passed as command line arguments so they override application.properties,
+    // which pins spring.profiles.active to the Maven build profile
+    return new SpringApplicationBuilder(BenchmarkApplication.class).run(
+        "--spring.profiles.active=benchmark",
+        "--server.port=0",
+        "--spring.datasource.url=" + url,
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "--spring.liquibase.url=" + url,
+        "--spring.liquibase.user=sa",
+        "--spring.liquibase.password=",
+        "--spring.liquibase.enabled=true",
+        "--logging.level.root=WARN");
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.services.CurrentUserCache;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+// CurrentUserServiceImpl.getCurrentUser() for a logged-in Google user, both
+// when the user is already in CurrentUserCache and when every call has to
+// go back to the users table.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrentUserServiceBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private CurrentUserService currentUserService;
+  private CurrentUserCache currentUserCache;
+  private OAuth2AuthenticationToken authentication;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start("currentuser");
+    currentUserService = context.getBean(CurrentUserService.class);
+    currentUserCache = context.getBean(CurrentUserCache.class);
+
+    List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    OAuth2User principal = new DefaultOAuth2User(authorities, Map.of(
+        "sub", "benchmark-sub",
+        "email", "cgaucho@ucsb.edu",
+        "name", "Chris Gaucho",
+        "given_name", "Chris",
+        "family_name", "Gaucho",
+        "email_verified", true,
+        "hd", "ucsb.edu"), "sub");
+    authentication = new OAuth2AuthenticationToken(principal, authorities, "google");
+  }
+
+  @Setup(Level.Iteration)
+  public void authenticate() {
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    context.close();
+  }
+
+  @Benchmark
+  public CurrentUser cached() {
+    return currentUserService.getCurrentUser();
+  }
+
+  @Benchmark
+  public CurrentUser uncached() {
+    currentUserCache.evictAll();
+    return currentUserService.getCurrentUser();
+  }
+}
@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// findAll / findById through the Spring Data repositories against the
+// Liquibase-migrated in-memory H2 database.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+  @Param({ "100", "1000" })
+  public int rows;
+
+  private ConfigurableApplicationContext context;
+  private UCSBDateRepository ucsbDateRepository;
+  private HelpRequestRepository helpRequestRepository;
+  private long[] ucsbDateIds;
+  private long[] helpRequestIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start("repository" + rows);
+    ucsbDateRepository = context.getBean(UCSBDateRepository.class);
+    helpRequestRepository = context.getBean(HelpRequestRepository.class);
+
+    LocalDateTime now = LocalDateTime.of(2022, 1, 3, 0, 0);
+    List<UCSBDate> dates = new ArrayList<>(rows);
+    List<HelpRequest> helpRequests = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      dates.add(UCSBDate.builder().quarterYYYYQ("2022" + (i % 4 + 1)).name("date " + i)
+          .localDateTime(now.plusHours(i)).build());
+      helpRequests.add(HelpRequest.builder().requesterEmail("user" + i + "@ucsb.edu").teamId("team" + (i % 8))
+          .tableOrBreakoutRoom("table " + (i % 10)).requestTime(now.plusMinutes(i)).explanation("help " + i)
+          .solved(i % 2 == 0).build());
+    }
+    ucsbDateIds = new long[rows];
+    int i = 0;
+    for (UCSBDate saved : ucsbDateRepository.saveAll(dates)) {
+      ucsbDateIds[i++] = saved.getId();
+    }
+    helpRequestIds = new long[rows];
+    i = 0;
+    for (HelpRequest saved : helpRequestRepository.saveAll(helpRequests)) {
+      helpRequestIds[i++] = saved.getId();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Iterable<UCSBDate> ucsbDatesFindAll() {
+    return ucsbDateRepository.findAll();
+  }
+
+  @Benchmark
+  public Optional<UCSBDate> ucsbDatesFindById() {
+    return ucsbDateRepository.findById(ucsbDateIds[ThreadLocalRandom.current().nextInt(ucsbDateIds.length)]);
+  }
+
+  @Benchmark
+  public Iterable<HelpRequest> helpRequestsFindAll() {
+    return helpRequestRepository.findAll();
+  }
+
+  @Benchmark
+  public Optional<HelpRequest> helpRequestsFindById() {
+    return helpRequestRepository.findById(helpRequestIds[ThreadLocalRandom.current().nextInt(helpRequestIds.length)]);
+  }
+}
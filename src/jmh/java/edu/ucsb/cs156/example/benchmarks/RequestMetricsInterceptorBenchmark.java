@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.interceptors.RequestMetricsInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+// Per-request cost of the metrics interceptor that replaced LoggingAspect.
+// "baseline" only builds the mock request, so the difference between the two
+// benchmarks is what the interceptor adds to every controller call.
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMetricsInterceptorBenchmark {
+
+  @Param({ "0.0", "0.01" })
+  public double sampleRate;
+
+  private RequestMetricsInterceptor interceptor;
+  private HandlerMethod handler;
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @Setup
+  public void setUp() throws Exception {
+    interceptor = new RequestMetricsInterceptor();
+    set("meterRegistry", new SimpleMeterRegistry());
+    set("sampleRate", sampleRate);
+    handler = new HandlerMethod(new UCSBDatesController(), UCSBDatesController.class.getMethod("allUCSBDates"));
+  }
+
+  // the interceptor's fields are package-private for its unit tests
+  private void set(String name, Object value) throws Exception {
+    Field field = RequestMetricsInterceptor.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(interceptor, value);
+  }
+
+  @Benchmark
+  public MockHttpServletRequest baseline() {
+    return new MockHttpServletRequest("GET", "/api/ucsbdates/all");
+  }
+
+  @Benchmark
+  public MockHttpServletRequest intercepted() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ucsbdates/all");
+    interceptor.preHandle(request, response, handler);
+    interceptor.afterCompletion(request, response, handler, null);
+    return request;
+  }
+}
@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// Jackson serialization of the entity lists returned by the /all endpoints,
+// using an ObjectMapper built the same way Spring Boot builds its own.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({ "UCSBDate", "HelpRequest", "MenuItemReview", "Articles", "RecommendationRequest",
+      "UCSBDiningCommons", "UCSBOrganization", "UCSBDiningCommonsMenuItem", "User" })
+  public String entity;
+
+  @Param({ "100", "1000" })
+  public int size;
+
+  private ObjectMapper mapper;
+  private List<Object> rows;
+
+  @Setup
+  public void setUp() {
+    mapper = Jackson2ObjectMapperBuilder.json().build();
+    rows = new ArrayList<>(size);
+    IntFunction<Object> factory = factoryFor(entity);
+    for (int i = 0; i < size; i++) {
+      rows.add(factory.apply(i));
+    }
+  }
+
+  @Benchmark
+  public byte[] writeList() throws Exception {
+    return mapper.writeValueAsBytes(rows);
+  }
+
+  static IntFunction<Object> factoryFor(String entity) {
+    LocalDateTime now = LocalDateTime.of(2022, 1, 3, 0, 0);
+    return switch (entity) {
+      case "UCSBDate" -> i -> UCSBDate.builder().id(i).quarterYYYYQ("20221").name("date " + i)
+          .localDateTime(now.plusHours(i)).build();
+      case "HelpRequest" -> i -> HelpRequest.builder().id(i).requesterEmail("user" + i + "@ucsb.edu")
+          .teamId("s22-5pm-" + (i % 4)).tableOrBreakoutRoom("table " + (i % 10)).requestTime(now.plusMinutes(i))
+          .explanation("help with dokku deployment " + i).solved(i % 2 == 0).build();
+      case "MenuItemReview" -> i -> MenuItemReview.builder().id(i).itemId(i % 50).reviewerEmail("user" + i + "@ucsb.edu")
+          .stars(i % 5 + 1).dateReviewed(now.plusMinutes(i)).comments("review " + i).build();
+      case "Articles" -> i -> Articles.builder().id(i).title("Article " + i).url("https://example.org/" + i)
+          .explanation("an article about " + i).email("user" + i + "@ucsb.edu").dateAdded(LocalDate.of(2022, 1, 3))
+          .build();
+      case "RecommendationRequest" -> i -> RecommendationRequest.builder().id(i).requesterEmail("user" + i + "@ucsb.edu")
+          .professorEmail("prof" + (i % 20) + "@ucsb.edu").explanation("grad school " + i).dateRequested(now)
+          .dateNeeded(now.plusDays(i % 30)).done(i % 3 == 0).build();
+      case "UCSBDiningCommons" -> i -> UCSBDiningCommons.builder().code("dc" + i).name("Dining Commons " + i)
+          .hasSackMeal(i % 2 == 0).hasTakeOutMeal(i % 3 == 0).hasDiningCam(true).latitude(34.4 + i * 0.0001)
+          .longitude(-119.8 - i * 0.0001).build();
+      case "UCSBOrganization" -> i -> UCSBOrganization.builder().orgCode("ORG" + i).orgTranslationShort("Org " + i)
+          .orgTranslation("Organization number " + i).inactive(i % 7 == 0).build();
+      case "UCSBDiningCommonsMenuItem" -> i -> UCSBDiningCommonsMenuItem.builder().id(i)
+          .diningCommonsCode("dc" + (i % 4)).name("Menu item " + i).station("station " + (i % 6)).build();
+      case "User" -> i -> User.builder().id(i).email("user" + i + "@ucsb.edu").googleSub("sub" + i)
+          .pictureUrl("https://example.org/p/" + i).fullName("User " + i).givenName("User").familyName("" + i)
+          .emailVerified(true).locale("en").hostedDomain("ucsb.edu").admin(i % 10 == 0).build();
+      default -> throw new IllegalArgumentException("unknown entity " + entity);
+    };
+  }
+}
@@ -0,0 +1,190 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Compares how many concurrent requests the application sustains with
+// Tomcat's platform-thread pool and with app.virtualThreads.enabled=true.
+// Unlike LoadTest this goes over real HTTP, since the request threads are
+// what is being measured.  For each concurrency level a fixed number of
+// clients each send GET /api/HelpRequest/all and GET /api/ucsbdates/all back
+// to back; the report has throughput and latency per mode and level.
+// Each level also prints how the Hikari pool was used, which is what
+// spring.datasource.hikari.maximum-pool-size is sized from.
+//
+// The virtual-thread run is skipped (with a message) on a JVM older than 21.
+//
+// Settings are system properties, see the loadtest profile in pom.xml:
+//   loadtest.rows               rows seeded per table (default 1000)
+//   loadtest.concurrency        comma-separated client counts (default 50,200,800)
+//   loadtest.warmupSeconds      traffic sent before measuring each level (default 10)
+//   loadtest.seconds            measured duration per level (default 30)
+//   loadtest.concurrencyReport  JSON report file (default target/concurrency-report.json)
+
+public class ConcurrencyTest {
+
+  private static final List<String> PATHS = List.of("/api/HelpRequest/all", "/api/ucsbdates/all");
+
+  // Stands in for an OAuth2 login: runs after the Spring Security filter chain
+  // and marks every request as coming from a logged-in user, so the method
+  // security checks pass without a session cookie.
+  @Configuration
+  static class AutoLogin {
+    @Bean
+    FilterRegistrationBean<OncePerRequestFilter> autoLoginFilter() {
+      DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+          Map.of("sub", "concurrency-sub", "email", "concurrency@ucsb.edu"), "sub");
+      OAuth2AuthenticationToken token = new OAuth2AuthenticationToken(user, user.getAuthorities(), "google");
+      FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+          SecurityContextHolder.getContext().setAuthentication(token);
+          chain.doFilter(request, response);
+        }
+      });
+      registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+      return registration;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int[] levels = Arrays.stream(System.getProperty("loadtest.concurrency", "50,200,800").split(","))
+        .map(String::trim).mapToInt(Integer::parseInt).toArray();
+    int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+    int seconds = Integer.getInteger("loadtest.seconds", 30);
+    File report = new File(System.getProperty("loadtest.concurrencyReport", "target/concurrency-report.json"));
+
+    Map<String, LatencyReport.EndpointStats> stats = new LinkedHashMap<>();
+    stats.putAll(measure("platform", false, levels, warmupSeconds, seconds));
+    if (Runtime.version().feature() >= 21) {
+      stats.putAll(measure("virtual", true, levels, warmupSeconds, seconds));
+    } else {
+      System.out.printf("skipping virtual threads: running on Java %d, they need 21%n", Runtime.version().feature());
+    }
+
+    System.out.print(LatencyReport.format(stats));
+    report.getAbsoluteFile().getParentFile().mkdirs();
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(report, stats.values());
+    System.out.println("report written to " + report);
+  }
+
+  private static Map<String, LatencyReport.EndpointStats> measure(String mode, boolean virtualThreads, int[] levels,
+      int warmupSeconds, int seconds) throws Exception {
+    ConfigurableApplicationContext context = LoadTestApplication.start("concurrency-" + mode,
+        List.of(AutoLogin.class), "--app.virtualThreads.enabled=" + virtualThreads);
+    try {
+      new LoadTest(context, 0).seed(context);
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+      Map<String, LatencyReport.EndpointStats> stats = new LinkedHashMap<>();
+      MeterRegistry registry = context.getBean(MeterRegistry.class);
+      for (int clients : levels) {
+        System.out.printf("%s threads: warming up for %ds with %d clients%n", mode, warmupSeconds, clients);
+        run(client, port, clients, warmupSeconds, mode);
+        System.out.printf("%s threads: measuring for %ds with %d clients%n", mode, seconds, clients);
+        PoolUsage before = PoolUsage.of(registry);
+        LatencyReport.summarize(run(client, port, clients, seconds, "%s c=%d".formatted(mode, clients)), seconds)
+            .forEach(stats::put);
+        PoolUsage.of(registry).since(before).print("%s c=%d".formatted(mode, clients), seconds);
+      }
+      return stats;
+    } finally {
+      context.close();
+    }
+  }
+
+  // Closed loop: every client sends its next request as soon as the previous
+  // one completes, until the deadline.  The HTTP client is asynchronous, so
+  // the clients themselves need no threads, and each client's Samples is
+  // only ever used by one request at a time.
+  private static List<LatencyReport.Samples> run(HttpClient client, int port, int clients, int seconds, String label)
+      throws Exception {
+    long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+    List<LatencyReport.Samples> perClient = new ArrayList<>();
+    List<CompletableFuture<Void>> done = new ArrayList<>();
+    for (int c = 0; c < clients; c++) {
+      LatencyReport.Samples samples = new LatencyReport.Samples();
+      perClient.add(samples);
+      done.add(loop(client, port, samples, label, c, deadline));
+    }
+    CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get();
+    return perClient;
+  }
+
+  private static CompletableFuture<Void> loop(HttpClient client, int port, LatencyReport.Samples samples, String label,
+      int sequence, long deadline) {
+    if (System.nanoTime() >= deadline) {
+      return CompletableFuture.completedFuture(null);
+    }
+    String path = PATHS.get(sequence % PATHS.size());
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+        .timeout(Duration.ofSeconds(60)).build();
+    long start = System.nanoTime();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+        .handle((response, failure) -> {
+          samples.record(label + " GET " + path, System.nanoTime() - start,
+              failure != null || response.statusCode() >= 400);
+          return null;
+        })
+        .thenCompose(ignored -> loop(client, port, samples, label, sequence + 1, deadline));
+  }
+
+  // From Hikari's own timers.  By Little's law the connections busy on
+  // average are the time they were held over the time measured; the mean
+  // wait for one shows whether the pool, rather than the CPU, was the limit.
+  private record PoolUsage(long acquired, double heldMillis, double waitedMillis) {
+
+    static PoolUsage of(MeterRegistry registry) {
+      Timer usage = registry.get("hikaricp.connections.usage").timer();
+      Timer acquire = registry.get("hikaricp.connections.acquire").timer();
+      return new PoolUsage(acquire.count(), usage.totalTime(TimeUnit.MILLISECONDS),
+          acquire.totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    PoolUsage since(PoolUsage before) {
+      return new PoolUsage(acquired - before.acquired, heldMillis - before.heldMillis,
+          waitedMillis - before.waitedMillis);
+    }
+
+    void print(String label, int seconds) {
+      System.out.printf("%s: %d connections acquired, %.2f busy on average, each held %.2f ms after waiting %.2f ms%n",
+          label, acquired, heldMillis / (seconds * 1000.0), heldMillis / Math.max(1, acquired),
+          waitedMillis / Math.max(1, acquired));
+    }
+  }
+}
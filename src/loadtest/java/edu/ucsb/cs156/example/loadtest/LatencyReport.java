@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Latency samples per endpoint, kept per worker thread while the test runs
+// and merged once at the end, so recording a request is an array store.
+
+public class LatencyReport {
+
+  @Data
+  @AllArgsConstructor
+  public static class EndpointStats {
+    private String endpoint;
+    private long requests;
+    private long errors;
+    private double requestsPerSecond;
+    private double p50Millis;
+    private double p99Millis;
+    private double maxMillis;
+  }
+
+  public static class Samples {
+    private final Map<String, long[]> nanos = new TreeMap<>();
+    private final Map<String, Integer> counts = new TreeMap<>();
+    private final Map<String, Long> errors = new TreeMap<>();
+
+    public void record(String endpoint, long elapsedNanos, boolean error) {
+      long[] values = nanos.computeIfAbsent(endpoint, k -> new long[1024]);
+      int count = counts.getOrDefault(endpoint, 0);
+      if (count == values.length) {
+        values = Arrays.copyOf(values, values.length * 2);
+        nanos.put(endpoint, values);
+      }
+      values[count] = elapsedNanos;
+      counts.put(endpoint, count + 1);
+      if (error) {
+        errors.merge(endpoint, 1L, Long::sum);
+      }
+    }
+  }
+
+  public static Map<String, EndpointStats> summarize(List<Samples> perWorker, double seconds) {
+    Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    TreeMap<String, long[]> merged = new TreeMap<>();
+    TreeMap<String, Long> errors = new TreeMap<>();
+    for (Samples samples : perWorker) {
+      samples.nanos.forEach((endpoint, values) -> {
+        long[] own = Arrays.copyOf(values, samples.counts.get(endpoint));
+        merged.merge(endpoint, own, LatencyReport::concat);
+      });
+      samples.errors.forEach((endpoint, count) -> errors.merge(endpoint, count, Long::sum));
+    }
+    merged.forEach((endpoint, values) -> {
+      Arrays.sort(values);
+      stats.put(endpoint, new EndpointStats(endpoint, values.length, errors.getOrDefault(endpoint, 0L),
+          values.length / seconds, millis(percentile(values, 0.50)), millis(percentile(values, 0.99)),
+          millis(values[values.length - 1])));
+    });
+    return stats;
+  }
+
+  public static String format(Map<String, EndpointStats> stats) {
+    StringBuilder out = new StringBuilder();
+    out.append("%-55s %9s %7s %9s %9s %9s %9s%n".formatted(
+        "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms"));
+    for (EndpointStats s : stats.values()) {
+      out.append("%-55s %9d %7d %9.1f %9.2f %9.2f %9.2f%n".formatted(s.getEndpoint(), s.getRequests(),
+          s.getErrors(), s.getRequestsPerSecond(), s.getP50Millis(), s.getP99Millis(), s.getMaxMillis()));
+    }
+    return out.toString();
+  }
+
+  private static long[] concat(long[] a, long[] b) {
+    long[] both = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, both, a.length, b.length);
+    return both;
+  }
+
+  // nearest-rank percentile of a sorted array
+  private static long percentile(long[] sorted, double p) {
+    int rank = (int) Math.ceil(p * sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
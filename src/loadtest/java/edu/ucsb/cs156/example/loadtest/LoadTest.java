@@ -0,0 +1,293 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oauth2Login;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// Offline load test: boots the application on an in-memory H2 database,
+// seeds every table, then has a pool of workers send a read/write mix to
+// every /api controller through the full Spring Security filter chain as a
+// logged-in admin (a mocked Google OAuth2 login).  Prints p50/p99 latency
+// and throughput per endpoint and writes the same numbers as JSON.
+//
+// Settings are system properties, see the loadtest profile in pom.xml:
+//   loadtest.rows            rows seeded per table (default 1000)
+//   loadtest.rows.<Entity>   rows for one table, e.g. loadtest.rows.HelpRequest
+//   loadtest.threads         concurrent workers (default 8)
+//   loadtest.warmupSeconds   traffic sent before measuring (default 10)
+//   loadtest.seconds         measured duration (default 30)
+//   loadtest.writeRatio      share of requests that are writes (default 0.1)
+//   loadtest.report          JSON report file (default target/loadtest-report.json)
+
+public class LoadTest {
+
+  private record Operation(String name, Function<ThreadLocalRandom, MockHttpServletRequestBuilder> request) {}
+
+  private final List<Operation> reads = new ArrayList<>();
+  private final List<Operation> writes = new ArrayList<>();
+
+  private final MockMvc mockMvc;
+  private final ObjectMapper mapper;
+  private final RequestPostProcessor login;
+  private final double writeRatio;
+
+  private static final LocalDateTime START = LocalDateTime.of(2022, 1, 3, 0, 0);
+
+  LoadTest(ConfigurableApplicationContext context, double writeRatio) {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).apply(springSecurity()).build();
+    this.mapper = context.getBean(ObjectMapper.class);
+    this.writeRatio = writeRatio;
+    this.login = oauth2Login()
+        .attributes(attrs -> {
+          attrs.put("sub", "loadtest-sub");
+          attrs.put("email", "loadtest@ucsb.edu");
+          attrs.put("name", "Load Test");
+          attrs.put("given_name", "Load");
+          attrs.put("family_name", "Test");
+          attrs.put("email_verified", true);
+          attrs.put("hd", "ucsb.edu");
+        })
+        .authorities(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+  }
+
+  public static void main(String[] args) throws Exception {
+    int threads = Integer.getInteger("loadtest.threads", 8);
+    int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+    int seconds = Integer.getInteger("loadtest.seconds", 30);
+    double writeRatio = Double.parseDouble(System.getProperty("loadtest.writeRatio", "0.1"));
+    File report = new File(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+
+    ConfigurableApplicationContext context = LoadTestApplication.start();
+    try {
+      LoadTest loadTest = new LoadTest(context, writeRatio);
+      loadTest.seed(context);
+
+      System.out.printf("warming up for %ds with %d threads%n", warmupSeconds, threads);
+      loadTest.run(threads, warmupSeconds);
+      System.out.printf("measuring for %ds with %d threads, write ratio %.2f%n", seconds, threads, writeRatio);
+      Map<String, LatencyReport.EndpointStats> stats = LatencyReport.summarize(loadTest.run(threads, seconds), seconds);
+
+      System.out.print(LatencyReport.format(stats));
+      report.getAbsoluteFile().getParentFile().mkdirs();
+      loadTest.mapper.writerWithDefaultPrettyPrinter().writeValue(report, stats.values());
+      System.out.println("report written to " + report);
+    } finally {
+      context.close();
+    }
+  }
+
+  static int rows(String entity) {
+    return Integer.getInteger("loadtest.rows." + entity, Integer.getInteger("loadtest.rows", 1000));
+  }
+
+  private static <T> List<T> saveAll(CrudRepository<T, ?> repository, String entity, IntFunction<T> factory) {
+    List<T> rows = new ArrayList<>();
+    for (int i = 0; i < rows(entity); i++) {
+      rows.add(factory.apply(i));
+    }
+    List<T> saved = new ArrayList<>();
+    repository.saveAll(rows).forEach(saved::add);
+    System.out.printf("seeded %d %s rows%n", saved.size(), entity);
+    return saved;
+  }
+
+  private static <T> T pick(List<T> rows, ThreadLocalRandom random) {
+    return rows.get(random.nextInt(rows.size()));
+  }
+
+  private String json(Object value) {
+    try {
+      return mapper.writeValueAsString(value);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void read(String name, Function<ThreadLocalRandom, MockHttpServletRequestBuilder> request) {
+    reads.add(new Operation(name, request));
+  }
+
+  private void write(String name, Function<ThreadLocalRandom, MockHttpServletRequestBuilder> request) {
+    writes.add(new Operation(name, request));
+  }
+
+  // the standard /all, /paged, by-id, /post and PUT operations of a CRUD controller
+  private <T> void crud(String path, List<T> seeded, Function<T, Object> idOf, String idParam,
+      Function<ThreadLocalRandom, MockHttpServletRequestBuilder> create) {
+    read("GET " + path + "/all", r -> get(path + "/all"));
+    read("GET " + path + "/paged", r -> get(path + "/paged").param("size", "50"));
+    read("GET " + path + "?" + idParam, r -> get(path).param(idParam, idOf.apply(pick(seeded, r)).toString()));
+    if (create != null) {
+      write("POST " + path + "/post", create);
+    }
+    write("PUT " + path + "?" + idParam, r -> {
+      T row = pick(seeded, r);
+      return put(path).param(idParam, idOf.apply(row).toString())
+          .contentType(MediaType.APPLICATION_JSON).content(json(row));
+    });
+  }
+
+  void seed(ConfigurableApplicationContext context) {
+    List<UCSBDiningCommons> commons = saveAll(context.getBean(UCSBDiningCommonsRepository.class), "UCSBDiningCommons",
+        i -> UCSBDiningCommons.builder().code("dc" + i).name("Dining Commons " + i).hasSackMeal(i % 2 == 0)
+            .hasTakeOutMeal(i % 3 == 0).hasDiningCam(true).latitude(34.4 + i * 0.0001).longitude(-119.8 - i * 0.0001)
+            .build());
+    crud("/api/ucsbdiningcommons", commons, c -> c.getCode(), "code", null);
+
+    List<UCSBOrganization> orgs = saveAll(context.getBean(UCSBOrganizationRepository.class), "UCSBOrganization",
+        i -> UCSBOrganization.builder().orgCode("ORG" + i).orgTranslationShort("Org " + i)
+            .orgTranslation("Organization number " + i).inactive(i % 7 == 0).build());
+    crud("/api/ucsborganization", orgs, o -> o.getOrgCode(), "id", null);
+
+    List<UCSBDiningCommonsMenuItem> menuItems = saveAll(context.getBean(UCSBDiningCommonsMenuItemRepository.class),
+        "UCSBDiningCommonsMenuItem", i -> UCSBDiningCommonsMenuItem.builder().diningCommonsCode("dc" + (i % 4))
+            .name("Menu item " + i).station("station " + (i % 6)).build());
+    crud("/api/UCSBDiningCommonsMenuItem", menuItems, m -> m.getId(), "id",
+        r -> post("/api/UCSBDiningCommonsMenuItem/post").param("diningCommonsCode", "dc" + r.nextInt(4))
+            .param("name", "Menu item").param("station", "station"));
+    read("GET /api/UCSBDiningCommonsMenuItem/commons",
+        r -> get("/api/UCSBDiningCommonsMenuItem/commons").param("diningCommonsCode", "dc" + r.nextInt(4)));
+
+    List<UCSBDate> dates = saveAll(context.getBean(UCSBDateRepository.class), "UCSBDate",
+        i -> UCSBDate.builder().quarterYYYYQ("2022" + (i % 4 + 1)).name("date " + i)
+            .localDateTime(START.plusHours(i)).build());
+    crud("/api/ucsbdates", dates, d -> d.getId(), "id",
+        r -> post("/api/ucsbdates/post").param("quarterYYYYQ", "20221").param("name", "new date")
+            .param("localDateTime", START.toString()));
+    read("GET /api/ucsbdates/quarter",
+        r -> get("/api/ucsbdates/quarter").param("quarterYYYYQ", "2022" + (r.nextInt(4) + 1)));
+
+    List<HelpRequest> helpRequests = saveAll(context.getBean(HelpRequestRepository.class), "HelpRequest",
+        i -> HelpRequest.builder().requesterEmail("user" + (i % 100) + "@ucsb.edu").teamId("team" + (i % 8))
+            .tableOrBreakoutRoom("table " + (i % 10)).requestTime(START.plusMinutes(i)).explanation("help " + i)
+            .solved(i % 2 == 0).build());
+    crud("/api/HelpRequest", helpRequests, h -> h.getId(), "id",
+        r -> post("/api/HelpRequest/post").param("requesterEmail", "user" + r.nextInt(100) + "@ucsb.edu")
+            .param("teamId", "team1").param("tableOrBreakoutRoom", "table 1").param("requestTime", START.toString())
+            .param("explanation", "help").param("solved", "false"));
+    read("GET /api/HelpRequest/requester",
+        r -> get("/api/HelpRequest/requester").param("requesterEmail", "user" + r.nextInt(100) + "@ucsb.edu"));
+
+    List<RecommendationRequest> recommendationRequests = saveAll(
+        context.getBean(RecommendationRequestRepository.class), "RecommendationRequest",
+        i -> RecommendationRequest.builder().requesterEmail("user" + (i % 100) + "@ucsb.edu")
+            .professorEmail("prof" + (i % 20) + "@ucsb.edu").explanation("grad school " + i).dateRequested(START)
+            .dateNeeded(START.plusDays(i % 30)).done(i % 3 == 0).build());
+    crud("/api/RecommendationRequest", recommendationRequests, rr -> rr.getId(), "id",
+        r -> post("/api/RecommendationRequest/post").param("requesterEmail", "user" + r.nextInt(100) + "@ucsb.edu")
+            .param("professorEmail", "prof1@ucsb.edu").param("explanation", "grad school")
+            .param("dateRequested", START.toString()).param("dateNeeded", START.plusDays(7).toString())
+            .param("done", "false"));
+
+    List<MenuItemReview> reviews = saveAll(context.getBean(MenuItemReviewRepository.class), "MenuItemReview",
+        i -> MenuItemReview.builder().itemId(i % 50).reviewerEmail("user" + (i % 100) + "@ucsb.edu")
+            .stars(i % 5 + 1).dateReviewed(START.plusMinutes(i)).comments("review " + i).build());
+    crud("/api/MenuItemReview", reviews, m -> m.getId(), "id",
+        r -> post("/api/MenuItemReview/post").param("itemId", Integer.toString(r.nextInt(50)))
+            .param("reviewerEmail", "user1@ucsb.edu").param("stars", Integer.toString(r.nextInt(5) + 1))
+            .param("dateReviewed", START.toString()).param("comments", "tasty"));
+    read("GET /api/MenuItemReview/item",
+        r -> get("/api/MenuItemReview/item").param("itemId", Integer.toString(r.nextInt(50))));
+
+    List<Articles> articles = saveAll(context.getBean(ArticlesRepository.class), "Articles",
+        i -> Articles.builder().title("Article " + i).url("https://example.org/" + i).explanation("about " + i)
+            .email("user" + (i % 100) + "@ucsb.edu").dateAdded(LocalDate.of(2022, 1, 3)).build());
+    crud("/api/articles", articles, a -> a.getId(), "id",
+        r -> post("/api/articles/post").param("title", "Article").param("url", "https://example.org")
+            .param("explanation", "about").param("email", "user1@ucsb.edu").param("dateAdded", "2022-01-03"));
+
+    saveAll(context.getBean(UserRepository.class), "User",
+        i -> User.builder().email("user" + i + "@ucsb.edu").googleSub("sub" + i).fullName("User " + i)
+            .givenName("User").familyName("" + i).emailVerified(true).locale("en").hostedDomain("ucsb.edu")
+            .admin(i % 10 == 0).build());
+    read("GET /api/admin/users", r -> get("/api/admin/users"));
+    read("GET /api/currentUser", r -> get("/api/currentUser"));
+  }
+
+  List<LatencyReport.Samples> run(int threads, int seconds) throws Exception {
+    long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<LatencyReport.Samples>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(pool.submit(() -> worker(deadline)));
+      }
+      List<LatencyReport.Samples> results = new ArrayList<>();
+      for (Future<LatencyReport.Samples> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private LatencyReport.Samples worker(long deadline) {
+    LatencyReport.Samples samples = new LatencyReport.Samples();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    while (System.nanoTime() < deadline) {
+      boolean isWrite = random.nextDouble() < writeRatio;
+      Operation operation = pick(isWrite ? writes : reads, random);
+      MockHttpServletRequestBuilder request = operation.request().apply(random).with(login);
+      if (isWrite) {
+        request.with(csrf());
+      }
+      long start = System.nanoTime();
+      boolean error;
+      try {
+        error = mockMvc.perform(request).andReturn().getResponse().getStatus() >= 400;
+      } catch (Exception e) {
+        error = true;
+      }
+      samples.record(operation.name(), System.nanoTime() - start, error);
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+// Boots the same beans as ExampleApplication with the development profile,
+// minus the test configuration that is also on the load test classpath.
+// The development H2 file database is swapped for an in-memory one so that
+// every run starts from the same freshly migrated, freshly seeded state.
+
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@AutoConfigurationPackage(basePackageClasses = ExampleApplication.class)
+@ComponentScan(basePackageClasses = ExampleApplication.class, excludeFilters = {
+    @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ExampleApplication.class),
+    @ComponentScan.Filter(type = FilterType.REGEX, pattern = "edu\\.ucsb\\.cs156\\.example\\.(testconfig|loadtest)\\..*")
+})
+public class LoadTestApplication {
+
+  public static ConfigurableApplicationContext start() {
+    return start("loadtest", List.of());
+  }
+
+  // extraArgs are further --name=value settings; sources are extra
+  // configuration classes to register alongside the application
+  public static ConfigurableApplicationContext start(String database, List<Class<?>> sources, String... extraArgs) {
+    String url = "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    // devtools would otherwise rerun the application in a restart classloader
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    List<String> args = new ArrayList<>(List.of(
+        "--spring.profiles.active=development",
+        "--server.port=0",
+        "--spring.datasource.url=" + url,
+        "--spring.liquibase.url=" + url,
+        "--logging.level.root=WARN",
+        "--logging.level.sql=WARN",
+        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+    args.addAll(List.of(extraArgs));
+    // passed as command line arguments so they override the properties files
+    return new SpringApplicationBuilder(LoadTestApplication.class)
+        .sources(sources.toArray(Class<?>[]::new))
+        .run(args.toArray(String[]::new));
+  }
+}
@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.serializer.support.SerializationDelegate;
+
+// Bounded in-process caches for the reference-data repositories (see the
+// @Cacheable/@CacheEvict annotations on UCSBDiningCommonsRepository and
+// UCSBOrganizationRepository).  Size and TTL come from a Caffeine spec in
+// app.referenceDataCache.spec; hit/miss/eviction counts are published as the
+// cache.* meters, tagged with the cache name.
+//
+// The caches store values, not the entities themselves: a value is
+// serialized when it is cached and read back as a new object on every hit
+// (as ConcurrentMapCacheManager.setStoreByValue does).  So the cache never
+// holds an entity attached to the persistence context that loaded it, and
+// no two requests share one, or can change what the other reads.  The rows
+// are few and small, so the copy costs far less than the query it saves.
+//
+// The manager is transaction aware: an eviction made inside a transaction
+// (e.g. by BulkWriteService) is applied after the commit, so a concurrent
+// read cannot put the old rows back into the cache in between.
+
+@Configuration
+@EnableCaching
+public class CachingConfig {
+
+  public static final String DINING_COMMONS = "ucsbdiningcommons";
+  public static final String ORGANIZATIONS = "ucsborganization";
+
+  @Bean
+  public CacheManager cacheManager(@Value("${app.referenceDataCache.spec}") String spec,
+      MeterRegistry meterRegistry) {
+    CaffeineCacheManager caffeine = new CaffeineCacheManager() {
+      @Override
+      protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+        return new StoreByValueCache(name, cache, isAllowNullValues());
+      }
+    };
+    caffeine.setCacheSpecification(spec);
+    caffeine.setCacheNames(List.of(DINING_COMMONS, ORGANIZATIONS));
+    for (String name : caffeine.getCacheNames()) {
+      CaffeineCache cache = (CaffeineCache) caffeine.getCache(name);
+      CaffeineCacheMetrics.monitor(meterRegistry, cache.getNativeCache(), name);
+    }
+    return new TransactionAwareCacheManagerProxy(caffeine);
+  }
+
+  static class StoreByValueCache extends CaffeineCache {
+
+    private final SerializationDelegate serialization = new SerializationDelegate(getClass().getClassLoader());
+
+    StoreByValueCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+      super(name, cache, allowNullValues);
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+      try {
+        return serialization.serializeToByteArray(super.toStoreValue(userValue));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+      try {
+        return super.fromStoreValue(serialization.deserializeFromByteArray((byte[]) storeValue));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Reads an application/x-ndjson request body (one JSON document per line)
+ * into a List, so the /bulk endpoints accept the same payload either as a
+ * JSON array or as newline-delimited JSON.  Read-only.
+ */
+public class NdjsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+  private final ObjectMapper mapper;
+
+  public NdjsonHttpMessageConverter(ObjectMapper mapper) {
+    super(MediaType.APPLICATION_NDJSON);
+    this.mapper = mapper;
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return Collection.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return javaType(type, contextClass).isCollectionLikeType() && canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+      throws IOException, HttpMessageNotReadableException {
+    JavaType elementType = javaType(type, contextClass).getContentType();
+    List<Object> rows = new ArrayList<>();
+    try (MappingIterator<Object> it = mapper.readerFor(elementType).readValues(inputMessage.getBody())) {
+      while (it.hasNext()) {
+        rows.add(it.next());
+      }
+    } catch (IOException e) {
+      throw new HttpMessageNotReadableException("Invalid NDJSON: " + e.getMessage(), e, inputMessage);
+    }
+    return rows;
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+      throws IOException, HttpMessageNotReadableException {
+    return read(clazz, null, inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(Object o, Type type, HttpOutputMessage outputMessage)
+      throws IOException, HttpMessageNotWritableException {
+    throw new HttpMessageNotWritableException("NDJSON output is not supported by this converter");
+  }
+
+  private JavaType javaType(Type type, Class<?> contextClass) {
+    return mapper.constructType(GenericTypeResolver.resolveType(type, contextClass));
+  }
+}
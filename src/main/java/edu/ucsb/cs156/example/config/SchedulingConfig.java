@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Runs the @Scheduled maintenance jobs, e.g. MenuItemRatingService.rebuild().
+// Spring Boot's auto-configured scheduler has a single thread, so jobs never
+// overlap each other.
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+// Bounded pools for the services that hand work to background threads.  The
+// context starts them and shuts them down (interrupting whatever is still
+// running), and a pool that is full rejects new work with a
+// TaskRejectedException, which ApiController turns into a 503, rather than
+// growing without limit.
+
+@Configuration
+public class TaskExecutorsConfig {
+
+  // Spring Boot only creates its applicationTaskExecutor (used for async MVC
+  // work such as the streaming endpoints) when there is no other Executor
+  // bean, so with the pools below it has to be declared here, the same way
+  // Boot would; VirtualThreadsConfig declares it instead when enabled.
+  @Lazy
+  @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+      AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+  @ConditionalOnProperty(name = "app.virtualThreads.enabled", havingValue = "false", matchIfMissing = true)
+  public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+    return builder.build();
+  }
+
+  // One writer thread per import in progress (see ImportService).  There is
+  // no queue: an import that can't start at once is refused, since waiting
+  // would hold its request thread and upload open anyway.
+  @Bean
+  public ThreadPoolTaskExecutor importExecutor(@Value("${app.import.maxConcurrent:4}") int maxConcurrent) {
+    return boundedPool("import-writer-", maxConcurrent, 0);
+  }
+
+  // Sends the help request feed's events (see HelpRequestEventFeed).  Each
+  // subscriber queues at most one drain at a time, so the queue only fills
+  // when more than threads + queueCapacity subscribers are behind at once;
+  // the feed then disconnects the ones it can't schedule.
+  @Bean
+  public ThreadPoolTaskExecutor helpRequestFeedExecutor(
+      @Value("${app.helpRequestFeed.senderThreads:8}") int threads,
+      @Value("${app.helpRequestFeed.senderQueue:1000}") int queueCapacity) {
+    return boundedPool("help-request-feed-", threads, queueCapacity);
+  }
+
+  static ThreadPoolTaskExecutor boundedPool(String threadNamePrefix, int threads, int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(threadNamePrefix);
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setDaemon(true);
+    return executor;
+  }
+}
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+// Opt-in (app.virtualThreads.enabled=true): Tomcat runs every request on a
+// new virtual thread instead of its pool of 200 platform threads, and the
+// same executor replaces applicationTaskExecutor for async MVC work such as
+// the streaming endpoints.  A request blocked on JDBC then costs a few
+// hundred bytes rather than a whole thread; the Hikari pool and the bulkhead
+// in front of it (DatabaseConfig) are what limit concurrent database work.
+//
+// Virtual threads need a Java 21 runtime.  This project builds and runs on
+// Java 17, where there are none: the executor is looked up reflectively and
+// enabling this fails startup with a clear message, so on 17 the only
+// working setting is the default, false, and this class does nothing.
+
+@Configuration
+@ConditionalOnProperty(name = "app.virtualThreads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor() {
+    return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor(Executors.class));
+  }
+
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsTomcatCustomizer(
+      AsyncTaskExecutor applicationTaskExecutor) {
+    return factory -> factory.addProtocolHandlerCustomizers(protocol -> protocol.setExecutor(applicationTaskExecutor));
+  }
+
+  static Executor newVirtualThreadPerTaskExecutor(Class<?> executors) {
+    try {
+      return (Executor) executors.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("app.virtualThreads.enabled=true needs Java 21 or later; running on Java "
+          + Runtime.version().feature(), e);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.interceptors.RequestMetricsInterceptor;
+import edu.ucsb.cs156.example.models.ExportFormat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.CacheControl;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+  // The React build puts a content hash in every file name under /static,
+  // so those can be cached for a year and never revalidated.  Everything
+  // else (index.html above all) uses the no-cache default from
+  // application.properties.  CacheControl has no immutable() until Spring 6,
+  // hence the subclass.
+  public static final CacheControl HASHED_ASSET_CACHE_CONTROL = new CacheControl() {
+    @Override
+    public String getHeaderValue() {
+      return "max-age=%d, public, immutable".formatted(Duration.ofDays(365).toSeconds());
+    }
+  };
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  RequestMetricsInterceptor requestMetricsInterceptor;
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new NdjsonHttpMessageConverter(mapper));
+  }
+
+  // lets the /export endpoints take ?format=csv as well as ?format=CSV
+  @Override
+  public void addFormatters(FormatterRegistry registry) {
+    registry.addConverter(String.class, ExportFormat.class,
+        value -> ExportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(requestMetricsInterceptor);
+  }
+
+  @Override
+  public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    registry.addResourceHandler("/static/**")
+        .addResourceLocations("classpath:/public/static/")
+        .setCacheControl(HASHED_ASSET_CACHE_CONTROL)
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver());
+  }
+}
@@ -4,13 +4,25 @@ import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 public abstract class ApiController {
@@ -25,6 +37,40 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  public static final int MAX_PAGE_SIZE = 500;
+
+  protected Pageable keysetPageable(int size) {
+    return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+  }
+
+  protected <T> KeysetPage<T> keysetPage(List<T> content, Pageable pageable, Function<T, ?> cursorOf) {
+    String nextCursor = null;
+    if (content.size() == pageable.getPageSize()) {
+      nextCursor = cursorOf.apply(content.get(content.size() - 1)).toString();
+    }
+    return KeysetPage.<T>builder()
+      .content(content)
+      .nextCursor(nextCursor)
+      .build();
+  }
+
+  // Browsers may keep reference data but must revalidate it on every use,
+  // which costs a 304 as long as the table has not changed.
+  public static final CacheControl REFERENCE_DATA_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+  protected <T> ResponseEntity<T> conditionalGet(WebRequest request, String etag, Supplier<T> body) {
+    if (request.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .cacheControl(REFERENCE_DATA_CACHE_CONTROL)
+        .eTag(etag)
+        .build();
+    }
+    return ResponseEntity.ok()
+      .cacheControl(REFERENCE_DATA_CACHE_CONTROL)
+      .eTag(etag)
+      .body(body.get());
+  }
+
   @ExceptionHandler({ EntityNotFoundException.class })
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public Object handleGenericException(Throwable e) {
@@ -33,4 +79,14 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  // a bounded background pool (see TaskExecutorsConfig) is full, or no
+  // database connection could be had (see DatabaseConfig): the first when a
+  // transaction begins, the second for a query run outside one
+  @ExceptionHandler({ TaskRejectedException.class, CannotCreateTransactionException.class,
+      DataAccessResourceFailureException.class })
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public Object handleTaskRejectedException(Throwable e) {
+    return handleGenericException(e);
+  }
 }
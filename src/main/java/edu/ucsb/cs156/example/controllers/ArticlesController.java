@@ -3,6 +3,14 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.models.ArticleSearchResults;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.services.ArticleSearchService;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,11 +30,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.io.IOException;
 
 @Tag(name = "Articles")
 @RequestMapping("/api/articles")
@@ -37,6 +52,18 @@ public class ArticlesController extends ApiController {
     @Autowired
     ArticlesRepository articlesRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    SingleRowWriteService singleRowWriteService;
+
+    @Autowired
+    EntityStreamingService entityStreamingService;
+
+    @Autowired
+    ArticleSearchService articleSearchService;
+
     @Operation(summary= "List all articles")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -45,6 +72,28 @@ public class ArticlesController extends ApiController {
         return articles;
     }
 
+    @Operation(summary= "List articles one page at a time, ordered by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<Articles> pagedArticles(
+            @Parameter(name="cursor") @RequestParam(defaultValue="0") long cursor,
+            @Parameter(name="size") @RequestParam(defaultValue="50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<Articles> articles = articlesRepository.findByIdGreaterThanOrderByIdAsc(cursor, pageable);
+        return keysetPage(articles, pageable, Articles::getId);
+    }
+
+    @Operation(summary= "Search the titles, explanations and emails of the articles, best matches first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public ArticleSearchResults searchArticles(
+            @Parameter(name="q", description="words that must all match; end a word with * to match it as a prefix") @RequestParam String q,
+            @Parameter(name="page", description="0-based") @RequestParam(defaultValue="0") int page,
+            @Parameter(name="size") @RequestParam(defaultValue="20") int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return articleSearchService.search(q, pageable);
+    }
+
     @Operation(summary= "Create a new article")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -66,6 +115,7 @@ public class ArticlesController extends ApiController {
         articles.setDateAdded(dateAdded);
 
         Articles savedArticles = articlesRepository.save(articles);
+        articleSearchService.indexed(savedArticles);
         return savedArticles;
     }
 
@@ -85,9 +135,8 @@ public class ArticlesController extends ApiController {
     @DeleteMapping("")
     public Object deleteArticles(
             @Parameter(name="id") @RequestParam Long id) {
-                Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
-                articlesRepository.delete(articles);
+        singleRowWriteService.writeRow(Articles.class, id, () -> articlesRepository.deleteRowById(id));
+        articleSearchService.removed(id);
         return genericMessage("Articles with id %s deleted".formatted(id));
     }
 
@@ -98,14 +147,56 @@ public class ArticlesController extends ApiController {
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid Articles incoming) {
 
-                Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
-            articles.setTitle(incoming.getTitle());
-            articles.setUrl(incoming.getUrl());
-            articles.setExplanation(incoming.getExplanation());
-            articles.setEmail(incoming.getEmail());
-            articles.setDateAdded(incoming.getDateAdded());
-            articlesRepository.save(articles);
-        return articles;
+        incoming.setId(id);
+        singleRowWriteService.writeRow(Articles.class, id, () -> articlesRepository.updateRowById(id,
+                incoming.getTitle(), incoming.getUrl(), incoming.getExplanation(), incoming.getEmail(),
+                incoming.getDateAdded()));
+        articleSearchService.indexed(incoming);
+        return incoming;
+    }
+
+    @Operation(summary= "Create many articles in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostArticles(
+            @RequestBody List<Articles> incoming) {
+        incoming.forEach(row -> row.setId(0));
+        List<Articles> created = new ArrayList<>();
+        BulkReport report = bulkWriteService.createAll(articlesRepository, incoming, Articles::getId, created::addAll);
+        created.forEach(articleSearchService::indexed);
+        return report;
+    }
+
+    @Operation(summary= "Update many articles in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateArticles(
+            @RequestBody List<Articles> incoming) {
+        List<Articles> updated = new ArrayList<>();
+        BulkReport report = bulkWriteService.updateAll(articlesRepository, incoming, Articles::getId, updated::addAll);
+        updated.forEach(articleSearchService::indexed);
+        return report;
+    }
+
+    @Operation(summary= "Delete many articles by id in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteArticles(
+            @RequestBody List<Long> ids) {
+        List<Long> deleted = new ArrayList<>();
+        BulkReport report = bulkWriteService.deleteAll(articlesRepository, ids, Articles::getId, deleted::addAll);
+        deleted.forEach(articleSearchService::removed);
+        return report;
+    }
+
+    @Operation(summary= "Export all articles in id order, streamed as NDJSON (default) or CSV")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/export")
+    public void exportArticles(
+            @Parameter(name="format", description="ndjson or csv") @RequestParam(defaultValue = "ndjson") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, format.attachment("articles"));
+        entityStreamingService.export(format, Articles.class, articlesRepository::streamAllByOrderByIdAsc, response.getOutputStream());
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,15 @@ import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.HelpRequestQueueView;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.HelpRequestEventFeed;
+import edu.ucsb.cs156.example.services.HelpRequestQueue;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,13 +30,22 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.io.IOException;
 
 @Tag(name = "HelpRequest")
 @RequestMapping("/api/HelpRequest")
@@ -38,6 +56,21 @@ public class HelpRequestController extends ApiController {
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    SingleRowWriteService singleRowWriteService;
+
+    @Autowired
+    EntityStreamingService entityStreamingService;
+
+    @Autowired
+    HelpRequestQueue helpRequestQueue;
+
+    @Autowired
+    HelpRequestEventFeed helpRequestEventFeed;
+
     @Operation(summary= "List all help request")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -46,6 +79,49 @@ public class HelpRequestController extends ApiController {
         return dates;
     }
 
+    @Operation(summary= "List help requests one page at a time, ordered by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<HelpRequest> pagedHelpRequests(
+            @Parameter(name="cursor") @RequestParam(defaultValue="0") long cursor,
+            @Parameter(name="size") @RequestParam(defaultValue="50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<HelpRequest> helpRequests = helpRequestRepository.findByIdGreaterThanOrderByIdAsc(cursor, pageable);
+        return keysetPage(helpRequests, pageable, HelpRequest::getId);
+    }
+
+    @Operation(summary= "List the help requests made by one requester")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/requester")
+    public Iterable<HelpRequest> allHelpRequestsByRequester(
+            @Parameter(name="requesterEmail") @RequestParam String requesterEmail) {
+        return helpRequestRepository.findAllByRequesterEmail(requesterEmail);
+    }
+
+    @Operation(summary= "List help requests by solved status")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/solved")
+    public Iterable<HelpRequest> allHelpRequestsBySolved(
+            @Parameter(name="solved") @RequestParam boolean solved) {
+        return helpRequestRepository.findAllBySolved(solved);
+    }
+
+    @Operation(summary= "List the unsolved help requests in request order, or only the changes since an earlier poll")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/queue")
+    public HelpRequestQueueView helpRequestQueue(
+            @Parameter(name="since", description="the cursor from the previous poll; omit for the whole queue") @RequestParam(required = false) String since) {
+        return helpRequestQueue.view(since);
+    }
+
+    @Operation(summary= "Stream help request changes as Server-Sent Events (created, updated, deleted, reset)")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter helpRequestEvents(
+            @Parameter(name="Last-Event-ID", description="sent by the browser when it reconnects, to resume after that event") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return helpRequestEventFeed.subscribe(lastEventId);
+    }
+
     @Operation(summary= "Create a new help request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -71,7 +147,9 @@ public class HelpRequestController extends ApiController {
         helpRequest.setExplanation(explanation);
         helpRequest.setSolved(solved);
 
-        HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
+        HelpRequest savedHelpRequest = singleRowWriteService.createRow(
+                () -> helpRequestRepository.save(helpRequest), helpRequestQueue::saved);
+        helpRequestEventFeed.created(savedHelpRequest);
 
         return savedHelpRequest;
     }
@@ -92,32 +170,80 @@ public class HelpRequestController extends ApiController {
     @PutMapping("")
     public HelpRequest updateHelpRequest(
             @Parameter(name="id") @RequestParam Long id,
-            @RequestBody @Valid HelpRequest incoming) {
-
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        helpRequest.setRequesterEmail(incoming.getRequesterEmail());
-        helpRequest.setTeamId(incoming.getTeamId());
-        helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-        helpRequest.setRequestTime(incoming.getRequestTime());
-        helpRequest.setExplanation(incoming.getExplanation());
-        helpRequest.setSolved(incoming.getSolved());
+            @RequestBody @Valid HelpRequest incoming) throws JsonProcessingException {
 
-        helpRequestRepository.save(helpRequest);
+        incoming.setId(id);
+        singleRowWriteService.writeRow(HelpRequest.class, id, () -> helpRequestRepository.updateRowById(id,
+                incoming.getRequesterEmail(), incoming.getTeamId(), incoming.getTableOrBreakoutRoom(),
+                incoming.getRequestTime(), incoming.getExplanation(), incoming.getSolved()),
+                () -> helpRequestQueue.saved(incoming));
+        helpRequestEventFeed.updated(incoming);
 
-        return helpRequest;
+        return incoming;
     }
 
     @Operation(summary= "Delete a help request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteHelpRequest(
-            @Parameter(name="id") @RequestParam Long id) {
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        helpRequestRepository.delete(helpRequest);
+            @Parameter(name="id") @RequestParam Long id) throws JsonProcessingException {
+        singleRowWriteService.writeRow(HelpRequest.class, id, () -> helpRequestRepository.deleteRowById(id),
+                () -> helpRequestQueue.removed(id));
+        helpRequestEventFeed.deleted(id);
         return genericMessage("HelpRequest with id %s deleted".formatted(id));
     }
+
+    @Operation(summary= "Create many help requests in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostHelpRequests(
+            @RequestBody List<HelpRequest> incoming) throws JsonProcessingException {
+        incoming.forEach(row -> row.setId(0));
+        List<HelpRequest> created = new ArrayList<>();
+        BulkReport report = bulkWriteService.createAll(helpRequestRepository, incoming, HelpRequest::getId, rows -> {
+            helpRequestQueue.savedAll(rows);
+            created.addAll(rows);
+        });
+        helpRequestEventFeed.createdAll(created);
+        return report;
+    }
+
+    @Operation(summary= "Update many help requests in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateHelpRequests(
+            @RequestBody List<HelpRequest> incoming) throws JsonProcessingException {
+        List<HelpRequest> updated = new ArrayList<>();
+        BulkReport report = bulkWriteService.updateAll(helpRequestRepository, incoming, HelpRequest::getId, rows -> {
+            helpRequestQueue.savedAll(rows);
+            updated.addAll(rows);
+        });
+        helpRequestEventFeed.updatedAll(updated);
+        return report;
+    }
+
+    @Operation(summary= "Delete many help requests by id in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteHelpRequests(
+            @RequestBody List<Long> ids) throws JsonProcessingException {
+        List<Long> deleted = new ArrayList<>();
+        BulkReport report = bulkWriteService.deleteAll(helpRequestRepository, ids, HelpRequest::getId, rows -> {
+            helpRequestQueue.removedAll(rows);
+            deleted.addAll(rows);
+        });
+        helpRequestEventFeed.deletedAll(deleted);
+        return report;
+    }
+
+    @Operation(summary= "Export all help requests in id order, streamed as NDJSON (default) or CSV")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/export")
+    public void exportHelpRequests(
+            @Parameter(name="format", description="ndjson or csv") @RequestParam(defaultValue = "ndjson") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, format.attachment("helprequests"));
+        entityStreamingService.export(format, HelpRequest.class, helpRequestRepository::streamAllByOrderByIdAsc, response.getOutputStream());
+    }
 }
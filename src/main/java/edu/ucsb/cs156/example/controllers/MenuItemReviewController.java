@@ -1,8 +1,15 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,10 +29,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.io.IOException;
 
 @Tag(name = "MenuItemReviews")
 @RequestMapping("/api/MenuItemReview")
@@ -36,6 +50,15 @@ public class MenuItemReviewController extends ApiController {
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    EntityStreamingService entityStreamingService;
+
+    @Autowired
+    MenuItemRatingService menuItemRatingService;
+
     @Operation(summary= "List all menu item reviews")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -44,6 +67,25 @@ public class MenuItemReviewController extends ApiController {
         return menuItemReviews;
     }
 
+    @Operation(summary= "List menu item reviews one page at a time, ordered by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<MenuItemReview> pagedMenuItemReviews(
+            @Parameter(name="cursor") @RequestParam(defaultValue="0") long cursor,
+            @Parameter(name="size") @RequestParam(defaultValue="50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<MenuItemReview> menuItemReviews = menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(cursor, pageable);
+        return keysetPage(menuItemReviews, pageable, MenuItemReview::getId);
+    }
+
+    @Operation(summary= "List the reviews for one menu item")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/item")
+    public Iterable<MenuItemReview> allMenuItemReviewsByItem(
+            @Parameter(name="itemId") @RequestParam long itemId) {
+        return menuItemReviewRepository.findAllByItemId(itemId);
+    }
+
     @Operation(summary= "Create a new menu item review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -67,7 +109,7 @@ public class MenuItemReviewController extends ApiController {
         menuItemReview.setDateReviewed(dateReviewed);
         menuItemReview.setComments(comments);
 
-        MenuItemReview savedMenuItemReview = menuItemReviewRepository.save(menuItemReview);
+        MenuItemReview savedMenuItemReview = menuItemRatingService.add(menuItemReview);
 
         return savedMenuItemReview;
     }
@@ -88,10 +130,7 @@ public class MenuItemReviewController extends ApiController {
     @DeleteMapping("")
     public Object deleteMenuItemReview(
             @Parameter(name="id") @RequestParam Long id) {
-        MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-        menuItemReviewRepository.delete(menuItemReview);
+        menuItemRatingService.delete(id);
         return genericMessage("Menu Item Review with id %s deleted".formatted(id));
     }
 
@@ -101,18 +140,74 @@ public class MenuItemReviewController extends ApiController {
     public MenuItemReview updateMenuItemReview(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid MenuItemReview incoming) {
+        return menuItemRatingService.update(id, incoming);
+    }
 
-        MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+    @Operation(summary= "Create many menu item reviews in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostMenuItemReviews(
+            @RequestBody List<MenuItemReview> incoming) {
+        incoming.forEach(row -> row.setId(0));
+        BulkReport report = bulkWriteService.createAll(menuItemReviewRepository, incoming, MenuItemReview::getId);
+        menuItemRatingService.refresh(itemIds(incoming));
+        return report;
+    }
 
-        menuItemReview.setItemId(incoming.getItemId());
-        menuItemReview.setReviewerEmail(incoming.getReviewerEmail());
-        menuItemReview.setStars(incoming.getStars());
-        menuItemReview.setDateReviewed(incoming.getDateReviewed());
-        menuItemReview.setComments(incoming.getComments());
+    @Operation(summary= "Update many menu item reviews in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateMenuItemReviews(
+            @RequestBody List<MenuItemReview> incoming) {
+        // the items the reviews belonged to before the update also change
+        Set<Long> itemIds = itemIds(menuItemReviewRepository.findAllById(incoming.stream().map(MenuItemReview::getId).toList()));
+        itemIds.addAll(itemIds(incoming));
+        BulkReport report = bulkWriteService.updateAll(menuItemReviewRepository, incoming, MenuItemReview::getId);
+        menuItemRatingService.refresh(itemIds);
+        return report;
+    }
 
-        menuItemReviewRepository.save(menuItemReview);
+    @Operation(summary= "Delete many menu item reviews by id in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteMenuItemReviews(
+            @RequestBody List<Long> ids) {
+        Set<Long> itemIds = itemIds(menuItemReviewRepository.findAllById(ids));
+        BulkReport report = bulkWriteService.deleteAll(menuItemReviewRepository, ids, MenuItemReview::getId);
+        menuItemRatingService.refresh(itemIds);
+        return report;
+    }
 
-        return menuItemReview;
+    @Operation(summary= "Export all menu item reviews in id order, streamed as NDJSON (default) or CSV")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/export")
+    public void exportMenuItemReviews(
+            @Parameter(name="format", description="ndjson or csv") @RequestParam(defaultValue = "ndjson") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, format.attachment("menuitemreviews"));
+        entityStreamingService.export(format, MenuItemReview.class, menuItemReviewRepository::streamAllByOrderByIdAsc, response.getOutputStream());
+    }
+
+    @Operation(summary= "Get the star-rating summary (count, sum, average, histogram) for one menu item")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/summary")
+    public MenuItemRatingSummary menuItemRatingSummary(
+            @Parameter(name="itemId") @RequestParam long itemId) {
+        return menuItemRatingService.summary(itemId);
+    }
+
+    @Operation(summary= "Recompute every menu item rating summary from the reviews; returns how many were corrected")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/summary/rebuild")
+    public Object rebuildMenuItemRatingSummaries() {
+        int corrected = menuItemRatingService.rebuild();
+        return genericMessage("%d menu item rating summaries corrected".formatted(corrected));
+    }
+
+    private static Set<Long> itemIds(Iterable<MenuItemReview> reviews) {
+        Set<Long> itemIds = new HashSet<>();
+        reviews.forEach(review -> itemIds.add(review.getItemId()));
+        return itemIds;
     }
 }
@@ -4,6 +4,13 @@ import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.RecommendationRequestDeadlines;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -23,10 +30,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.io.IOException;
 
 @Tag(name = "RecommendationRequest")
 @RequestMapping("/api/RecommendationRequest")
@@ -37,6 +49,20 @@ public class RecommendationRequestController extends ApiController {
     @Autowired
     RecommendationRequestRepository recommendationRequestRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    SingleRowWriteService singleRowWriteService;
+
+    @Autowired
+    EntityStreamingService entityStreamingService;
+
+    @Autowired
+    RecommendationRequestDeadlines recommendationRequestDeadlines;
+
+    public static final int MAX_DUE_SOON_DAYS = 366;
+
     @Operation(summary= "List all ucsb recommendation requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -45,6 +71,48 @@ public class RecommendationRequestController extends ApiController {
         return requests;
     }
 
+    @Operation(summary= "List recommendation requests one page at a time, ordered by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<RecommendationRequest> pagedRecommendationRequests(
+            @Parameter(name="cursor") @RequestParam(defaultValue="0") long cursor,
+            @Parameter(name="size") @RequestParam(defaultValue="50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<RecommendationRequest> requests = recommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(cursor, pageable);
+        return keysetPage(requests, pageable, RecommendationRequest::getId);
+    }
+
+    @Operation(summary= "List the recommendation requests made by one requester")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/requester")
+    public Iterable<RecommendationRequest> allRecommendationRequestsByRequester(
+            @Parameter(name="requesterEmail") @RequestParam String requesterEmail) {
+        return recommendationRequestRepository.findAllByRequesterEmail(requesterEmail);
+    }
+
+    @Operation(summary= "List recommendation requests by done status")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/done")
+    public Iterable<RecommendationRequest> allRecommendationRequestsByDone(
+            @Parameter(name="done") @RequestParam boolean done) {
+        return recommendationRequestRepository.findAllByDone(done);
+    }
+
+    @Operation(summary= "List the open recommendation requests whose dateNeeded has passed, most overdue first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/overdue")
+    public List<RecommendationRequest> overdueRecommendationRequests() {
+        return recommendationRequestDeadlines.overdue();
+    }
+
+    @Operation(summary= "List the open recommendation requests needed within the next n days, soonest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/dueSoon")
+    public List<RecommendationRequest> recommendationRequestsDueSoon(
+            @Parameter(name="days") @RequestParam(defaultValue="7") int days) {
+        return recommendationRequestDeadlines.dueWithin(Math.max(1, Math.min(days, MAX_DUE_SOON_DAYS)));
+    }
+
     @Operation(summary= "Create a new recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -68,7 +136,9 @@ public class RecommendationRequestController extends ApiController {
         recommendationRequest.setDateNeeded(dateNeeded);
         recommendationRequest.setDone(done);
 
-        RecommendationRequest savedrequest = recommendationRequestRepository.save(recommendationRequest);
+        RecommendationRequest savedrequest = singleRowWriteService.createRow(
+                () -> recommendationRequestRepository.save(recommendationRequest),
+                recommendationRequestDeadlines::saved);
         return savedrequest;
     }
 
@@ -88,10 +158,9 @@ public class RecommendationRequestController extends ApiController {
     @DeleteMapping("")
     public Object deleteRecommendationRequest(
         @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest request = recommendationRequestRepository.findById(id)
-        .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequestRepository.delete(request);
+        singleRowWriteService.writeRow(RecommendationRequest.class, id,
+                () -> recommendationRequestRepository.deleteRowById(id),
+                () -> recommendationRequestDeadlines.removed(id));
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 
@@ -102,19 +171,55 @@ public class RecommendationRequestController extends ApiController {
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid RecommendationRequest incoming) {
 
-        RecommendationRequest recReq = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+        incoming.setId(id);
+        singleRowWriteService.writeRow(RecommendationRequest.class, id,
+                () -> recommendationRequestRepository.updateRowById(id, incoming.getRequesterEmail(),
+                        incoming.getProfessorEmail(), incoming.getExplanation(), incoming.getDateRequested(),
+                        incoming.getDateNeeded(), incoming.getDone()),
+                () -> recommendationRequestDeadlines.saved(incoming));
 
-                recReq.setRequesterEmail(incoming.getRequesterEmail());
-                recReq.setProfessorEmail(incoming.getProfessorEmail());
-                recReq.setExplanation(incoming.getExplanation());
-                recReq.setDateRequested(incoming.getDateRequested());
-                recReq.setDateNeeded(incoming.getDateNeeded());
-                recReq.setDone(incoming.getDone());
+        return incoming;
+    }
 
-        recommendationRequestRepository.save(recReq);
+    @Operation(summary= "Create many recommendation requests in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostRecommendationRequests(
+            @RequestBody List<RecommendationRequest> incoming) {
+        incoming.forEach(row -> row.setId(0));
+        BulkReport report = bulkWriteService.createAll(recommendationRequestRepository, incoming, RecommendationRequest::getId,
+                recommendationRequestDeadlines::savedAll);
+        return report;
+    }
+
+    @Operation(summary= "Update many recommendation requests in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateRecommendationRequests(
+            @RequestBody List<RecommendationRequest> incoming) {
+        BulkReport report = bulkWriteService.updateAll(recommendationRequestRepository, incoming, RecommendationRequest::getId,
+                recommendationRequestDeadlines::savedAll);
+        return report;
+    }
 
-        return recReq;
+    @Operation(summary= "Delete many recommendation requests by id in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteRecommendationRequests(
+            @RequestBody List<Long> ids) {
+        BulkReport report = bulkWriteService.deleteAll(recommendationRequestRepository, ids, RecommendationRequest::getId,
+                recommendationRequestDeadlines::removedAll);
+        return report;
     }
 
-}
\ No newline at end of file
+    @Operation(summary= "Export all recommendation requests in id order, streamed as NDJSON (default) or CSV")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/export")
+    public void exportRecommendationRequests(
+            @Parameter(name="format", description="ndjson or csv") @RequestParam(defaultValue = "ndjson") ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, format.attachment("recommendationrequests"));
+        entityStreamingService.export(format, RecommendationRequest.class, recommendationRequestRepository::streamAllByOrderByIdAsc, response.getOutputStream());
+    }
+}
@@ -3,6 +3,12 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.services.UCSBDateCalendar;
+import edu.ucsb.cs156.example.services.UCSBDateCalendar.Position;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +19,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,10 +29,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.data.domain.Pageable;
 
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Tag(name = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
@@ -36,6 +46,15 @@ public class UCSBDatesController extends ApiController {
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    SingleRowWriteService singleRowWriteService;
+
+    @Autowired
+    UCSBDateCalendar ucsbDateCalendar;
+
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
@@ -44,6 +63,55 @@ public class UCSBDatesController extends ApiController {
         return dates;
     }
 
+    @Operation(summary= "List ucsb dates one page at a time, ordered by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<UCSBDate> pagedUCSBDates(
+            @Parameter(name="cursor") @RequestParam(defaultValue="0") long cursor,
+            @Parameter(name="size") @RequestParam(defaultValue="50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<UCSBDate> dates = ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(cursor, pageable);
+        return keysetPage(dates, pageable, UCSBDate::getId);
+    }
+
+    @Operation(summary= "List the ucsb dates for one quarter")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/quarter")
+    public Iterable<UCSBDate> allUCSBDatesByQuarter(
+            @Parameter(name="quarterYYYYQ") @RequestParam String quarterYYYYQ) {
+        return ucsbDateRepository.findAllByQuarterYYYYQ(quarterYYYYQ);
+    }
+
+    @Operation(summary= "List the ucsb dates from one time (inclusive) to another (exclusive) in time order, one page at a time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/range")
+    public KeysetPage<UCSBDate> ucsbDatesInRange(
+            @Parameter(name="from") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name="to") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(name="cursor") @RequestParam(required=false) String cursor,
+            @Parameter(name="size") @RequestParam(defaultValue="50") int size) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        Position after;
+        try {
+            after = cursor == null ? null : Position.parse(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        Pageable pageable = keysetPageable(size);
+        List<UCSBDate> dates = ucsbDateCalendar.range(from, to, after, pageable.getPageSize());
+        return keysetPage(dates, pageable, Position::of);
+    }
+
+    @Operation(summary= "List the next n ucsb dates from now on, in time order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/upcoming")
+    public List<UCSBDate> upcomingUCSBDates(
+            @Parameter(name="n") @RequestParam(defaultValue="10") int n) {
+        return ucsbDateCalendar.upcoming(Math.max(1, Math.min(n, MAX_PAGE_SIZE)));
+    }
+
     @Operation(summary= "Create a new date")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -63,7 +131,8 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setName(name);
         ucsbDate.setLocalDateTime(localDateTime);
 
-        UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+        UCSBDate savedUcsbDate = singleRowWriteService.createRow(
+                () -> ucsbDateRepository.save(ucsbDate), ucsbDateCalendar::saved);
 
         return savedUcsbDate;
     }
@@ -84,10 +153,8 @@ public class UCSBDatesController extends ApiController {
     @DeleteMapping("")
     public Object deleteUCSBDate(
             @Parameter(name="id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-        ucsbDateRepository.delete(ucsbDate);
+        singleRowWriteService.writeRow(UCSBDate.class, id, () -> ucsbDateRepository.deleteRowById(id),
+                () -> ucsbDateCalendar.removed(id));
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
@@ -98,15 +165,42 @@ public class UCSBDatesController extends ApiController {
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid UCSBDate incoming) {
 
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        incoming.setId(id);
+        singleRowWriteService.writeRow(UCSBDate.class, id, () -> ucsbDateRepository.updateRowById(id,
+                incoming.getQuarterYYYYQ(), incoming.getName(), incoming.getLocalDateTime()),
+                () -> ucsbDateCalendar.saved(incoming));
 
-        ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-        ucsbDate.setName(incoming.getName());
-        ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+        return incoming;
+    }
 
-        ucsbDateRepository.save(ucsbDate);
+    @Operation(summary= "Create many dates in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostUCSBDates(
+            @RequestBody List<UCSBDate> incoming) {
+        incoming.forEach(row -> row.setId(0));
+        BulkReport report = bulkWriteService.createAll(ucsbDateRepository, incoming, UCSBDate::getId,
+                ucsbDateCalendar::savedAll);
+        return report;
+    }
 
-        return ucsbDate;
+    @Operation(summary= "Update many dates in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateUCSBDates(
+            @RequestBody List<UCSBDate> incoming) {
+        BulkReport report = bulkWriteService.updateAll(ucsbDateRepository, incoming, UCSBDate::getId,
+                ucsbDateCalendar::savedAll);
+        return report;
+    }
+
+    @Operation(summary= "Delete many dates by id in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteUCSBDates(
+            @RequestBody List<Long> ids) {
+        BulkReport report = bulkWriteService.deleteAll(ucsbDateRepository, ids, UCSBDate::getId,
+                ucsbDateCalendar::removedAll);
+        return report;
     }
 }
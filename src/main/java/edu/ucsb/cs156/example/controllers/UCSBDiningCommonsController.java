@@ -3,6 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.models.ImportReport;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.DiningCommonsMenu;
+import edu.ucsb.cs156.example.models.DiningCommonsMenuRow;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,8 +31,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletRequest;
+
+import java.util.List;
+import java.io.IOException;
 
 @Tag(name = "UCSBDiningCommons")
 @RequestMapping("/api/ucsbdiningcommons")
@@ -28,15 +50,69 @@ import javax.validation.Valid;
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
 
+    static final String TABLE = "ucsbdiningcommons";
+
+    public static final int MAX_NEAREST = 50;
+
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    SingleRowWriteService singleRowWriteService;
+
+    @Autowired
+    TableVersionService tableVersionService;
+
+    @Autowired
+    ImportService importService;
+
+    @Autowired
+    DiningCommonsLocator diningCommonsLocator;
+
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public ResponseEntity<Iterable<UCSBDiningCommons>> allCommonss(WebRequest webRequest) {
+        return conditionalGet(webRequest, tableVersionService.etag(TABLE), () -> ucsbDiningCommonsRepository.findAll());
+    }
+
+    @Operation(summary= "List ucsb dining commons one page at a time, ordered by code")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<UCSBDiningCommons> pagedCommons(
+            @Parameter(name="cursor") @RequestParam(defaultValue="") String cursor,
+            @Parameter(name="size") @RequestParam(defaultValue="50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(cursor, pageable);
+        return keysetPage(commons, pageable, UCSBDiningCommons::getCode);
+    }
+
+    @Operation(summary= "List the k dining commons closest to a point, nearest first, with their distance in meters")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/nearest")
+    public List<NearbyDiningCommons> nearest(
+            @Parameter(name="lat") @RequestParam double lat,
+            @Parameter(name="lon") @RequestParam double lon,
+            @Parameter(name="k") @RequestParam(defaultValue="1") int k) {
+        if (Math.abs(lat) > 90 || Math.abs(lon) > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat must be between -90 and 90 and lon between -180 and 180");
+        }
+        return diningCommonsLocator.nearest(lat, lon, Math.max(1, Math.min(k, MAX_NEAREST)));
+    }
+
+    @Operation(summary= "Get a commons' menu: its stations and items, with each item's star ratings")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/menu")
+    public DiningCommonsMenu menu(
+            @Parameter(name="code") @RequestParam String code) {
+        List<DiningCommonsMenuRow> rows = ucsbDiningCommonsRepository.findMenuByCode(code);
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
+        return DiningCommonsMenu.of(rows);
     }
 
     @Operation(summary= "Create a new commons")
@@ -62,7 +138,9 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLatitude(latitude);
         commons.setLongitude(longitude);
 
-        UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        UCSBDiningCommons savedCommons = tableVersionService.write(TABLE,
+                () -> ucsbDiningCommonsRepository.save(commons));
+        diningCommonsLocator.invalidate();
 
         return savedCommons;
     }
@@ -70,12 +148,13 @@ public class UCSBDiningCommonsController extends ApiController {
     @Operation(summary= "Get a single commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommons getById(
-            @Parameter(name="code") @RequestParam String code) {
+    public ResponseEntity<UCSBDiningCommons> getById(
+            @Parameter(name="code") @RequestParam String code,
+            WebRequest webRequest) {
+        String etag = tableVersionService.etag(TABLE);
         UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-        return commons;
+        return conditionalGet(webRequest, etag, () -> commons);
     }
 
     @Operation(summary= "Delete a UCSBDiningCommons")
@@ -83,10 +162,9 @@ public class UCSBDiningCommonsController extends ApiController {
     @DeleteMapping("")
     public Object deleteCommons(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-        ucsbDiningCommonsRepository.delete(commons);
+        tableVersionService.write(TABLE, () -> singleRowWriteService.writeRow(UCSBDiningCommons.class, code,
+                () -> ucsbDiningCommonsRepository.deleteRowByCode(code)));
+        diningCommonsLocator.invalidate();
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
@@ -97,19 +175,76 @@ public class UCSBDiningCommonsController extends ApiController {
             @Parameter(name="code") @RequestParam String code,
             @RequestBody @Valid UCSBDiningCommons incoming) {
 
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+        incoming.setCode(code);
+        tableVersionService.write(TABLE, () -> singleRowWriteService.writeRow(UCSBDiningCommons.class, code,
+                () -> ucsbDiningCommonsRepository.updateRowByCode(code, incoming.getName(),
+                        incoming.getHasSackMeal(), incoming.getHasTakeOutMeal(), incoming.getHasDiningCam(),
+                        incoming.getLatitude(), incoming.getLongitude())));
+        diningCommonsLocator.invalidate();
 
+        return incoming;
+    }
 
-        commons.setName(incoming.getName());  
-        commons.setHasSackMeal(incoming.getHasSackMeal());
-        commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-        commons.setHasDiningCam(incoming.getHasDiningCam());
-        commons.setLatitude(incoming.getLatitude());
-        commons.setLongitude(incoming.getLongitude());
+    @Operation(summary= "Create many dining commons in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostCommons(
+            @RequestBody List<UCSBDiningCommons> incoming) {
+        BulkReport report = tableVersionService.write(TABLE,
+                () -> bulkWriteService.createAllWithKeys(ucsbDiningCommonsRepository, incoming, UCSBDiningCommons::getCode));
+        diningCommonsLocator.invalidate();
+        return report;
+    }
+
+    @Operation(summary= "Update many dining commons in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateCommons(
+            @RequestBody List<UCSBDiningCommons> incoming) {
+        BulkReport report = tableVersionService.write(TABLE,
+                () -> bulkWriteService.updateAll(ucsbDiningCommonsRepository, incoming, UCSBDiningCommons::getCode));
+        diningCommonsLocator.invalidate();
+        return report;
+    }
 
-        ucsbDiningCommonsRepository.save(commons);
+    @Operation(summary= "Delete many dining commons by code in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteCommons(
+            @RequestBody List<String> ids) {
+        BulkReport report = tableVersionService.write(TABLE,
+                () -> bulkWriteService.deleteAll(ucsbDiningCommonsRepository, ids, UCSBDiningCommons::getCode));
+        diningCommonsLocator.invalidate();
+        return report;
+    }
+
+    @Operation(summary= "Import dining commons from an NDJSON or CSV upload, in batches; codes already present are rejected")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/import")
+    public ImportReport importCommons(
+            @Parameter(name="format", description="ndjson or csv") @RequestParam(defaultValue = "ndjson") ExportFormat format,
+            HttpServletRequest request) throws IOException {
+        ImportReport report = importService.importRowsWithKeys(format, request.getInputStream(), UCSBDiningCommons.class,
+                ucsbDiningCommonsRepository, TABLE, UCSBDiningCommons::getCode, this::importProblem);
+        diningCommonsLocator.invalidate();
+        return report;
+    }
 
-        return commons;
+    // Like POST /bulk, an existing code is never overwritten; ImportService
+    // checks the codes against the table a batch at a time.
+    private String importProblem(UCSBDiningCommons commons) {
+        if (!StringUtils.hasText(commons.getCode())) {
+            return "code is required";
+        }
+        if (!StringUtils.hasText(commons.getName())) {
+            return "name is required";
+        }
+        if (commons.getLatitude() != null && Math.abs(commons.getLatitude()) > 90) {
+            return "latitude must be between -90 and 90";
+        }
+        if (commons.getLongitude() != null && Math.abs(commons.getLongitude()) > 180) {
+            return "longitude must be between -180 and 180";
+        }
+        return null;
     }
 }
@@ -3,6 +3,15 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.models.ImportReport;
+import edu.ucsb.cs156.example.models.ExportFormat;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,10 +31,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.util.StringUtils;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletRequest;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.io.IOException;
 
 @Tag(name = "ucsbdiningcommonsmenuitem")
 @RequestMapping("/api/UCSBDiningCommonsMenuItem")
@@ -33,15 +49,52 @@ import java.time.LocalDateTime;
 @Slf4j
 public class UCSBDiningCommonsMenuItemController extends ApiController {
 
+    static final String TABLE = "ucsbdiningcommonsmenuitem";
+
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    SingleRowWriteService singleRowWriteService;
+
+    @Autowired
+    TableVersionService tableVersionService;
+
+    @Autowired
+    UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+    @Autowired
+    ImportService importService;
+
     @Operation(summary = "List all ucsb dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
-        Iterable<UCSBDiningCommonsMenuItem> menuItemIterable = ucsbDiningCommonsMenuItemRepository.findAll();
-        return menuItemIterable;
+    public ResponseEntity<Iterable<UCSBDiningCommonsMenuItem>> allUCSBDiningCommonsMenuItems(WebRequest webRequest) {
+        return conditionalGet(webRequest, tableVersionService.etag(TABLE), () -> ucsbDiningCommonsMenuItemRepository.findAll());
+    }
+
+    @Operation(summary = "List ucsb dining commons menu items one page at a time, ordered by id")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<UCSBDiningCommonsMenuItem> pagedUCSBDiningCommonsMenuItems(
+            @Parameter(name = "cursor") @RequestParam(defaultValue = "0") long cursor,
+            @Parameter(name = "size") @RequestParam(defaultValue = "50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<UCSBDiningCommonsMenuItem> menuItems = ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(cursor, pageable);
+        return keysetPage(menuItems, pageable, UCSBDiningCommonsMenuItem::getId);
+    }
+
+    @Operation(summary = "List the menu items served at one dining commons")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/commons")
+    public ResponseEntity<Iterable<UCSBDiningCommonsMenuItem>> allUCSBDiningCommonsMenuItemsByCommons(
+            @Parameter(name="diningCommonsCode") @RequestParam String diningCommonsCode,
+            WebRequest webRequest) {
+        return conditionalGet(webRequest, tableVersionService.etag(TABLE),
+                () -> ucsbDiningCommonsMenuItemRepository.findAllByDiningCommonsCode(diningCommonsCode));
     }
 
     @Operation(summary = "Create a new ucsb dining common menu item")
@@ -57,8 +110,8 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
         ucsbDiningCommonsMenuItem.setName(name);
         ucsbDiningCommonsMenuItem.setStation(station);
 
-        UCSBDiningCommonsMenuItem saveducsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository
-                .save(ucsbDiningCommonsMenuItem);
+        UCSBDiningCommonsMenuItem saveducsbDiningCommonsMenuItem = tableVersionService.write(TABLE,
+                () -> ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem));
 
         return saveducsbDiningCommonsMenuItem;
     }
@@ -66,12 +119,13 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     @Operation(summary = "Get a single ucsb dining common menu item")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommonsMenuItem getById(
-            @Parameter(name = "id") @RequestParam Long id) {
+    public ResponseEntity<UCSBDiningCommonsMenuItem> getById(
+            @Parameter(name = "id") @RequestParam Long id,
+            WebRequest webRequest) {
+        String etag = tableVersionService.etag(TABLE);
         UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-
-        return ucsbDiningCommonsMenuItem;
+        return conditionalGet(webRequest, etag, () -> ucsbDiningCommonsMenuItem);
     }
 
     @Operation(summary = "Delete a UCSB Dining Commons Menu Item")
@@ -79,10 +133,8 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     @DeleteMapping("")
     public Object deleteUCSBDiningCommonsMenuItem(
             @Parameter(name = "id") @RequestParam Long id) {
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-
-        ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
+        tableVersionService.write(TABLE, () -> singleRowWriteService.writeRow(UCSBDiningCommonsMenuItem.class, id,
+                () -> ucsbDiningCommonsMenuItemRepository.deleteRowById(id)));
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
 
@@ -93,15 +145,67 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
             @Parameter(name = "id") @RequestParam Long id,
             @RequestBody @Valid UCSBDiningCommonsMenuItem incoming) {
 
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+        incoming.setId(id);
+        tableVersionService.write(TABLE, () -> singleRowWriteService.writeRow(UCSBDiningCommonsMenuItem.class, id,
+                () -> ucsbDiningCommonsMenuItemRepository.updateRowById(id, incoming.getDiningCommonsCode(),
+                        incoming.getName(), incoming.getStation())));
+
+        return incoming;
+    }
+
+    @Operation(summary = "Create many dining commons menu items in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostUCSBDiningCommonsMenuItems(
+            @RequestBody List<UCSBDiningCommonsMenuItem> incoming) {
+        incoming.forEach(row -> row.setId(0));
+        return tableVersionService.write(TABLE,
+                () -> bulkWriteService.createAll(ucsbDiningCommonsMenuItemRepository, incoming, UCSBDiningCommonsMenuItem::getId));
+    }
 
-        ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
-        ucsbDiningCommonsMenuItem.setName(incoming.getName());
-        ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
+    @Operation(summary = "Update many dining commons menu items in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateUCSBDiningCommonsMenuItems(
+            @RequestBody List<UCSBDiningCommonsMenuItem> incoming) {
+        return tableVersionService.write(TABLE,
+                () -> bulkWriteService.updateAll(ucsbDiningCommonsMenuItemRepository, incoming, UCSBDiningCommonsMenuItem::getId));
+    }
 
-        ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+    @Operation(summary = "Delete many dining commons menu items by id in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteUCSBDiningCommonsMenuItems(
+            @RequestBody List<Long> ids) {
+        return tableVersionService.write(TABLE,
+                () -> bulkWriteService.deleteAll(ucsbDiningCommonsMenuItemRepository, ids, UCSBDiningCommonsMenuItem::getId));
+    }
+
+    @Operation(summary = "Import dining commons menu items from an NDJSON or CSV upload, in batches")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/import")
+    public ImportReport importUCSBDiningCommonsMenuItems(
+            @Parameter(name = "format", description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") ExportFormat format,
+            HttpServletRequest request) throws IOException {
+        return importService.importRows(format, request.getInputStream(),
+                UCSBDiningCommonsMenuItem.class, ucsbDiningCommonsMenuItemRepository, TABLE, this::importProblem);
+    }
 
-        return ucsbDiningCommonsMenuItem;
+    // Imported rows always get a new id, so an id column from /export is ignored.
+    private String importProblem(UCSBDiningCommonsMenuItem item) {
+        item.setId(0);
+        if (!StringUtils.hasText(item.getName())) {
+            return "name is required";
+        }
+        if (!StringUtils.hasText(item.getStation())) {
+            return "station is required";
+        }
+        if (!StringUtils.hasText(item.getDiningCommonsCode())) {
+            return "diningCommonsCode is required";
+        }
+        if (ucsbDiningCommonsRepository.findById(item.getDiningCommonsCode()).isEmpty()) {
+            return "unknown diningCommonsCode %s".formatted(item.getDiningCommonsCode());
+        }
+        return null;
     }
 }
@@ -4,6 +4,11 @@ import edu.ucsb.cs156.example.controllers.ApiController;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkReport;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,24 +25,50 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 
+import java.util.List;
+
 @Tag(name = "UCSBOrganization")
 @RequestMapping("/api/ucsborganization")
 @RestController
 @Slf4j
 public class UCSBOrganizationController extends ApiController {
 
+    static final String TABLE = "ucsborganization";
+
     @Autowired
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @Autowired
+    BulkWriteService bulkWriteService;
+
+    @Autowired
+    SingleRowWriteService singleRowWriteService;
+
+    @Autowired
+    TableVersionService tableVersionService;
+
     @Operation(summary = "List all ucsb organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allOrganizations() {
-        Iterable<UCSBOrganization> orgs = ucsbOrganizationRepository.findAll();
-        return orgs;
+    public ResponseEntity<Iterable<UCSBOrganization>> allOrganizations(WebRequest webRequest) {
+        return conditionalGet(webRequest, tableVersionService.etag(TABLE), () -> ucsbOrganizationRepository.findAll());
+    }
+
+    @Operation(summary = "List ucsb organizations one page at a time, ordered by orgCode")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/paged")
+    public KeysetPage<UCSBOrganization> pagedOrganizations(
+            @Parameter(name = "cursor") @RequestParam(defaultValue = "") String cursor,
+            @Parameter(name = "size") @RequestParam(defaultValue = "50") int size) {
+        Pageable pageable = keysetPageable(size);
+        List<UCSBOrganization> orgs = ucsbOrganizationRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(cursor, pageable);
+        return keysetPage(orgs, pageable, UCSBOrganization::getOrgCode);
     }
 
     @Operation(summary = "Create a new organization")
@@ -54,7 +85,8 @@ public class UCSBOrganizationController extends ApiController {
         organization.setOrgTranslation(orgTranslation);
         organization.setInactive(inactive);
 
-        UCSBOrganization savedOrganization = ucsbOrganizationRepository.save(organization);
+        UCSBOrganization savedOrganization = tableVersionService.write(TABLE,
+                () -> ucsbOrganizationRepository.save(organization));
 
         return savedOrganization;
     }
@@ -62,12 +94,13 @@ public class UCSBOrganizationController extends ApiController {
     @Operation(summary = "Get a single organization")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBOrganization geOrganization(
-            @Parameter(name = "id") @RequestParam String id) {
+    public ResponseEntity<UCSBOrganization> geOrganization(
+            @Parameter(name = "id") @RequestParam String id,
+            WebRequest webRequest) {
+        String etag = tableVersionService.etag(TABLE);
         UCSBOrganization organization = ucsbOrganizationRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, id));
-        return organization;
-
+        return conditionalGet(webRequest, etag, () -> organization);
     }
 
     @Operation(summary = "Update a single organization")
@@ -77,15 +110,12 @@ public class UCSBOrganizationController extends ApiController {
             @Parameter(name = "id") @RequestParam String id,
             @RequestBody @Valid UCSBOrganization incoming) {
                 
-        UCSBOrganization organization = ucsbOrganizationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, id));
-        organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
-        organization.setOrgTranslation(incoming.getOrgTranslation());
-        organization.setInactive(incoming.getInactive());
-
-        ucsbOrganizationRepository.save(organization);
+        incoming.setOrgCode(id);
+        tableVersionService.write(TABLE, () -> singleRowWriteService.writeRow(UCSBOrganization.class, id,
+                () -> ucsbOrganizationRepository.updateRowByOrgCode(id, incoming.getOrgTranslationShort(),
+                        incoming.getOrgTranslation(), incoming.getInactive())));
 
-        return organization;
+        return incoming;
     }
 
     @Operation(summary = "Delete a UCSBOrganization")
@@ -93,11 +123,35 @@ public class UCSBOrganizationController extends ApiController {
     @DeleteMapping("")
     public Object deleteOrganization(
             @Parameter(name = "id") @RequestParam String id) {
-        UCSBOrganization organization = ucsbOrganizationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, id));
-
-        ucsbOrganizationRepository.delete(organization);
+        tableVersionService.write(TABLE, () -> singleRowWriteService.writeRow(UCSBOrganization.class, id,
+                () -> ucsbOrganizationRepository.deleteRowByOrgCode(id)));
         return genericMessage("UCSBOrganization with id %s deleted".formatted(id));
     }
-    
+
+    @Operation(summary = "Create many organizations in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkReport bulkPostOrganizations(
+            @RequestBody List<UCSBOrganization> incoming) {
+        return tableVersionService.write(TABLE,
+                () -> bulkWriteService.createAllWithKeys(ucsbOrganizationRepository, incoming, UCSBOrganization::getOrgCode));
+    }
+
+    @Operation(summary = "Update many organizations in one transaction (JSON array or NDJSON body)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/bulk")
+    public BulkReport bulkUpdateOrganizations(
+            @RequestBody List<UCSBOrganization> incoming) {
+        return tableVersionService.write(TABLE,
+                () -> bulkWriteService.updateAll(ucsbOrganizationRepository, incoming, UCSBOrganization::getOrgCode));
+    }
+
+    @Operation(summary = "Delete many organizations by orgCode in one transaction")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/bulk")
+    public BulkReport bulkDeleteOrganizations(
+            @RequestBody List<String> ids) {
+        return tableVersionService.write(TABLE,
+                () -> bulkWriteService.deleteAll(ucsbOrganizationRepository, ids, UCSBOrganization::getOrgCode));
+    }
 }
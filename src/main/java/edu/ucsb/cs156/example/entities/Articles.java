@@ -8,6 +8,7 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.SequenceGenerator;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,7 +22,8 @@ import lombok.Builder;
 @Entity(name = "articles")
 public class Articles {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "articles_seq")
+  @SequenceGenerator(name = "articles_seq", sequenceName = "articles_seq", allocationSize = 50)
   private long id;
 
   private String title;
@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+// Star-rating totals for one menu item, kept in step with menuitemreviews by
+// MenuItemRatingService.  reviewCount and starSum cover every review; the
+// histogram only counts reviews with 1 to 5 stars.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemratingsummaries")
+public class MenuItemRatingSummary {
+  @Id
+  private long itemId;
+
+  private long reviewCount;
+  private long starSum;
+  private long oneStar;
+  private long twoStars;
+  private long threeStars;
+  private long fourStars;
+  private long fiveStars;
+
+  public double getAverage() {
+    return reviewCount == 0 ? 0 : (double) starSum / reviewCount;
+  }
+}
@@ -6,6 +6,7 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.SequenceGenerator;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,7 +20,8 @@ import lombok.Builder;
 @Entity(name = "menuitemreviews")
 public class MenuItemReview {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menuitemreviews_seq")
+  @SequenceGenerator(name = "menuitemreviews_seq", sequenceName = "menuitemreviews_seq", allocationSize = 50)
   private long id;
 
   private long itemId;
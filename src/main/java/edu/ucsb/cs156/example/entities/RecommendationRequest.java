@@ -6,6 +6,7 @@ import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.SequenceGenerator;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,7 +20,8 @@ import lombok.Builder;
 @Entity(name = "recommendationrequest")
 public class RecommendationRequest {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recommendationrequest_seq")
+  @SequenceGenerator(name = "recommendationrequest_seq", sequenceName = "recommendationrequest_seq", allocationSize = 50)
   private long id;
   // private Long id;
   private String requesterEmail;
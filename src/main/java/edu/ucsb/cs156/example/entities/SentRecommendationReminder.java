@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.models.RecommendationReminder.Kind;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+// A reminder (DUE_SOON or OVERDUE) already sent for a recommendation
+// request's deadline, so that RecommendationRequestDeadlines does not send
+// it again after a reload or a restart.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "sentrecommendationreminders")
+@IdClass(SentRecommendationReminder.Key.class)
+public class SentRecommendationReminder {
+  @Id
+  private long requestId;
+
+  @Id
+  private LocalDateTime dateNeeded;
+
+  @Id
+  @Enumerated(EnumType.STRING)
+  private Kind kind;
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Key implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long requestId;
+    private LocalDateTime dateNeeded;
+    private Kind kind;
+  }
+}
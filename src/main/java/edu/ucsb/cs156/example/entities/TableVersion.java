@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+// How many times a reference-data table has been written; see
+// TableVersionService.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "tableversions")
+public class TableVersion {
+  @Id
+  private String tableName;
+
+  private long version;
+}
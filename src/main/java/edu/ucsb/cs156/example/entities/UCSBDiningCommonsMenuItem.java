@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.entities;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
@@ -17,7 +18,8 @@ import lombok.Builder;
 @Entity(name = "ucsbdiningcommonsmenuitem")
 public class UCSBDiningCommonsMenuItem {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ucsbdiningcommonsmenuitem_seq")
+  @SequenceGenerator(name = "ucsbdiningcommonsmenuitem_seq", sequenceName = "ucsbdiningcommonsmenuitem_seq", allocationSize = 50)
   private long id;
 
   private String diningCommonsCode;
@@ -1,5 +1,7 @@
 package edu.ucsb.cs156.example.entities;
 
+import java.io.Serializable;
+
 import javax.persistence.Entity;
 import javax.persistence.Id;
 
@@ -13,7 +15,10 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsborganization")
-public class  UCSBOrganization {
+public class UCSBOrganization implements Serializable {
+    // cached by value (see CachingConfig)
+    private static final long serialVersionUID = 1L;
+
     @Id
     private String orgCode;
     private String orgTranslationShort;
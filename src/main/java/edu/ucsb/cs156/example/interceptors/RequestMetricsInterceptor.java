@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import edu.ucsb.cs156.example.controllers.FrontendProxyController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Times every controller call into an "app.handler.requests" timer tagged
+// with the controller class and method, and logs a sample of the calls.
+// Timers are built once per handler method and cached, so the per-request
+// work is a map lookup, two System.nanoTime() calls and a record().
+//
+// A handler that returns an SseEmitter, a StreamingResponseBody or another
+// async result is dispatched twice: once to start it and once more when the
+// result is complete, and only the last dispatch ends in afterCompletion.
+// The start time from the first dispatch is kept, so the timer covers the
+// whole exchange rather than the few microseconds of the final dispatch.
+
+@Slf4j
+@Component
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+  public static final String TIMER_NAME = "app.handler.requests";
+
+  static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+  private static final Set<Class<?>> stoplist = Set.of(FrontendProxyController.class);
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Value("${app.requestLog.sampleRate:0.01}")
+  double sampleRate;
+
+  private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (!(handler instanceof HandlerMethod handlerMethod) || stoplist.contains(handlerMethod.getBeanType())) {
+      return true;
+    }
+    if (request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute(START_ATTRIBUTE) != null) {
+      return true;
+    }
+    request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+    if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+      log.info("===== {} {} handled by {} in {}", request.getMethod(), request.getRequestURI(),
+          handlerMethod.getMethod().getName(), handlerMethod.getBeanType().getName());
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    Object start = request.getAttribute(START_ATTRIBUTE);
+    if (start == null) {
+      return;
+    }
+    long elapsed = System.nanoTime() - (Long) start;
+    timerFor((HandlerMethod) handler).record(elapsed, TimeUnit.NANOSECONDS);
+  }
+
+  Timer timerFor(HandlerMethod handlerMethod) {
+    return timers.computeIfAbsent(handlerMethod.getMethod(), method -> Timer.builder(TIMER_NAME)
+        .description("Latency of controller handler methods")
+        .tag("controller", handlerMethod.getBeanType().getSimpleName())
+        .tag("method", method.getName())
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+  }
+}
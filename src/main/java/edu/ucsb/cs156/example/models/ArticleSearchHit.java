@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.Articles;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ArticleSearchHit {
+  private Articles article;
+  // relevance; only comparable between hits of the same search
+  private double score;
+}
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dining commons' menu: its stations, in name order, each with its items
+ * and their star ratings (see MenuItemRatingSummary).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DiningCommonsMenu {
+  private String code;
+  private String name;
+  private List<Station> stations;
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor(access = AccessLevel.PROTECTED)
+  @Builder
+  public static class Station {
+    private String name;
+    private List<Item> items;
+  }
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor(access = AccessLevel.PROTECTED)
+  @Builder
+  public static class Item {
+    private long id;
+    private String name;
+    private long reviewCount;
+    private long starSum;
+    private long oneStar;
+    private long twoStars;
+    private long threeStars;
+    private long fourStars;
+    private long fiveStars;
+
+    public double getAverage() {
+      return reviewCount == 0 ? 0 : (double) starSum / reviewCount;
+    }
+  }
+
+  /** Groups the rows of one commons, already ordered by station, into a menu. */
+  public static DiningCommonsMenu of(List<DiningCommonsMenuRow> rows) {
+    Map<String, List<Item>> stations = new LinkedHashMap<>();
+    for (DiningCommonsMenuRow row : rows) {
+      if (row.getItemId() != null) {
+        stations.computeIfAbsent(row.getStation(), station -> new ArrayList<>()).add(item(row));
+      }
+    }
+    List<Station> grouped = new ArrayList<>();
+    stations.forEach((station, items) -> grouped.add(new Station(station, items)));
+    DiningCommonsMenuRow first = rows.get(0);
+    return new DiningCommonsMenu(first.getCode(), first.getCommonsName(), grouped);
+  }
+
+  private static Item item(DiningCommonsMenuRow row) {
+    if (row.getReviewCount() == null) {
+      return Item.builder().id(row.getItemId()).name(row.getItemName()).build();
+    }
+    return new Item(row.getItemId(), row.getItemName(), row.getReviewCount(), row.getStarSum(), row.getOneStar(),
+        row.getTwoStars(), row.getThreeStars(), row.getFourStars(), row.getFiveStars());
+  }
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+
+/**
+ * One row of UCSBDiningCommonsRepository.findMenuByCode: a commons, one of
+ * its menu items and that item's rating totals.  The item and rating
+ * columns are null for a commons without items, the rating columns for an
+ * item without reviews.
+ */
+@Data
+@AllArgsConstructor
+public class DiningCommonsMenuRow {
+  private String code;
+  private String commonsName;
+  private Long itemId;
+  private String itemName;
+  private String station;
+  private Long reviewCount;
+  private Long starSum;
+  private Long oneStar;
+  private Long twoStars;
+  private Long threeStars;
+  private Long fourStars;
+  private Long fiveStars;
+}
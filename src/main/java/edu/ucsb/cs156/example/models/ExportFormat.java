@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Formats offered by the /export endpoints, see EntityStreamingService.export.
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+  NDJSON("application/x-ndjson", "ndjson"),
+  CSV("text/csv", "csv");
+
+  private final String contentType;
+  private final String extension;
+
+  public String attachment(String name) {
+    return "attachment; filename=\"%s.%s\"".formatted(name, extension);
+  }
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+/**
+ * The open (unsolved) help requests, or the changes to them since an earlier
+ * view.  Pass cursor back as the since parameter on the next poll.  When full
+ * is true, requests is the whole queue and replaces what the client holds;
+ * otherwise requests are the added or changed open requests (to insert or
+ * replace by id) and removed are the ids that were solved or deleted.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HelpRequestQueueView {
+  private String cursor;
+  private boolean full;
+  // ordered by requestTime, then id
+  private List<HelpRequest> requests;
+  private List<Long> removed;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ImportReport {
+  private long imported;
+  private long rejected;
+  private long elapsedMillis;
+  private double rowsPerSecond;
+  // at most ImportService.MAX_REPORTED_REJECTIONS, in line order
+  private List<ImportRejection> rejections;
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RecommendationReminder {
+
+  public enum Kind {
+    // the deadline is within app.recommendationReminders.leadHours
+    DUE_SOON,
+    // the deadline has passed and the request is still not done
+    OVERDUE
+  }
+
+  private Kind kind;
+  private RecommendationRequest request;
+}
@@ -3,11 +3,68 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.Articles;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface ArticlesRepository extends CrudRepository<Articles, Long> {
+    List<Articles> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Articles> streamAllByOrderByIdAsc();
+
+    // Single-statement writes for SingleRowWriteService; each returns the
+    // number of rows it changed, 0 if there is no such id.
+    @Modifying
+    @Query("delete from articles a where a.id = :id")
+    int deleteRowById(long id);
+
+    @Modifying
+    @Query("update articles a set a.title = :title, a.url = :url, a.explanation = :explanation, a.email = :email,"
+            + " a.dateAdded = :dateAdded where a.id = :id")
+    int updateRowById(long id, String title, String url, String explanation, String email, LocalDate dateAdded);
+
+    // PostgreSQL only (see PostgresArticleSearchService).  The expression
+    // must stay identical to the one IDX_ARTICLES_SEARCH is built on
+    // (changeset Articles-4), or the index is not used.
+    //
+    // Each column is first cut into runs of letters and digits, the words
+    // ArticleSearchService.words() finds.  Left to itself the parser keeps an
+    // email or a URL as one token (cgaucho@ucsb.edu, not cgaucho and ucsb),
+    // so the two search services would match different articles.  The
+    // [:alnum:] class follows the database's LC_CTYPE; with the C locale
+    // non-ASCII letters count as separators here but not in memory.
+    String SEARCH_VECTOR = "(setweight(to_tsvector('simple',"
+        + " regexp_replace(coalesce(title, ''), '[^[:alnum:]]+', ' ', 'g')), 'A')"
+        + " || setweight(to_tsvector('simple',"
+        + " regexp_replace(coalesce(explanation, ''), '[^[:alnum:]]+', ' ', 'g')), 'B')"
+        + " || setweight(to_tsvector('simple',"
+        + " regexp_replace(coalesce(email, ''), '[^[:alnum:]]+', ' ', 'g')), 'C'))";
+
+    interface SearchRank {
+        Long getId();
+        Double getScore();
+    }
+
+    @Query(value = "SELECT id, CAST(ts_rank_cd(" + SEARCH_VECTOR + ", to_tsquery('simple', :query)) AS double precision) AS score"
+        + " FROM articles WHERE " + SEARCH_VECTOR + " @@ to_tsquery('simple', :query)"
+        + " ORDER BY score DESC, id LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<SearchRank> searchRanks(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
 
-}
\ No newline at end of file
+    @Query(value = "SELECT count(*) FROM articles WHERE " + SEARCH_VECTOR + " @@ to_tsquery('simple', :query)", nativeQuery = true)
+    long countSearchMatches(@Param("query") String query);
+}
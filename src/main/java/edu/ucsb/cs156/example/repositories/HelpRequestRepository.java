@@ -3,11 +3,44 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-    
-}
\ No newline at end of file
+    Iterable<HelpRequest> findAllByRequesterEmail(String requesterEmail);
+    Iterable<HelpRequest> findAllBySolved(boolean solved);
+    List<HelpRequest> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    // the open-request queue; matches IDX_HELPREQUEST_OPEN_QUEUE
+    List<HelpRequest> findAllBySolvedFalseOrderByRequestTimeAscIdAsc();
+
+    // Single-statement writes for SingleRowWriteService; each returns the
+    // number of rows it changed, 0 if there is no such id.
+    @Modifying
+    @Query("delete from helprequest h where h.id = :id")
+    int deleteRowById(long id);
+
+    @Modifying
+    @Query("update helprequest h set h.requesterEmail = :requesterEmail, h.teamId = :teamId,"
+            + " h.tableOrBreakoutRoom = :tableOrBreakoutRoom, h.requestTime = :requestTime,"
+            + " h.explanation = :explanation, h.solved = :solved where h.id = :id")
+    int updateRowById(long id, String requesterEmail, String teamId, String tableOrBreakoutRoom,
+            LocalDateTime requestTime, String explanation, boolean solved);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<HelpRequest> streamAllByOrderByIdAsc();
+}
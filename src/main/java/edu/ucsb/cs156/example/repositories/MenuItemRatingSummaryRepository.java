@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MenuItemRatingSummaryRepository extends CrudRepository<MenuItemRatingSummary, Long> {
+
+    // Adds the deltas in place, so concurrent reviews of the same item don't
+    // overwrite each other's totals; returns 0 if the item has no row yet.
+    @Modifying
+    @Query("update menuitemratingsummaries s set s.reviewCount = s.reviewCount + :reviewCount,"
+            + " s.starSum = s.starSum + :starSum, s.oneStar = s.oneStar + :oneStar,"
+            + " s.twoStars = s.twoStars + :twoStars, s.threeStars = s.threeStars + :threeStars,"
+            + " s.fourStars = s.fourStars + :fourStars, s.fiveStars = s.fiveStars + :fiveStars"
+            + " where s.itemId = :itemId")
+    int adjust(long itemId, long reviewCount, long starSum, long oneStar, long twoStars, long threeStars,
+            long fourStars, long fiveStars);
+}
@@ -1,12 +1,68 @@
 package edu.ucsb.cs156.example.repositories;
 
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
- 
-}
\ No newline at end of file
+    Iterable<MenuItemReview> findAllByItemId(long itemId);
+
+    // For MenuItemRatingService: the review's current item and stars, read
+    // with SELECT ... FOR UPDATE, then single-statement writes that return
+    // the number of rows changed, 0 if there is no such id.
+    interface Rating {
+        long getItemId();
+        int getStars();
+    }
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r.itemId as itemId, r.stars as stars from menuitemreviews r where r.id = :id")
+    Optional<Rating> findRatingForUpdateById(long id);
+
+    @Modifying
+    @Query("delete from menuitemreviews r where r.id = :id")
+    int deleteRowById(long id);
+
+    @Modifying
+    @Query("update menuitemreviews r set r.itemId = :itemId, r.reviewerEmail = :reviewerEmail, r.stars = :stars,"
+            + " r.dateReviewed = :dateReviewed, r.comments = :comments where r.id = :id")
+    int updateRowById(long id, long itemId, String reviewerEmail, int stars, LocalDateTime dateReviewed,
+            String comments);
+    List<MenuItemReview> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<MenuItemReview> streamAllByOrderByIdAsc();
+
+    // rating totals computed from the reviews themselves, for
+    // MenuItemRatingService to reconcile menuitemratingsummaries against
+    String RATING_TOTALS = "select new edu.ucsb.cs156.example.entities.MenuItemRatingSummary(r.itemId, count(r),"
+            + " sum(r.stars), sum(case when r.stars = 1 then 1 else 0 end), sum(case when r.stars = 2 then 1 else 0 end),"
+            + " sum(case when r.stars = 3 then 1 else 0 end), sum(case when r.stars = 4 then 1 else 0 end),"
+            + " sum(case when r.stars = 5 then 1 else 0 end)) from menuitemreviews r";
+
+    @Query(RATING_TOTALS + " group by r.itemId")
+    List<MenuItemRatingSummary> ratingTotals();
+
+    @Query(RATING_TOTALS + " where r.itemId in :itemIds group by r.itemId")
+    List<MenuItemRatingSummary> ratingTotals(Collection<Long> itemIds);
+}
@@ -2,11 +2,42 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-    
-}
\ No newline at end of file
+    Iterable<RecommendationRequest> findAllByRequesterEmail(String requesterEmail);
+    Iterable<RecommendationRequest> findAllByDone(boolean done);
+    List<RecommendationRequest> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+    List<RecommendationRequest> findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc();
+
+    // Single-statement writes for SingleRowWriteService; each returns the
+    // number of rows it changed, 0 if there is no such id.
+    @Modifying
+    @Query("delete from recommendationrequest r where r.id = :id")
+    int deleteRowById(long id);
+
+    @Modifying
+    @Query("update recommendationrequest r set r.requesterEmail = :requesterEmail, r.professorEmail = :professorEmail,"
+            + " r.explanation = :explanation, r.dateRequested = :dateRequested, r.dateNeeded = :dateNeeded,"
+            + " r.done = :done where r.id = :id")
+    int updateRowById(long id, String requesterEmail, String professorEmail, String explanation,
+            LocalDateTime dateRequested, LocalDateTime dateNeeded, boolean done);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<RecommendationRequest> streamAllByOrderByIdAsc();
+}
@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.SentRecommendationReminder;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SentRecommendationReminderRepository
+        extends CrudRepository<SentRecommendationReminder, SentRecommendationReminder.Key> {
+
+    // A row is only looked up while its request is open with that deadline;
+    // once the request is done, deleted or given another deadline it is no
+    // longer needed.
+    @Transactional
+    @Modifying
+    @Query("delete from sentrecommendationreminders r where not exists (select q.id from recommendationrequest q"
+            + " where q.id = r.requestId and q.done = false and q.dateNeeded = r.dateNeeded)")
+    int deleteForClosedDeadlines();
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.TableVersion;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+// Only the three operations TableVersionService needs, so there is nothing
+// here that could set a version backwards.
+
+@Repository
+public interface TableVersionRepository extends org.springframework.data.repository.Repository<TableVersion, String> {
+
+    @Query("select v.version from tableversions v where v.tableName = :tableName")
+    Optional<Long> findVersion(String tableName);
+
+    // Increments in place, taking the row lock until the caller's transaction
+    // ends; returns 0 if the table has no row yet.
+    @Modifying
+    @Query("update tableversions v set v.version = v.version + 1 where v.tableName = :tableName")
+    int increment(String tableName);
+
+    TableVersion save(TableVersion version);
+}
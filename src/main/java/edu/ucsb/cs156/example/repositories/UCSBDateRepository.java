@@ -2,11 +2,30 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+  List<UCSBDate> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+  List<UCSBDate> findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc();
+
+  // Single-statement writes for SingleRowWriteService; each returns the
+  // number of rows it changed, 0 if there is no such id.
+  @Modifying
+  @Query("delete from ucsbdates d where d.id = :id")
+  int deleteRowById(long id);
+
+  @Modifying
+  @Query("update ucsbdates d set d.quarterYYYYQ = :quarterYYYYQ, d.name = :name, d.localDateTime = :localDateTime"
+      + " where d.id = :id")
+  int updateRowById(long id, String quarterYYYYQ, String name, LocalDateTime localDateTime);
 }
\ No newline at end of file
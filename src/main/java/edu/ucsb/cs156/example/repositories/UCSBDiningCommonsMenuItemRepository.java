@@ -2,11 +2,28 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
 
 
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
+    Iterable<UCSBDiningCommonsMenuItem> findAllByDiningCommonsCode(String diningCommonsCode);
+    List<UCSBDiningCommonsMenuItem> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    // Single-statement writes for SingleRowWriteService; each returns the
+    // number of rows it changed, 0 if there is no such id.
+    @Modifying
+    @Query("delete from ucsbdiningcommonsmenuitem i where i.id = :id")
+    int deleteRowById(long id);
 
+    @Modifying
+    @Query("update ucsbdiningcommonsmenuitem i set i.diningCommonsCode = :diningCommonsCode, i.name = :name,"
+            + " i.station = :station where i.id = :id")
+    int updateRowById(long id, String diningCommonsCode, String name, String station);
 }
\ No newline at end of file
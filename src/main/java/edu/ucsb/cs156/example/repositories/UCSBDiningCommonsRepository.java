@@ -1,13 +1,88 @@
 package edu.ucsb.cs156.example.repositories;
 
+import edu.ucsb.cs156.example.config.CachingConfig;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.DiningCommonsMenuRow;
 
-import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Optional;
+
+// findById and findAll are served from the "ucsbdiningcommons" cache
+// (see CachingConfig), which hands out copies; every write clears it.
 
 @Repository
+@CacheConfig(cacheNames = CachingConfig.DINING_COMMONS)
 public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
-}
\ No newline at end of file
+    List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String code, Pageable pageable);
+
+    // A commons' menu items with their rating totals, as DTO rows in one
+    // query; empty if there is no such commons.  Not cached.
+    @Query("select new edu.ucsb.cs156.example.models.DiningCommonsMenuRow(c.code, c.name, i.id, i.name, i.station,"
+            + " s.reviewCount, s.starSum, s.oneStar, s.twoStars, s.threeStars, s.fourStars, s.fiveStars)"
+            + " from ucsbdiningcommons c"
+            + " left join ucsbdiningcommonsmenuitem i on i.diningCommonsCode = c.code"
+            + " left join menuitemratingsummaries s on s.itemId = i.id"
+            + " where c.code = :code"
+            + " order by i.station, i.name, i.id")
+    List<DiningCommonsMenuRow> findMenuByCode(String code);
+
+    // Single-statement writes for SingleRowWriteService; each returns the
+    // number of rows it changed, 0 if there is no such code.
+    @Modifying
+    @CacheEvict(allEntries = true)
+    @Query("delete from ucsbdiningcommons c where c.code = :code")
+    int deleteRowByCode(String code);
+
+    @Modifying
+    @CacheEvict(allEntries = true)
+    @Query("update ucsbdiningcommons c set c.name = :name, c.hasSackMeal = :hasSackMeal,"
+            + " c.hasTakeOutMeal = :hasTakeOutMeal, c.hasDiningCam = :hasDiningCam, c.latitude = :latitude,"
+            + " c.longitude = :longitude where c.code = :code")
+    int updateRowByCode(String code, String name, boolean hasSackMeal, boolean hasTakeOutMeal, boolean hasDiningCam,
+            Double latitude, Double longitude);
+
+    @Override
+    @Cacheable
+    Optional<UCSBDiningCommons> findById(String id);
+
+    @Override
+    @Cacheable
+    Iterable<UCSBDiningCommons> findAll();
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends UCSBDiningCommons> S save(S entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends UCSBDiningCommons> Iterable<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void delete(UCSBDiningCommons entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAllById(Iterable<? extends String> ids);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll(Iterable<? extends UCSBDiningCommons> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll();
+}
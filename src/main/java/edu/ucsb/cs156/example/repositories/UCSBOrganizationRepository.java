@@ -1,11 +1,74 @@
 package edu.ucsb.cs156.example.repositories;
 
+import edu.ucsb.cs156.example.config.CachingConfig;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+// findById and findAll are served from the "ucsborganization" cache
+// (see CachingConfig), which hands out copies; every write clears it.
 
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String>{
-    
-} 
+@CacheConfig(cacheNames = CachingConfig.ORGANIZATIONS)
+public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {
+    List<UCSBOrganization> findByOrgCodeGreaterThanOrderByOrgCodeAsc(String orgCode, Pageable pageable);
+
+    // Single-statement writes for SingleRowWriteService; each returns the
+    // number of rows it changed, 0 if there is no such orgCode.
+    @Modifying
+    @CacheEvict(allEntries = true)
+    @Query("delete from ucsborganization o where o.orgCode = :orgCode")
+    int deleteRowByOrgCode(String orgCode);
+
+    @Modifying
+    @CacheEvict(allEntries = true)
+    @Query("update ucsborganization o set o.orgTranslationShort = :orgTranslationShort,"
+            + " o.orgTranslation = :orgTranslation, o.inactive = :inactive where o.orgCode = :orgCode")
+    int updateRowByOrgCode(String orgCode, String orgTranslationShort, String orgTranslation, boolean inactive);
+
+    @Override
+    @Cacheable
+    Optional<UCSBOrganization> findById(String id);
+
+    @Override
+    @Cacheable
+    Iterable<UCSBOrganization> findAll();
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends UCSBOrganization> S save(S entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    <S extends UCSBOrganization> Iterable<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void delete(UCSBOrganization entity);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAllById(Iterable<? extends String> ids);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll(Iterable<? extends UCSBOrganization> entities);
+
+    @Override
+    @CacheEvict(allEntries = true)
+    void deleteAll();
+}
@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// In-memory view of who is an admin: the emails configured in
+// app.admin.emails, plus the users whose admin column is true.
+// The database view is loaded on first use, kept in step by calling
+// setAdmin whenever the app writes a user's admin flag, and reloaded every
+// app.adminRegistry.refreshMillis so that admins granted or revoked by
+// editing the users table directly are seen without a restart.  Every
+// email whose admin status changes either way is evicted from
+// CurrentUserCache, so its cached User row is read again on the next
+// request.  A refresh reads the table without blocking setAdmin and then
+// replays the setAdmin calls made while it was reading, so a grant or
+// revoke that lands during a refresh is not undone by the older read.
+
+@Slf4j
+@Service("adminEmailRegistry")
+public class AdminEmailRegistry {
+
+  @Value("${app.admin.emails}")
+  private String[] adminEmails = new String[0];
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  CurrentUserCache currentUserCache;
+
+  private volatile Set<String> configuredAdmins;
+  private volatile Set<String> databaseAdmins;
+
+  // setAdmin calls made while a refresh is reading the table, replayed onto
+  // what it read: the query may have started before their write committed.
+  // Guarded by this; null when no refresh is running.
+  private Map<String, Boolean> changedDuringRefresh;
+
+  private final Object refreshLock = new Object();
+
+  public boolean isConfiguredAdmin(String email) {
+    return configuredAdmins().contains(email);
+  }
+
+  public boolean isAdmin(String email) {
+    return isConfiguredAdmin(email) || databaseAdmins().contains(email);
+  }
+
+  // call after the write to the users table has committed
+  public synchronized void setAdmin(String email, boolean admin) {
+    if (databaseAdmins != null) {
+      apply(databaseAdmins, email, admin);
+    }
+    if (changedDuringRefresh != null) {
+      changedDuringRefresh.put(email, admin);
+    }
+    currentUserCache.evictByEmail(email);
+  }
+
+  @Scheduled(fixedRateString = "${app.adminRegistry.refreshMillis:60000}",
+      initialDelayString = "${app.adminRegistry.refreshMillis:60000}")
+  public void refresh() {
+    synchronized (refreshLock) {
+      synchronized (this) {
+        changedDuringRefresh = new HashMap<>();
+      }
+      Set<String> admins = ConcurrentHashMap.newKeySet();
+      for (User u : userRepository.findAllByAdminTrue()) {
+        admins.add(u.getEmail());
+      }
+      log.info("loaded {} admin users from the database", admins.size());
+      Set<String> previous;
+      synchronized (this) {
+        changedDuringRefresh.forEach((email, admin) -> apply(admins, email, admin));
+        changedDuringRefresh = null;
+        previous = databaseAdmins;
+        databaseAdmins = admins;
+      }
+      if (previous != null) {
+        previous.stream().filter(email -> !admins.contains(email)).forEach(currentUserCache::evictByEmail);
+        admins.stream().filter(email -> !previous.contains(email)).forEach(currentUserCache::evictByEmail);
+      }
+    }
+  }
+
+  private static void apply(Set<String> admins, String email, boolean admin) {
+    if (admin) {
+      admins.add(email);
+    } else {
+      admins.remove(email);
+    }
+  }
+
+  private Set<String> configuredAdmins() {
+    if (configuredAdmins == null) {
+      configuredAdmins = new HashSet<>(Arrays.asList(adminEmails));
+    }
+    return configuredAdmins;
+  }
+
+  private Set<String> databaseAdmins() {
+    if (databaseAdmins == null) {
+      refresh();
+    }
+    return databaseAdmins;
+  }
+}
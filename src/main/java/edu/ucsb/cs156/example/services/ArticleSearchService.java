@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchResults;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.data.domain.Pageable;
+
+// Full-text search over the title, explanation and email of the articles.
+// A query is a list of words, all of which must match; a word ending in *
+// matches any word it is a prefix of.  Words are runs of letters and
+// digits, compared case-insensitively.
+//
+// PostgresArticleSearchService (production profile) searches the table
+// through a GIN-indexed tsvector; InMemoryArticleSearchService (all other
+// profiles) keeps its own inverted index, which ArticlesController keeps
+// current through indexed/removed after rebuild() reads the table at startup.  Both find the same words in an
+// email or a URL, so they match the same articles and differ only in how
+// they rank them.
+
+public abstract class ArticleSearchService {
+
+  record QueryTerm(String word, boolean prefix) {}
+
+  public abstract ArticleSearchResults search(String query, Pageable pageable);
+
+  // after an article is created or updated
+  public void indexed(Articles article) {
+  }
+
+  public void removed(long id) {
+  }
+
+  // reads the whole table again
+  public void rebuild() {
+  }
+
+  static List<String> words(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  // "e-mail* gaucho" is e, mail* and gaucho: the * applies to the last word
+  // of the run it ends
+  static List<QueryTerm> parse(String query) {
+    Set<QueryTerm> terms = new LinkedHashSet<>();
+    for (String run : query.trim().split("\\s+")) {
+      List<String> words = words(run);
+      for (int i = 0; i < words.size(); i++) {
+        terms.add(new QueryTerm(words.get(i), i == words.size() - 1 && run.endsWith("*")));
+      }
+    }
+    return new ArrayList<>(terms);
+  }
+
+  static ArticleSearchResults empty(Pageable pageable) {
+    return new ArticleSearchResults(0, pageable.getPageNumber(), pageable.getPageSize(), List.of());
+  }
+}
@@ -0,0 +1,168 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkReport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Backs the /bulk endpoints on the CRUD controllers.  Each call runs in a
+// single transaction and hands the whole list to saveAll/deleteAll so that
+// Hibernate can group the statements into JDBC batches (see
+// hibernate.jdbc.batch_size in application.properties).  Rows that can't be
+// written, including rows without a key, are reported per item rather than
+// failing the whole request.
+//
+// The overloads taking a callback hand it the rows written, or the ids
+// deleted, in the same transaction, right after the statements, so a
+// controller can apply just those to its TableMirror (see
+// SingleRowWriteService for why inside the transaction).
+
+@Slf4j
+@Service("bulkWriteService")
+public class BulkWriteService {
+
+  public static final String CREATED = "created";
+  public static final String UPDATED = "updated";
+  public static final String DELETED = "deleted";
+  public static final String NOT_FOUND = "not found";
+  public static final String DUPLICATE = "duplicate";
+  public static final String MISSING_KEY = "missing key";
+
+  private static final Set<String> SUCCEEDED = Set.of(CREATED, UPDATED, DELETED);
+
+  /** Insert rows whose id is generated by the database. */
+  @Transactional
+  public <T, ID> BulkReport createAll(CrudRepository<T, ID> repository, List<T> items, Function<T, ID> idOf) {
+    return createAll(repository, items, idOf, created -> {});
+  }
+
+  @Transactional
+  public <T, ID> BulkReport createAll(CrudRepository<T, ID> repository, List<T> items, Function<T, ID> idOf,
+      Consumer<List<T>> then) {
+    List<T> created = new ArrayList<>();
+    repository.saveAll(items).forEach(created::add);
+    List<BulkItemResult> results = new ArrayList<>();
+    for (int i = 0; i < created.size(); i++) {
+      results.add(result(i, idOf.apply(created.get(i)), CREATED));
+    }
+    then.accept(created);
+    return report(results);
+  }
+
+  /** Insert rows keyed by a natural key (e.g. a dining commons code), skipping keys already taken. */
+  @Transactional
+  public <T, ID> BulkReport createAllWithKeys(CrudRepository<T, ID> repository, List<T> items, Function<T, ID> keyOf) {
+    Set<ID> taken = keysOf(repository.findAllById(keys(items, keyOf)), keyOf);
+    List<T> toSave = new ArrayList<>();
+    List<BulkItemResult> results = new ArrayList<>();
+    for (int i = 0; i < items.size(); i++) {
+      T item = items.get(i);
+      ID key = keyOf.apply(item);
+      if (key == null) {
+        results.add(result(i, null, MISSING_KEY));
+      } else if (taken.add(key)) {
+        toSave.add(item);
+        results.add(result(i, key, CREATED));
+      } else {
+        results.add(result(i, key, DUPLICATE));
+      }
+    }
+    repository.saveAll(toSave);
+    return report(results);
+  }
+
+  @Transactional
+  public <T, ID> BulkReport updateAll(CrudRepository<T, ID> repository, List<T> items, Function<T, ID> idOf) {
+    return updateAll(repository, items, idOf, updated -> {});
+  }
+
+  @Transactional
+  public <T, ID> BulkReport updateAll(CrudRepository<T, ID> repository, List<T> items, Function<T, ID> idOf,
+      Consumer<List<T>> then) {
+    Set<ID> found = keysOf(repository.findAllById(keys(items, idOf)), idOf);
+    List<T> toSave = new ArrayList<>();
+    List<BulkItemResult> results = new ArrayList<>();
+    for (int i = 0; i < items.size(); i++) {
+      T item = items.get(i);
+      ID id = idOf.apply(item);
+      if (id == null) {
+        results.add(result(i, null, MISSING_KEY));
+      } else if (found.contains(id)) {
+        toSave.add(item);
+        results.add(result(i, id, UPDATED));
+      } else {
+        results.add(result(i, id, NOT_FOUND));
+      }
+    }
+    List<T> updated = new ArrayList<>();
+    repository.saveAll(toSave).forEach(updated::add);
+    then.accept(updated);
+    return report(results);
+  }
+
+  @Transactional
+  public <T, ID> BulkReport deleteAll(CrudRepository<T, ID> repository, List<ID> ids, Function<T, ID> idOf) {
+    return deleteAll(repository, ids, idOf, deleted -> {});
+  }
+
+  @Transactional
+  public <T, ID> BulkReport deleteAll(CrudRepository<T, ID> repository, List<ID> ids, Function<T, ID> idOf,
+      Consumer<List<ID>> then) {
+    List<T> found = new ArrayList<>();
+    repository.findAllById(keys(ids, id -> id)).forEach(found::add);
+    Set<ID> foundIds = keysOf(found, idOf);
+    List<BulkItemResult> results = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i++) {
+      ID id = ids.get(i);
+      results.add(result(i, id, id == null ? MISSING_KEY : foundIds.contains(id) ? DELETED : NOT_FOUND));
+    }
+    repository.deleteAll(found);
+    then.accept(new ArrayList<>(foundIds));
+    return report(results);
+  }
+
+  // findAllById rejects a null, so items without a key are left out here
+  // and reported as MISSING_KEY
+  private static <T, ID> List<ID> keys(List<T> items, Function<T, ID> keyOf) {
+    List<ID> keys = new ArrayList<>();
+    for (T item : items) {
+      ID key = keyOf.apply(item);
+      if (key != null) {
+        keys.add(key);
+      }
+    }
+    return keys;
+  }
+
+  private static <T, ID> Set<ID> keysOf(Iterable<T> entities, Function<T, ID> keyOf) {
+    Set<ID> keys = new HashSet<>();
+    entities.forEach(entity -> keys.add(keyOf.apply(entity)));
+    return keys;
+  }
+
+  private static BulkItemResult result(int index, Object id, String status) {
+    return BulkItemResult.builder().index(index).id(id).status(status).build();
+  }
+
+  private static BulkReport report(List<BulkItemResult> results) {
+    int succeeded = (int) results.stream()
+        .filter(r -> SUCCEEDED.contains(r.getStatus()))
+        .count();
+    log.info("bulk write: {} succeeded, {} failed", succeeded, results.size() - succeeded);
+    return BulkReport.builder()
+        .succeeded(succeeded)
+        .failed(results.size() - succeeded)
+        .items(results)
+        .build();
+  }
+}
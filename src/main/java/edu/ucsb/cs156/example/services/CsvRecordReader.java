@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads RFC 4180 CSV one record at a time, the counterpart of the writer in
+// EntityStreamingService: comma separated, fields optionally in double
+// quotes with "" for a quote, CRLF or LF line ends, and quoted fields may
+// span lines.  A carriage return outside quotes is ignored.
+//
+// A quote left open at the end of the input, or a field longer than
+// maxFieldLength, throws MalformedCsvException rather than letting one
+// field swallow the rest of the upload.  Neither can be skipped past, since
+// there is no telling where the next record starts.
+
+class CsvRecordReader {
+
+  static final int MAX_FIELD_LENGTH = 64 * 1024;
+
+  static class MalformedCsvException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+    private final String reason;
+
+    MalformedCsvException(long line, String reason) {
+      super("line %d: %s".formatted(line, reason));
+      this.line = line;
+      this.reason = reason;
+    }
+
+    long line() {
+      return line;
+    }
+
+    String reason() {
+      return reason;
+    }
+  }
+
+  private final Reader in;
+  private final int maxFieldLength;
+  private long line = 1;
+  private long recordLine;
+
+  CsvRecordReader(Reader in) {
+    this(in, MAX_FIELD_LENGTH);
+  }
+
+  CsvRecordReader(Reader in, int maxFieldLength) {
+    this.in = in;
+    this.maxFieldLength = maxFieldLength;
+  }
+
+  // the (1-based) line on which the record last returned by next() started
+  long recordLine() {
+    return recordLine;
+  }
+
+  // the next record, or null at the end of the input
+  List<String> next() throws IOException {
+    int c = in.read();
+    if (c < 0) {
+      return null;
+    }
+    recordLine = line;
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    long quoteLine = 0;
+    while (true) {
+      if (c == '\n') {
+        line++;
+      }
+      if (quoted) {
+        if (c < 0) {
+          throw new MalformedCsvException(quoteLine, "quoted field is never closed");
+        }
+        if (c == '"') {
+          c = in.read();
+          if (c != '"') {
+            quoted = false;
+            continue;
+          }
+        }
+        append(field, c);
+      } else if (c == '"' && field.length() == 0) {
+        quoted = true;
+        quoteLine = line;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n' || c < 0) {
+        fields.add(field.toString());
+        return fields;
+      } else if (c != '\r') {
+        append(field, c);
+      }
+      c = in.read();
+    }
+  }
+
+  private void append(StringBuilder field, int c) throws MalformedCsvException {
+    if (field.length() == maxFieldLength) {
+      throw new MalformedCsvException(line, "field is longer than %d characters".formatted(maxFieldLength));
+    }
+    field.append((char) c);
+  }
+}
@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import edu.ucsb.cs156.example.entities.User;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Holds the User row resolved for each OAuth subject ("sub") so that
+// repeated calls to getCurrentUser() within the TTL don't go back to the
+// users table.  AdminEmailRegistry calls evictByEmail whenever a user's
+// admin flag changes, whether the app wrote it (setAdmin) or the database
+// was edited directly (seen on its scheduled refresh), so the new value is
+// picked up on the next request rather than after the TTL.
+//
+// Caffeine bounds the cache by evicting the entries least likely to be used
+// again, one at a time, so a full cache costs a few extra lookups rather
+// than sending every logged-in user back to the database at once.
+
+@Service("currentUserCache")
+public class CurrentUserCache {
+
+  private final Cache<String, User> users;
+
+  @Autowired
+  public CurrentUserCache(@Value("${app.currentUserCache.ttlSeconds:300}") long ttlSeconds,
+      @Value("${app.currentUserCache.maxEntries:10000}") int maxEntries) {
+    this(ttlSeconds, maxEntries, Ticker.systemTicker());
+  }
+
+  CurrentUserCache(long ttlSeconds, int maxEntries, Ticker ticker) {
+    users = Caffeine.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .ticker(ticker)
+        .build();
+  }
+
+  public User get(String googleSub) {
+    return googleSub == null ? null : users.getIfPresent(googleSub);
+  }
+
+  public void put(String googleSub, User user) {
+    if (googleSub != null) {
+      users.put(googleSub, user);
+    }
+  }
+
+  public void evict(String googleSub) {
+    users.invalidate(googleSub);
+  }
+
+  public void evictByEmail(String email) {
+    users.asMap().values().removeIf(user -> email.equals(user.getEmail()));
+  }
+
+  public void evictAll() {
+    users.invalidateAll();
+  }
+
+  public long size() {
+    users.cleanUp();
+    return users.estimatedSize();
+  }
+}
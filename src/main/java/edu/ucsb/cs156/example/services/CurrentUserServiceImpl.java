@@ -5,13 +5,10 @@ import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -30,8 +27,11 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   @Autowired
   GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  final private List<String> adminEmails = new ArrayList<String>();
+  @Autowired
+  CurrentUserCache currentUserCache;
+
+  @Autowired
+  AdminEmailRegistry adminEmailRegistry;
 
   public CurrentUser getCurrentUser() {
     CurrentUser cu = CurrentUser.builder()
@@ -45,8 +45,13 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   
   public User getOAuth2AuthenticatedUser(SecurityContext securityContext, Authentication authentication) {
     OAuth2User oAuthUser = ((OAuth2AuthenticationToken) authentication).getPrincipal();
-    String email = oAuthUser.getAttribute("email");
     String googleSub = oAuthUser.getAttribute("sub");
+    User cached = currentUserCache.get(googleSub);
+    if (cached != null) {
+      return cached;
+    }
+
+    String email = oAuthUser.getAttribute("email");
     String pictureUrl = oAuthUser.getAttribute("picture");
     String fullName = oAuthUser.getAttribute("name");
     String givenName = oAuthUser.getAttribute("given_name");
@@ -61,10 +66,12 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     Optional<User> ou = userRepository.findByEmail(email);
     if (ou.isPresent()) {
       User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
+      if (adminEmailRegistry.isConfiguredAdmin(email) && !u.getAdmin()) {
         u.setAdmin(true);
         userRepository.save(u);
+        adminEmailRegistry.setAdmin(email, true);
       }
+      currentUserCache.put(googleSub, u);
       return u;
     }
 
@@ -78,9 +85,11 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .emailVerified(emailVerified)
         .locale(locale)
         .hostedDomain(hostedDomain)
-        .admin(adminEmails.contains(email))
+        .admin(adminEmailRegistry.isConfiguredAdmin(email))
         .build();
     userRepository.save(u);
+    adminEmailRegistry.setAdmin(email, u.getAdmin());
+    currentUserCache.put(googleSub, u);
     return u;
   }
 
@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Answers "which dining commons are closest to this point" from an
+// in-memory KdTree instead of scanning the table.  Each commons with a
+// latitude and longitude is indexed as a point on the unit sphere; the
+// straight-line (chord) distance between two such points grows with the
+// great-circle distance, so the tree's Euclidean nearest neighbours are
+// exactly the nearest commons on the globe.
+//
+// UCSBDiningCommonsController calls invalidate() after every write; the
+// next lookup then rebuilds the index from findAll() (itself cached).  The
+// index remembers how many invalidations it was built after, so a rebuild
+// that races with a write is simply redone by the following lookup.
+
+@Slf4j
+@Service("diningCommonsLocator")
+public class DiningCommonsLocator {
+
+  static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private record Index(long writes, KdTree<UCSBDiningCommons> tree) {}
+
+  private final AtomicLong writes = new AtomicLong();
+
+  private volatile Index index;
+
+  public void invalidate() {
+    writes.incrementAndGet();
+  }
+
+  public List<NearbyDiningCommons> nearest(double latitude, double longitude, int k) {
+    List<NearbyDiningCommons> nearest = new ArrayList<>(k);
+    for (KdTree.Neighbor<UCSBDiningCommons> neighbor : tree().nearest(unitVector(latitude, longitude), k)) {
+      nearest.add(new NearbyDiningCommons(neighbor.value(), meters(neighbor.distanceSquared())));
+    }
+    return nearest;
+  }
+
+  private KdTree<UCSBDiningCommons> tree() {
+    long current = writes.get();
+    Index snapshot = index;
+    if (snapshot == null || snapshot.writes() != current) {
+      snapshot = new Index(current, build());
+      index = snapshot;
+    }
+    return snapshot.tree();
+  }
+
+  private KdTree<UCSBDiningCommons> build() {
+    List<UCSBDiningCommons> located = new ArrayList<>();
+    List<double[]> points = new ArrayList<>();
+    for (UCSBDiningCommons commons : ucsbDiningCommonsRepository.findAll()) {
+      if (commons.getLatitude() != null && commons.getLongitude() != null) {
+        located.add(commons);
+        points.add(unitVector(commons.getLatitude(), commons.getLongitude()));
+      }
+    }
+    log.info("indexed {} dining commons locations", located.size());
+    return new KdTree<>(located, points);
+  }
+
+  static double[] unitVector(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    return new double[] { Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat) };
+  }
+
+  // great-circle distance for a squared chord length on the unit sphere
+  static double meters(double chordSquared) {
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(chordSquared) / 2));
+  }
+}
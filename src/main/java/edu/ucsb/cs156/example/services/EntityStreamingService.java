@@ -0,0 +1,174 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import edu.ucsb.cs156.example.models.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Writes rows from a repository Stream<T> query straight to an output
+// stream, one entity at a time, so the full result set is never held in
+// memory.  The Stream is opened inside this class's read-only transaction,
+// which is why callers pass a Supplier (e.g. userRepository::streamAllBy)
+// rather than the Stream itself.
+//
+// Each entity is detached from the persistence context once written, so
+// Hibernate does not keep every row it has handed out, and the output is
+// flushed every FLUSH_EVERY rows so the client starts receiving data (and
+// the response buffer stays small) long before the query finishes.  Rows
+// go through rowWriter() because ObjectMapper would otherwise flush after
+// every single row.
+
+@Service("entityStreamingService")
+public class EntityStreamingService {
+
+  static final int FLUSH_EVERY = 500;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  // absent in the @WebMvcTest slice, where the repositories are mocks
+  @Autowired(required = false)
+  EntityManager entityManager;
+
+  private ObjectWriter rowWriter() {
+    return mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+  }
+
+  @Transactional(readOnly = true)
+  public <T> void writeJsonArray(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+    try (Stream<T> stream = rows.get();
+        JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      ObjectWriter writer = rowWriter();
+      generator.writeStartArray();
+      Iterator<T> it = stream.iterator();
+      for (int n = 1; it.hasNext(); n++) {
+        T row = it.next();
+        writer.writeValue(generator, row);
+        written(row, n, generator);
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public <T> void export(ExportFormat format, Class<T> type, Supplier<Stream<T>> rows, OutputStream out)
+      throws IOException {
+    if (format == ExportFormat.CSV) {
+      writeCsv(type, rows, out);
+    } else {
+      writeNdjson(rows, out);
+    }
+  }
+
+  // one JSON document per line
+  @Transactional(readOnly = true)
+  public <T> void writeNdjson(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+    try (Stream<T> stream = rows.get();
+        JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      ObjectWriter writer = rowWriter();
+      generator.setRootValueSeparator(null);
+      Iterator<T> it = stream.iterator();
+      for (int n = 1; it.hasNext(); n++) {
+        T row = it.next();
+        writer.writeValue(generator, row);
+        generator.writeRaw('\n');
+        written(row, n, generator);
+      }
+    }
+  }
+
+  // RFC 4180 CSV with a header row.  Values are formatted exactly as in the
+  // JSON responses (e.g. ISO dates), since each row goes through the
+  // application's ObjectMapper first, and text goes through guardFormula.
+  @Transactional(readOnly = true)
+  public <T> void writeCsv(Class<T> type, Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+    List<String> columns = mapper.getSerializationConfig().introspect(mapper.constructType(type))
+        .findProperties().stream().map(BeanPropertyDefinition::getName).toList();
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    try (Stream<T> stream = rows.get()) {
+      writeCsvLine(writer, columns);
+      Iterator<T> it = stream.iterator();
+      for (int n = 1; it.hasNext(); n++) {
+        T row = it.next();
+        JsonNode node = mapper.valueToTree(row);
+        writeCsvLine(writer, columns.stream().map(column -> csvText(node.path(column))).toList());
+        written(row, n, writer);
+      }
+    }
+    writer.flush();
+  }
+
+  private void writeCsvLine(Writer writer, List<String> values) throws IOException {
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      writer.write(csvField(values.get(i)));
+    }
+    writer.write("\r\n");
+  }
+
+  private static String csvText(JsonNode value) {
+    return value.isTextual() ? guardFormula(value.asText()) : value.asText(null);
+  }
+
+  // A spreadsheet opening the export would run a text cell starting with
+  // =, +, - or @ (or a tab or CR, which some treat the same) as a formula,
+  // so such cells get a leading ' that makes it plain text.  Text that
+  // already starts with ' gets one too, so that unguardFormula, which the
+  // CSV import applies to every field, always gives back the original.
+  // Numbers are not text and keep their minus sign.
+  static String guardFormula(String text) {
+    if (!text.isEmpty() && "=+-@\t\r'".indexOf(text.charAt(0)) >= 0) {
+      return "'" + text;
+    }
+    return text;
+  }
+
+  static String unguardFormula(String field) {
+    return field.startsWith("'") ? field.substring(1) : field;
+  }
+
+  static String csvField(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  private void written(Object row, int n, Flushable out) throws IOException {
+    if (entityManager != null) {
+      entityManager.detach(row);
+    }
+    if (n % FLUSH_EVERY == 0) {
+      out.flush();
+    }
+  }
+}
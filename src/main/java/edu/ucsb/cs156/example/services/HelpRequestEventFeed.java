@@ -0,0 +1,283 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+// Pushes help request changes to open dashboards as Server-Sent Events
+// (GET /api/HelpRequest/events), so they no longer poll the table.
+//
+// HelpRequestController publishes a created/updated/deleted event for each
+// row it writes.  A bulk write of more rows than a subscriber can buffer is
+// published as one reset event instead (clients should then refetch
+// /api/HelpRequest/queue).  Each event's data
+// is serialized once, whatever the number of subscribers.  The last
+// replayEvents events are kept, so a browser that reconnects with
+// Last-Event-ID gets what it missed; if the id is older than that, or from
+// another run (ids carry this instance's start time), it gets a reset.
+//
+// Publishing never waits on a client: every subscriber has its own bounded
+// buffer, drained on the bounded helpRequestFeedExecutor pool (see
+// TaskExecutorsConfig), and streams are only ever completed there too.  A
+// subscriber more than subscriberBuffer events behind, or whose drain the
+// pool can't take, is disconnected, and resumes from the replayed events
+// when it reconnects.  A heartbeat comment every
+// heartbeatMillis keeps proxies from closing idle connections and finds
+// clients that went away.  The number of connected subscribers is the
+// app.helprequest.feed.subscribers gauge.
+
+@Slf4j
+@Service("helpRequestEventFeed")
+public class HelpRequestEventFeed implements MeterBinder {
+
+  public static final String SUBSCRIBERS_GAUGE = "app.helprequest.feed.subscribers";
+
+  @Value("${app.helpRequestFeed.replayEvents:256}")
+  int replayEvents;
+
+  @Value("${app.helpRequestFeed.subscriberBuffer:64}")
+  int subscriberBuffer;
+
+  // browsers reconnect (with Last-Event-ID) when the stream times out
+  @Value("${app.helpRequestFeed.timeoutMillis:1800000}")
+  long timeoutMillis;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  @Qualifier("helpRequestFeedExecutor")
+  TaskExecutor sender;
+
+  private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+  private record Event(long sequence, String name, String data) {}
+
+  // guarded by this, as is sequence; subscribing and publishing lock it so
+  // a new subscriber sees each event exactly once, replayed or live
+  private final Deque<Event> recent = new ArrayDeque<>();
+
+  private long sequence;
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder(SUBSCRIBERS_GAUGE, subscribers, Set::size)
+        .description("Clients connected to the help request event feed")
+        .register(registry);
+  }
+
+  public SseEmitter subscribe(String lastEventId) {
+    SseEmitter emitter = newEmitter();
+    synchronized (this) {
+      Subscriber subscriber = new Subscriber(emitter, recent.size() + subscriberBuffer);
+      emitter.onCompletion(() -> subscribers.remove(subscriber));
+      // added first, so a send failing during the replay removes it again
+      subscribers.add(subscriber);
+      long from = parse(lastEventId);
+      if (lastEventId == null) {
+        // only sets the browser's last event id, for resuming from here
+        subscriber.offer(SseEmitter.event().id(id(sequence)));
+      } else if (from < sequence - recent.size() || from > sequence) {
+        subscriber.offer(resetEvent());
+      } else {
+        recent.stream().filter(event -> event.sequence() > from).forEach(event -> subscriber.offer(toSse(event)));
+      }
+    }
+    return emitter;
+  }
+
+  public void created(HelpRequest helpRequest) throws JsonProcessingException {
+    publish("created", mapper.writeValueAsString(helpRequest));
+  }
+
+  public void updated(HelpRequest helpRequest) throws JsonProcessingException {
+    publish("updated", mapper.writeValueAsString(helpRequest));
+  }
+
+  public void deleted(long id) throws JsonProcessingException {
+    publish("deleted", mapper.writeValueAsString(Map.of("id", id)));
+  }
+
+  public void createdAll(List<HelpRequest> helpRequests) throws JsonProcessingException {
+    List<String> data = new ArrayList<>();
+    for (HelpRequest helpRequest : helpRequests) {
+      data.add(mapper.writeValueAsString(helpRequest));
+    }
+    publishAll("created", data);
+  }
+
+  public void updatedAll(List<HelpRequest> helpRequests) throws JsonProcessingException {
+    List<String> data = new ArrayList<>();
+    for (HelpRequest helpRequest : helpRequests) {
+      data.add(mapper.writeValueAsString(helpRequest));
+    }
+    publishAll("updated", data);
+  }
+
+  public void deletedAll(List<Long> ids) throws JsonProcessingException {
+    List<String> data = new ArrayList<>();
+    for (long id : ids) {
+      data.add(mapper.writeValueAsString(Map.of("id", id)));
+    }
+    publishAll("deleted", data);
+  }
+
+  // after writes too many or too varied to send one by one
+  public void reset() {
+    publish("reset", "{}");
+  }
+
+  @Scheduled(fixedRateString = "${app.helpRequestFeed.heartbeatMillis:15000}")
+  public void heartbeat() {
+    subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("heartbeat")));
+  }
+
+  SseEmitter newEmitter() {
+    return new SseEmitter(timeoutMillis);
+  }
+
+  // one event per row, unless that would overflow every subscriber's buffer
+  private synchronized void publishAll(String name, List<String> data) {
+    if (data.size() > subscriberBuffer) {
+      publish("reset", "{}");
+    } else {
+      data.forEach(row -> publish(name, row));
+    }
+  }
+
+  private synchronized void publish(String name, String data) {
+    Event event = new Event(++sequence, name, data);
+    recent.addLast(event);
+    if (recent.size() > replayEvents) {
+      recent.removeFirst();
+    }
+    subscribers.forEach(subscriber -> subscriber.offer(toSse(event)));
+  }
+
+  private SseEventBuilder toSse(Event event) {
+    return SseEmitter.event().id(id(event.sequence())).name(event.name()).data(event.data());
+  }
+
+  private SseEventBuilder resetEvent() {
+    return SseEmitter.event().id(id(sequence)).name("reset").data("{}");
+  }
+
+  private String id(long sequence) {
+    return epoch + "-" + sequence;
+  }
+
+  // -1 unless lastEventId is an id issued by this instance
+  private long parse(String lastEventId) {
+    String prefix = epoch + "-";
+    if (lastEventId == null || !lastEventId.startsWith(prefix)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(lastEventId.substring(prefix.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private class Subscriber {
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Deque<SseEventBuilder> pending = new ArrayDeque<>();
+    private boolean draining;
+    private boolean dropped;
+
+    Subscriber(SseEmitter emitter, int capacity) {
+      this.emitter = emitter;
+      this.capacity = capacity;
+    }
+
+    // A subscriber that overflows is only marked dropped here; the drain
+    // (the one already running, or one started for the purpose) completes
+    // its stream, so a publisher never blocks on an emitter a sender thread
+    // is writing to.
+    void offer(SseEventBuilder event) {
+      boolean start;
+      synchronized (this) {
+        if (dropped) {
+          return;
+        }
+        if (pending.size() == capacity) {
+          log.info("dropping a help request feed subscriber {} events behind", pending.size());
+          discard();
+        } else {
+          pending.addLast(event);
+        }
+        start = !draining;
+        draining = true;
+      }
+      if (start) {
+        try {
+          sender.execute(this::drain);
+        } catch (TaskRejectedException e) {
+          // no drain is running, so nothing else holds the emitter
+          log.info("dropping a help request feed subscriber: {}", e.getMessage());
+          discard();
+          emitter.complete();
+        }
+      }
+    }
+
+    // at most one drain runs per subscriber, so events go out in order
+    void drain() {
+      for (SseEventBuilder event = next(); event != null; event = next()) {
+        try {
+          emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+          // the client went away or the stream already ended
+          discard();
+          return;
+        }
+      }
+      if (isDropped()) {
+        emitter.complete();
+      }
+    }
+
+    private synchronized SseEventBuilder next() {
+      SseEventBuilder event = dropped ? null : pending.pollFirst();
+      draining = event != null;
+      return event;
+    }
+
+    private synchronized boolean isDropped() {
+      return dropped;
+    }
+
+    private synchronized void discard() {
+      dropped = true;
+      pending.clear();
+      subscribers.remove(this);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestQueueView;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// An in-memory mirror (see TableMirror) of the open (unsolved) help
+// requests, so the TAs' frequent polls of /api/HelpRequest/queue never touch
+// the database.  HelpRequestController reports its writes, single-row and
+// bulk, row by row.
+//
+// Every change bumps a version, and each open request remembers the version
+// that last changed it, so a poller passing its previous cursor gets only
+// the requests changed since, plus the ids removed since from a bounded list
+// of recent removals.  A cursor from before a reload, from before the oldest
+// remembered removal, or from another run (the cursor carries this
+// instance's start time) gets the whole queue instead; so does every cursor
+// from an instance other than the one that issued it.
+
+@Service("helpRequestQueue")
+public class HelpRequestQueue extends TableMirror<HelpRequest> {
+
+  static final int MAX_REMOVALS = 1000;
+
+  static final Comparator<HelpRequest> QUEUE_ORDER = Comparator
+      .comparing(HelpRequest::getRequestTime, Comparator.nullsLast(Comparator.naturalOrder()))
+      .thenComparingLong(HelpRequest::getId);
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+  private record Entry(HelpRequest request, long version) {}
+
+  private record Removal(long id, long version) {}
+
+  private final Map<Long, Entry> open = new HashMap<>();
+
+  private final Deque<Removal> removals = new ArrayDeque<>();
+
+  private long version;
+
+  // the oldest version a delta can still be computed from
+  private long horizon;
+
+  public synchronized HelpRequestQueueView view(String since) {
+    ensureLoaded();
+    long from = parse(since);
+    boolean full = from < horizon || from > version;
+    List<HelpRequest> requests = open.values().stream()
+        .filter(entry -> full || entry.version() > from)
+        .map(Entry::request)
+        .sorted(QUEUE_ORDER)
+        .toList();
+    // an id removed and then reopened is sent only as a request
+    List<Long> removed = full ? List.of() : removals.stream()
+        .filter(removal -> removal.version() > from && !open.containsKey(removal.id()))
+        .map(Removal::id)
+        .distinct()
+        .toList();
+    return new HelpRequestQueueView(epoch + "-" + version, full, requests, removed);
+  }
+
+  @Override
+  protected void put(HelpRequest request) {
+    if (request.getSolved()) {
+      remove(request.getId());
+      return;
+    }
+    version++;
+    open.put(request.getId(), new Entry(request, version));
+  }
+
+  @Override
+  protected void remove(long id) {
+    if (open.remove(id) == null) {
+      return;
+    }
+    version++;
+    removals.addLast(new Removal(id, version));
+    if (removals.size() > MAX_REMOVALS) {
+      horizon = removals.removeFirst().version();
+    }
+  }
+
+  // Every request loaded shares one version, and the horizon moves up to it,
+  // so every poller gets the whole queue once after a reload.
+  @Override
+  protected void load() {
+    version++;
+    for (HelpRequest request : helpRequestRepository.findAllBySolvedFalseOrderByRequestTimeAscIdAsc()) {
+      open.put(request.getId(), new Entry(copy(request), version));
+    }
+    horizon = version;
+  }
+
+  // version is not reset, so every cursor issued so far ends up below the
+  // next load's horizon
+  @Override
+  protected void clear() {
+    open.clear();
+    removals.clear();
+  }
+
+  // -1 (the whole queue) unless since is a cursor issued by this instance
+  private long parse(String since) {
+    String prefix = epoch + "-";
+    if (since == null || !since.startsWith(prefix)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(since.substring(prefix.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  // view() hands these to every poller, so none may be an entity a
+  // controller still holds
+  @Override
+  protected HelpRequest copy(HelpRequest request) {
+    return new HelpRequest(request.getId(), request.getRequesterEmail(), request.getTeamId(),
+        request.getTableOrBreakoutRoom(), request.getRequestTime(), request.getExplanation(),
+        request.getSolved());
+  }
+}
@@ -0,0 +1,347 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.ImportRejection;
+import edu.ucsb.cs156.example.models.ImportReport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+// Backs the /import endpoints: reads an NDJSON or CSV upload (the formats
+// written by the /export endpoints) one row at a time, so the upload is
+// never held in memory, and writes the rows in batches of batchSize.
+//
+// The request thread parses and validates; a writer thread from the bounded
+// importExecutor pool (see TaskExecutorsConfig) saves
+// each batch with saveAll, each batch in its own transaction, which also
+// bumps the table's version (TableVersionService) so the ETags of the
+// reference-data endpoints change as each batch commits.  The two are
+// connected by a queue of at most queueBatches batches, so when the
+// database is slower than the upload the parser blocks and stops reading
+// the request body instead of piling up rows, and if the writer fails the
+// parser stops reading at once.  If a batch fails it is
+// retried one row at a time and only the rows that still fail are
+// rejected; rows that fail to parse or validate are rejected by line number
+// without stopping the import.
+
+@Slf4j
+@Service("importService")
+public class ImportService {
+
+  public static final int MAX_REPORTED_REJECTIONS = 100;
+
+  @Value("${app.import.batchSize:500}")
+  int batchSize;
+
+  @Value("${app.import.queueBatches:4}")
+  int queueBatches;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  TableVersionService tableVersionService;
+
+  @Autowired
+  @Qualifier("importExecutor")
+  TaskExecutor importExecutor;
+
+  private record Row<T>(long line, T value) {}
+
+  /**
+   * Import every row of the upload, for a table whose ids are generated by
+   * the database.  check returns null for a row that may be saved, or the
+   * reason it is rejected; it may also adjust the row (e.g. clear a
+   * generated id).  table is the name the controller passes to
+   * TableVersionService.
+   */
+  public <T> ImportReport importRows(ExportFormat format, InputStream in, Class<T> type,
+      CrudRepository<T, ?> repository, String table, Function<T, String> check) throws IOException {
+    return importAll(format, in, type, repository, table, null, check);
+  }
+
+  /**
+   * Like importRows, for a table keyed by a natural key (e.g. a dining
+   * commons code).  A row whose key is already in the table, or earlier in
+   * the upload, is rejected instead of overwriting it; the keys are looked up
+   * with one findAllById per batch.
+   */
+  public <T, ID> ImportReport importRowsWithKeys(ExportFormat format, InputStream in, Class<T> type,
+      CrudRepository<T, ID> repository, String table, Function<T, ID> keyOf, Function<T, String> check)
+      throws IOException {
+    return importAll(format, in, type, repository, table, keyOf, check);
+  }
+
+  private <T, ID> ImportReport importAll(ExportFormat format, InputStream in, Class<T> type,
+      CrudRepository<T, ID> repository, String table, Function<T, ID> keyOf, Function<T, String> check)
+      throws IOException {
+    long start = System.nanoTime();
+    Rejections rejections = new Rejections();
+    BlockingQueue<List<Row<T>>> queue = new ArrayBlockingQueue<>(queueBatches);
+    FutureTask<Long> writer = new FutureTask<>(() -> drain(queue, repository, table, keyOf, rejections));
+    try {
+      importExecutor.execute(writer);
+    } catch (TaskRejectedException e) {
+      throw new TaskRejectedException("too many imports in progress, try again later", e);
+    }
+    try {
+      Batcher<T> batcher = new Batcher<>(queue, writer, check, rejections);
+      BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      if (format == ExportFormat.CSV) {
+        parseCsv(reader, type, batcher);
+      } else {
+        parseNdjson(reader, type, batcher);
+      }
+      batcher.finish();
+      long imported = writer.get();
+      long elapsedNanos = Math.max(1, System.nanoTime() - start);
+      ImportReport report = ImportReport.builder()
+          .imported(imported)
+          .rejected(rejections.count())
+          .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+          .rowsPerSecond(imported * 1e9 / elapsedNanos)
+          .rejections(rejections.first())
+          .build();
+      log.info("imported {} {} rows ({} rejected) in {} ms, {} rows/s", imported, type.getSimpleName(),
+          report.getRejected(), report.getElapsedMillis(), Math.round(report.getRowsPerSecond()));
+      return report;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("import interrupted");
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("import writer failed", e.getCause());
+    } finally {
+      // a no-op after a normal finish; otherwise stops a writer waiting for
+      // batches that will never come
+      writer.cancel(true);
+    }
+  }
+
+  private <T> void parseNdjson(BufferedReader reader, Class<T> type, Batcher<T> batcher)
+      throws IOException, InterruptedException {
+    long line = 0;
+    for (String text = reader.readLine(); text != null && !batcher.writerDone(); text = reader.readLine()) {
+      line++;
+      if (text.isBlank()) {
+        continue;
+      }
+      T value;
+      try {
+        value = mapper.readValue(text, type);
+      } catch (JsonProcessingException e) {
+        batcher.reject(line, "invalid JSON: " + e.getOriginalMessage());
+        continue;
+      }
+      if (value == null) {
+        batcher.reject(line, "invalid JSON: expected an object");
+        continue;
+      }
+      batcher.accept(line, value);
+    }
+  }
+
+  // The first record is the header; empty fields become nulls, and the
+  // values are converted the same way as the matching JSON strings would be,
+  // after undoing the formula guard that EntityStreamingService adds.
+  // Malformed CSV ends the parse with one rejection at the line it was found
+  // on; the rows before it are still imported.
+  private <T> void parseCsv(BufferedReader reader, Class<T> type, Batcher<T> batcher)
+      throws IOException, InterruptedException {
+    CsvRecordReader csv = new CsvRecordReader(reader);
+    try {
+      parseCsvRecords(csv, type, batcher);
+    } catch (CsvRecordReader.MalformedCsvException e) {
+      batcher.reject(e.line(), "malformed CSV: " + e.reason());
+    }
+  }
+
+  private <T> void parseCsvRecords(CsvRecordReader csv, Class<T> type, Batcher<T> batcher)
+      throws IOException, InterruptedException {
+    List<String> header = csv.next();
+    if (header == null) {
+      return;
+    }
+    for (List<String> record = csv.next(); record != null && !batcher.writerDone(); record = csv.next()) {
+      long line = csv.recordLine();
+      if (record.size() == 1 && record.get(0).isEmpty()) {
+        continue;
+      }
+      if (record.size() != header.size()) {
+        batcher.reject(line, "expected %d fields, found %d".formatted(header.size(), record.size()));
+        continue;
+      }
+      Map<String, String> fields = new LinkedHashMap<>();
+      for (int i = 0; i < header.size(); i++) {
+        String field = record.get(i);
+        fields.put(header.get(i), field.isEmpty() ? null : EntityStreamingService.unguardFormula(field));
+      }
+      T value;
+      try {
+        value = mapper.convertValue(fields, type);
+      } catch (IllegalArgumentException e) {
+        batcher.reject(line, "invalid row: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        continue;
+      }
+      batcher.accept(line, value);
+    }
+  }
+
+  // Runs on the writer thread until it takes the empty end-of-input batch.
+  private <T, ID> long drain(BlockingQueue<List<Row<T>>> queue, CrudRepository<T, ID> repository, String table,
+      Function<T, ID> keyOf, Rejections rejections) throws InterruptedException {
+    long written = 0;
+    for (List<Row<T>> batch = queue.take(); !batch.isEmpty(); batch = queue.take()) {
+      List<Row<T>> rows = keyOf == null ? batch : withoutTakenKeys(batch, repository, keyOf, rejections);
+      if (!rows.isEmpty()) {
+        written += write(rows, repository, table, rejections);
+      }
+    }
+    return written;
+  }
+
+  // Rejects the rows whose key is already in the table or earlier in the
+  // batch.  Earlier batches have been committed by now, so findAllById sees
+  // their keys too.
+  private <T, ID> List<Row<T>> withoutTakenKeys(List<Row<T>> batch, CrudRepository<T, ID> repository,
+      Function<T, ID> keyOf, Rejections rejections) {
+    Set<ID> taken = new HashSet<>();
+    repository.findAllById(batch.stream().map(row -> keyOf.apply(row.value())).toList())
+        .forEach(existing -> taken.add(keyOf.apply(existing)));
+    List<Row<T>> rows = new ArrayList<>();
+    for (Row<T> row : batch) {
+      ID key = keyOf.apply(row.value());
+      if (taken.add(key)) {
+        rows.add(row);
+      } else {
+        rejections.add(row.line(), "%s already exists".formatted(key));
+      }
+    }
+    return rows;
+  }
+
+  private <T> int write(List<Row<T>> batch, CrudRepository<T, ?> repository, String table,
+      Rejections rejections) {
+    try {
+      tableVersionService.write(table, () -> repository.saveAll(batch.stream().map(Row::value).toList()));
+      return batch.size();
+    } catch (RuntimeException batchFailure) {
+      int written = 0;
+      for (Row<T> row : batch) {
+        try {
+          tableVersionService.write(table, () -> repository.save(row.value()));
+          written++;
+        } catch (RuntimeException e) {
+          rejections.add(row.line(), "not saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+      }
+      return written;
+    }
+  }
+
+  // Parser side: validates rows and hands full batches to the writer.
+  private class Batcher<T> {
+    private final BlockingQueue<List<Row<T>>> queue;
+    private final FutureTask<Long> writer;
+    private final Function<T, String> check;
+    private final Rejections rejections;
+    private List<Row<T>> batch = new ArrayList<>();
+
+    Batcher(BlockingQueue<List<Row<T>>> queue, FutureTask<Long> writer, Function<T, String> check,
+        Rejections rejections) {
+      this.queue = queue;
+      this.writer = writer;
+      this.check = check;
+      this.rejections = rejections;
+    }
+
+    void reject(long line, String reason) {
+      rejections.add(line, reason);
+    }
+
+    // The writer only finishes early by failing; there is no point reading
+    // the rest of the upload then, since importRows rethrows the failure.
+    boolean writerDone() {
+      return writer.isDone();
+    }
+
+    void accept(long line, T value) throws InterruptedException {
+      String problem = check.apply(value);
+      if (problem != null) {
+        reject(line, problem);
+        return;
+      }
+      batch.add(new Row<>(line, value));
+      if (batch.size() == batchSize) {
+        hand(batch);
+        batch = new ArrayList<>();
+      }
+    }
+
+    void finish() throws InterruptedException {
+      if (!batch.isEmpty()) {
+        hand(batch);
+      }
+      hand(List.of());
+    }
+
+    // Blocks while the queue is full, or until the writer fails.
+    private void hand(List<Row<T>> rows) throws InterruptedException {
+      while (!writer.isDone() && !queue.offer(rows, 100, TimeUnit.MILLISECONDS)) {
+        // the writer is behind; keep waiting
+      }
+    }
+  }
+
+  // Shared by the parser and the writer thread.
+  private static class Rejections {
+    private long count;
+    private final List<ImportRejection> first = new ArrayList<>();
+
+    synchronized void add(long line, String reason) {
+      count++;
+      if (first.size() < MAX_REPORTED_REJECTIONS) {
+        first.add(new ImportRejection(line, reason));
+      }
+    }
+
+    synchronized long count() {
+      return count;
+    }
+
+    synchronized List<ImportRejection> first() {
+      List<ImportRejection> sorted = new ArrayList<>(first);
+      sorted.sort(Comparator.comparingLong(ImportRejection::getLine));
+      return sorted;
+    }
+  }
+}
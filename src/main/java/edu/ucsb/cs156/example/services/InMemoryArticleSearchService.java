@@ -0,0 +1,236 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.models.ArticleSearchResults;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+// An inverted index of the articles: for every word, the articles that
+// contain it and how often.  Built from the table at startup and then kept
+// current by ArticlesController; writes made straight to the database are
+// only seen after the next rebuild.
+//
+// Hits are ranked with BM25 (k1 = 1.2, b = 0.75), with title words counting
+// TITLE_WEIGHT times.  A prefix term scores an article by the best of the
+// words it expands to.  The words are kept sorted, so a prefix is one range
+// of the map; only the best offset + size hits are ever sorted.  Searches
+// share a read lock and updates take the write lock.  A rebuild reads the
+// table without holding the lock, so searches and updates carry on, and
+// then replays the updates made while it was reading.
+
+@Slf4j
+@Service("articleSearchService")
+@Profile("!production")
+public class InMemoryArticleSearchService extends ArticleSearchService {
+
+  static final double K1 = 1.2;
+  static final double B = 0.75;
+  static final double TITLE_WEIGHT = 2;
+
+  private static final Comparator<Map.Entry<Long, Double>> RANKING = Map.Entry.<Long, Double>comparingByValue()
+      .reversed()
+      .thenComparing(Map.Entry.comparingByKey());
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  private record Document(Articles article, double length, Map<String, Double> frequencies) {}
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // word -> article id -> weighted number of occurrences
+  private final NavigableMap<String, Map<Long, Double>> postings = new TreeMap<>();
+
+  private final Map<Long, Document> documents = new HashMap<>();
+
+  private double totalLength;
+
+  // indexed/removed calls made while rebuild() is reading the table, in
+  // order, with null for a removal; they are replayed onto what it read,
+  // which may predate them.  Guarded by lock; null when no rebuild is running.
+  private Map<Long, Articles> changedDuringRebuild;
+
+  private final Object rebuildLock = new Object();
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Override
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      lock.writeLock().lock();
+      try {
+        changedDuringRebuild = new LinkedHashMap<>();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      Iterable<Articles> articles = articlesRepository.findAll();
+      lock.writeLock().lock();
+      try {
+        postings.clear();
+        documents.clear();
+        totalLength = 0;
+        articles.forEach(this::add);
+        changedDuringRebuild.forEach((id, article) -> {
+          remove(id);
+          if (article != null) {
+            add(article);
+          }
+        });
+        changedDuringRebuild = null;
+        log.info("indexed {} articles, {} distinct words", documents.size(), postings.size());
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  @Override
+  public void indexed(Articles article) {
+    lock.writeLock().lock();
+    try {
+      remove(article.getId());
+      add(article);
+      if (changedDuringRebuild != null) {
+        changedDuringRebuild.put(article.getId(), documents.get(article.getId()).article());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void removed(long id) {
+    lock.writeLock().lock();
+    try {
+      remove(id);
+      if (changedDuringRebuild != null) {
+        changedDuringRebuild.put(id, null);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public ArticleSearchResults search(String query, Pageable pageable) {
+    List<QueryTerm> terms = parse(query);
+    lock.readLock().lock();
+    try {
+      Map<Long, Double> matches = null;
+      for (QueryTerm term : terms) {
+        matches = matches == null ? score(term) : intersect(matches, score(term));
+      }
+      if (matches == null || pageable.getOffset() >= matches.size()) {
+        return new ArticleSearchResults(matches == null ? 0 : matches.size(), pageable.getPageNumber(),
+            pageable.getPageSize(), List.of());
+      }
+      return new ArticleSearchResults(matches.size(), pageable.getPageNumber(), pageable.getPageSize(),
+          page(matches, (int) pageable.getOffset(), pageable.getPageSize()));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // the hits from offset to offset + size, keeping only that many of the
+  // best in a heap instead of sorting every match
+  private List<ArticleSearchHit> page(Map<Long, Double> matches, int offset, int size) {
+    long end = Math.min((long) offset + size, matches.size());
+    PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(RANKING.reversed());
+    for (Map.Entry<Long, Double> match : matches.entrySet()) {
+      best.add(match);
+      if (best.size() > end) {
+        best.poll();
+      }
+    }
+    List<Map.Entry<Long, Double>> ranked = new ArrayList<>(best);
+    ranked.sort(RANKING);
+    return ranked.subList(offset, ranked.size()).stream()
+        .map(match -> new ArticleSearchHit(documents.get(match.getKey()).article(), match.getValue()))
+        .toList();
+  }
+
+  private Map<Long, Double> score(QueryTerm term) {
+    Map<Long, Double> scores = new HashMap<>();
+    if (!term.prefix()) {
+      addScores(scores, postings.get(term.word()));
+      return scores;
+    }
+    for (Map<Long, Double> expansion : postings.subMap(term.word(), true, term.word() + Character.MAX_VALUE, true)
+        .values()) {
+      addScores(scores, expansion);
+    }
+    return scores;
+  }
+
+  private void addScores(Map<Long, Double> scores, Map<Long, Double> posting) {
+    if (posting == null) {
+      return;
+    }
+    double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+    double averageLength = totalLength / documents.size();
+    posting.forEach((id, frequency) -> {
+      double norm = K1 * (1 - B + B * documents.get(id).length() / averageLength);
+      scores.merge(id, idf * frequency * (K1 + 1) / (frequency + norm), Math::max);
+    });
+  }
+
+  private static Map<Long, Double> intersect(Map<Long, Double> matches, Map<Long, Double> scores) {
+    Map<Long, Double> both = new HashMap<>();
+    matches.forEach((id, score) -> {
+      Double other = scores.get(id);
+      if (other != null) {
+        both.put(id, score + other);
+      }
+    });
+    return both;
+  }
+
+  private void add(Articles article) {
+    Map<String, Double> frequencies = new HashMap<>();
+    words(article.getTitle()).forEach(word -> frequencies.merge(word, TITLE_WEIGHT, Double::sum));
+    words(article.getExplanation()).forEach(word -> frequencies.merge(word, 1.0, Double::sum));
+    words(article.getEmail()).forEach(word -> frequencies.merge(word, 1.0, Double::sum));
+    double length = frequencies.values().stream().mapToDouble(Double::doubleValue).sum();
+    // a copy, so later changes to the caller's entity do not leak in
+    Articles copy = new Articles(article.getId(), article.getTitle(), article.getUrl(), article.getExplanation(),
+        article.getEmail(), article.getDateAdded());
+    documents.put(article.getId(), new Document(copy, length, frequencies));
+    totalLength += length;
+    frequencies.forEach((word, frequency) -> postings.computeIfAbsent(word, w -> new HashMap<>())
+        .put(article.getId(), frequency));
+  }
+
+  private void remove(long id) {
+    Document document = documents.remove(id);
+    if (document == null) {
+      return;
+    }
+    totalLength -= document.length();
+    document.frequencies().keySet().forEach(word -> {
+      Map<Long, Double> posting = postings.get(word);
+      posting.remove(id);
+      if (posting.isEmpty()) {
+        postings.remove(word);
+      }
+    });
+  }
+}
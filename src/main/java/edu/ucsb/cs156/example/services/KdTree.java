@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// An immutable k-d tree over 3-d points, for k-nearest-neighbour queries by
+// Euclidean distance.  The tree is implicit: build() orders the points so
+// that the median of each range (split on x, y, z in turn by depth) sits
+// in its middle, and the two halves on either side are its subtrees.
+
+final class KdTree<T> {
+
+  record Neighbor<T>(T value, double distanceSquared) {}
+
+  private final double[][] points;
+  private final List<T> values;
+
+  KdTree(List<T> values, List<double[]> points) {
+    Integer[] order = new Integer[values.size()];
+    Arrays.setAll(order, i -> i);
+    build(order, points, 0, order.length, 0);
+    this.points = new double[order.length][];
+    this.values = new ArrayList<>(order.length);
+    for (int i = 0; i < order.length; i++) {
+      this.points[i] = points.get(order[i]);
+      this.values.add(values.get(order[i]));
+    }
+  }
+
+  int size() {
+    return points.length;
+  }
+
+  private static void build(Integer[] order, List<double[]> points, int from, int to, int axis) {
+    if (to - from < 2) {
+      return;
+    }
+    Arrays.sort(order, from, to, Comparator.comparingDouble(i -> points.get(i)[axis]));
+    int mid = (from + to) >>> 1;
+    build(order, points, from, mid, (axis + 1) % 3);
+    build(order, points, mid + 1, to, (axis + 1) % 3);
+  }
+
+  /** The k points closest to target, nearest first. */
+  List<Neighbor<T>> nearest(double[] target, int k) {
+    PriorityQueue<Neighbor<T>> best = new PriorityQueue<>(
+        Comparator.comparingDouble(Neighbor<T>::distanceSquared).reversed());
+    search(target, k, best, 0, points.length, 0);
+    List<Neighbor<T>> nearest = new ArrayList<>(best);
+    nearest.sort(Comparator.comparingDouble(Neighbor::distanceSquared));
+    return nearest;
+  }
+
+  // best holds the closest k found so far, farthest at the head
+  private void search(double[] target, int k, PriorityQueue<Neighbor<T>> best, int from, int to, int axis) {
+    if (from >= to) {
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    double[] point = points[mid];
+    double dx = target[0] - point[0];
+    double dy = target[1] - point[1];
+    double dz = target[2] - point[2];
+    offer(best, k, new Neighbor<>(values.get(mid), dx * dx + dy * dy + dz * dz));
+
+    double split = target[axis] - point[axis];
+    int next = (axis + 1) % 3;
+    if (split < 0) {
+      search(target, k, best, from, mid, next);
+    } else {
+      search(target, k, best, mid + 1, to, next);
+    }
+    // the far side can only help if the splitting plane is closer than the
+    // current k-th best
+    if (best.size() < k || split * split < best.peek().distanceSquared()) {
+      if (split < 0) {
+        search(target, k, best, mid + 1, to, next);
+      } else {
+        search(target, k, best, from, mid, next);
+      }
+    }
+  }
+
+  private static <T> void offer(PriorityQueue<Neighbor<T>> best, int k, Neighbor<T> candidate) {
+    if (best.size() < k) {
+      best.add(candidate);
+    } else if (candidate.distanceSquared() < best.peek().distanceSquared()) {
+      best.poll();
+      best.add(candidate);
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.RecommendationReminder;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service("loggingReminderSink")
+public class LoggingReminderSink implements ReminderSink {
+
+  @Override
+  public void remind(RecommendationReminder reminder) {
+    log.info("recommendation request {} {}: needed by {} for {}", reminder.getRequest().getId(), reminder.getKind(),
+        reminder.getRequest().getDateNeeded(), reminder.getRequest().getRequesterEmail());
+  }
+}
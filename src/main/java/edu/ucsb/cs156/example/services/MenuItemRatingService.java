@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingSummaryRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository.Rating;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Keeps menuitemratingsummaries in step with menuitemreviews, so an item's
+// rating is one primary-key read instead of a scan of its reviews.
+//
+// Single review writes go through add/update/delete, which write the review
+// and adjust the item's totals by +1/-1 in the same transaction; update and
+// delete read the review's previous item and stars in that transaction too.  The /bulk
+// endpoints instead call refresh() with the items they touched, which
+// recomputes those items from the reviews.  rebuild() does the same for
+// every item on a schedule (app.ratingSummary.rebuildCron), correcting any
+// drift, e.g. from reviews written straight to the database.
+
+@Slf4j
+@Service("menuItemRatingService")
+public class MenuItemRatingService {
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  MenuItemRatingSummaryRepository menuItemRatingSummaryRepository;
+
+  public MenuItemRatingSummary summary(long itemId) {
+    return menuItemRatingSummaryRepository.findById(itemId)
+        .orElseGet(() -> MenuItemRatingSummary.builder().itemId(itemId).build());
+  }
+
+  @Transactional
+  public MenuItemReview add(MenuItemReview review) {
+    MenuItemReview saved = menuItemReviewRepository.save(review);
+    adjust(saved.getItemId(), saved.getStars(), 1);
+    return saved;
+  }
+
+  // The review's item and stars are read under a row lock in the same
+  // transaction as the write and the summary adjustments, so concurrent
+  // updates or deletes of one review take turns and each adjusts from the
+  // values the previous one left.  The write itself is one UPDATE or DELETE
+  // by id, as in SingleRowWriteService.
+  @Transactional
+  public MenuItemReview update(long id, MenuItemReview incoming) {
+    Rating previous = lockRating(id);
+    menuItemReviewRepository.updateRowById(id, incoming.getItemId(), incoming.getReviewerEmail(),
+        incoming.getStars(), incoming.getDateReviewed(), incoming.getComments());
+    adjust(previous.getItemId(), previous.getStars(), -1);
+    adjust(incoming.getItemId(), incoming.getStars(), 1);
+    incoming.setId(id);
+    return incoming;
+  }
+
+  @Transactional
+  public void delete(long id) {
+    Rating previous = lockRating(id);
+    menuItemReviewRepository.deleteRowById(id);
+    adjust(previous.getItemId(), previous.getStars(), -1);
+  }
+
+  @Transactional
+  public int refresh(Collection<Long> itemIds) {
+    return reconcile(menuItemReviewRepository.ratingTotals(itemIds),
+        menuItemRatingSummaryRepository.findAllById(itemIds));
+  }
+
+  // A review written while this runs may be counted from totals read just
+  // before it; the next rebuild corrects that.
+  @Scheduled(cron = "${app.ratingSummary.rebuildCron}")
+  @Transactional
+  public int rebuild() {
+    int corrected = reconcile(menuItemReviewRepository.ratingTotals(), menuItemRatingSummaryRepository.findAll());
+    log.info("rebuilt menu item rating summaries; {} corrected", corrected);
+    return corrected;
+  }
+
+  // Saves the actual totals that differ from the stored ones and deletes
+  // stored rows for items that no longer have reviews.
+  private int reconcile(List<MenuItemRatingSummary> actual, Iterable<MenuItemRatingSummary> stored) {
+    Map<Long, MenuItemRatingSummary> storedByItem = new HashMap<>();
+    stored.forEach(summary -> storedByItem.put(summary.getItemId(), summary));
+    List<MenuItemRatingSummary> changed = new ArrayList<>();
+    for (MenuItemRatingSummary totals : actual) {
+      if (!totals.equals(storedByItem.remove(totals.getItemId()))) {
+        changed.add(totals);
+      }
+    }
+    menuItemRatingSummaryRepository.saveAll(changed);
+    menuItemRatingSummaryRepository.deleteAll(storedByItem.values());
+    return changed.size() + storedByItem.size();
+  }
+
+  private void adjust(long itemId, int stars, int sign) {
+    MenuItemRatingSummary delta = delta(itemId, stars, sign);
+    int updated = menuItemRatingSummaryRepository.adjust(itemId, delta.getReviewCount(), delta.getStarSum(),
+        delta.getOneStar(), delta.getTwoStars(), delta.getThreeStars(), delta.getFourStars(), delta.getFiveStars());
+    // an item's first review (if two race, one fails on the primary key and
+    // its whole write rolls back); a missing row on removal is left for rebuild()
+    if (updated == 0 && sign > 0) {
+      menuItemRatingSummaryRepository.save(delta);
+    }
+  }
+
+  private Rating lockRating(long id) {
+    return menuItemReviewRepository.findRatingForUpdateById(id)
+        .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+  }
+
+  static MenuItemRatingSummary delta(long itemId, int stars, int sign) {
+    long[] histogram = new long[6];
+    if (stars >= 1 && stars <= 5) {
+      histogram[stars] = sign;
+    }
+    return new MenuItemRatingSummary(itemId, sign, (long) sign * stars,
+        histogram[1], histogram[2], histogram[3], histogram[4], histogram[5]);
+  }
+}
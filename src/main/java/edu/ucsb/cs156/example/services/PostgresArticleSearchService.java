@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.models.ArticleSearchResults;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository.SearchRank;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+// Article search in PostgreSQL, so every instance sees the same results and
+// nothing is held in memory.  The query is turned into a tsquery of the same
+// words the in-memory index would use (word:* for a prefix, all joined with
+// &) and matched against ArticlesRepository.SEARCH_VECTOR, which splits
+// the columns into those words too, is GIN indexed and weights title over
+// explanation over email.  Hits are ranked
+// by ts_rank_cd rather than BM25.  The index is kept current by the
+// database, so the write hooks are left as no-ops.
+
+@Service("articleSearchService")
+@Profile("production")
+public class PostgresArticleSearchService extends ArticleSearchService {
+
+  @Autowired
+  ArticlesRepository articlesRepository;
+
+  @Override
+  public ArticleSearchResults search(String query, Pageable pageable) {
+    String tsquery = tsquery(query);
+    if (tsquery.isEmpty()) {
+      return empty(pageable);
+    }
+    List<SearchRank> ranks = articlesRepository.searchRanks(tsquery, pageable.getPageSize(), pageable.getOffset());
+    Map<Long, Articles> articles = new HashMap<>();
+    articlesRepository.findAllById(ranks.stream().map(SearchRank::getId).toList())
+        .forEach(article -> articles.put(article.getId(), article));
+    List<ArticleSearchHit> hits = ranks.stream()
+        // deleted between the two queries
+        .filter(rank -> articles.containsKey(rank.getId()))
+        .map(rank -> new ArticleSearchHit(articles.get(rank.getId()), rank.getScore()))
+        .toList();
+    // a short page that is not past the end is the last one, so it gives
+    // the total without counting
+    boolean lastPage = ranks.size() < pageable.getPageSize() && (!ranks.isEmpty() || pageable.getOffset() == 0);
+    long total = lastPage ? pageable.getOffset() + ranks.size() : articlesRepository.countSearchMatches(tsquery);
+    return new ArticleSearchResults(total, pageable.getPageNumber(), pageable.getPageSize(), hits);
+  }
+
+  // the words are letters and digits only, so nothing in them is tsquery syntax
+  static String tsquery(String query) {
+    return parse(query).stream()
+        .map(term -> term.prefix() ? term.word() + ":*" : term.word())
+        .collect(Collectors.joining(" & "));
+  }
+}
@@ -0,0 +1,248 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.SentRecommendationReminder;
+import edu.ucsb.cs156.example.models.RecommendationReminder;
+import edu.ucsb.cs156.example.models.RecommendationReminder.Kind;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.SentRecommendationReminderRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// The open (not done) recommendation requests ordered by dateNeeded, so the
+// overdue ones, or the ones due in the next few days, are one range of a
+// sorted map instead of a scan of the table.  Requests without a dateNeeded
+// are left out.
+//
+// Each open request also has two reminders in a priority queue ordered by
+// when they are due: DUE_SOON app.recommendationReminders.leadHours before
+// its deadline and OVERDUE at it.  sendReminders() runs every
+// app.recommendationReminders.checkMillis and pops only the reminders that
+// are due, handing them to every ReminderSink.  Edits and deletes do not
+// search the queue; a reminder whose request has since changed its deadline,
+// been done or been deleted is dropped when it comes up, or earlier when
+// such stale reminders could be half the queue, and other edits keep the
+// reminders already scheduled.  A request indexed with its deadline already
+// past gets only its OVERDUE, and one already within the lead time its
+// DUE_SOON, on the next run; this is how a restart catches up on the
+// reminders that came due while it was down.
+//
+// Each reminder sent is recorded, by request id, deadline and kind, in
+// sentrecommendationreminders, so a reload or a restart does not send it
+// again.  The records, here and in the table, are kept until the next load,
+// which drops those whose request is no longer open with that deadline;
+// they only grow as fast as reminders are sent.
+//
+// It is a TableMirror: RecommendationRequestController reports its
+// writes, single-row and bulk, row by row.  A second
+// instance would schedule, and send, every reminder again.
+
+@Slf4j
+@Service("recommendationRequestDeadlines")
+public class RecommendationRequestDeadlines extends TableMirror<RecommendationRequest> {
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  SentRecommendationReminderRepository sentRecommendationReminderRepository;
+
+  @Autowired
+  List<ReminderSink> reminderSinks;
+
+  @Value("${app.recommendationReminders.leadHours:24}")
+  long leadHours;
+
+  // dateNeeded is in campus local time
+  Clock clock = Clock.systemDefaultZone();
+
+  private record Key(LocalDateTime dateNeeded, long id) {}
+
+  // ties on dateNeeded go by id, so every request has its own key
+  private static final Comparator<Key> DEADLINE_ORDER = Comparator.comparing(Key::dateNeeded)
+      .thenComparingLong(Key::id);
+
+  // generation tells apart two indexings of the same request and deadline
+  private record Indexed(Key key, long generation) {}
+
+  private record Reminder(LocalDateTime at, Kind kind, Indexed indexed) {}
+
+  private static final Comparator<Reminder> REMINDER_ORDER = Comparator.comparing(Reminder::at)
+      .thenComparing(reminder -> reminder.indexed().key(), DEADLINE_ORDER)
+      .thenComparing(Reminder::kind)
+      .thenComparingLong(reminder -> reminder.indexed().generation());
+
+  private final NavigableMap<Key, RecommendationRequest> open = new TreeMap<>(DEADLINE_ORDER);
+
+  private final Map<Long, Indexed> indexed = new HashMap<>();
+
+  private long generation;
+
+  private final PriorityQueue<Reminder> reminders = new PriorityQueue<>(REMINDER_ORDER);
+
+  // an upper bound on the reminders in the queue whose request has changed
+  // since they were scheduled
+  private int stale;
+
+  // the kinds of reminder already sent for each deadline
+  private final Map<Key, Set<Kind>> sent = new HashMap<>();
+
+  // needed before now, most overdue first
+  public synchronized List<RecommendationRequest> overdue() {
+    return new ArrayList<>(open().headMap(new Key(LocalDateTime.now(clock), Long.MIN_VALUE), false).values());
+  }
+
+  // needed from now until days from now, soonest first
+  public synchronized List<RecommendationRequest> dueWithin(int days) {
+    LocalDateTime now = LocalDateTime.now(clock);
+    return new ArrayList<>(open().subMap(new Key(now, Long.MIN_VALUE), true,
+        new Key(now.plusDays(days), Long.MIN_VALUE), false).values());
+  }
+
+  // an edit that keeps the deadline keeps the reminders already scheduled
+  @Override
+  protected void put(RecommendationRequest request) {
+    Indexed previous = indexed.get(request.getId());
+    if (previous != null && !request.getDone() && previous.key().dateNeeded().equals(request.getDateNeeded())) {
+      open.put(previous.key(), request);
+      return;
+    }
+    remove(request.getId());
+    add(request, LocalDateTime.now(clock));
+  }
+
+  @Override
+  protected void remove(long id) {
+    Indexed previous = indexed.remove(id);
+    if (previous != null) {
+      open.remove(previous.key());
+      stale += 2;
+      purgeStaleReminders();
+    }
+  }
+
+  // the reminders already sent are read first, so they are not scheduled
+  // again
+  @Override
+  protected void load() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    sentRecommendationReminderRepository.deleteForClosedDeadlines();
+    sentRecommendationReminderRepository.findAll()
+        .forEach(row -> sent(new Key(row.getDateNeeded(), row.getRequestId()), row.getKind()));
+    recommendationRequestRepository.findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc()
+        .forEach(request -> add(copy(request), now));
+  }
+
+  @Override
+  protected void clear() {
+    open.clear();
+    indexed.clear();
+    reminders.clear();
+    stale = 0;
+    sent.clear();
+  }
+
+  // The sinks are called outside the lock, so a slow one does not hold up
+  // the overdue and due-soon views; one that fails does not stop the others.
+  @Scheduled(fixedRateString = "${app.recommendationReminders.checkMillis:60000}")
+  public int sendReminders() {
+    List<RecommendationReminder> due = dueReminders();
+    for (RecommendationReminder reminder : due) {
+      for (ReminderSink sink : reminderSinks) {
+        try {
+          sink.remind(reminder);
+        } catch (RuntimeException e) {
+          log.warn("reminder sink {} failed for recommendation request {}", sink.getClass().getSimpleName(),
+              reminder.getRequest().getId(), e);
+        }
+      }
+    }
+    if (!due.isEmpty()) {
+      sentRecommendationReminderRepository.saveAll(due.stream()
+          .map(reminder -> new SentRecommendationReminder(reminder.getRequest().getId(),
+              reminder.getRequest().getDateNeeded(), reminder.getKind()))
+          .toList());
+    }
+    return due.size();
+  }
+
+  private synchronized List<RecommendationReminder> dueReminders() {
+    ensureLoaded();
+    LocalDateTime now = LocalDateTime.now(clock);
+    List<RecommendationReminder> due = new ArrayList<>();
+    while (!reminders.isEmpty() && reminders.peek().at().isBefore(now)) {
+      Reminder reminder = reminders.poll();
+      Key key = reminder.indexed().key();
+      // otherwise the request has changed since this was scheduled
+      if (reminder.indexed().equals(indexed.get(key.id()))) {
+        due.add(new RecommendationReminder(reminder.kind(), open.get(key)));
+        sent(key, reminder.kind());
+      }
+    }
+    return due;
+  }
+
+  synchronized int queuedReminders() {
+    return reminders.size();
+  }
+
+  // Filters the queue once stale reminders could be half of it, so a table
+  // whose deadlines keep moving does not fill it with dead entries.
+  private void purgeStaleReminders() {
+    if (stale * 2 > reminders.size()) {
+      reminders.removeIf(reminder -> !reminder.indexed().equals(indexed.get(reminder.indexed().key().id())));
+      stale = 0;
+    }
+  }
+
+  private NavigableMap<Key, RecommendationRequest> open() {
+    ensureLoaded();
+    return open;
+  }
+
+  private void sent(Key key, Kind kind) {
+    sent.computeIfAbsent(key, k -> EnumSet.noneOf(Kind.class)).add(kind);
+  }
+
+  private void add(RecommendationRequest request, LocalDateTime now) {
+    if (request.getDone() || request.getDateNeeded() == null) {
+      return;
+    }
+    Key key = new Key(request.getDateNeeded(), request.getId());
+    Indexed current = new Indexed(key, ++generation);
+    open.put(key, request);
+    indexed.put(request.getId(), current);
+    if (!key.dateNeeded().isBefore(now) && !sent.getOrDefault(key, Set.of()).contains(Kind.DUE_SOON)) {
+      LocalDateTime dueSoon = key.dateNeeded().minusHours(leadHours);
+      reminders.add(new Reminder(dueSoon.isAfter(now) ? dueSoon : now, Kind.DUE_SOON, current));
+    }
+    if (!sent.getOrDefault(key, Set.of()).contains(Kind.OVERDUE)) {
+      reminders.add(new Reminder(key.dateNeeded().isAfter(now) ? key.dateNeeded() : now, Kind.OVERDUE, current));
+    }
+  }
+
+  // the reminders sent later carry this request, long after the controller
+  // that reported it has returned its own entity
+  @Override
+  protected RecommendationRequest copy(RecommendationRequest request) {
+    return new RecommendationRequest(request.getId(), request.getRequesterEmail(), request.getProfessorEmail(),
+        request.getExplanation(), request.getDateRequested(), request.getDateNeeded(), request.getDone());
+  }
+}
@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.RecommendationReminder;
+
+// Where RecommendationRequestDeadlines delivers its reminders.  Every
+// ReminderSink bean gets every reminder, so a new destination (mail, a
+// dashboard feed) is just another bean.  remind runs on the scheduler's
+// single thread, so it should hand slow work off rather than block.
+
+public interface ReminderSink {
+  void remind(RecommendationReminder reminder);
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Backs the single-row PUT and DELETE endpoints on the CRUD controllers.
+// Each write is one UPDATE or DELETE by primary key (the repositories'
+// @Modifying ...RowById queries) in its own transaction, instead of findById
+// followed by save or delete: one statement rather than two, and no entity
+// loaded or dirty-checked.  The row count the statement returns is what
+// tells a missing id apart; 0 becomes the usual EntityNotFoundException.
+//
+// The overloads taking a callback run it in the same transaction, right
+// after the statement, for controllers that report writes to a TableMirror.
+// The row lock the UPDATE or DELETE took is held until the commit, so
+// writers to one row make their callbacks in the order they commit; an
+// inserted row is not visible to other writers until the commit.
+
+@Service("singleRowWriteService")
+public class SingleRowWriteService {
+
+  // statement is the repository call, e.g. () -> repository.deleteRowById(id)
+  @Transactional
+  public void writeRow(Class<?> entityType, Object id, IntSupplier statement) {
+    if (statement.getAsInt() == 0) {
+      throw new EntityNotFoundException(entityType, id);
+    }
+  }
+
+  @Transactional
+  public void writeRow(Class<?> entityType, Object id, IntSupplier statement, Runnable then) {
+    writeRow(entityType, id, statement);
+    then.run();
+  }
+
+  // save is the repository call, e.g. () -> repository.save(row)
+  @Transactional
+  public <T> T createRow(Supplier<T> save, Consumer<? super T> then) {
+    T saved = save.get();
+    then.accept(saved);
+    return saved;
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.List;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// What the in-memory mirrors of a table (HelpRequestQueue, UCSBDateCalendar,
+// RecommendationRequestDeadlines) have in common: each is loaded from the
+// table on first use, then kept current by its controller, which reports
+// every write, single-row or bulk, through saved()/savedAll() or
+// removed()/removedAll(), and is dropped by reload() after writes it did not
+// see, to load again on the next read.
+//
+// The controllers report a write from inside the transaction that made it
+// (SingleRowWriteService, BulkWriteService), while the row locks are held, so
+// two writers to one row change the mirror in the order they commit, not
+// in whatever order their threads get here afterwards.  A write whose
+// transaction then rolls back reloads the mirror instead of undoing it.
+//
+// Everything runs under the mirror's monitor; the subclasses' reads are
+// synchronized too and call ensureLoaded() first.  There is one mirror per
+// instance, so this assumes a single instance: writes made straight to the
+// database, or through another instance, are only seen after a reload.
+
+public abstract class TableMirror<T> {
+
+  private boolean loaded;
+
+  // row is the row as just written
+  public final void saved(T row) {
+    savedAll(List.of(row));
+  }
+
+  public final synchronized void savedAll(Iterable<? extends T> rows) {
+    if (!loaded) {
+      // the load on first use reads them from the table
+      return;
+    }
+    reloadIfRolledBack();
+    rows.forEach(row -> put(copy(row)));
+  }
+
+  public final void removed(long id) {
+    removedAll(List.of(id));
+  }
+
+  public final synchronized void removedAll(Iterable<Long> ids) {
+    if (!loaded) {
+      return;
+    }
+    reloadIfRolledBack();
+    ids.forEach(this::remove);
+  }
+
+  public final synchronized void reload() {
+    loaded = false;
+    clear();
+  }
+
+  protected final void ensureLoaded() {
+    if (!loaded) {
+      load();
+      loaded = true;
+    }
+  }
+
+  // Reads the table into the (empty) structure; rows kept go through copy().
+  protected abstract void load();
+
+  protected abstract void clear();
+
+  // row is already a copy
+  protected abstract void put(T row);
+
+  // id may not be in the mirror
+  protected abstract void remove(long id);
+
+  // A copy of row that shares nothing with it; the controller goes on to
+  // return, and may change, the entity it reported.
+  protected abstract T copy(T row);
+
+  private void reloadIfRolledBack() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status != STATUS_COMMITTED) {
+            reload();
+          }
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.TableVersion;
+import edu.ucsb.cs156.example.repositories.TableVersionRepository;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// A version number per table, used to build strong ETags for the
+// reference-data endpoints without reading the table.  The versions are rows
+// in tableversions, so every instance (and every restart) agrees on them,
+// and write() bumps the row in the same transaction as the data: the new
+// version becomes visible exactly when the new data does, never before or
+// after.  Bumping first also means concurrent writes to one table queue on
+// the version row instead of interleaving.  Readers should fetch the ETag
+// before the data, so that a write landing in between can only make the
+// ETag older than the body, which costs one extra refetch rather than a
+// stale cache entry.
+
+@Service("tableVersionService")
+public class TableVersionService {
+
+  @Autowired
+  TableVersionRepository tableVersionRepository;
+
+  public long version(String table) {
+    return tableVersionRepository.findVersion(table).orElse(0L);
+  }
+
+  public String etag(String table) {
+    return "\"%s-%d\"".formatted(table, version(table));
+  }
+
+  // write is the repository or service call, e.g. () -> repository.save(row)
+  @Transactional
+  public <T> T write(String table, Supplier<T> write) {
+    bump(table);
+    return write.get();
+  }
+
+  @Transactional
+  public void write(String table, Runnable write) {
+    bump(table);
+    write.run();
+  }
+
+  private void bump(String table) {
+    if (tableVersionRepository.increment(table) == 0) {
+      tableVersionRepository.save(new TableVersion(table, 1));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// The ucsb dates ordered by time, so a calendar window or the next few
+// dates are one range of a sorted map: O(log n + k) instead of a scan of
+// the table.  Dates without a time are left out.  Both reads return at most
+// a page of dates, so no request copies the whole map under the lock.
+//
+// It is a TableMirror: the load is an ordered read of
+// IDX_UCSBDATES_LOCAL_DATE_TIME, and UCSBDatesController reports its
+// writes, single-row and bulk, row by row.
+
+@Service("ucsbDateCalendar")
+public class UCSBDateCalendar extends TableMirror<UCSBDate> {
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  // the dates are in campus local time
+  Clock clock = Clock.systemDefaultZone();
+
+  // A date's place in the time order; ties on time go by id, so every date
+  // has its own.  Its string form, "<time>,<id>", is the /range cursor.
+  public record Position(LocalDateTime time, long id) {
+
+    public static Position of(UCSBDate date) {
+      return new Position(date.getLocalDateTime(), date.getId());
+    }
+
+    public static Position parse(String cursor) {
+      int comma = cursor.lastIndexOf(',');
+      try {
+        return new Position(LocalDateTime.parse(cursor.substring(0, comma)),
+            Long.parseLong(cursor.substring(comma + 1)));
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("not a range cursor: " + cursor, e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return time + "," + id;
+    }
+  }
+
+  private static final Comparator<Position> ORDER = Comparator.comparing(Position::time)
+      .thenComparingLong(Position::id);
+
+  private final NavigableMap<Position, UCSBDate> byTime = new TreeMap<>(ORDER);
+
+  private final Map<Long, Position> positions = new HashMap<>();
+
+  // At most limit dates from `from` (inclusive) to `to` (exclusive), in time
+  // order, starting after the position `after` if it is not null.
+  public synchronized List<UCSBDate> range(LocalDateTime from, LocalDateTime to, Position after, int limit) {
+    Position start = new Position(from, Long.MIN_VALUE);
+    boolean inclusive = true;
+    if (after != null && ORDER.compare(after, start) >= 0) {
+      start = after;
+      inclusive = false;
+    }
+    Position end = new Position(to, Long.MIN_VALUE);
+    if (ORDER.compare(start, end) >= 0) {
+      return List.of();
+    }
+    return first(byTime().subMap(start, inclusive, end, false).values(), limit);
+  }
+
+  // the next n dates from now on
+  public synchronized List<UCSBDate> upcoming(int n) {
+    return first(byTime().tailMap(new Position(LocalDateTime.now(clock), Long.MIN_VALUE), true).values(), n);
+  }
+
+  private static List<UCSBDate> first(Iterable<UCSBDate> dates, int n) {
+    List<UCSBDate> first = new ArrayList<>();
+    for (UCSBDate date : dates) {
+      if (first.size() == n) {
+        break;
+      }
+      first.add(date);
+    }
+    return first;
+  }
+
+  private NavigableMap<Position, UCSBDate> byTime() {
+    ensureLoaded();
+    return byTime;
+  }
+
+  // a date whose time changed moves to its new position
+  @Override
+  protected void put(UCSBDate date) {
+    remove(date.getId());
+    if (date.getLocalDateTime() == null) {
+      return;
+    }
+    Position position = Position.of(date);
+    byTime.put(position, date);
+    positions.put(date.getId(), position);
+  }
+
+  @Override
+  protected void remove(long id) {
+    Position position = positions.remove(id);
+    if (position != null) {
+      byTime.remove(position);
+    }
+  }
+
+  @Override
+  protected void load() {
+    ucsbDateRepository.findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc()
+        .forEach(date -> put(copy(date)));
+  }
+
+  @Override
+  protected void clear() {
+    byTime.clear();
+    positions.clear();
+  }
+
+  // byTime is keyed by the date's time, so it holds a copy the caller
+  // cannot move out from under its key
+  @Override
+  protected UCSBDate copy(UCSBDate date) {
+    return new UCSBDate(date.getId(), date.getQuarterYYYYQ(), date.getName(), date.getLocalDateTime());
+  }
+}
@@ -0,0 +1,196 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.AopTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { CachingConfig.class, CachingConfigTests.Repositories.class })
+@TestPropertySource(properties = "app.referenceDataCache.spec=maximumSize=100,expireAfterWrite=1m,recordStats")
+class CachingConfigTests {
+
+  // Mockito stand-ins for the Spring Data repositories, so that the caching
+  // proxy wraps them exactly as it wraps the real ones.  Deliberately not a
+  // @Configuration: the load test and benchmark apps component-scan this
+  // package from the test classpath.
+  static class Repositories {
+    @Bean
+    UCSBDiningCommonsRepository ucsbDiningCommonsRepository() {
+      return mock(UCSBDiningCommonsRepository.class);
+    }
+
+    @Bean
+    UCSBOrganizationRepository ucsbOrganizationRepository() {
+      return mock(UCSBOrganizationRepository.class);
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  CacheManager cacheManager;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  private UCSBDiningCommonsRepository commonsMock;
+  private UCSBOrganizationRepository orgMock;
+
+  private final UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+  private final UCSBOrganization zpr = UCSBOrganization.builder().orgCode("ZPR").orgTranslationShort("ZETA PHI RHO").build();
+
+  @BeforeEach
+  void setUp() {
+    cacheManager.getCache(CachingConfig.DINING_COMMONS).clear();
+    cacheManager.getCache(CachingConfig.ORGANIZATIONS).clear();
+    commonsMock = AopTestUtils.getUltimateTargetObject(ucsbDiningCommonsRepository);
+    orgMock = AopTestUtils.getUltimateTargetObject(ucsbOrganizationRepository);
+    reset(commonsMock, orgMock);
+  }
+
+  @Test
+  void findById_and_findAll_hit_the_repository_once() {
+    when(commonsMock.findById("ortega")).thenReturn(Optional.of(ortega));
+    when(commonsMock.findAll()).thenReturn(List.of(ortega));
+
+    assertSame(ortega, ucsbDiningCommonsRepository.findById("ortega").get());
+    assertEquals(ortega, ucsbDiningCommonsRepository.findById("ortega").get());
+    assertEquals(List.of(ortega), ucsbDiningCommonsRepository.findAll());
+    assertEquals(List.of(ortega), ucsbDiningCommonsRepository.findAll());
+
+    verify(commonsMock, times(1)).findById("ortega");
+    verify(commonsMock, times(1)).findAll();
+  }
+
+  @Test
+  void every_hit_is_a_copy_that_the_caller_can_change() {
+    when(commonsMock.findById("ortega")).thenReturn(Optional.of(ortega));
+    when(commonsMock.findAll()).thenReturn(List.of(ortega));
+
+    ucsbDiningCommonsRepository.findById("ortega");
+    ucsbDiningCommonsRepository.findAll();
+    ortega.setName("changed by the loader");
+    ucsbDiningCommonsRepository.findById("ortega").get().setName("changed");
+    ucsbDiningCommonsRepository.findAll().iterator().next().setName("changed");
+
+    UCSBDiningCommons hit = ucsbDiningCommonsRepository.findById("ortega").get();
+    assertNotSame(hit, ucsbDiningCommonsRepository.findById("ortega").get());
+    assertEquals("Ortega", hit.getName());
+    assertEquals("Ortega", ucsbDiningCommonsRepository.findAll().iterator().next().getName());
+  }
+
+  @Test
+  void values_that_cannot_be_copied_fail_loudly() {
+    Cache cache = cacheManager.getCache(CachingConfig.DINING_COMMONS);
+    CaffeineCache caffeine = (CaffeineCache) ((TransactionAwareCacheDecorator) cache).getTargetCache();
+
+    assertThrows(UncheckedIOException.class, () -> caffeine.put("unserializable", List.of(new Object())));
+    caffeine.getNativeCache().put("corrupt", new byte[] { 1, 2, 3 });
+    assertThrows(UncheckedIOException.class, () -> caffeine.get("corrupt"));
+  }
+
+  @Test
+  void missing_rows_are_cached_too() {
+    when(orgMock.findById("nope")).thenReturn(Optional.empty());
+
+    assertEquals(Optional.empty(), ucsbOrganizationRepository.findById("nope"));
+    assertEquals(Optional.empty(), ucsbOrganizationRepository.findById("nope"));
+
+    verify(orgMock, times(1)).findById("nope");
+  }
+
+  @Test
+  void every_write_clears_the_cache() {
+    when(orgMock.findById("ZPR")).thenReturn(Optional.of(zpr));
+    when(orgMock.findAll()).thenReturn(List.of(zpr));
+
+    ucsbOrganizationRepository.findById("ZPR");
+    ucsbOrganizationRepository.findAll();
+    ucsbOrganizationRepository.save(zpr);
+    ucsbOrganizationRepository.findById("ZPR");
+    ucsbOrganizationRepository.findAll();
+    ucsbOrganizationRepository.saveAll(List.of(zpr));
+    ucsbOrganizationRepository.findById("ZPR");
+    ucsbOrganizationRepository.delete(zpr);
+    ucsbOrganizationRepository.findById("ZPR");
+    ucsbOrganizationRepository.deleteById("ZPR");
+    ucsbOrganizationRepository.findById("ZPR");
+    ucsbOrganizationRepository.deleteAll(List.of(zpr));
+    ucsbOrganizationRepository.findById("ZPR");
+    ucsbOrganizationRepository.deleteAllById(List.of("ZPR"));
+    ucsbOrganizationRepository.findById("ZPR");
+    ucsbOrganizationRepository.deleteAll();
+    ucsbOrganizationRepository.findById("ZPR");
+
+    verify(orgMock, times(8)).findById("ZPR");
+    verify(orgMock, times(2)).findAll();
+  }
+
+  @Test
+  void writes_to_one_table_leave_the_other_cached() {
+    when(commonsMock.findAll()).thenReturn(List.of(ortega));
+
+    ucsbDiningCommonsRepository.findAll();
+    ucsbOrganizationRepository.save(zpr);
+    ucsbDiningCommonsRepository.findAll();
+
+    verify(commonsMock, times(1)).findAll();
+  }
+
+  @Test
+  void hits_and_misses_are_published_per_cache() {
+    when(commonsMock.findById("ortega")).thenReturn(Optional.of(ortega));
+
+    ucsbDiningCommonsRepository.findById("ortega");
+    ucsbDiningCommonsRepository.findById("ortega");
+    ucsbDiningCommonsRepository.findById("ortega");
+
+    assertEquals(2.0, gets(CachingConfig.DINING_COMMONS, "hit"), 0.0);
+    assertEquals(1.0, gets(CachingConfig.DINING_COMMONS, "miss"), 0.0);
+  }
+
+  private double gets(String cache, String result) {
+    return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+class DatabaseConfigTests {
+
+  @Test
+  void the_pool_is_sized_per_cpu_unless_configured() {
+    assertEquals(8, DatabaseConfig.poolSize(0, 4, 2));
+    assertEquals(10, DatabaseConfig.poolSize(10, 4, 2));
+  }
+
+  @Test
+  void the_data_source_is_sized_and_wrapped_once() {
+    BeanPostProcessor processor = DatabaseConfig.databaseBulkhead(7, 4, 200);
+    HikariDataSource hikari = new HikariDataSource();
+
+    Object wrapped = processor.postProcessAfterInitialization(hikari, "dataSource");
+    Object other = new Object();
+
+    assertEquals(7, hikari.getMaximumPoolSize());
+    assertSame(hikari, assertInstanceOf(DatabaseConfig.BulkheadDataSource.class, wrapped).getTargetDataSource());
+    assertSame(wrapped, processor.postProcessAfterInitialization(wrapped, "dataSource"));
+    assertSame(other, processor.postProcessAfterInitialization(other, "other"));
+  }
+
+  @Test
+  void a_thread_beyond_max_waiting_fails_at_once() throws Exception {
+    DataSource target = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    CountDownLatch waiting = new CountDownLatch(1);
+    CountDownLatch available = new CountDownLatch(1);
+    when(target.getConnection()).thenAnswer(invocation -> {
+      waiting.countDown();
+      available.await(10, TimeUnit.SECONDS);
+      return connection;
+    });
+    when(target.getConnection("user", "password")).thenReturn(connection);
+    DatabaseConfig.BulkheadDataSource bulkhead = new DatabaseConfig.BulkheadDataSource(target, 1);
+
+    CompletableFuture<Connection> first = CompletableFuture.supplyAsync(() -> {
+      try {
+        return bulkhead.getConnection();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    waiting.await(10, TimeUnit.SECONDS);
+
+    assertThrows(SQLTransientConnectionException.class, bulkhead::getConnection);
+    assertThrows(SQLTransientConnectionException.class, () -> bulkhead.getConnection("user", "password"));
+    available.countDown();
+    assertSame(connection, first.get(10, TimeUnit.SECONDS));
+    assertSame(connection, bulkhead.getConnection());
+    assertSame(connection, bulkhead.getConnection("user", "password"));
+  }
+}
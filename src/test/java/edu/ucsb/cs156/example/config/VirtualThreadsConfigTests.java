@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+class VirtualThreadsConfigTests {
+
+  // stands in for java.util.concurrent.Executors on Java 21
+  static class Java21Executors {
+    static final Executor EXECUTOR = Runnable::run;
+
+    public static Executor newVirtualThreadPerTaskExecutor() {
+      return EXECUTOR;
+    }
+  }
+
+  private final VirtualThreadsConfig config = new VirtualThreadsConfig();
+
+  @Test
+  void executor_is_looked_up_reflectively() {
+    assertSame(Java21Executors.EXECUTOR, VirtualThreadsConfig.newVirtualThreadPerTaskExecutor(Java21Executors.class));
+  }
+
+  @Test
+  void older_jvms_fail_with_a_clear_message() {
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> VirtualThreadsConfig.newVirtualThreadPerTaskExecutor(Object.class));
+    assertTrue(e.getMessage().startsWith("app.virtualThreads.enabled=true needs Java 21 or later"));
+  }
+
+  @Test
+  void application_task_executor_uses_virtual_threads_on_java_21() throws Exception {
+    if (Runtime.version().feature() < 21) {
+      assertThrows(IllegalStateException.class, config::applicationTaskExecutor);
+      return;
+    }
+    AsyncTaskExecutor executor = config.applicationTaskExecutor();
+    AtomicReference<Thread> ran = new AtomicReference<>();
+    executor.submit(() -> ran.set(Thread.currentThread())).get();
+    assertTrue(ran.get().getClass().getName().contains("Virtual"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void tomcat_is_given_the_executor() {
+    AsyncTaskExecutor executor = new TaskExecutorAdapter(Runnable::run);
+    TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory();
+    config.virtualThreadsTomcatCustomizer(executor).customize(factory);
+
+    Http11NioProtocol protocol = new Http11NioProtocol();
+    for (TomcatProtocolHandlerCustomizer<?> customizer : factory.getTomcatProtocolHandlerCustomizers()) {
+      ((TomcatProtocolHandlerCustomizer<ProtocolHandler>) customizer).customize(protocol);
+    }
+
+    assertEquals(1, factory.getTomcatProtocolHandlerCustomizers().size());
+    assertSame(executor, protocol.getExecutor());
+  }
+}
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.controllers.FrontendController;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MvcResult;
+
+// The fixture under src/test/resources/public/static/js stands in for a
+// hashed file from the React build, with its .gz and .br variants as
+// written by frontend/scripts/precompress.js.
+
+@WebMvcTest(controllers = FrontendController.class)
+public class WebMvcConfigTests extends ControllerTestCase {
+
+  private static final String ASSET = "/static/js/main.0a1b2c3d.js";
+
+  @MockBean
+  UserRepository userRepository;
+
+  private byte[] fixture(String suffix) throws Exception {
+    return new ClassPathResource("public" + ASSET + suffix).getInputStream().readAllBytes();
+  }
+
+  @Test
+  public void hashed_assets_are_cached_for_a_year() throws Exception {
+    mockMvc.perform(get(ASSET))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andExpect(header().doesNotExist("Content-Encoding"))
+        .andExpect(content().bytes(fixture("")));
+  }
+
+  @Test
+  public void brotli_variant_is_preferred_when_accepted() throws Exception {
+    MvcResult response = mockMvc.perform(get(ASSET).header("Accept-Encoding", "gzip, deflate, br"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "br"))
+        .andExpect(header().string("Vary", "Accept-Encoding"))
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andReturn();
+    assertArrayEquals(fixture(".br"), response.getResponse().getContentAsByteArray());
+  }
+
+  @Test
+  public void gzip_variant_is_served_to_older_clients() throws Exception {
+    MvcResult response = mockMvc.perform(get(ASSET).header("Accept-Encoding", "gzip"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andReturn();
+    assertArrayEquals(fixture(".gz"), response.getResponse().getContentAsByteArray());
+  }
+}
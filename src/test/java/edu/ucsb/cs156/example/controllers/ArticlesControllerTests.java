@@ -10,12 +10,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.dao.DataAccessResourceFailureException;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,16 +28,23 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.InMemoryArticleSearchService;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = ArticlesController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, EntityStreamingService.class, InMemoryArticleSearchService.class })
 public class ArticlesControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -43,6 +53,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        InMemoryArticleSearchService articleSearchService;
+
         // Tests for GET /api/articles/all
 
         @Test
@@ -58,6 +71,28 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .andExpect(status().is(200)); // logged
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void no_database_connection_is_a_503() throws Exception {
+
+                // arrange
+                when(articlesRepository.findAll())
+                                .thenThrow(new CannotCreateTransactionException("no connection"))
+                                .thenThrow(new DataAccessResourceFailureException("no connection either"));
+
+                // act
+                MvcResult inTransaction = mockMvc.perform(get("/api/articles/all"))
+                                .andExpect(status().isServiceUnavailable()).andReturn();
+                MvcResult outsideOne = mockMvc.perform(get("/api/articles/all"))
+                                .andExpect(status().isServiceUnavailable()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(inTransaction);
+                assertEquals("CannotCreateTransactionException", json.get("type"));
+                assertEquals("no connection", json.get("message"));
+                assertEquals("DataAccessResourceFailureException", responseToJson(outsideOne).get("type"));
+        }
+
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_user_can_get_all_articles() throws Exception {
@@ -210,17 +245,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_date() throws Exception {
                 // arrange
 
-                LocalDate ldt1 = LocalDate.parse("2022-01-03");
-
-                Articles articles1 = Articles.builder()
-                                .title("article1")
-                                .url("TestArticle1.com")
-                                .explanation("article1fortesting")
-                                .email("test@ucsb.edu")
-                                .dateAdded(ldt1)
-                                .build();
-
-                when(articlesRepository.findById(eq(99L))).thenReturn(Optional.of(articles1));
+                when(articlesRepository.deleteRowById(eq(99L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -229,8 +254,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(articlesRepository, times(1)).findById(99L);
-                verify(articlesRepository, times(1)).delete(any());
+                verify(articlesRepository, times(1)).deleteRowById(99L);
+                verify(articlesRepository, never()).findById(any());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Articles with id 99 deleted", json.get("message"));
@@ -242,7 +267,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(articlesRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(articlesRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -251,7 +276,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(articlesRepository, times(1)).findById(15L);
+                verify(articlesRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Articles with id 15 not found", json.get("message"));
         }
@@ -263,17 +288,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_articles() throws Exception {
                 // arrange
 
-                LocalDate ldt1 = LocalDate.parse("2022-01-03");
                 LocalDate ldt2 = LocalDate.parse("2023-01-08");
 
-                Articles articlesOrig = Articles.builder()
-                                .title("Article0")
-                                .url("TestArticle0.com")
-                                .explanation("article0fortesting")
-                                .email("test0@ucsb.edu")
-                                .dateAdded(ldt1)
-                                .build();
-
                 Articles articlesEdited = Articles.builder()
                                 .title("article1")
                                 .url("TestArticle1.com")
@@ -284,7 +300,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(articlesEdited);
 
-                when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(articlesOrig));
+                when(articlesRepository.updateRowById(67L, "article1", "TestArticle1.com", "article1fortesting", "test@ucsb.edu", ldt2))
+                                .thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -296,10 +313,13 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(articlesRepository, times(1)).findById(67L);
-                verify(articlesRepository, times(1)).save(articlesEdited); // should be saved with correct user
+                verify(articlesRepository, times(1)).updateRowById(67L, "article1", "TestArticle1.com", "article1fortesting",
+                                "test@ucsb.edu", ldt2);
+                verify(articlesRepository, never()).findById(any());
+                verify(articlesRepository, never()).save(any());
+                articlesEdited.setId(67L);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(articlesEdited), responseString);
         }
 
 
@@ -320,7 +340,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(editedArticles);
 
-                when(articlesRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(articlesRepository.updateRowById(67L, "article1", "TestArticle1.com", "article1fortesting", "test@ucsb.edu", ldt1))
+                                .thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -332,9 +353,302 @@ public class ArticlesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(articlesRepository, times(1)).findById(67L);
+                verify(articlesRepository, times(1)).updateRowById(67L, "article1", "TestArticle1.com", "article1fortesting",
+                                "test@ucsb.edu", ldt1);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Articles with id 67 not found", json.get("message"));
 
         }
-}
\ No newline at end of file
+
+        // Tests for GET /api/articles/paged
+
+        @Test
+        public void logged_out_users_cannot_get_paged() throws Exception {
+                mockMvc.perform(get("/api/articles/paged"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+                // arrange
+                Articles first = Articles.builder().id(4L).build();
+                Articles second = Articles.builder().id(5L).build();
+                List<Articles> expected = List.of(first, second);
+
+                when(articlesRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/articles/paged?cursor=3&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(articlesRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)));
+                String expectedJson = mapper.writeValueAsString(
+                                KeysetPage.<Articles>builder().content(expected).nextCursor("5").build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+                // arrange
+                Articles only = Articles.builder().id(9L).build();
+                List<Articles> expected = List.of(only);
+                PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+                when(articlesRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/articles/paged?size=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(articlesRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((List<?>) json.get("content")).size());
+        }
+
+        // Tests for /api/articles/bulk
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+                mockMvc.perform(post("/api/articles/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_post() throws Exception {
+                // arrange
+                Articles first = Articles.builder().id(99L).build();
+                Articles second = Articles.builder().build();
+                Articles firstSaved = Articles.builder().id(1L).build();
+                Articles secondSaved = Articles.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+                when(articlesRepository.saveAll(any())).thenReturn(List.of(firstSaved, secondSaved));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/articles/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                // ids supplied by the client are ignored; the database assigns them
+                verify(articlesRepository, times(1)).saveAll(List.of(Articles.builder().build(), Articles.builder().build()));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("succeeded"));
+                assertEquals(0, json.get("failed"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                Articles first = Articles.builder().id(1L).build();
+                Articles second = Articles.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+                when(articlesRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/articles/bulk")
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(articlesRepository, times(1)).saveAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+                List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+                assertEquals("updated", items.get(0).get("status"));
+                assertEquals("not found", items.get(1).get("status"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                Articles first = Articles.builder().id(1L).build();
+
+                when(articlesRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/articles/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content("[1,2]")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(articlesRepository, times(1)).deleteAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+        }
+
+        // Tests for GET /api/articles/export
+
+        @Test
+        public void logged_out_users_cannot_export() throws Exception {
+                mockMvc.perform(get("/api/articles/export"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_streams_ndjson_by_default() throws Exception {
+                // arrange
+                Articles first = Articles.builder()
+                                .id(1L)
+                                .title("Streams, \"again\"")
+                                .url("https://example.org")
+                                .email("cgaucho@ucsb.edu")
+                                .dateAdded(LocalDate.parse("2022-04-20"))
+                                .build();
+                Articles second = Articles.builder().id(2L).build();
+                when(articlesRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/articles/export"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/x-ndjson"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"articles.ndjson\""))
+                                .andReturn();
+
+                // assert
+                String expected = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_as_csv() throws Exception {
+                // arrange
+                Articles first = Articles.builder()
+                                .id(1L)
+                                .title("Streams, \"again\"")
+                                .url("https://example.org")
+                                .email("cgaucho@ucsb.edu")
+                                .dateAdded(LocalDate.parse("2022-04-20"))
+                                .build();
+                when(articlesRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/articles/export").param("format", "csv"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"articles.csv\""))
+                                .andReturn();
+
+                // assert
+                assertEquals("text/csv", response.getResponse().getContentType());
+                assertEquals("id,title,url,explanation,email,dateAdded\r\n1,\"Streams, \"\"again\"\"\",https://example.org,,cgaucho@ucsb.edu,2022-04-20\r\n",
+                                response.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/articles/search
+
+        @Test
+        public void logged_out_users_cannot_search() throws Exception {
+                mockMvc.perform(get("/api/articles/search?q=spring"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_search_and_page_size_and_number_are_clamped() throws Exception {
+                // arrange
+                Articles spring = Articles.builder().id(1L).title("Spring Boot tips").explanation("testing").email("cgaucho@ucsb.edu").build();
+                Articles react = Articles.builder().id(2L).title("React hooks").explanation("about Spring too").email("ldelplaya@ucsb.edu").build();
+                when(articlesRepository.findAll()).thenReturn(List.of(spring, react));
+                articleSearchService.rebuild();
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/articles/search?q=spr*&page=-1&size=0"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("total"));
+                assertEquals(0, json.get("page"));
+                assertEquals(1, json.get("size"));
+                List<Map<String, Object>> hits = (List<Map<String, Object>>) json.get("hits");
+                assertEquals(1, hits.size());
+                // title words count double
+                assertEquals("Spring Boot tips", ((Map<String, Object>) hits.get(0).get("article")).get("title"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_update_the_search_index() throws Exception {
+                // arrange
+                when(articlesRepository.findAll()).thenReturn(List.of());
+                articleSearchService.rebuild();
+                Articles posted = Articles.builder().id(9L).title("Using Swagger").url("https://example.org")
+                                .explanation("the api docs").email("cgaucho@ucsb.edu").dateAdded(LocalDate.parse("2022-04-20")).build();
+                when(articlesRepository.save(any())).thenReturn(posted);
+                when(articlesRepository.updateRowById(9L, "Using Dokku", null, null, null, null)).thenReturn(1);
+                when(articlesRepository.deleteRowById(9L)).thenReturn(1);
+
+                // act: post
+                mockMvc.perform(post("/api/articles/post?title=Using Swagger&url=https://example.org&explanation=the api docs&email=cgaucho@ucsb.edu&dateAdded=2022-04-20")
+                                .with(csrf())).andExpect(status().isOk());
+
+                // assert
+                assertEquals(1, articleSearchService.search("swagger", PageRequest.of(0, 10)).getTotal());
+
+                // act: put
+                Articles edited = Articles.builder().id(9L).title("Using Dokku").build();
+                mockMvc.perform(put("/api/articles?id=9").contentType(MediaType.APPLICATION_JSON).characterEncoding("utf-8")
+                                .content(mapper.writeValueAsString(edited)).with(csrf())).andExpect(status().isOk());
+
+                // assert
+                assertEquals(0, articleSearchService.search("swagger", PageRequest.of(0, 10)).getTotal());
+                assertEquals(1, articleSearchService.search("dokku", PageRequest.of(0, 10)).getTotal());
+
+                // act: delete
+                mockMvc.perform(delete("/api/articles?id=9").with(csrf())).andExpect(status().isOk());
+
+                // assert
+                assertEquals(0, articleSearchService.search("dokku", PageRequest.of(0, 10)).getTotal());
+
+                // act: bulk post, update and delete
+                Articles again = Articles.builder().id(10L).title("Swagger again").build();
+                Articles other = Articles.builder().id(11L).title("Swagger too").build();
+                when(articlesRepository.saveAll(any())).thenReturn(List.of(again, other));
+                mockMvc.perform(post("/api/articles/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content("[{\"title\":\"Swagger again\"},{\"title\":\"Swagger too\"}]").with(csrf()))
+                                .andExpect(status().isOk());
+                Articles renamed = Articles.builder().id(10L).title("Dokku again").build();
+                when(articlesRepository.findAllById(List.of(10L))).thenReturn(List.of(again));
+                when(articlesRepository.saveAll(any())).thenReturn(List.of(renamed));
+                mockMvc.perform(put("/api/articles/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(renamed))).with(csrf()))
+                                .andExpect(status().isOk());
+                when(articlesRepository.findAllById(List.of(11L))).thenReturn(List.of(other));
+                mockMvc.perform(delete("/api/articles/bulk").contentType(MediaType.APPLICATION_JSON).content("[11]").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert: the rows written are indexed one by one, without reading the table
+                assertEquals(0, articleSearchService.search("swagger", PageRequest.of(0, 10)).getTotal());
+                assertEquals(1, articleSearchService.search("dokku", PageRequest.of(0, 10)).getTotal());
+                verify(articlesRepository, times(1)).findAll();
+        }
+}
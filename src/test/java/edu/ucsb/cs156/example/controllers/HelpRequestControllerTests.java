@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.TaskExecutorsConfig;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
@@ -11,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -25,16 +27,26 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.HelpRequestEventFeed;
+import edu.ucsb.cs156.example.services.HelpRequestQueue;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = HelpRequestController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, TaskExecutorsConfig.class, EntityStreamingService.class, HelpRequestQueue.class,
+                HelpRequestEventFeed.class })
 public class HelpRequestControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -43,6 +55,12 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        HelpRequestQueue helpRequestQueue;
+
+        @Autowired
+        HelpRequestEventFeed helpRequestEventFeed;
+
         // Tests for GET /api/HelpRequest/all
         
         @Test
@@ -214,18 +232,8 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_help_request() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                HelpRequest helpRequestOrig = HelpRequest.builder()
-                                .requesterEmail("cgaucho@ucsb.edu")
-                                .teamId("s22-5pm-3")
-                                .tableOrBreakoutRoom("7")
-                                .requestTime(ldt1)
-                                .explanation("Need help with Swagger-ui")
-                                .solved(true)
-                                .build();
-
                 HelpRequest helpRequestEdited = HelpRequest.builder()
                                 .requesterEmail("ldelplaya@ucsb.edu")
                                 .teamId("s22-6pm-3")
@@ -237,7 +245,8 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(helpRequestEdited);
 
-                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
+                when(helpRequestRepository.updateRowById(67L, "ldelplaya@ucsb.edu", "s22-6pm-3", "11", ldt2, "Dokku problems", false))
+                                .thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -249,10 +258,13 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(67L);
-                verify(helpRequestRepository, times(1)).save(helpRequestEdited); // should be saved with correct user
+                verify(helpRequestRepository, times(1)).updateRowById(67L, "ldelplaya@ucsb.edu", "s22-6pm-3", "11", ldt2,
+                                "Dokku problems", false);
+                verify(helpRequestRepository, never()).findById(any());
+                verify(helpRequestRepository, never()).save(any());
+                helpRequestEdited.setId(67L);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(helpRequestEdited), responseString);
         }
 
         
@@ -274,7 +286,8 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(helpRequestEdit);
 
-                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(helpRequestRepository.updateRowById(67L, "cgaucho@ucsb.edu", "s22-5pm-3", "7", ldt1, "Need help with Swagger-ui", true))
+                                .thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -286,7 +299,8 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(67L);
+                verify(helpRequestRepository, times(1)).updateRowById(67L, "cgaucho@ucsb.edu", "s22-5pm-3", "7", ldt1,
+                                "Need help with Swagger-ui", true);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 67 not found", json.get("message"));
 
@@ -299,18 +313,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_help_request() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-                HelpRequest helpRequest1 = HelpRequest.builder()
-                                .requesterEmail("cgaucho@ucsb.edu")
-                                .teamId("s22-5pm-3")
-                                .tableOrBreakoutRoom("7")
-                                .requestTime(ldt1)
-                                .explanation("Need help with Swagger-ui")
-                                .solved(true)
-                                .build();
-
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.of(helpRequest1));
+                when(helpRequestRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -319,8 +322,8 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
-                verify(helpRequestRepository, times(1)).delete(any());
+                verify(helpRequestRepository, times(1)).deleteRowById(15L);
+                verify(helpRequestRepository, never()).findById(any());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 deleted", json.get("message"));
@@ -332,7 +335,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(helpRequestRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -341,8 +344,453 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
+                verify(helpRequestRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 not found", json.get("message"));
         }
+
+        // Tests for GET /api/HelpRequest/paged
+
+        @Test
+        public void logged_out_users_cannot_get_paged() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/paged"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(4L).build();
+                HelpRequest second = HelpRequest.builder().id(5L).build();
+                List<HelpRequest> expected = List.of(first, second);
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/paged?cursor=3&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)));
+                String expectedJson = mapper.writeValueAsString(
+                                KeysetPage.<HelpRequest>builder().content(expected).nextCursor("5").build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+                // arrange
+                HelpRequest only = HelpRequest.builder().id(9L).build();
+                List<HelpRequest> expected = List.of(only);
+                PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+                when(helpRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/paged?size=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((List<?>) json.get("content")).size());
+        }
+
+        // Tests for /api/HelpRequest/bulk
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+                mockMvc.perform(post("/api/HelpRequest/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_post() throws Exception {
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(99L).build();
+                HelpRequest second = HelpRequest.builder().build();
+                HelpRequest firstSaved = HelpRequest.builder().id(1L).build();
+                HelpRequest secondSaved = HelpRequest.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+                when(helpRequestRepository.saveAll(any())).thenReturn(List.of(firstSaved, secondSaved));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/HelpRequest/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                // ids supplied by the client are ignored; the database assigns them
+                verify(helpRequestRepository, times(1)).saveAll(List.of(HelpRequest.builder().build(), HelpRequest.builder().build()));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("succeeded"));
+                assertEquals(0, json.get("failed"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(1L).build();
+                HelpRequest second = HelpRequest.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+                when(helpRequestRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/HelpRequest/bulk")
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).saveAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+                List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+                assertEquals("updated", items.get(0).get("status"));
+                assertEquals("not found", items.get(1).get("status"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(1L).build();
+
+                when(helpRequestRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/HelpRequest/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content("[1,2]")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).deleteAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+        }
+
+        // Tests for GET /api/HelpRequest/requester
+
+        @Test
+        public void logged_out_users_cannot_get_by_requester() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/requester?requesterEmail=cgaucho@ucsb.edu"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_by_requester() throws Exception {
+
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(1L).requesterEmail("cgaucho@ucsb.edu").build();
+                HelpRequest second = HelpRequest.builder().id(2L).requesterEmail("cgaucho@ucsb.edu").build();
+                List<HelpRequest> expected = List.of(first, second);
+
+                when(helpRequestRepository.findAllByRequesterEmail("cgaucho@ucsb.edu")).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/requester?requesterEmail=cgaucho@ucsb.edu"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAllByRequesterEmail("cgaucho@ucsb.edu");
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/HelpRequest/solved
+
+        @Test
+        public void logged_out_users_cannot_get_by_solved() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/solved?solved=true"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_by_solved() throws Exception {
+
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(1L).solved(true).build();
+                HelpRequest second = HelpRequest.builder().id(2L).solved(true).build();
+                List<HelpRequest> expected = List.of(first, second);
+
+                when(helpRequestRepository.findAllBySolved(eq(true))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/solved?solved=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(helpRequestRepository, times(1)).findAllBySolved(eq(true));
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/HelpRequest/export
+
+        @Test
+        public void logged_out_users_cannot_export() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/export"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_streams_ndjson_by_default() throws Exception {
+                // arrange
+                HelpRequest first = HelpRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .requestTime(LocalDateTime.parse("2022-04-20T18:31"))
+                                .explanation("Swagger, \"again\"")
+                                .solved(true)
+                                .build();
+                HelpRequest second = HelpRequest.builder().id(2L).build();
+                when(helpRequestRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/export"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/x-ndjson"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"helprequests.ndjson\""))
+                                .andReturn();
+
+                // assert
+                String expected = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_as_csv() throws Exception {
+                // arrange
+                HelpRequest first = HelpRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .requestTime(LocalDateTime.parse("2022-04-20T18:31"))
+                                .explanation("Swagger, \"again\"")
+                                .solved(true)
+                                .build();
+                when(helpRequestRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/export").param("format", "csv"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"helprequests.csv\""))
+                                .andReturn();
+
+                // assert
+                assertEquals("text/csv", response.getResponse().getContentType());
+                assertEquals("id,requesterEmail,teamId,tableOrBreakoutRoom,requestTime,explanation,solved\r\n1,cgaucho@ucsb.edu,s22-5pm-3,,2022-04-20T18:31:00,\"Swagger, \"\"again\"\"\",true\r\n",
+                                response.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/HelpRequest/queue
+
+        @Test
+        public void logged_out_users_cannot_get_queue() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/queue"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_the_whole_queue_without_a_cursor() throws Exception {
+                // arrange
+                HelpRequest first = HelpRequest.builder().id(3L).requestTime(LocalDateTime.parse("2022-04-20T17:35")).build();
+                HelpRequest second = HelpRequest.builder().id(1L).requestTime(LocalDateTime.parse("2022-04-20T18:31")).build();
+                when(helpRequestRepository.findAllBySolvedFalseOrderByRequestTimeAscIdAsc()).thenReturn(List.of(first, second));
+                helpRequestQueue.reload();
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/HelpRequest/queue"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expectedJson = mapper.writeValueAsString(helpRequestQueue.view(null));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(true, json.get("full"));
+                assertEquals(2, ((List<?>) json.get("requests")).size());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void queue_polls_see_posts_edits_deletes_and_bulk_writes() throws Exception {
+                // arrange
+                helpRequestQueue.reload();
+                String cursor = helpRequestQueue.view(null).getCursor();
+                HelpRequest posted = HelpRequest.builder()
+                                .id(21L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-04-20T17:35"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+                when(helpRequestRepository.save(any())).thenReturn(posted);
+                when(helpRequestRepository.updateRowById(21L, null, null, null, null, null, true)).thenReturn(1);
+                when(helpRequestRepository.deleteRowById(21L)).thenReturn(1);
+
+                // act: post
+                mockMvc.perform(
+                                post("/api/HelpRequest/post?requesterEmail=cgaucho@ucsb.edu&teamId=s22-5pm-3&tableOrBreakoutRoom=7&requestTime=2022-04-20T17:35&explanation=Need help with Swagger-ui&solved=false")
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult afterPost = mockMvc.perform(get("/api/HelpRequest/queue").param("since", cursor))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(afterPost);
+                assertEquals(false, json.get("full"));
+                assertEquals(List.of(21), ((List<Map<String, Object>>) json.get("requests")).stream().map(r -> r.get("id")).toList());
+                cursor = (String) json.get("cursor");
+
+                // act: marking it solved removes it
+                HelpRequest solved = HelpRequest.builder().id(21L).solved(true).build();
+                mockMvc.perform(
+                                put("/api/HelpRequest?id=21")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(solved))
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                json = responseToJson(mockMvc.perform(get("/api/HelpRequest/queue").param("since", cursor)).andReturn());
+                assertEquals(List.of(21), json.get("removed"));
+                cursor = (String) json.get("cursor");
+
+                // act: deleting a request that is not open changes nothing
+                mockMvc.perform(delete("/api/HelpRequest?id=21").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                assertEquals(cursor, helpRequestQueue.view(cursor).getCursor());
+
+                // act: bulk writes are applied row by row
+                HelpRequest bulkPosted = HelpRequest.builder().id(22L).teamId("s22-5pm-4").solved(false).build();
+                when(helpRequestRepository.saveAll(any())).thenReturn(List.of(bulkPosted));
+                when(helpRequestRepository.findAllById(List.of(21L))).thenReturn(List.of(solved));
+                mockMvc.perform(post("/api/HelpRequest/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content("[{\"teamId\":\"s22-5pm-4\"}]").with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(delete("/api/HelpRequest/bulk").contentType(MediaType.APPLICATION_JSON).content("[21]").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                json = responseToJson(mockMvc.perform(get("/api/HelpRequest/queue").param("since", cursor)).andReturn());
+                assertEquals(false, json.get("full"));
+                assertEquals(List.of(22), ((List<Map<String, Object>>) json.get("requests")).stream().map(r -> r.get("id")).toList());
+                verify(helpRequestRepository, times(1)).findAllBySolvedFalseOrderByRequestTimeAscIdAsc();
+        }
+
+        // Tests for GET /api/HelpRequest/events
+
+        // events are written by the feed's sender threads
+        private String awaitStream(MvcResult events, String regex) throws Exception {
+                long deadline = System.currentTimeMillis() + 5000;
+                String stream = events.getResponse().getContentAsString();
+                while (!stream.matches(regex) && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(10);
+                        stream = events.getResponse().getContentAsString();
+                }
+                return stream;
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_events() throws Exception {
+                mockMvc.perform(get("/api/HelpRequest/events"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void subscribers_get_an_event_for_each_write() throws Exception {
+                // arrange
+                HelpRequest helpRequest = HelpRequest.builder().id(15L).teamId("s22-5pm-3").solved(false).build();
+                when(helpRequestRepository.save(any())).thenReturn(helpRequest);
+                when(helpRequestRepository.updateRowById(15L, null, "s22-5pm-3", null, null, null, false)).thenReturn(1);
+                when(helpRequestRepository.deleteRowById(15L)).thenReturn(1);
+
+                // act
+                MvcResult events = mockMvc.perform(get("/api/HelpRequest/events"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                mockMvc.perform(
+                                post("/api/HelpRequest/post?requesterEmail=cgaucho@ucsb.edu&teamId=s22-5pm-3&tableOrBreakoutRoom=7&requestTime=2022-04-20T17:35&explanation=Need help with Swagger-ui&solved=false")
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(
+                                put("/api/HelpRequest?id=15")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(helpRequest))
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(delete("/api/HelpRequest?id=15").with(csrf()))
+                                .andExpect(status().isOk());
+                when(helpRequestRepository.saveAll(any())).thenReturn(List.of(helpRequest));
+                when(helpRequestRepository.findAllById(List.of(15L))).thenReturn(List.of(helpRequest));
+                mockMvc.perform(post("/api/HelpRequest/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(helpRequest))).with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(put("/api/HelpRequest/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(helpRequest))).with(csrf()))
+                                .andExpect(status().isOk());
+                mockMvc.perform(delete("/api/HelpRequest/bulk").contentType(MediaType.APPLICATION_JSON).content("[15]").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                assertEquals("text/event-stream", events.getResponse().getContentType());
+                String json = mapper.writeValueAsString(helpRequest);
+                String writes = "id:[0-9a-f]+-\\d+\nevent:created\ndata:\\Q" + json + "\\E\n\n"
+                                + "id:[0-9a-f]+-\\d+\nevent:updated\ndata:\\Q" + json + "\\E\n\n"
+                                + "id:[0-9a-f]+-\\d+\nevent:deleted\ndata:\\{\"id\":15\\}\n\n";
+                String expected = "id:[0-9a-f]+-\\d+\n\n" + writes + writes;
+                String stream = awaitStream(events, expected);
+                assertTrue(stream.matches(expected), stream);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void reconnecting_with_an_unknown_last_event_id_gets_a_reset() throws Exception {
+                // act
+                MvcResult events = mockMvc.perform(get("/api/HelpRequest/events").header("Last-Event-ID", "0-1"))
+                                .andExpect(request().asyncStarted()).andReturn();
+
+                // assert
+                String expected = "id:[0-9a-f]+-\\d+\nevent:reset\ndata:\\{\\}\n\n";
+                String stream = awaitStream(events, expected);
+                assertTrue(stream.matches(expected), stream);
+        }
 }
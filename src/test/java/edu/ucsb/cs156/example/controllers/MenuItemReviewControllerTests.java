@@ -5,6 +5,9 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository.Rating;
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingSummaryRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -24,21 +27,32 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, EntityStreamingService.class, MenuItemRatingService.class })
 public class MenuItemReviewControllerTests extends ControllerTestCase {
 
         @MockBean
         MenuItemReviewRepository menuItemReviewRepository;
 
+        @MockBean
+        MenuItemRatingSummaryRepository menuItemRatingSummaryRepository;
+
         @MockBean
         UserRepository userRepository;
 
@@ -139,6 +153,10 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(menuItemReviewRepository, times(1)).save(menuItemReview1);
+                // item 1 had no summary row yet, so one is inserted
+                verify(menuItemRatingSummaryRepository, times(1)).adjust(1L, 1L, 1L, 1L, 0L, 0L, 0L, 0L);
+                verify(menuItemRatingSummaryRepository, times(1)).save(MenuItemRatingSummary.builder()
+                                .itemId(1).reviewCount(1).starSum(1).oneStar(1).build());
                 String expectedJson = mapper.writeValueAsString(menuItemReview1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -203,22 +221,25 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
         // Tests for DELETE /api/MenuItemReview?id=... 
 
+        private static Rating rating(long itemId, int stars) {
+                return new Rating() {
+                        public long getItemId() {
+                                return itemId;
+                        }
+
+                        public int getStars() {
+                                return stars;
+                        }
+                };
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void admin_can_delete_a_menuitemreview() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-                MenuItemReview menuItemReview1 = MenuItemReview.builder()
-                                .itemId(1)
-                                .reviewerEmail("cgaucho@ucsb.edu")
-                                .stars(1)
-                                .dateReviewed(ldt1)
-                                .comments("Bad")
-                                .build();
-
-                when(menuItemReviewRepository.findById(eq(123L))).thenReturn(Optional.of(menuItemReview1));
+                when(menuItemReviewRepository.findRatingForUpdateById(eq(123L))).thenReturn(Optional.of(rating(1, 1)));
+                when(menuItemReviewRepository.deleteRowById(123L)).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -227,8 +248,11 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(123L);
-                verify(menuItemReviewRepository, times(1)).delete(any());
+                verify(menuItemReviewRepository, times(1)).findRatingForUpdateById(123L);
+                verify(menuItemReviewRepository, times(1)).deleteRowById(123L);
+                verify(menuItemReviewRepository, never()).findById(any());
+                verify(menuItemReviewRepository, never()).delete(any());
+                verify(menuItemRatingSummaryRepository, times(1)).adjust(1L, -1L, -1L, -1L, 0L, 0L, 0L, 0L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Menu Item Review with id 123 deleted", json.get("message"));
@@ -240,7 +264,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(menuItemReviewRepository.findById(eq(123L))).thenReturn(Optional.empty());
+                when(menuItemReviewRepository.findRatingForUpdateById(eq(123L))).thenReturn(Optional.empty());
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -249,7 +273,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(123L);
+                verify(menuItemReviewRepository, times(1)).findRatingForUpdateById(123L);
+                verify(menuItemReviewRepository, never()).deleteRowById(any(Long.class));
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 123 not found", json.get("message"));
         }
@@ -261,16 +286,6 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_menuitemreview() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-                MenuItemReview menuItemReviewOrig = MenuItemReview.builder()
-                                .itemId(1)
-                                .reviewerEmail("cgaucho@ucsb.edu")
-                                .stars(1)
-                                .dateReviewed(ldt1)
-                                .comments("Bad")
-                                .build();
-
                 LocalDateTime ldt2 = LocalDateTime.parse("2022-03-11T00:00:00");
 
                 MenuItemReview menuItemReviewEdited = MenuItemReview.builder()
@@ -283,7 +298,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
 
-                when(menuItemReviewRepository.findById(eq(123L))).thenReturn(Optional.of(menuItemReviewOrig));
+                // the review was 1 star for item 1
+                when(menuItemReviewRepository.findRatingForUpdateById(eq(123L))).thenReturn(Optional.of(rating(1, 1)));
+                when(menuItemReviewRepository.updateRowById(123L, 2L, "phinkey@ucsb.edu", 5, ldt2, "Great")).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -295,10 +312,16 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(123L);
-                verify(menuItemReviewRepository, times(1)).save(menuItemReviewEdited); // should be saved with correct user
+                verify(menuItemReviewRepository, times(1)).findRatingForUpdateById(123L);
+                verify(menuItemReviewRepository, times(1)).updateRowById(123L, 2L, "phinkey@ucsb.edu", 5, ldt2, "Great");
+                verify(menuItemReviewRepository, never()).findById(any());
+                verify(menuItemReviewRepository, never()).save(any());
+                // the review moves from item 1 (1 star) to item 2 (5 stars)
+                verify(menuItemRatingSummaryRepository, times(1)).adjust(1L, -1L, -1L, -1L, 0L, 0L, 0L, 0L);
+                verify(menuItemRatingSummaryRepository, times(1)).adjust(2L, 1L, 5L, 0L, 0L, 0L, 0L, 1L);
+                menuItemReviewEdited.setId(123L);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(menuItemReviewEdited), responseString);
         }
 
         
@@ -319,7 +342,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
 
-                when(menuItemReviewRepository.findById(eq(123L))).thenReturn(Optional.empty());
+                when(menuItemReviewRepository.findRatingForUpdateById(eq(123L))).thenReturn(Optional.empty());
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -331,10 +354,314 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(menuItemReviewRepository, times(1)).findById(123L);
+                verify(menuItemReviewRepository, times(1)).findRatingForUpdateById(123L);
+                verify(menuItemReviewRepository, never()).updateRowById(any(Long.class), any(Long.class), any(), any(Integer.class), any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 123 not found", json.get("message"));
 
         }
-}
 
+        // Tests for GET /api/MenuItemReview/paged
+
+        @Test
+        public void logged_out_users_cannot_get_paged() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/paged"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+                // arrange
+                MenuItemReview first = MenuItemReview.builder().id(4L).build();
+                MenuItemReview second = MenuItemReview.builder().id(5L).build();
+                List<MenuItemReview> expected = List.of(first, second);
+
+                when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/paged?cursor=3&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)));
+                String expectedJson = mapper.writeValueAsString(
+                                KeysetPage.<MenuItemReview>builder().content(expected).nextCursor("5").build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+                // arrange
+                MenuItemReview only = MenuItemReview.builder().id(9L).build();
+                List<MenuItemReview> expected = List.of(only);
+                PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+                when(menuItemReviewRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/paged?size=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((List<?>) json.get("content")).size());
+        }
+
+        // Tests for /api/MenuItemReview/bulk
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+                mockMvc.perform(post("/api/MenuItemReview/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_post() throws Exception {
+                // arrange
+                MenuItemReview first = MenuItemReview.builder().id(99L).build();
+                MenuItemReview second = MenuItemReview.builder().build();
+                MenuItemReview firstSaved = MenuItemReview.builder().id(1L).build();
+                MenuItemReview secondSaved = MenuItemReview.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+                when(menuItemReviewRepository.saveAll(any())).thenReturn(List.of(firstSaved, secondSaved));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/MenuItemReview/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                // ids supplied by the client are ignored; the database assigns them
+                verify(menuItemReviewRepository, times(1)).saveAll(List.of(MenuItemReview.builder().build(), MenuItemReview.builder().build()));
+                verify(menuItemReviewRepository, times(1)).ratingTotals(Set.of(0L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("succeeded"));
+                assertEquals(0, json.get("failed"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                MenuItemReview first = MenuItemReview.builder().id(1L).build();
+                MenuItemReview second = MenuItemReview.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+                when(menuItemReviewRepository.findAllById(List.of(1L, 2L)))
+                                .thenReturn(List.of(MenuItemReview.builder().id(1L).itemId(7L).build()));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/MenuItemReview/bulk")
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).saveAll(List.of(first));
+                // both the item the review belonged to and the one it belongs to now
+                verify(menuItemReviewRepository, times(1)).ratingTotals(Set.of(0L, 7L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+                List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+                assertEquals("updated", items.get(0).get("status"));
+                assertEquals("not found", items.get(1).get("status"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                MenuItemReview first = MenuItemReview.builder().id(1L).itemId(7L).build();
+
+                when(menuItemReviewRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/MenuItemReview/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content("[1,2]")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).deleteAll(List.of(first));
+                verify(menuItemReviewRepository, times(1)).ratingTotals(Set.of(7L));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+        }
+
+        // Tests for GET /api/MenuItemReview/item
+
+        @Test
+        public void logged_out_users_cannot_get_by_item() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/item?itemId=7"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_by_item() throws Exception {
+
+                // arrange
+                MenuItemReview first = MenuItemReview.builder().id(1L).itemId(7L).build();
+                MenuItemReview second = MenuItemReview.builder().id(2L).itemId(7L).build();
+                List<MenuItemReview> expected = List.of(first, second);
+
+                when(menuItemReviewRepository.findAllByItemId(eq(7L))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/item?itemId=7"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).findAllByItemId(eq(7L));
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/MenuItemReview/export
+
+        @Test
+        public void logged_out_users_cannot_export() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/export"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_streams_ndjson_by_default() throws Exception {
+                // arrange
+                MenuItemReview first = MenuItemReview.builder()
+                                .id(1L)
+                                .itemId(7L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(4)
+                                .dateReviewed(LocalDateTime.parse("2022-04-20T18:31"))
+                                .comments("Tasty, \"mostly\"")
+                                .build();
+                MenuItemReview second = MenuItemReview.builder().id(2L).build();
+                when(menuItemReviewRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/export"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/x-ndjson"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"menuitemreviews.ndjson\""))
+                                .andReturn();
+
+                // assert
+                String expected = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_as_csv() throws Exception {
+                // arrange
+                MenuItemReview first = MenuItemReview.builder()
+                                .id(1L)
+                                .itemId(7L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(4)
+                                .dateReviewed(LocalDateTime.parse("2022-04-20T18:31"))
+                                .comments("Tasty, \"mostly\"")
+                                .build();
+                when(menuItemReviewRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/export").param("format", "csv"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"menuitemreviews.csv\""))
+                                .andReturn();
+
+                // assert
+                assertEquals("text/csv", response.getResponse().getContentType());
+                assertEquals("id,itemId,reviewerEmail,stars,dateReviewed,comments\r\n1,7,cgaucho@ucsb.edu,4,2022-04-20T18:31:00,\"Tasty, \"\"mostly\"\"\"\r\n",
+                                response.getResponse().getContentAsString());
+        }
+
+        // Tests for /api/MenuItemReview/summary
+
+        @Test
+        public void logged_out_users_cannot_get_summary() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/summary?itemId=1"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_summary_without_reading_reviews() throws Exception {
+                // arrange
+                MenuItemRatingSummary summary = MenuItemRatingSummary.builder()
+                                .itemId(1).reviewCount(3).starSum(11).threeStars(1).fourStars(2).build();
+                when(menuItemRatingSummaryRepository.findById(1L)).thenReturn(Optional.of(summary));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/summary?itemId=1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(0)).findAllByItemId(1L);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(3, json.get("reviewCount"));
+                assertEquals(11, json.get("starSum"));
+                assertEquals(2, json.get("fourStars"));
+                assertEquals(11 / 3.0, json.get("average"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void summary_of_an_item_without_reviews_is_all_zeros() throws Exception {
+                // act
+                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/summary?itemId=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expectedJson = mapper.writeValueAsString(MenuItemRatingSummary.builder().itemId(5).build());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_rebuild_summaries() throws Exception {
+                mockMvc.perform(post("/api/MenuItemReview/summary/rebuild").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_rebuild_summaries() throws Exception {
+                // arrange
+                when(menuItemReviewRepository.ratingTotals()).thenReturn(List.of(
+                                MenuItemRatingSummary.builder().itemId(1).reviewCount(1).starSum(5).fiveStars(1).build()));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/MenuItemReview/summary/rebuild").with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("1 menu item rating summaries corrected", json.get("message"));
+        }
+}
@@ -1,5 +1,6 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.repositories.SentRecommendationReminderRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
@@ -11,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -25,16 +27,24 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
+import edu.ucsb.cs156.example.services.LoggingReminderSink;
+import edu.ucsb.cs156.example.services.RecommendationRequestDeadlines;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.PageRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = RecommendationRequestController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, EntityStreamingService.class, RecommendationRequestDeadlines.class, LoggingReminderSink.class })
 public class RecommendationRequestControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -43,6 +53,12 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        SentRecommendationReminderRepository sentRecommendationReminderRepository;
+
+        @Autowired
+        RecommendationRequestDeadlines recommendationRequestDeadlines;
+
         // Tests for GET /api/RecommendationRequest/all
 
         @Test
@@ -213,19 +229,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_request() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-                LocalDateTime ldt12 = LocalDateTime.parse("2022-02-03T00:00:00");
-
-                RecommendationRequest RecommendationRequest1 = RecommendationRequest.builder()
-                                .requesterEmail("student@ucsb.edu")
-                                .professorEmail("prof@ucsb.edu")
-                                .explanation("letter of Recommendation")
-                                .dateRequested(ldt1)
-                                .dateNeeded(ldt12)
-                                .done(false)
-                                .build();
-
-                when(RecommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.of(RecommendationRequest1));
+                when(RecommendationRequestRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -234,8 +238,8 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(RecommendationRequestRepository, times(1)).findById(15L);
-                verify(RecommendationRequestRepository, times(1)).delete(any());
+                verify(RecommendationRequestRepository, times(1)).deleteRowById(15L);
+                verify(RecommendationRequestRepository, never()).findById(any());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
@@ -247,7 +251,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(RecommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(RecommendationRequestRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -256,7 +260,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(RecommendationRequestRepository, times(1)).findById(15L);
+                verify(RecommendationRequestRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
         }
@@ -268,18 +272,8 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_recommendationrequest() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                RecommendationRequest RecommendationRequestOrig = RecommendationRequest.builder()
-                                .requesterEmail("student@ucsb.edu")
-                                .professorEmail("professor@ucsb.edu")
-                                .explanation("Letter of Rec")
-                                .dateRequested(ldt1)
-                                .dateNeeded(ldt1)
-                                .done(false)
-                                .build();
-
                 RecommendationRequest RecommendationRequestEdited = RecommendationRequest.builder()
                                 .requesterEmail("student2@ucsb.edu")
                                 .professorEmail("professor2@ucsb.edu")
@@ -291,7 +285,8 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(RecommendationRequestEdited);
 
-                when(RecommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.of(RecommendationRequestOrig));
+                when(RecommendationRequestRepository.updateRowById(67L, "student2@ucsb.edu", "professor2@ucsb.edu", "Second Letter of Rec",
+                                ldt2, ldt2, true)).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -303,10 +298,13 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(RecommendationRequestRepository, times(1)).findById(67L);
-                verify(RecommendationRequestRepository, times(1)).save(RecommendationRequestEdited); // should be saved with correct user
+                verify(RecommendationRequestRepository, times(1)).updateRowById(67L, "student2@ucsb.edu", "professor2@ucsb.edu",
+                                "Second Letter of Rec", ldt2, ldt2, true);
+                verify(RecommendationRequestRepository, never()).findById(any());
+                verify(RecommendationRequestRepository, never()).save(any());
+                RecommendationRequestEdited.setId(67L);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(RecommendationRequestEdited), responseString);
         }
 
         
@@ -328,7 +326,8 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(RecRequestEdited);
 
-                when(RecommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(RecommendationRequestRepository.updateRowById(67L, "student2@ucsb.edu", "prof2@ucsb.edu", "Letter for Recommendation",
+                                ldt21, ldt22, true)).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -340,10 +339,382 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(RecommendationRequestRepository, times(1)).findById(67L);
+                verify(RecommendationRequestRepository, times(1)).updateRowById(67L, "student2@ucsb.edu", "prof2@ucsb.edu",
+                                "Letter for Recommendation", ldt21, ldt22, true);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
 
         }
 
-}
\ No newline at end of file
+        // Tests for GET /api/RecommendationRequest/paged
+
+        @Test
+        public void logged_out_users_cannot_get_paged() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/paged"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(4L).build();
+                RecommendationRequest second = RecommendationRequest.builder().id(5L).build();
+                List<RecommendationRequest> expected = List.of(first, second);
+
+                when(RecommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/paged?cursor=3&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(RecommendationRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)));
+                String expectedJson = mapper.writeValueAsString(
+                                KeysetPage.<RecommendationRequest>builder().content(expected).nextCursor("5").build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+                // arrange
+                RecommendationRequest only = RecommendationRequest.builder().id(9L).build();
+                List<RecommendationRequest> expected = List.of(only);
+                PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+                when(RecommendationRequestRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/paged?size=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(RecommendationRequestRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((List<?>) json.get("content")).size());
+        }
+
+        // Tests for /api/RecommendationRequest/bulk
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+                mockMvc.perform(post("/api/RecommendationRequest/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_post() throws Exception {
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(99L).build();
+                RecommendationRequest second = RecommendationRequest.builder().build();
+                RecommendationRequest firstSaved = RecommendationRequest.builder().id(1L).build();
+                RecommendationRequest secondSaved = RecommendationRequest.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+                when(RecommendationRequestRepository.saveAll(any())).thenReturn(List.of(firstSaved, secondSaved));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/RecommendationRequest/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                // ids supplied by the client are ignored; the database assigns them
+                verify(RecommendationRequestRepository, times(1)).saveAll(List.of(RecommendationRequest.builder().build(), RecommendationRequest.builder().build()));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("succeeded"));
+                assertEquals(0, json.get("failed"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).build();
+                RecommendationRequest second = RecommendationRequest.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+                when(RecommendationRequestRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/RecommendationRequest/bulk")
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(RecommendationRequestRepository, times(1)).saveAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+                List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+                assertEquals("updated", items.get(0).get("status"));
+                assertEquals("not found", items.get(1).get("status"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).build();
+
+                when(RecommendationRequestRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/RecommendationRequest/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content("[1,2]")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(RecommendationRequestRepository, times(1)).deleteAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+        }
+
+        // Tests for GET /api/RecommendationRequest/requester
+
+        @Test
+        public void logged_out_users_cannot_get_by_requester() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/requester?requesterEmail=cgaucho@ucsb.edu"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_by_requester() throws Exception {
+
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).requesterEmail("cgaucho@ucsb.edu").build();
+                RecommendationRequest second = RecommendationRequest.builder().id(2L).requesterEmail("cgaucho@ucsb.edu").build();
+                List<RecommendationRequest> expected = List.of(first, second);
+
+                when(RecommendationRequestRepository.findAllByRequesterEmail("cgaucho@ucsb.edu")).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/requester?requesterEmail=cgaucho@ucsb.edu"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(RecommendationRequestRepository, times(1)).findAllByRequesterEmail("cgaucho@ucsb.edu");
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/RecommendationRequest/done
+
+        @Test
+        public void logged_out_users_cannot_get_by_done() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/done?done=false"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_by_done() throws Exception {
+
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).done(false).build();
+                RecommendationRequest second = RecommendationRequest.builder().id(2L).done(false).build();
+                List<RecommendationRequest> expected = List.of(first, second);
+
+                when(RecommendationRequestRepository.findAllByDone(eq(false))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/done?done=false"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(RecommendationRequestRepository, times(1)).findAllByDone(eq(false));
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/RecommendationRequest/export
+
+        @Test
+        public void logged_out_users_cannot_export() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/export"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_streams_ndjson_by_default() throws Exception {
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail("phtcon@ucsb.edu")
+                                .explanation("Grad school, \"PhD\"")
+                                .dateRequested(LocalDateTime.parse("2022-04-20T18:31"))
+                                .done(true)
+                                .build();
+                RecommendationRequest second = RecommendationRequest.builder().id(2L).build();
+                when(RecommendationRequestRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first, second));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/export"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/x-ndjson"))
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"recommendationrequests.ndjson\""))
+                                .andReturn();
+
+                // assert
+                String expected = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void export_as_csv() throws Exception {
+                // arrange
+                RecommendationRequest first = RecommendationRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail("phtcon@ucsb.edu")
+                                .explanation("Grad school, \"PhD\"")
+                                .dateRequested(LocalDateTime.parse("2022-04-20T18:31"))
+                                .done(true)
+                                .build();
+                when(RecommendationRequestRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/export").param("format", "csv"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Disposition", "attachment; filename=\"recommendationrequests.csv\""))
+                                .andReturn();
+
+                // assert
+                assertEquals("text/csv", response.getResponse().getContentType());
+                assertEquals("id,requesterEmail,professorEmail,explanation,dateRequested,dateNeeded,done\r\n1,cgaucho@ucsb.edu,phtcon@ucsb.edu,\"Grad school, \"\"PhD\"\"\",2022-04-20T18:31:00,,true\r\n",
+                                response.getResponse().getContentAsString());
+        }
+
+        // Tests for GET /api/RecommendationRequest/overdue and /dueSoon
+
+        private RecommendationRequest openRequest(long id, LocalDateTime dateNeeded) {
+                return RecommendationRequest.builder().id(id)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .professorEmail("phtcon@ucsb.edu")
+                                .explanation("BS/MS program")
+                                .dateRequested(LocalDateTime.parse("2022-04-20T00:00:00"))
+                                .dateNeeded(dateNeeded)
+                                .done(false)
+                                .build();
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_overdue_or_due_soon() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/overdue"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/RecommendationRequest/dueSoon"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_overdue_and_due_soon_requests_and_days_is_clamped() throws Exception {
+
+                // arrange
+                recommendationRequestDeadlines.reload();
+                LocalDateTime now = LocalDateTime.now();
+                RecommendationRequest longOverdue = openRequest(1L, LocalDateTime.parse("2000-01-01T00:00:00"));
+                RecommendationRequest overdue = openRequest(2L, now.minusDays(1));
+                RecommendationRequest tomorrow = openRequest(3L, now.plusHours(12));
+                RecommendationRequest nextWeek = openRequest(4L, now.plusDays(6));
+                RecommendationRequest nextYear = openRequest(5L, now.plusDays(400));
+
+                when(RecommendationRequestRepository.findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc())
+                                .thenReturn(List.of(longOverdue, overdue, tomorrow, nextWeek, nextYear));
+
+                // act
+                MvcResult overdueResponse = mockMvc.perform(get("/api/RecommendationRequest/overdue"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult defaulted = mockMvc.perform(get("/api/RecommendationRequest/dueSoon"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult clampedLow = mockMvc.perform(get("/api/RecommendationRequest/dueSoon?days=0"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult clampedHigh = mockMvc.perform(get("/api/RecommendationRequest/dueSoon?days=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(List.of(longOverdue, overdue)), overdueResponse.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(tomorrow, nextWeek)), defaulted.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(tomorrow)), clampedLow.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(tomorrow, nextWeek)), clampedHigh.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_keep_the_deadline_index_current() throws Exception {
+
+                // arrange
+                recommendationRequestDeadlines.reload();
+                RecommendationRequest kept = openRequest(1L, LocalDateTime.parse("2000-01-01T00:00:00"));
+                RecommendationRequest deleted = openRequest(2L, LocalDateTime.parse("2000-01-02T00:00:00"));
+                RecommendationRequest posted = openRequest(3L, LocalDateTime.parse("2000-01-03T00:00:00"));
+                RecommendationRequest edited = openRequest(0L, LocalDateTime.parse("2000-01-04T00:00:00"));
+                edited.setDone(true);
+
+                when(RecommendationRequestRepository.findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc())
+                                .thenReturn(List.of(kept, deleted));
+                when(RecommendationRequestRepository.deleteRowById(2L)).thenReturn(1);
+                when(RecommendationRequestRepository.updateRowById(1L, "cgaucho@ucsb.edu", "phtcon@ucsb.edu", "BS/MS program",
+                                LocalDateTime.parse("2022-04-20T00:00:00"), LocalDateTime.parse("2000-01-04T00:00:00"),
+                                true)).thenReturn(1);
+                when(RecommendationRequestRepository.save(any())).thenReturn(posted);
+                assertEquals(List.of(kept, deleted), recommendationRequestDeadlines.overdue());
+
+                // act
+                mockMvc.perform(post("/api/RecommendationRequest/post?requesterEmail=cgaucho@ucsb.edu&professorEmail=phtcon@ucsb.edu&explanation=recommendation&dateRequested=2022-04-20T00:00:00&dateNeeded=2000-01-03T00:00:00&done=false")
+                                .with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(delete("/api/RecommendationRequest?id=2").with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(put("/api/RecommendationRequest?id=1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .characterEncoding("utf-8")
+                                .content(mapper.writeValueAsString(edited))
+                                .with(csrf())).andExpect(status().isOk());
+
+                // assert
+                assertEquals(List.of(posted), recommendationRequestDeadlines.overdue());
+
+                // act
+                when(RecommendationRequestRepository.findAllById(List.of(1L))).thenReturn(List.of(edited));
+                when(RecommendationRequestRepository.saveAll(any())).thenReturn(List.of(kept));
+                when(RecommendationRequestRepository.findAllById(List.of(3L))).thenReturn(List.of(posted));
+                mockMvc.perform(put("/api/RecommendationRequest/bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(List.of(kept)))
+                                .with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(delete("/api/RecommendationRequest/bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[3]")
+                                .with(csrf())).andExpect(status().isOk());
+
+                // assert: the bulk writes are applied row by row, not by a reload
+                assertEquals(List.of(kept), recommendationRequestDeadlines.overdue());
+                verify(RecommendationRequestRepository, times(1))
+                                .findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc();
+        }
+}
@@ -5,11 +5,13 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.UCSBDateCalendar;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -24,16 +26,20 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, UCSBDateCalendar.class})
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +48,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        UCSBDateCalendar ucsbDateCalendar;
+
         // Tests for GET /api/ucsbdates/all
         
         @Test
@@ -201,15 +210,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_date() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-                UCSBDate ucsbDate1 = UCSBDate.builder()
-                                .name("firstDayOfClasses")
-                                .quarterYYYYQ("20222")
-                                .localDateTime(ldt1)
-                                .build();
-
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
+                when(ucsbDateRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -218,8 +219,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
-                verify(ucsbDateRepository, times(1)).delete(any());
+                verify(ucsbDateRepository, times(1)).deleteRowById(15L);
+                verify(ucsbDateRepository, never()).findById(any());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -231,7 +232,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(ucsbDateRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -240,7 +241,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
+                verify(ucsbDateRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 not found", json.get("message"));
         }
@@ -252,15 +253,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_ucsbdate() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                UCSBDate ucsbDateOrig = UCSBDate.builder()
-                                .name("firstDayOfClasses")
-                                .quarterYYYYQ("20222")
-                                .localDateTime(ldt1)
-                                .build();
-
                 UCSBDate ucsbDateEdited = UCSBDate.builder()
                                 .name("firstDayOfFestivus")
                                 .quarterYYYYQ("20232")
@@ -269,7 +263,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbDateEdited);
 
-                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+                when(ucsbDateRepository.updateRowById(67L, "20232", "firstDayOfFestivus", ldt2)).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -281,10 +275,12 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(67L);
-                verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+                verify(ucsbDateRepository, times(1)).updateRowById(67L, "20232", "firstDayOfFestivus", ldt2);
+                verify(ucsbDateRepository, never()).findById(any());
+                verify(ucsbDateRepository, never()).save(any());
+                ucsbDateEdited.setId(67L);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(ucsbDateEdited), responseString);
         }
 
         
@@ -303,7 +299,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(ucsbDateRepository.updateRowById(67L, "20222", "firstDayOfClasses", ldt1)).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -315,9 +311,347 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(67L);
+                verify(ucsbDateRepository, times(1)).updateRowById(67L, "20222", "firstDayOfClasses", ldt1);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for GET /api/ucsbdates/paged
+
+        @Test
+        public void logged_out_users_cannot_get_paged() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/paged"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+                // arrange
+                UCSBDate first = UCSBDate.builder().id(4L).build();
+                UCSBDate second = UCSBDate.builder().id(5L).build();
+                List<UCSBDate> expected = List.of(first, second);
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/paged?cursor=3&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)));
+                String expectedJson = mapper.writeValueAsString(
+                                KeysetPage.<UCSBDate>builder().content(expected).nextCursor("5").build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+                // arrange
+                UCSBDate only = UCSBDate.builder().id(9L).build();
+                List<UCSBDate> expected = List.of(only);
+                PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/paged?size=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((List<?>) json.get("content")).size());
+        }
+
+        // Tests for /api/ucsbdates/bulk
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+                mockMvc.perform(post("/api/ucsbdates/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_post() throws Exception {
+                // arrange
+                UCSBDate first = UCSBDate.builder().id(99L).build();
+                UCSBDate second = UCSBDate.builder().build();
+                UCSBDate firstSaved = UCSBDate.builder().id(1L).build();
+                UCSBDate secondSaved = UCSBDate.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+                when(ucsbDateRepository.saveAll(any())).thenReturn(List.of(firstSaved, secondSaved));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ucsbdates/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                // ids supplied by the client are ignored; the database assigns them
+                verify(ucsbDateRepository, times(1)).saveAll(List.of(UCSBDate.builder().build(), UCSBDate.builder().build()));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("succeeded"));
+                assertEquals(0, json.get("failed"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                UCSBDate first = UCSBDate.builder().id(1L).build();
+                UCSBDate second = UCSBDate.builder().id(2L).build();
+                String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+                when(ucsbDateRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ucsbdates/bulk")
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).saveAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+                List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+                assertEquals("updated", items.get(0).get("status"));
+                assertEquals("not found", items.get(1).get("status"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                UCSBDate first = UCSBDate.builder().id(1L).build();
+
+                when(ucsbDateRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdates/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content("[1,2]")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).deleteAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+        }
+
+        // Tests for GET /api/ucsbdates/quarter
+
+        @Test
+        public void logged_out_users_cannot_get_by_quarter() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20222"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_by_quarter() throws Exception {
+
+                // arrange
+                UCSBDate first = UCSBDate.builder().id(1L).quarterYYYYQ("20222").build();
+                UCSBDate second = UCSBDate.builder().id(2L).quarterYYYYQ("20222").build();
+                List<UCSBDate> expected = List.of(first, second);
+
+                when(ucsbDateRepository.findAllByQuarterYYYYQ("20222")).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20222"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20222");
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/ucsbdates/range and /api/ucsbdates/upcoming
+
+        @Test
+        public void logged_out_users_cannot_get_a_range_or_upcoming_dates() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/ucsbdates/upcoming"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_the_dates_in_a_range_in_time_order() throws Exception {
+
+                // arrange
+                ucsbDateCalendar.reload();
+                UCSBDate first = UCSBDate.builder().id(1L).name("firstDayOfClasses").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+                UCSBDate second = UCSBDate.builder().id(2L).name("mlkDay").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-17T00:00:00")).build();
+                UCSBDate third = UCSBDate.builder().id(3L).name("lastDayOfClasses").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-03-11T00:00:00")).build();
+
+                when(ucsbDateRepository.findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc())
+                                .thenReturn(List.of(first, second, third));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-03T00:00:00&to=2022-03-11T00:00:00"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                String expectedJson = mapper.writeValueAsString(
+                                KeysetPage.<UCSBDate>builder().content(List.of(first, second)).build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_range_is_paged_with_a_cursor() throws Exception {
+
+                // arrange
+                ucsbDateCalendar.reload();
+                UCSBDate first = UCSBDate.builder().id(1L).name("firstDayOfClasses").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+                UCSBDate second = UCSBDate.builder().id(2L).name("mlkDay").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-17T00:00:00")).build();
+                UCSBDate third = UCSBDate.builder().id(3L).name("lastDayOfClasses").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-03-11T00:00:00")).build();
+
+                when(ucsbDateRepository.findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc())
+                                .thenReturn(List.of(first, second, third));
+
+                // act
+                MvcResult page1 = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2023-01-01T00:00:00&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult page2 = mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2023-01-01T00:00:00&size=2&cursor=2022-01-17T00:00,2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(KeysetPage.<UCSBDate>builder()
+                                .content(List.of(first, second)).nextCursor("2022-01-17T00:00,2").build()),
+                                page1.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(KeysetPage.<UCSBDate>builder()
+                                .content(List.of(third)).build()),
+                                page2.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_backwards_range_or_a_malformed_cursor_is_a_bad_request() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-02-01T00:00:00&to=2022-01-01T00:00:00"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-02-01T00:00:00&cursor=nonsense"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdates/range?from=2022-01-01T00:00:00&to=2022-01-01T00:00:00"))
+                                .andExpect(status().isOk());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_upcoming_dates_and_n_is_clamped() throws Exception {
+
+                // arrange
+                ucsbDateCalendar.reload();
+                UCSBDate past = UCSBDate.builder().id(1L).name("firstDayOfClasses").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2000-01-03T00:00:00")).build();
+                UCSBDate next = UCSBDate.builder().id(2L).name("tomorrowland").quarterYYYYQ("29991")
+                                .localDateTime(LocalDateTime.parse("2999-01-03T00:00:00")).build();
+                UCSBDate later = UCSBDate.builder().id(3L).name("dayAfter").quarterYYYYQ("29991")
+                                .localDateTime(LocalDateTime.parse("2999-01-04T00:00:00")).build();
+
+                when(ucsbDateRepository.findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc())
+                                .thenReturn(List.of(past, next, later));
+
+                // act
+                MvcResult clamped = mockMvc.perform(get("/api/ucsbdates/upcoming?n=0"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult defaulted = mockMvc.perform(get("/api/ucsbdates/upcoming"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(List.of(next)), clamped.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(next, later)), defaulted.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_keep_the_calendar_current() throws Exception {
+
+                // arrange
+                ucsbDateCalendar.reload();
+                LocalDateTime from = LocalDateTime.parse("2022-01-01T00:00:00");
+                LocalDateTime to = LocalDateTime.parse("2023-01-01T00:00:00");
+                UCSBDate kept = UCSBDate.builder().id(1L).name("firstDayOfClasses").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+                UCSBDate deleted = UCSBDate.builder().id(2L).name("mlkDay").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-17T00:00:00")).build();
+                UCSBDate posted = UCSBDate.builder().id(3L).name("lastDayOfClasses").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-03-11T00:00:00")).build();
+                UCSBDate edited = UCSBDate.builder().name("firstDayOfFestivus").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-12-23T00:00:00")).build();
+
+                when(ucsbDateRepository.findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc())
+                                .thenReturn(List.of(kept, deleted));
+                when(ucsbDateRepository.deleteRowById(2L)).thenReturn(1);
+                when(ucsbDateRepository.updateRowById(1L, "20222", "firstDayOfFestivus",
+                                LocalDateTime.parse("2022-12-23T00:00:00"))).thenReturn(1);
+                when(ucsbDateRepository.save(any())).thenReturn(posted);
+                assertEquals(List.of(kept, deleted), ucsbDateCalendar.range(from, to, null, 500));
+
+                // act
+                mockMvc.perform(post("/api/ucsbdates/post?name=lastDayOfClasses&quarterYYYYQ=20222&localDateTime=2022-03-11T00:00:00")
+                                .with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(delete("/api/ucsbdates?id=2").with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(put("/api/ucsbdates?id=1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .characterEncoding("utf-8")
+                                .content(mapper.writeValueAsString(edited))
+                                .with(csrf())).andExpect(status().isOk());
+
+                // assert
+                edited.setId(1L);
+                assertEquals(List.of(posted, edited), ucsbDateCalendar.range(from, to, null, 500));
+
+                // act
+                UCSBDate bulkPosted = UCSBDate.builder().id(4L).name("finals").quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-03-14T00:00:00")).build();
+                when(ucsbDateRepository.saveAll(any())).thenReturn(List.of(bulkPosted));
+                when(ucsbDateRepository.findAllById(List.of(1L))).thenReturn(List.of(edited));
+                mockMvc.perform(post("/api/ucsbdates/bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[{\"name\":\"finals\"}]")
+                                .with(csrf())).andExpect(status().isOk());
+                mockMvc.perform(delete("/api/ucsbdates/bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[1]")
+                                .with(csrf())).andExpect(status().isOk());
+
+                // assert: the bulk writes are applied row by row, not by a reload
+                assertEquals(List.of(posted, bulkPosted), ucsbDateCalendar.range(from, to, null, 500));
+                verify(ucsbDateRepository, times(1)).findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc();
+        }
 }
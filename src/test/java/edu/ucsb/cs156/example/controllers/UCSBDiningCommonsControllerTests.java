@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.TaskExecutorsConfig;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
@@ -11,6 +12,7 @@ import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
@@ -20,8 +22,18 @@ import org.springframework.test.web.servlet.MvcResult;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.DiningCommonsMenu;
+import edu.ucsb.cs156.example.models.DiningCommonsMenuRow;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.ImportService;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,14 +41,23 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, TaskExecutorsConfig.class, ImportService.class, DiningCommonsLocator.class })
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
         @MockBean
         UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+        @Autowired
+        TableVersionService tableVersionService;
+
+        @Autowired
+        DiningCommonsLocator diningCommonsLocator;
+
         @MockBean
         UserRepository userRepository;
 
@@ -61,7 +82,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // arrange
 
-                when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsRepository.updateRowByCode("munger-hall", "Munger Hall", false, false, true, 34.420799, -119.852617))
+                                .thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?code=munger-hall"))
@@ -209,17 +231,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_date() throws Exception {
                 // arrange
 
-                UCSBDiningCommons portola = UCSBDiningCommons.builder()
-                                .name("Portola")
-                                .code("portola")
-                                .hasSackMeal(true)
-                                .hasTakeOutMeal(true)
-                                .hasDiningCam(true)
-                                .latitude(34.417723)
-                                .longitude(-119.867427)
-                                .build();
-
-                when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
+                when(ucsbDiningCommonsRepository.deleteRowByCode(eq("portola"))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -228,8 +240,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
-                verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsRepository, times(1)).deleteRowByCode("portola");
+                verify(ucsbDiningCommonsRepository, never()).findById(any());
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -241,7 +253,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsRepository.deleteRowByCode(eq("munger-hall"))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -250,7 +262,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+                verify(ucsbDiningCommonsRepository, times(1)).deleteRowByCode("munger-hall");
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
         }
@@ -262,16 +274,6 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_commons() throws Exception {
                 // arrange
 
-                UCSBDiningCommons carrilloOrig = UCSBDiningCommons.builder()
-                                .name("Carrillo")
-                                .code("carrillo")
-                                .hasSackMeal(false)
-                                .hasTakeOutMeal(false)
-                                .hasDiningCam(true)
-                                .latitude(34.409953)
-                                .longitude(-119.85277)
-                                .build();
-
                 UCSBDiningCommons carrilloEdited = UCSBDiningCommons.builder()
                                 .name("Carrillo Dining Hall")
                                 .code("carrillo")
@@ -284,7 +286,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(carrilloEdited);
 
-                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloOrig));
+                when(ucsbDiningCommonsRepository.updateRowByCode("carrillo", "Carrillo Dining Hall", true, true, false, 34.409954, -119.85278))
+                                .thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -296,8 +299,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
-                verify(ucsbDiningCommonsRepository, times(1)).save(carrilloEdited); // should be saved with updated info
+                verify(ucsbDiningCommonsRepository, times(1)).updateRowByCode("carrillo", "Carrillo Dining Hall", true, true, false,
+                                34.409954, -119.85278);
+                verify(ucsbDiningCommonsRepository, never()).findById(any());
+                verify(ucsbDiningCommonsRepository, never()).save(any());
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -332,9 +337,429 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+                verify(ucsbDiningCommonsRepository, times(1)).updateRowByCode("munger-hall", "Munger Hall", false, false, true,
+                                34.420799, -119.852617);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        // Tests for GET /api/ucsbdiningcommons/paged
+
+        @Test
+        public void logged_out_users_cannot_get_paged() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/paged"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+                // arrange
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").build();
+                UCSBDiningCommons second = UCSBDiningCommons.builder().code("de-la-guerra").build();
+                List<UCSBDiningCommons> expected = List.of(first, second);
+
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq("anacapa"), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/paged?cursor=anacapa&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findByCodeGreaterThanOrderByCodeAsc(eq("anacapa"), eq(PageRequest.of(0, 2)));
+                String expectedJson = mapper.writeValueAsString(
+                                KeysetPage.<UCSBDiningCommons>builder().content(expected).nextCursor("de-la-guerra").build());
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+                // arrange
+                UCSBDiningCommons only = UCSBDiningCommons.builder().code("portola").build();
+                List<UCSBDiningCommons> expected = List.of(only);
+                PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(capped))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/paged?size=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(capped));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((List<?>) json.get("content")).size());
+        }
+
+        // Tests for /api/ucsbdiningcommons/bulk
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommons/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_post_and_existing_keys_are_reported_as_duplicates() throws Exception {
+                // arrange
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").build();
+                UCSBDiningCommons second = UCSBDiningCommons.builder().code("portola").build();
+                String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+                when(ucsbDiningCommonsRepository.findAllById(List.of("carrillo", "portola"))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ucsbdiningcommons/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(second));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").build();
+                UCSBDiningCommons second = UCSBDiningCommons.builder().code("portola").build();
+                String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+                when(ucsbDiningCommonsRepository.findAllById(List.of("carrillo", "portola"))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ucsbdiningcommons/bulk")
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+                List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+                assertEquals("updated", items.get(0).get("status"));
+                assertEquals("not found", items.get(1).get("status"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+                // arrange
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").build();
+
+                when(ucsbDiningCommonsRepository.findAllById(List.of("carrillo", "portola"))).thenReturn(List.of(first));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/ucsbdiningcommons/bulk")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content("[\"carrillo\",\"portola\"]")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).deleteAll(List.of(first));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("succeeded"));
+                assertEquals(1, json.get("failed"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void bulk_items_without_a_key_are_reported_and_not_looked_up() throws Exception {
+                // arrange
+                UCSBDiningCommons keyless = UCSBDiningCommons.builder().name("no code").build();
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").build();
+                String requestBody = mapper.writeValueAsString(List.of(keyless, first));
+
+                when(ucsbDiningCommonsRepository.findAllById(List.of("carrillo"))).thenReturn(List.of(first));
+
+                // act
+                MvcResult posted = mockMvc.perform(post("/api/ucsbdiningcommons/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content(requestBody).with(csrf())).andExpect(status().isOk()).andReturn();
+                MvcResult updated = mockMvc.perform(put("/api/ucsbdiningcommons/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content(requestBody).with(csrf())).andExpect(status().isOk()).andReturn();
+                MvcResult deleted = mockMvc.perform(delete("/api/ucsbdiningcommons/bulk").contentType(MediaType.APPLICATION_JSON)
+                                .content("[null,\"carrillo\"]").with(csrf())).andExpect(status().isOk()).andReturn();
+
+                // assert: carrillo exists, so the post reports it as a duplicate
+                List<String> statuses = new ArrayList<>();
+                for (MvcResult response : List.of(posted, updated, deleted)) {
+                        List<Map<String, Object>> items = (List<Map<String, Object>>) responseToJson(response).get("items");
+                        assertEquals(null, items.get(0).get("id"));
+                        items.forEach(item -> statuses.add((String) item.get("status")));
+                }
+                assertEquals(List.of("missing key", "duplicate", "missing key", "updated", "missing key", "deleted"), statuses);
+                verify(ucsbDiningCommonsRepository, times(3)).findAllById(List.of("carrillo"));
+                verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(first));
+                verify(ucsbDiningCommonsRepository, times(1)).deleteAll(List.of(first));
+        }
+
+        // Tests for conditional GET on /api/ucsbdiningcommons/all
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void all_sends_etag_and_cache_control() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+                String etag = tableVersionService.etag(UCSBDiningCommonsController.TABLE);
+
+                // act and assert
+                mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", etag))
+                                .andExpect(header().string("Cache-Control", "no-cache, private"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void all_returns_304_without_reading_the_table_when_etag_matches() throws Exception {
+                // arrange
+                String etag = tableVersionService.etag(UCSBDiningCommonsController.TABLE);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, never()).findAll();
+                assertEquals("", response.getResponse().getContentAsString());
+                assertEquals(etag, response.getResponse().getHeader("ETag"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_change_the_etag() throws Exception {
+                // arrange
+                String before = tableVersionService.etag(UCSBDiningCommonsController.TABLE);
+
+                // act
+                mockMvc.perform(delete("/api/ucsbdiningcommons/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // assert
+                assertNotEquals(before, tableVersionService.etag(UCSBDiningCommonsController.TABLE));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_id_returns_304_for_a_matching_etag_only_when_the_row_exists() throws Exception {
+                // arrange
+                UCSBDiningCommons row = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+                when(ucsbDiningCommonsRepository.findById(eq("ortega"))).thenReturn(Optional.of(row));
+                when(ucsbDiningCommonsRepository.findById(eq("missing"))).thenReturn(Optional.empty());
+                String etag = tableVersionService.etag(UCSBDiningCommonsController.TABLE);
+
+                // act and assert
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=ortega").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=missing").header("If-None-Match", etag))
+                                .andExpect(status().isNotFound());
+        }
+
+        // Tests for POST /api/ucsbdiningcommons/import
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_import() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommons/import").content("").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_import_and_invalid_or_existing_codes_are_rejected() throws Exception {
+                // arrange
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo")
+                                .latitude(34.409953).longitude(-119.85277).build();
+                UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola").name("Portola").build();
+                when(ucsbDiningCommonsRepository.findAllById(List.of("carrillo", "portola", "carrillo", "ortega")))
+                                .thenReturn(List.of(UCSBDiningCommons.builder().code("ortega").build()));
+                String body = String.join("\n",
+                                mapper.writeValueAsString(carrillo),
+                                mapper.writeValueAsString(portola),
+                                "{\"name\":\"No Code\"}",
+                                "{\"code\":\"dlg\"}",
+                                "{\"code\":\"north\",\"name\":\"North\",\"latitude\":-91}",
+                                "{\"code\":\"south\",\"name\":\"South\",\"latitude\":1,\"longitude\":181}",
+                                "{\"code\":\"carrillo\",\"name\":\"Carrillo again\"}",
+                                "{\"code\":\"ortega\",\"name\":\"Ortega\"}",
+                                "");
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ucsbdiningcommons/import")
+                                                .contentType(MediaType.APPLICATION_NDJSON)
+                                                .content(body)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(carrillo, portola));
+                verify(ucsbDiningCommonsRepository, never()).findById(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(2, json.get("imported"));
+                assertEquals(6, json.get("rejected"));
+                List<Map<String, Object>> rejections = (List<Map<String, Object>>) json.get("rejections");
+                assertEquals(Map.of("line", 3, "reason", "code is required"), rejections.get(0));
+                assertEquals(Map.of("line", 4, "reason", "name is required"), rejections.get(1));
+                assertEquals(Map.of("line", 5, "reason", "latitude must be between -90 and 90"), rejections.get(2));
+                assertEquals(Map.of("line", 6, "reason", "longitude must be between -180 and 180"), rejections.get(3));
+                assertEquals(Map.of("line", 7, "reason", "carrillo already exists"), rejections.get(4));
+                assertEquals(Map.of("line", 8, "reason", "ortega already exists"), rejections.get(5));
+        }
+
+        // Tests for GET /api/ucsbdiningcommons/menu
+
+        @Test
+        public void logged_out_users_cannot_get_menu() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=ortega"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_menu_grouped_by_station_from_one_query() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsRepository.findMenuByCode("ortega")).thenReturn(List.of(
+                                new DiningCommonsMenuRow("ortega", "Ortega", 2L, "Salad", "Bar", null, null, null, null, null, null, null),
+                                new DiningCommonsMenuRow("ortega", "Ortega", 1L, "Tacos", "Grill", 2L, 9L, 0L, 0L, 0L, 1L, 1L),
+                                new DiningCommonsMenuRow("ortega", "Ortega", 3L, "Wings", "Grill", 1L, 3L, 0L, 0L, 1L, 0L, 0L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(1)).findMenuByCode("ortega");
+                verify(ucsbDiningCommonsRepository, never()).findById(any());
+                DiningCommonsMenu expected = new DiningCommonsMenu("ortega", "Ortega", List.of(
+                                new DiningCommonsMenu.Station("Bar", List.of(
+                                                DiningCommonsMenu.Item.builder().id(2).name("Salad").build())),
+                                new DiningCommonsMenu.Station("Grill", List.of(
+                                                new DiningCommonsMenu.Item(1, "Tacos", 2, 9, 0, 0, 0, 1, 1),
+                                                new DiningCommonsMenu.Item(3, "Wings", 1, 3, 0, 0, 1, 0, 0)))));
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+                Map<String, Object> json = responseToJson(response);
+                List<Map<String, Object>> stations = (List<Map<String, Object>>) json.get("stations");
+                Map<String, Object> tacos = ((List<Map<String, Object>>) stations.get(1).get("items")).get(0);
+                assertEquals(4.5, tacos.get("average"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void menu_of_a_commons_without_items_has_no_stations() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsRepository.findMenuByCode("munger-hall")).thenReturn(List.of(
+                                new DiningCommonsMenuRow("munger-hall", "Munger Hall", null, null, null, null, null, null, null, null, null, null)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=munger-hall"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals(mapper.writeValueAsString(new DiningCommonsMenu("munger-hall", "Munger Hall", List.of())),
+                                response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void menu_of_an_unknown_commons_is_not_found() throws Exception {
+                // arrange
+                when(ucsbDiningCommonsRepository.findMenuByCode("munger-hall")).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/menu?code=munger-hall"))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
+        }
+
+        // Tests for GET /api/ucsbdiningcommons/nearest
+
+        @Test
+        public void logged_out_users_cannot_get_nearest() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_nearest_commons_and_writes_refresh_the_index() throws Exception {
+                // arrange
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").latitude(34.409953).longitude(-119.85277).build();
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").latitude(34.410987).longitude(-119.84709).build();
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo));
+                diningCommonsLocator.invalidate();
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.412612&lon=-119.848574"))
+                                .andExpect(status().isOk());
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo, ortega));
+                mockMvc.perform(delete("/api/ucsbdiningcommons/bulk").with(user("admin").roles("ADMIN", "USER"))
+                                .contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                                .andExpect(status().isOk());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.412612&lon=-119.848574&k=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(ucsbDiningCommonsRepository, times(2)).findAll();
+                List<Map<String, Object>> json = mapper.readValue(response.getResponse().getContentAsString(), List.class);
+                assertEquals(2, json.size());
+                assertEquals("ortega", ((Map<String, Object>) json.get(0).get("commons")).get("code"));
+                assertEquals("carrillo", ((Map<String, Object>) json.get(1).get("commons")).get("code"));
+                assertTrue((Double) json.get(0).get("distanceMeters") < (Double) json.get(1).get("distanceMeters"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_k_is_capped() throws Exception {
+                // arrange
+                List<UCSBDiningCommons> many = new ArrayList<>();
+                for (int i = 0; i < UCSBDiningCommonsController.MAX_NEAREST + 5; i++) {
+                        many.add(UCSBDiningCommons.builder().code("c" + i).latitude(34.0 + i / 1000.0).longitude(-119.85).build());
+                }
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(many);
+                diningCommonsLocator.invalidate();
+
+                // act and assert
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34&lon=-119.85&k=1000"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(UCSBDiningCommonsController.MAX_NEAREST));
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34&lon=-119.85&k=0"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(1));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_rejects_coordinates_out_of_range() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=91&lon=0"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=-90&lon=-181"))
+                                .andExpect(status().isBadRequest());
+        }
 }
@@ -3,15 +3,20 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.TaskExecutorsConfig;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -24,6 +29,12 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.ImportService;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,14 +42,26 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, TaskExecutorsConfig.class, ImportService.class })
 public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase {
 
     @MockBean
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+    @MockBean
+    UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+    @Autowired
+    TableVersionService tableVersionService;
+
+    @Autowired
+    ThreadPoolTaskExecutor importExecutor;
+
     @MockBean
     UserRepository userRepository;
 
@@ -200,15 +223,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     public void admin_can_delete_a_dining_commons_menu_item() throws Exception {
         // arrange
 
-       // LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem1 = UCSBDiningCommonsMenuItem.builder()
-        .name("DLG")
-        .diningCommonsCode("diningCommonsCode1")
-        .station("station1")
-        .build();
-
-        when(ucsbDiningCommonsMenuItemRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDiningCommonsMenuItem1));
+        when(ucsbDiningCommonsMenuItemRepository.deleteRowById(eq(15L))).thenReturn(1);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -217,8 +232,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 .andExpect(status().isOk()).andReturn();
 
         // assert
-        verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
-        verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteRowById(15L);
+        verify(ucsbDiningCommonsMenuItemRepository, never()).findById(any());
 
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBDiningCommonsMenuItem with id 15 deleted", json.get("message"));
@@ -230,7 +245,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
             throws Exception {
         // arrange
 
-        when(ucsbDiningCommonsMenuItemRepository.findById(eq(15L))).thenReturn(Optional.empty());
+        when(ucsbDiningCommonsMenuItemRepository.deleteRowById(eq(15L))).thenReturn(0);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -239,7 +254,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 .andExpect(status().isNotFound()).andReturn();
 
         // assert
-        verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteRowById(15L);
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBDiningCommonsMenuItem with id 15 not found", json.get("message"));
     }
@@ -255,11 +270,6 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
        // LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
         //LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemOrig = UCSBDiningCommonsMenuItem.builder()
-        .name("pizza")
-        .diningCommonsCode("diningCommonsCode1")
-        .station("station1")
-        .build();
         UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemEdited = UCSBDiningCommonsMenuItem.builder()
         .name("gyro")
         .diningCommonsCode("diningCommonsCode2")
@@ -268,8 +278,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
         String requestBody = mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited);
 
-        when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L)))
-                .thenReturn(Optional.of(ucsbDiningCommonsMenuItemOrig));
+        when(ucsbDiningCommonsMenuItemRepository.updateRowById(67L, "diningCommonsCode2", "gyro", "station2")).thenReturn(1);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -281,11 +290,12 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 .andExpect(status().isOk()).andReturn();
 
         // assert
-        verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(67L);
-        verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(ucsbDiningCommonsMenuItemEdited); // should be saved
-                                                                                                   // with correct user
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).updateRowById(67L, "diningCommonsCode2", "gyro", "station2");
+        verify(ucsbDiningCommonsMenuItemRepository, never()).findById(any());
+        verify(ucsbDiningCommonsMenuItemRepository, never()).save(any());
+        ucsbDiningCommonsMenuItemEdited.setId(67L);
         String responseString = response.getResponse().getContentAsString();
-        assertEquals(requestBody, responseString);
+        assertEquals(mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited), responseString);
     }
 
     @WithMockUser(roles = { "ADMIN", "USER" })
@@ -303,7 +313,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
         String requestBody = mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited);
 
-        when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.empty());
+        when(ucsbDiningCommonsMenuItemRepository.updateRowById(67L, "diningCommonsCode3", "rice", "station3")).thenReturn(0);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -315,9 +325,351 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 .andExpect(status().isNotFound()).andReturn();
 
         // assert
-        verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(67L);
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).updateRowById(67L, "diningCommonsCode3", "rice", "station3");
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBDiningCommonsMenuItem with id 67 not found", json.get("message"));
 
     }
+
+    // Tests for GET /api/UCSBDiningCommonsMenuItem/paged
+
+    @Test
+    public void logged_out_users_cannot_get_paged() throws Exception {
+        mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/paged"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+        // arrange
+        UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(4L).build();
+        UCSBDiningCommonsMenuItem second = UCSBDiningCommonsMenuItem.builder().id(5L).build();
+        List<UCSBDiningCommonsMenuItem> expected = List.of(first, second);
+
+        when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/paged?cursor=3&size=2"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(3L), eq(PageRequest.of(0, 2)));
+        String expectedJson = mapper.writeValueAsString(
+                KeysetPage.<UCSBDiningCommonsMenuItem>builder().content(expected).nextCursor("5").build());
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+        // arrange
+        UCSBDiningCommonsMenuItem only = UCSBDiningCommonsMenuItem.builder().id(9L).build();
+        List<UCSBDiningCommonsMenuItem> expected = List.of(only);
+        PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+        when(ucsbDiningCommonsMenuItemRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped))).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/paged?size=100000"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(capped));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(null, json.get("nextCursor"));
+        assertEquals(1, ((List<?>) json.get("content")).size());
+    }
+
+    // Tests for /api/UCSBDiningCommonsMenuItem/bulk
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+        mockMvc.perform(post("/api/UCSBDiningCommonsMenuItem/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_post() throws Exception {
+        // arrange
+        UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(99L).build();
+        UCSBDiningCommonsMenuItem second = UCSBDiningCommonsMenuItem.builder().build();
+        UCSBDiningCommonsMenuItem firstSaved = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+        UCSBDiningCommonsMenuItem secondSaved = UCSBDiningCommonsMenuItem.builder().id(2L).build();
+        String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+        when(ucsbDiningCommonsMenuItemRepository.saveAll(any())).thenReturn(List.of(firstSaved, secondSaved));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/UCSBDiningCommonsMenuItem/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding("utf-8")
+                        .content(requestBody)
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        // ids supplied by the client are ignored; the database assigns them
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(UCSBDiningCommonsMenuItem.builder().build(), UCSBDiningCommonsMenuItem.builder().build()));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(2, json.get("succeeded"));
+        assertEquals(0, json.get("failed"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+        // arrange
+        UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+        UCSBDiningCommonsMenuItem second = UCSBDiningCommonsMenuItem.builder().id(2L).build();
+        String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+        when(ucsbDiningCommonsMenuItemRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                put("/api/UCSBDiningCommonsMenuItem/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .characterEncoding("utf-8")
+                        .content(requestBody)
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(first));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("succeeded"));
+        assertEquals(1, json.get("failed"));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+        assertEquals("updated", items.get(0).get("status"));
+        assertEquals("not found", items.get(1).get("status"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+        // arrange
+        UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+
+        when(ucsbDiningCommonsMenuItemRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                delete("/api/UCSBDiningCommonsMenuItem/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding("utf-8")
+                        .content("[1,2]")
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteAll(List.of(first));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("succeeded"));
+        assertEquals(1, json.get("failed"));
+    }
+
+    // Tests for GET /api/UCSBDiningCommonsMenuItem/commons
+
+    @Test
+    public void logged_out_users_cannot_get_by_commons() throws Exception {
+        mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/commons?diningCommonsCode=ortega"))
+                        .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_by_commons() throws Exception {
+
+        // arrange
+        UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).diningCommonsCode("ortega").build();
+        UCSBDiningCommonsMenuItem second = UCSBDiningCommonsMenuItem.builder().id(2L).diningCommonsCode("ortega").build();
+        List<UCSBDiningCommonsMenuItem> expected = List.of(first, second);
+
+        when(ucsbDiningCommonsMenuItemRepository.findAllByDiningCommonsCode("ortega")).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/commons?diningCommonsCode=ortega"))
+                        .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAllByDiningCommonsCode("ortega");
+        String expectedJson = mapper.writeValueAsString(expected);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    // Tests for conditional GET on /api/UCSBDiningCommonsMenuItem/all
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void all_sends_etag_and_cache_control() throws Exception {
+        // arrange
+        when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(new ArrayList<>());
+        String etag = tableVersionService.etag(UCSBDiningCommonsMenuItemController.TABLE);
+
+        // act and assert
+        mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/all"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", etag))
+                        .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void all_returns_304_without_reading_the_table_when_etag_matches() throws Exception {
+        // arrange
+        String etag = tableVersionService.etag(UCSBDiningCommonsMenuItemController.TABLE);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/all").header("If-None-Match", etag))
+                        .andExpect(status().isNotModified()).andReturn();
+
+        // assert
+        verify(ucsbDiningCommonsMenuItemRepository, never()).findAll();
+        assertEquals("", response.getResponse().getContentAsString());
+        assertEquals(etag, response.getResponse().getHeader("ETag"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void writes_change_the_etag() throws Exception {
+        // arrange
+        String before = tableVersionService.etag(UCSBDiningCommonsMenuItemController.TABLE);
+
+        // act
+        mockMvc.perform(delete("/api/UCSBDiningCommonsMenuItem/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                        .andExpect(status().isOk());
+
+        // assert
+        assertNotEquals(before, tableVersionService.etag(UCSBDiningCommonsMenuItemController.TABLE));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_by_id_returns_304_for_a_matching_etag_only_when_the_row_exists() throws Exception {
+        // arrange
+        UCSBDiningCommonsMenuItem row = UCSBDiningCommonsMenuItem.builder().id(7L).diningCommonsCode("ortega").name("Pizza").station("Grill").build();
+        when(ucsbDiningCommonsMenuItemRepository.findById(eq(7L))).thenReturn(Optional.of(row));
+        when(ucsbDiningCommonsMenuItemRepository.findById(eq(8L))).thenReturn(Optional.empty());
+        String etag = tableVersionService.etag(UCSBDiningCommonsMenuItemController.TABLE);
+
+        // act and assert
+        mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem?id=7").header("If-None-Match", etag))
+                        .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem?id=8").header("If-None-Match", etag))
+                        .andExpect(status().isNotFound());
+    }
+
+    // Tests for POST /api/UCSBDiningCommonsMenuItem/import
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_import() throws Exception {
+        mockMvc.perform(post("/api/UCSBDiningCommonsMenuItem/import").content("").with(csrf()))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_import_ndjson_and_ids_are_ignored() throws Exception {
+        // arrange
+        UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+                .id(42L).diningCommonsCode("ortega").name("Baked Pesto Pasta").station("Entree Specials").build();
+        when(ucsbDiningCommonsRepository.findById("ortega")).thenReturn(Optional.of(UCSBDiningCommons.builder().code("ortega").build()));
+        String before = tableVersionService.etag(UCSBDiningCommonsMenuItemController.TABLE);
+
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/UCSBDiningCommonsMenuItem/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(mapper.writeValueAsString(item) + "\n")
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        item.setId(0);
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(item));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("imported"));
+        assertEquals(0, json.get("rejected"));
+        assertNotEquals(before, tableVersionService.etag(UCSBDiningCommonsMenuItemController.TABLE));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_import_csv_and_invalid_rows_are_rejected() throws Exception {
+        // arrange
+        when(ucsbDiningCommonsRepository.findById("ortega")).thenReturn(Optional.of(UCSBDiningCommons.builder().code("ortega").build()));
+        when(ucsbDiningCommonsRepository.findById("nowhere")).thenReturn(Optional.empty());
+        String csv = String.join("\n",
+                "diningCommonsCode,name,station",
+                "ortega,\"Chicken, Rice\",Entree Specials",
+                "ortega,,Entree Specials",
+                "ortega,Tofu,",
+                ",Tofu,Entree Specials",
+                "nowhere,Tofu,Entree Specials",
+                "");
+
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/UCSBDiningCommonsMenuItem/import")
+                        .param("format", "csv")
+                        .contentType("text/csv")
+                        .content(csv)
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        UCSBDiningCommonsMenuItem expected = UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("ortega").name("Chicken, Rice").station("Entree Specials").build();
+        verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(expected));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("imported"));
+        assertEquals(4, json.get("rejected"));
+        List<Map<String, Object>> rejections = (List<Map<String, Object>>) json.get("rejections");
+        assertEquals(Map.of("line", 3, "reason", "name is required"), rejections.get(0));
+        assertEquals(Map.of("line", 4, "reason", "station is required"), rejections.get(1));
+        assertEquals(Map.of("line", 5, "reason", "diningCommonsCode is required"), rejections.get(2));
+        assertEquals(Map.of("line", 6, "reason", "unknown diningCommonsCode nowhere"), rejections.get(3));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void import_is_refused_with_503_while_the_writer_pool_is_full() throws Exception {
+        // arrange
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < importExecutor.getMaxPoolSize(); i++) {
+            importExecutor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        try {
+            // act
+            MvcResult response = mockMvc.perform(
+                    post("/api/UCSBDiningCommonsMenuItem/import")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content("")
+                            .with(csrf()))
+                    .andExpect(status().isServiceUnavailable()).andReturn();
+
+            // assert
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("TaskRejectedException", json.get("type"));
+            assertEquals("too many imports in progress, try again later", json.get("message"));
+        } finally {
+            release.countDown();
+        }
+    }
 }
@@ -13,6 +13,7 @@ import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
@@ -24,6 +25,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import edu.ucsb.cs156.example.services.TableVersionService;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +36,9 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 
 @WebMvcTest(controllers = UCSBOrganizationController.class)
 @Import(TestConfig.class)
@@ -39,6 +47,9 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     @MockBean
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @Autowired
+    TableVersionService tableVersionService;
+
     @MockBean
     UserRepository userRepository;
 
@@ -173,13 +184,6 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     @WithMockUser(roles = { "ADMIN", "USER" })
     @Test
     public void updateOrganization__admin() throws Exception {
-        UCSBOrganization org1 = UCSBOrganization.builder()
-            .orgCode("org1")
-            .orgTranslationShort("org1")
-            .orgTranslation("org1")
-            .inactive(true)
-            .build();
-        
         UCSBOrganization updatedOrg1 = UCSBOrganization.builder()
             .orgCode("org1")
             .orgTranslationShort("org2")
@@ -189,10 +193,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
         String requestBody = mapper.writeValueAsString(updatedOrg1);
 
-        when(ucsbOrganizationRepository.findById(eq("org1")))
-            .thenReturn(Optional.of(org1));
-
-        when(ucsbOrganizationRepository.save(eq(org1))).thenReturn(org1);
+        when(ucsbOrganizationRepository.updateRowByOrgCode("org1", "org2", "org2", false)).thenReturn(1);
 
         MvcResult response = mockMvc.perform(
             put("/api/ucsborganization?id=org1")
@@ -202,8 +203,9 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
             .with(csrf()))
             .andExpect(status().isOk()).andReturn();
 
-        verify(ucsbOrganizationRepository, times(1)).findById("org1");
-        verify(ucsbOrganizationRepository, times(1)).save(org1);
+        verify(ucsbOrganizationRepository, times(1)).updateRowByOrgCode("org1", "org2", "org2", false);
+        verify(ucsbOrganizationRepository, never()).findById(any());
+        verify(ucsbOrganizationRepository, never()).save(any());
         String responseString = response.getResponse().getContentAsString();
         assertEquals(requestBody, responseString);
     }
@@ -220,8 +222,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         
         String requestBody = mapper.writeValueAsString(updatedOrg1);
 
-        when(ucsbOrganizationRepository.findById(eq("org1")))
-            .thenReturn(Optional.empty());
+        when(ucsbOrganizationRepository.updateRowByOrgCode("org1", "org2", "org2", false)).thenReturn(0);
         
         MvcResult response = mockMvc.perform(
             put("/api/ucsborganization?id=org1")
@@ -231,7 +232,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
             .with(csrf()))
             .andExpect(status().isNotFound()).andReturn();
         
-        verify(ucsbOrganizationRepository, times(1)).findById("org1");
+        verify(ucsbOrganizationRepository, times(1)).updateRowByOrgCode("org1", "org2", "org2", false);
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBOrganization with id org1 not found", json.get("message"));
     }
@@ -255,23 +256,15 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     @Test
     public void deleteOrganization__admin() throws Exception {
 
-        UCSBOrganization org1 = UCSBOrganization.builder()
-            .orgCode("org1")
-            .orgTranslationShort("org1")
-            .orgTranslation("org1")
-            .inactive(true)
-            .build();
-
-        when(ucsbOrganizationRepository.findById(eq("org1")))
-            .thenReturn(Optional.of(org1));
+        when(ucsbOrganizationRepository.deleteRowByOrgCode(eq("org1"))).thenReturn(1);
 
         MvcResult response = mockMvc.perform(
             delete("/api/ucsborganization?id=org1")
             .with(csrf()))
             .andExpect(status().isOk()).andReturn();
         
-        verify(ucsbOrganizationRepository, times(1)).findById("org1");
-        verify(ucsbOrganizationRepository, times(1)).delete(any());
+        verify(ucsbOrganizationRepository, times(1)).deleteRowByOrgCode("org1");
+        verify(ucsbOrganizationRepository, never()).findById(any());
 
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBOrganization with id org1 deleted", json.get("message"));
@@ -280,19 +273,218 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     @WithMockUser(roles = { "ADMIN", "USER" })
     @Test
     public void deleteOrganization__admin__not_found() throws Exception {
-        when(ucsbOrganizationRepository.findById(eq("org1")))
-            .thenReturn(Optional.empty());
+        when(ucsbOrganizationRepository.deleteRowByOrgCode(eq("org1"))).thenReturn(0);
         
         MvcResult response = mockMvc.perform(
             delete("/api/ucsborganization?id=org1")
             .with(csrf()))
             .andExpect(status().isNotFound()).andReturn();
         
-        verify(ucsbOrganizationRepository, times(1)).findById("org1");
+        verify(ucsbOrganizationRepository, times(1)).deleteRowByOrgCode("org1");
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBOrganization with id org1 not found", json.get("message"));
     }
 
-    
-}
+    // Tests for GET /api/ucsborganization/paged
+
+    @Test
+    public void logged_out_users_cannot_get_paged() throws Exception {
+        mockMvc.perform(get("/api/ucsborganization/paged"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_full_page_with_next_cursor() throws Exception {
+
+        // arrange
+        UCSBOrganization first = UCSBOrganization.builder().orgCode("carrillo").build();
+        UCSBOrganization second = UCSBOrganization.builder().orgCode("de-la-guerra").build();
+        List<UCSBOrganization> expected = List.of(first, second);
+
+        when(ucsbOrganizationRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq("anacapa"), eq(PageRequest.of(0, 2)))).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganization/paged?cursor=anacapa&size=2"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(1)).findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq("anacapa"), eq(PageRequest.of(0, 2)));
+        String expectedJson = mapper.writeValueAsString(
+                KeysetPage.<UCSBOrganization>builder().content(expected).nextCursor("de-la-guerra").build());
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_last_page_without_next_cursor_and_size_is_capped() throws Exception {
+
+        // arrange
+        UCSBOrganization only = UCSBOrganization.builder().orgCode("portola").build();
+        List<UCSBOrganization> expected = List.of(only);
+        PageRequest capped = PageRequest.of(0, ApiController.MAX_PAGE_SIZE);
+
+        when(ucsbOrganizationRepository.findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(""), eq(capped))).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganization/paged?size=100000"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(1)).findByOrgCodeGreaterThanOrderByOrgCodeAsc(eq(""), eq(capped));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(null, json.get("nextCursor"));
+        assertEquals(1, ((List<?>) json.get("content")).size());
+    }
+
+    // Tests for /api/ucsborganization/bulk
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_post() throws Exception {
+        mockMvc.perform(post("/api/ucsborganization/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_post_and_existing_keys_are_reported_as_duplicates() throws Exception {
+        // arrange
+        UCSBOrganization first = UCSBOrganization.builder().orgCode("carrillo").build();
+        UCSBOrganization second = UCSBOrganization.builder().orgCode("portola").build();
+        String requestBody = mapper.writeValueAsString(List.of(first, second));
+
+        when(ucsbOrganizationRepository.findAllById(List.of("carrillo", "portola"))).thenReturn(List.of(first));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/ucsborganization/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding("utf-8")
+                        .content(requestBody)
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
 
+        // assert
+        verify(ucsbOrganizationRepository, times(1)).saveAll(List.of(second));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("succeeded"));
+        assertEquals(1, json.get("failed"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_update_with_ndjson_and_missing_rows_are_reported() throws Exception {
+        // arrange
+        UCSBOrganization first = UCSBOrganization.builder().orgCode("carrillo").build();
+        UCSBOrganization second = UCSBOrganization.builder().orgCode("portola").build();
+        String requestBody = mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n";
+
+        when(ucsbOrganizationRepository.findAllById(List.of("carrillo", "portola"))).thenReturn(List.of(first));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                put("/api/ucsborganization/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .characterEncoding("utf-8")
+                        .content(requestBody)
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(1)).saveAll(List.of(first));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("succeeded"));
+        assertEquals(1, json.get("failed"));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) json.get("items");
+        assertEquals("updated", items.get(0).get("status"));
+        assertEquals("not found", items.get(1).get("status"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_delete_and_missing_rows_are_reported() throws Exception {
+        // arrange
+        UCSBOrganization first = UCSBOrganization.builder().orgCode("carrillo").build();
+
+        when(ucsbOrganizationRepository.findAllById(List.of("carrillo", "portola"))).thenReturn(List.of(first));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                delete("/api/ucsborganization/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding("utf-8")
+                        .content("[\"carrillo\",\"portola\"]")
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, times(1)).deleteAll(List.of(first));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("succeeded"));
+        assertEquals(1, json.get("failed"));
+    }
+
+    // Tests for conditional GET on /api/ucsborganization/all
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void all_sends_etag_and_cache_control() throws Exception {
+        // arrange
+        when(ucsbOrganizationRepository.findAll()).thenReturn(new ArrayList<>());
+        String etag = tableVersionService.etag(UCSBOrganizationController.TABLE);
+
+        // act and assert
+        mockMvc.perform(get("/api/ucsborganization/all"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", etag))
+                        .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void all_returns_304_without_reading_the_table_when_etag_matches() throws Exception {
+        // arrange
+        String etag = tableVersionService.etag(UCSBOrganizationController.TABLE);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/ucsborganization/all").header("If-None-Match", etag))
+                        .andExpect(status().isNotModified()).andReturn();
+
+        // assert
+        verify(ucsbOrganizationRepository, never()).findAll();
+        assertEquals("", response.getResponse().getContentAsString());
+        assertEquals(etag, response.getResponse().getHeader("ETag"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void writes_change_the_etag() throws Exception {
+        // arrange
+        String before = tableVersionService.etag(UCSBOrganizationController.TABLE);
+
+        // act
+        mockMvc.perform(delete("/api/ucsborganization/bulk").contentType(MediaType.APPLICATION_JSON).content("[]").with(csrf()))
+                        .andExpect(status().isOk());
+
+        // assert
+        assertNotEquals(before, tableVersionService.etag(UCSBOrganizationController.TABLE));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_by_id_returns_304_for_a_matching_etag_only_when_the_row_exists() throws Exception {
+        // arrange
+        UCSBOrganization row = UCSBOrganization.builder().orgCode("ZPR").orgTranslationShort("ZETA PHI RHO").orgTranslation("ZETA PHI RHO").build();
+        when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.of(row));
+        when(ucsbOrganizationRepository.findById(eq("XYZ"))).thenReturn(Optional.empty());
+        String etag = tableVersionService.etag(UCSBOrganizationController.TABLE);
+
+        // act and assert
+        mockMvc.perform(get("/api/ucsborganization?id=ZPR").header("If-None-Match", etag))
+                        .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/ucsborganization?id=XYZ").header("If-None-Match", etag))
+                        .andExpect(status().isNotFound());
+    }
+}
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityStreamingService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
 import org.junit.jupiter.api.Test;
@@ -23,7 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 @WebMvcTest(controllers = UsersController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, EntityStreamingService.class })
 public class UsersControllerTests extends ControllerTestCase {
 
   @MockBean
@@ -55,7 +56,7 @@ public class UsersControllerTests extends ControllerTestCase {
     ArrayList<User> expectedUsers = new ArrayList<>();
     expectedUsers.addAll(Arrays.asList(u1, u2, u));
 
-    when(userRepository.findAll()).thenReturn(expectedUsers);
+    when(userRepository.streamAllBy()).thenReturn(expectedUsers.stream());
     String expectedJson = mapper.writeValueAsString(expectedUsers);
     
     // act
@@ -65,9 +66,10 @@ public class UsersControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(userRepository, times(1)).findAll();
+    verify(userRepository, times(1)).streamAllBy();
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+    assertEquals("application/json", response.getResponse().getContentType());
 
   }
 }
@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.servlet.DispatcherType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import edu.ucsb.cs156.example.controllers.FrontendProxyController;
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestMetricsInterceptorTests {
+
+  private RequestMetricsInterceptor interceptor;
+  private SimpleMeterRegistry meterRegistry;
+  private MockHttpServletRequest request;
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    interceptor = new RequestMetricsInterceptor();
+    interceptor.meterRegistry = meterRegistry;
+    interceptor.sampleRate = 1.0;
+    request = new MockHttpServletRequest("GET", "/api/ucsbdates/all");
+  }
+
+  private HandlerMethod datesHandler() throws Exception {
+    return new HandlerMethod(new UCSBDatesController(), UCSBDatesController.class.getMethod("allUCSBDates"));
+  }
+
+  @Test
+  void records_handler_latency() throws Exception {
+    HandlerMethod handler = datesHandler();
+
+    assertTrue(interceptor.preHandle(request, response, handler));
+    assertNotNull(request.getAttribute(RequestMetricsInterceptor.START_ATTRIBUTE));
+    interceptor.afterCompletion(request, response, handler, null);
+
+    Timer timer = meterRegistry.get(RequestMetricsInterceptor.TIMER_NAME)
+        .tag("controller", "UCSBDatesController")
+        .tag("method", "allUCSBDates")
+        .timer();
+    assertEquals(1, timer.count());
+  }
+
+  @Test
+  void an_async_handler_is_timed_from_its_first_dispatch_to_its_last() throws Exception {
+    HandlerMethod handler = datesHandler();
+
+    assertTrue(interceptor.preHandle(request, response, handler));
+    Object start = request.getAttribute(RequestMetricsInterceptor.START_ATTRIBUTE);
+    interceptor.afterConcurrentHandlingStarted(request, response, handler);
+    request.setDispatcherType(DispatcherType.ASYNC);
+    assertTrue(interceptor.preHandle(request, response, handler));
+    assertSame(start, request.getAttribute(RequestMetricsInterceptor.START_ATTRIBUTE));
+    interceptor.afterCompletion(request, response, handler, null);
+
+    assertEquals(1, meterRegistry.get(RequestMetricsInterceptor.TIMER_NAME).timer().count());
+  }
+
+  @Test
+  void an_async_dispatch_without_a_start_time_starts_the_timer() throws Exception {
+    HandlerMethod handler = datesHandler();
+    request.setDispatcherType(DispatcherType.ASYNC);
+
+    assertTrue(interceptor.preHandle(request, response, handler));
+    assertNotNull(request.getAttribute(RequestMetricsInterceptor.START_ATTRIBUTE));
+  }
+
+  @Test
+  void reuses_the_timer_for_the_same_handler_method() throws Exception {
+    assertSame(interceptor.timerFor(datesHandler()), interceptor.timerFor(datesHandler()));
+  }
+
+  @Test
+  void still_records_when_sample_rate_is_zero() throws Exception {
+    interceptor.sampleRate = 0.0;
+    HandlerMethod handler = datesHandler();
+
+    assertTrue(interceptor.preHandle(request, response, handler));
+    interceptor.afterCompletion(request, response, handler, null);
+
+    assertEquals(1, meterRegistry.get(RequestMetricsInterceptor.TIMER_NAME).timer().count());
+  }
+
+  @Test
+  void ignores_handlers_that_are_not_controller_methods() throws Exception {
+    assertTrue(interceptor.preHandle(request, response, new Object()));
+    assertNull(request.getAttribute(RequestMetricsInterceptor.START_ATTRIBUTE));
+    interceptor.afterCompletion(request, response, new Object(), null);
+    assertTrue(meterRegistry.getMeters().isEmpty());
+  }
+
+  @Test
+  void ignores_stoplisted_controllers() throws Exception {
+    HandlerMethod proxy = new HandlerMethod(new FrontendProxyController(),
+        FrontendProxyController.class.getMethod("proxy", ProxyExchange.class));
+
+    assertTrue(interceptor.preHandle(request, response, proxy));
+    assertNull(request.getAttribute(RequestMetricsInterceptor.START_ATTRIBUTE));
+    interceptor.afterCompletion(request, response, proxy, null);
+    assertTrue(meterRegistry.getMeters().isEmpty());
+  }
+}
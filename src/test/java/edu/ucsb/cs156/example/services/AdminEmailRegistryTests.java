@@ -0,0 +1,183 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.scheduling.config.FixedRateTask;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.config.SchedulingConfig;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { AdminEmailRegistry.class, CurrentUserCache.class, SchedulingConfig.class })
+@TestPropertySource(properties = {
+    "app.admin.emails=phtcon@ucsb.edu,admin2@ucsb.edu",
+    "app.adminRegistry.refreshMillis=3600000"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AdminEmailRegistryTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  AdminEmailRegistry adminEmailRegistry;
+
+  @Autowired
+  CurrentUserCache currentUserCache;
+
+  @Autowired
+  ScheduledAnnotationBeanPostProcessor scheduler;
+
+  @Test
+  void test_configured_admins_do_not_touch_the_database() {
+    assertTrue(adminEmailRegistry.isConfiguredAdmin("phtcon@ucsb.edu"));
+    assertTrue(adminEmailRegistry.isAdmin("admin2@ucsb.edu"));
+    assertFalse(adminEmailRegistry.isConfiguredAdmin("student@ucsb.edu"));
+    verify(userRepository, times(0)).findAllByAdminTrue();
+  }
+
+  @Test
+  void test_database_admins_are_loaded_once() {
+    User dbAdmin = User.builder().email("ta@ucsb.edu").admin(true).build();
+    when(userRepository.findAllByAdminTrue()).thenReturn(List.of(dbAdmin));
+
+    assertTrue(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+    assertFalse(adminEmailRegistry.isAdmin("student@ucsb.edu"));
+    assertFalse(adminEmailRegistry.isConfiguredAdmin("ta@ucsb.edu"));
+
+    verify(userRepository, times(1)).findAllByAdminTrue();
+  }
+
+  @Test
+  void test_setAdmin_updates_the_cached_view() {
+    when(userRepository.findAllByAdminTrue()).thenReturn(List.of());
+
+    assertFalse(adminEmailRegistry.isAdmin("student@ucsb.edu"));
+
+    adminEmailRegistry.setAdmin("student@ucsb.edu", true);
+    assertTrue(adminEmailRegistry.isAdmin("student@ucsb.edu"));
+
+    adminEmailRegistry.setAdmin("student@ucsb.edu", false);
+    assertFalse(adminEmailRegistry.isAdmin("student@ucsb.edu"));
+
+    verify(userRepository, times(1)).findAllByAdminTrue();
+  }
+
+  @Test
+  void test_refresh_reloads_from_the_database() {
+    User dbAdmin = User.builder().email("ta@ucsb.edu").admin(true).build();
+    when(userRepository.findAllByAdminTrue()).thenReturn(List.of()).thenReturn(List.of(dbAdmin));
+
+    assertFalse(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+    adminEmailRegistry.refresh();
+    assertTrue(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+  }
+
+  @Test
+  void test_a_grant_or_revoke_made_in_the_database_is_seen_after_the_next_refresh() {
+    User ta = User.builder().email("ta@ucsb.edu").admin(true).build();
+    User grader = User.builder().email("grader@ucsb.edu").admin(true).build();
+    when(userRepository.findAllByAdminTrue()).thenReturn(List.of(ta)).thenReturn(List.of(grader));
+
+    assertTrue(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+    assertFalse(adminEmailRegistry.isAdmin("grader@ucsb.edu"));
+
+    // what the scheduler runs every app.adminRegistry.refreshMillis
+    adminEmailRegistry.refresh();
+
+    assertFalse(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+    assertTrue(adminEmailRegistry.isAdmin("grader@ucsb.edu"));
+  }
+
+  @Test
+  void test_a_grant_or_revoke_made_while_a_refresh_is_reading_is_not_lost() {
+    User ta = User.builder().email("ta@ucsb.edu").admin(true).build();
+    when(userRepository.findAllByAdminTrue()).thenReturn(List.of(ta)).thenAnswer(invocation -> {
+      // committed after the query's snapshot was taken
+      adminEmailRegistry.setAdmin("ta@ucsb.edu", false);
+      adminEmailRegistry.setAdmin("grader@ucsb.edu", true);
+      return List.of(ta);
+    });
+    assertTrue(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+
+    adminEmailRegistry.refresh();
+
+    assertFalse(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+    assertTrue(adminEmailRegistry.isAdmin("grader@ucsb.edu"));
+
+    adminEmailRegistry.setAdmin("ta@ucsb.edu", true);
+    assertTrue(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+  }
+
+  @Test
+  void test_setAdmin_before_the_first_load_leaves_it_to_the_load() {
+    User student = User.builder().email("student@ucsb.edu").admin(true).build();
+    when(userRepository.findAllByAdminTrue()).thenReturn(List.of(student));
+
+    adminEmailRegistry.setAdmin("student@ucsb.edu", true);
+    verify(userRepository, times(0)).findAllByAdminTrue();
+
+    assertTrue(adminEmailRegistry.isAdmin("student@ucsb.edu"));
+  }
+
+  @Test
+  void test_users_whose_admin_flag_changes_are_evicted_from_the_current_user_cache() {
+    User ta = User.builder().email("ta@ucsb.edu").admin(true).build();
+    User grader = User.builder().email("grader@ucsb.edu").admin(false).build();
+    User student = User.builder().email("student@ucsb.edu").admin(false).build();
+    User instructor = User.builder().email("instructor@ucsb.edu").admin(true).build();
+    when(userRepository.findAllByAdminTrue()).thenReturn(List.of(ta, instructor))
+        .thenReturn(List.of(grader, instructor));
+    assertTrue(adminEmailRegistry.isAdmin("ta@ucsb.edu"));
+    currentUserCache.put("sub-ta", ta);
+    currentUserCache.put("sub-grader", grader);
+    currentUserCache.put("sub-student", student);
+    currentUserCache.put("sub-instructor", instructor);
+
+    adminEmailRegistry.refresh();
+
+    assertNull(currentUserCache.get("sub-ta"));
+    assertNull(currentUserCache.get("sub-grader"));
+    assertEquals(student, currentUserCache.get("sub-student"));
+    assertEquals(instructor, currentUserCache.get("sub-instructor"));
+
+    adminEmailRegistry.setAdmin("student@ucsb.edu", true);
+
+    assertNull(currentUserCache.get("sub-student"));
+    assertEquals(instructor, currentUserCache.get("sub-instructor"));
+  }
+
+  @Test
+  void test_refresh_is_scheduled_every_refreshMillis() {
+    List<FixedRateTask> refreshes = scheduler.getScheduledTasks().stream()
+        .map(scheduled -> scheduled.getTask())
+        .filter(task -> task instanceof FixedRateTask
+            && ((ScheduledMethodRunnable) task.getRunnable()).getMethod().getName().equals("refresh"))
+        .map(task -> (FixedRateTask) task)
+        .collect(Collectors.toList());
+
+    assertEquals(1, refreshes.size());
+    assertEquals(3600000, refreshes.get(0).getInterval());
+    assertEquals(3600000, refreshes.get(0).getInitialDelay());
+  }
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Articles;
+
+import java.util.List;
+
+// Articles and queries that both search services must agree on, whatever
+// order they rank the hits in.  The text is chosen to trip up a tokenizer
+// that is not splitting on every character other than a letter or digit:
+// emails, URLs, hyphens, underscores, dotted version numbers.
+
+final class ArticleSearchCases {
+
+  record Case(String query, List<Long> ids) {
+  }
+
+  static final List<Articles> ARTICLES = List.of(
+      article(1, "Spring Boot testing", "Mocking repositories with Mockito", "cgaucho@ucsb.edu"),
+      article(2, "React hooks", "State in function components, with a Spring backend", "ldelplaya@ucsb.edu"),
+      article(3, "Gauss and the normal curve", null, null),
+      article(4, "Server-side rendering", "See https://spring.io/guides/gs/rest-service for the_example",
+          "pconrad.cis@gmail.com"),
+      article(5, "HTTP/2 and TLS1.3", "Version 2.6.3 of e-mail.tool", null));
+
+  static final List<Case> CASES = List.of(
+      new Case("ucsb", List.of(1L, 2L)),
+      new Case("ucsb cgaucho", List.of(1L)),
+      new Case("pconrad cis gmail", List.of(4L)),
+      new Case("spring", List.of(1L, 2L, 4L)),
+      new Case("io guides gs", List.of(4L)),
+      new Case("rest service", List.of(4L)),
+      new Case("server side", List.of(4L)),
+      new Case("the example", List.of(4L)),
+      new Case("http", List.of(5L)),
+      new Case("http*", List.of(4L, 5L)),
+      new Case("tls1 3", List.of(5L)),
+      new Case("2 6", List.of(5L)),
+      new Case("e mail tool", List.of(5L)),
+      new Case("gau*", List.of(3L)),
+      new Case("ser*", List.of(4L)),
+      new Case("gaucho", List.of()));
+
+  private ArticleSearchCases() {
+  }
+
+  private static Articles article(long id, String title, String explanation, String email) {
+    return Articles.builder().id(id).title(title).explanation(explanation).email(email).build();
+  }
+}
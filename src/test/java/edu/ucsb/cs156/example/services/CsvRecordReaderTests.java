@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ucsb.cs156.example.services.CsvRecordReader.MalformedCsvException;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvRecordReaderTests {
+
+  @Test
+  void reads_plain_and_quoted_fields() throws Exception {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("a,b\r\n\"x, y\",\"say \"\"hi\"\"\"\n"));
+
+    assertEquals(List.of("a", "b"), csv.next());
+    assertEquals(1, csv.recordLine());
+    assertEquals(List.of("x, y", "say \"hi\""), csv.next());
+    assertEquals(2, csv.recordLine());
+    assertNull(csv.next());
+  }
+
+  @Test
+  void quoted_fields_may_span_lines() throws Exception {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("\"one\ntwo\",3\nnext,\"\""));
+
+    assertEquals(List.of("one\ntwo", "3"), csv.next());
+    assertEquals(1, csv.recordLine());
+    assertEquals(List.of("next", ""), csv.next());
+    assertEquals(3, csv.recordLine());
+    assertNull(csv.next());
+  }
+
+  @Test
+  void empty_lines_and_fields_are_kept() throws Exception {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("\n,,\n"));
+
+    assertEquals(List.of(""), csv.next());
+    assertEquals(List.of("", "", ""), csv.next());
+    assertNull(csv.next());
+  }
+
+  @Test
+  void a_quote_inside_an_unquoted_field_is_literal() throws Exception {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("5\" screen"));
+
+    assertEquals(List.of("5\" screen"), csv.next());
+  }
+
+  @Test
+  void an_unterminated_quote_is_an_error_at_the_line_it_opened_on() throws Exception {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("a,b\nc,\"open\nstill open"));
+
+    assertEquals(List.of("a", "b"), csv.next());
+    MalformedCsvException e = assertThrows(MalformedCsvException.class, csv::next);
+    assertEquals(2, e.line());
+    assertEquals("quoted field is never closed", e.reason());
+    assertEquals("line 2: quoted field is never closed", e.getMessage());
+  }
+
+  @Test
+  void a_field_longer_than_the_limit_is_an_error() throws Exception {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("abc,\"de\"\n\"fgh\"\n\n\nijkl"), 3);
+
+    assertEquals(List.of("abc", "de"), csv.next());
+    assertEquals(List.of("fgh"), csv.next());
+    assertEquals(List.of(""), csv.next());
+    assertEquals(List.of(""), csv.next());
+    MalformedCsvException e = assertThrows(MalformedCsvException.class, csv::next);
+    assertEquals(5, e.line());
+    assertEquals("field is longer than 3 characters", e.reason());
+  }
+
+  @Test
+  void a_quoted_field_longer_than_the_limit_is_an_error() throws Exception {
+    CsvRecordReader csv = new CsvRecordReader(new StringReader("\"abcd\""), 3);
+
+    assertThrows(MalformedCsvException.class, csv::next);
+    assertEquals(64 * 1024, CsvRecordReader.MAX_FIELD_LENGTH);
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.example.entities.User;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = CurrentUserCache.class)
+@TestPropertySource(properties = {
+    "app.currentUserCache.ttlSeconds=60",
+    "app.currentUserCache.maxEntries=2"
+})
+class CurrentUserCacheTests {
+
+  @Autowired
+  CurrentUserCache springCache;
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private final CurrentUserCache currentUserCache = new CurrentUserCache(60, 2, nanos::get);
+
+  private final User alice = User.builder().id(1L).email("alice@ucsb.edu").googleSub("sub-alice").build();
+  private final User bob = User.builder().id(2L).email("bob@ucsb.edu").googleSub("sub-bob").build();
+  private final User carol = User.builder().id(3L).email("carol@ucsb.edu").googleSub("sub-carol").build();
+
+  private void advanceSeconds(long seconds) {
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+  }
+
+  @Test
+  void test_get_returns_cached_user_until_ttl_expires() {
+    currentUserCache.put("sub-alice", alice);
+    assertEquals(alice, currentUserCache.get("sub-alice"));
+
+    advanceSeconds(59);
+    assertEquals(alice, currentUserCache.get("sub-alice"));
+
+    advanceSeconds(1);
+    assertNull(currentUserCache.get("sub-alice"));
+    assertEquals(0, currentUserCache.size());
+  }
+
+  @Test
+  void test_null_sub_is_never_cached() {
+    currentUserCache.put(null, alice);
+    assertEquals(0, currentUserCache.size());
+    assertNull(currentUserCache.get(null));
+  }
+
+  @Test
+  void test_get_unknown_sub_returns_null() {
+    assertNull(currentUserCache.get("sub-nobody"));
+  }
+
+  @Test
+  void test_evict_and_evictByEmail() {
+    currentUserCache.put("sub-alice", alice);
+    currentUserCache.put("sub-bob", bob);
+
+    currentUserCache.evict("sub-alice");
+    assertNull(currentUserCache.get("sub-alice"));
+    assertEquals(bob, currentUserCache.get("sub-bob"));
+
+    currentUserCache.evictByEmail("bob@ucsb.edu");
+    assertNull(currentUserCache.get("sub-bob"));
+  }
+
+  @Test
+  void test_full_cache_evicts_single_entries_instead_of_clearing() {
+    currentUserCache.put("sub-alice", alice);
+    currentUserCache.put("sub-bob", bob);
+    currentUserCache.put("sub-carol", carol);
+
+    assertEquals(2, currentUserCache.size());
+  }
+
+  @Test
+  void test_evictAll() {
+    currentUserCache.put("sub-alice", alice);
+
+    currentUserCache.evictAll();
+
+    assertEquals(0, currentUserCache.size());
+  }
+
+  @Test
+  void test_spring_bean_uses_the_configured_limits() {
+    springCache.evictAll();
+    springCache.put("sub-alice", alice);
+    springCache.put("sub-bob", bob);
+    springCache.put("sub-carol", carol);
+
+    assertEquals(2, springCache.size());
+  }
+}
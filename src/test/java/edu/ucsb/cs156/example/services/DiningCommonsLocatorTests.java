@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DiningCommonsLocatorTests {
+
+  private final DiningCommonsLocator locator = new DiningCommonsLocator();
+
+  private final UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo")
+      .latitude(34.409953).longitude(-119.85277).build();
+  private final UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega")
+      .latitude(34.410987).longitude(-119.84709).build();
+  private final UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola")
+      .latitude(34.417723).longitude(-119.867427).build();
+  private final UCSBDiningCommons noLatitude = UCSBDiningCommons.builder().code("nolat").longitude(-119.85).build();
+  private final UCSBDiningCommons noLongitude = UCSBDiningCommons.builder().code("nolon").latitude(34.41).build();
+
+  @BeforeEach
+  void setUp() {
+    locator.ucsbDiningCommonsRepository = mock(UCSBDiningCommonsRepository.class);
+    when(locator.ucsbDiningCommonsRepository.findAll())
+        .thenReturn(List.of(carrillo, ortega, portola, noLatitude, noLongitude));
+  }
+
+  private List<String> codes(List<NearbyDiningCommons> nearest) {
+    return nearest.stream().map(n -> n.getCommons().getCode()).toList();
+  }
+
+  private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double a = Math.pow(Math.sin(dLat / 2), 2)
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+    return 2 * DiningCommonsLocator.EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+  }
+
+  @Test
+  void nearest_are_ordered_by_distance_and_skip_commons_without_coordinates() {
+    // Storke Tower
+    List<NearbyDiningCommons> nearest = locator.nearest(34.412612, -119.848574, 10);
+
+    assertEquals(List.of("ortega", "carrillo", "portola"), codes(nearest));
+    assertEquals(haversine(34.412612, -119.848574, 34.410987, -119.84709), nearest.get(0).getDistanceMeters(), 1e-6);
+  }
+
+  @Test
+  void distance_is_the_great_circle_distance() {
+    // one degree of latitude
+    double[] a = DiningCommonsLocator.unitVector(0, 0);
+    double[] b = DiningCommonsLocator.unitVector(1, 0);
+    double chordSquared = Math.pow(a[0] - b[0], 2) + Math.pow(a[1] - b[1], 2) + Math.pow(a[2] - b[2], 2);
+
+    assertEquals(Math.PI / 180 * DiningCommonsLocator.EARTH_RADIUS_METERS, DiningCommonsLocator.meters(chordSquared), 1e-6);
+    assertEquals(Math.PI * DiningCommonsLocator.EARTH_RADIUS_METERS, DiningCommonsLocator.meters(4.0000001), 1e-6);
+  }
+
+  @Test
+  void the_index_is_rebuilt_only_after_a_write() {
+    locator.nearest(34.41, -119.85, 1);
+    locator.nearest(34.41, -119.85, 1);
+    verify(locator.ucsbDiningCommonsRepository, times(1)).findAll();
+
+    when(locator.ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(portola));
+    locator.invalidate();
+
+    assertEquals(List.of("portola"), codes(locator.nearest(34.41, -119.85, 1)));
+    verify(locator.ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+}
@@ -0,0 +1,130 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.ExportFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EntityStreamingServiceTests {
+
+  private final EntityStreamingService service = new EntityStreamingService();
+  private int flushes;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+    @Override
+    public void flush() {
+      flushes++;
+    }
+  };
+
+  private final UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+  private final UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+
+  @BeforeEach
+  void setUp() {
+    service.mapper = new ObjectMapper().findAndRegisterModules();
+    service.entityManager = mock(EntityManager.class);
+  }
+
+  private String written() {
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void json_array_detaches_every_row() throws Exception {
+    service.writeJsonArray(() -> Stream.of(ortega, carrillo), out);
+
+    assertEquals(service.mapper.writeValueAsString(List.of(ortega, carrillo)), written());
+    verify(service.entityManager).detach(ortega);
+    verify(service.entityManager).detach(carrillo);
+  }
+
+  @Test
+  void ndjson_is_one_document_per_line() throws Exception {
+    service.export(ExportFormat.NDJSON, UCSBDiningCommons.class, () -> Stream.of(ortega, carrillo), out);
+
+    assertEquals(service.mapper.writeValueAsString(ortega) + "\n" + service.mapper.writeValueAsString(carrillo) + "\n",
+        written());
+    verify(service.entityManager, times(2)).detach(any());
+  }
+
+  @Test
+  void csv_has_a_header_even_when_there_are_no_rows() throws Exception {
+    service.export(ExportFormat.CSV, UCSBDiningCommons.class, Stream::empty, out);
+
+    assertEquals("code,name,hasSackMeal,hasTakeOutMeal,hasDiningCam,latitude,longitude\r\n", written());
+  }
+
+  @Test
+  void csv_rows_follow_the_header() throws Exception {
+    service.writeCsv(UCSBDiningCommons.class, () -> Stream.of(ortega), out);
+
+    assertEquals("code,name,hasSackMeal,hasTakeOutMeal,hasDiningCam,latitude,longitude\r\n"
+        + "ortega,Ortega,false,false,false,,\r\n", written());
+    verify(service.entityManager).detach(ortega);
+  }
+
+  @Test
+  void output_is_flushed_every_few_hundred_rows() throws Exception {
+    int rows = EntityStreamingService.FLUSH_EVERY * 2 + 1;
+    service.writeNdjson(() -> IntStream.range(0, rows).mapToObj(i -> ortega), out);
+
+    // twice along the way, once when the generator is closed
+    assertEquals(3, flushes);
+  }
+
+  @Test
+  void csv_fields_are_quoted_only_when_needed() {
+    assertEquals("", EntityStreamingService.csvField(null));
+    assertEquals("plain", EntityStreamingService.csvField("plain"));
+    assertEquals("\"a,b\"", EntityStreamingService.csvField("a,b"));
+    assertEquals("\"say \"\"hi\"\"\"", EntityStreamingService.csvField("say \"hi\""));
+    assertEquals("\"two\nlines\"", EntityStreamingService.csvField("two\nlines"));
+    assertEquals("\"two\rlines\"", EntityStreamingService.csvField("two\rlines"));
+  }
+
+  @Test
+  void csv_text_that_a_spreadsheet_would_run_as_a_formula_is_guarded() throws Exception {
+    UCSBDiningCommons formula = UCSBDiningCommons.builder().code("@sum").name("=HYPERLINK(\"x\")")
+        .latitude(-34.5).longitude(-119.8).build();
+
+    service.writeCsv(UCSBDiningCommons.class, () -> Stream.of(formula), out);
+
+    assertEquals("code,name,hasSackMeal,hasTakeOutMeal,hasDiningCam,latitude,longitude\r\n"
+        + "'@sum,\"'=HYPERLINK(\"\"x\"\")\",false,false,false,-34.5,-119.8\r\n", written());
+  }
+
+  @Test
+  void the_formula_guard_is_undone_exactly() {
+    for (String text : List.of("=1+1", "+1", "-1", "@a", "\tx", "\rx", "'quoted", "''", "plain", "")) {
+      assertEquals(text, EntityStreamingService.unguardFormula(EntityStreamingService.guardFormula(text)));
+    }
+    assertEquals("'-1", EntityStreamingService.guardFormula("-1"));
+    assertEquals("plain", EntityStreamingService.guardFormula("plain"));
+  }
+
+  @Test
+  void without_an_entity_manager_rows_are_just_written() throws Exception {
+    service.entityManager = null;
+    service.writeNdjson(() -> Stream.of(ortega), out);
+
+    assertEquals(service.mapper.writeValueAsString(ortega) + "\n", written());
+  }
+}
@@ -0,0 +1,282 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class HelpRequestEventFeedTests {
+
+  // records what the feed sends instead of writing to a response
+  private static class RecordingEmitter extends SseEmitter {
+    private final StringBuilder sent = new StringBuilder();
+    private Runnable completion;
+    private boolean completed;
+    private boolean failing;
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (failing) {
+        throw new IOException("broken pipe");
+      }
+      builder.build().forEach(part -> sent.append(part.getData()));
+    }
+
+    @Override
+    public synchronized void onCompletion(Runnable callback) {
+      completion = callback;
+    }
+
+    @Override
+    public synchronized void complete() {
+      completed = true;
+    }
+  }
+
+  private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  private boolean newEmittersFail;
+
+  private final HelpRequestEventFeed feed = new HelpRequestEventFeed() {
+    @Override
+    SseEmitter newEmitter() {
+      RecordingEmitter emitter = new RecordingEmitter();
+      emitter.failing = newEmittersFail;
+      emitters.add(emitter);
+      return emitter;
+    }
+  };
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final HelpRequest helpRequest = HelpRequest.builder().id(7L).teamId("s22-5pm-3")
+      .requestTime(LocalDateTime.parse("2022-04-20T17:35")).build();
+
+  @BeforeEach
+  void setUp() {
+    feed.replayEvents = 3;
+    feed.subscriberBuffer = 2;
+    feed.mapper = new ObjectMapper().findAndRegisterModules();
+    feed.sender = tasks::add;
+    feed.bindTo(registry);
+  }
+
+  private void runSender() {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+
+  private RecordingEmitter subscribe(String lastEventId) {
+    feed.subscribe(lastEventId);
+    runSender();
+    return emitters.get(emitters.size() - 1);
+  }
+
+  private double subscribers() {
+    return registry.get(HelpRequestEventFeed.SUBSCRIBERS_GAUGE).gauge().value();
+  }
+
+  private String epoch() {
+    String sent = subscribe(null).sent.toString();
+    return sent.substring("id:".length(), sent.indexOf('-'));
+  }
+
+  @Test
+  void a_new_subscriber_gets_the_current_id_to_resume_from() {
+    RecordingEmitter emitter = subscribe(null);
+
+    assertTrue(emitter.sent.toString().matches("id:[0-9a-f]+-0\n\n"));
+    assertEquals(1, subscribers());
+  }
+
+  @Test
+  void changes_reach_every_subscriber_in_order() throws Exception {
+    feed.subscriberBuffer = 10;
+    String epoch = epoch();
+    RecordingEmitter first = emitters.get(0);
+    RecordingEmitter second = subscribe(null);
+
+    feed.created(helpRequest);
+    feed.updated(helpRequest);
+    feed.deleted(7);
+    feed.reset();
+    runSender();
+
+    String json = feed.mapper.writeValueAsString(helpRequest);
+    String expected = "id:" + epoch + "-1\nevent:created\ndata:" + json + "\n\n"
+        + "id:" + epoch + "-2\nevent:updated\ndata:" + json + "\n\n"
+        + "id:" + epoch + "-3\nevent:deleted\ndata:{\"id\":7}\n\n"
+        + "id:" + epoch + "-4\nevent:reset\ndata:{}\n\n";
+    assertEquals("id:" + epoch + "-0\n\n" + expected, first.sent.toString());
+    assertEquals(first.sent.toString(), second.sent.toString());
+    assertEquals(2, subscribers());
+  }
+
+  @Test
+  void bulk_writes_are_published_row_by_row_unless_they_would_overflow_a_subscriber() throws Exception {
+    String epoch = epoch();
+    RecordingEmitter emitter = emitters.get(0);
+
+    feed.createdAll(List.of(helpRequest, helpRequest));
+    runSender();
+    feed.updatedAll(List.of(helpRequest, helpRequest, helpRequest));
+    feed.deletedAll(List.of(7L));
+    runSender();
+
+    String json = feed.mapper.writeValueAsString(helpRequest);
+    String expected = "id:" + epoch + "-0\n\n"
+        + "id:" + epoch + "-1\nevent:created\ndata:" + json + "\n\n"
+        + "id:" + epoch + "-2\nevent:created\ndata:" + json + "\n\n"
+        + "id:" + epoch + "-3\nevent:reset\ndata:{}\n\n"
+        + "id:" + epoch + "-4\nevent:deleted\ndata:{\"id\":7}\n\n";
+    assertEquals(expected, emitter.sent.toString());
+    assertEquals(1, subscribers());
+  }
+
+  @Test
+  void events_queued_while_draining_are_sent_by_the_same_drain() throws Exception {
+    RecordingEmitter emitter = subscribe(null);
+
+    feed.deleted(1);
+    feed.deleted(2);
+
+    assertEquals(1, tasks.size());
+    runSender();
+    assertTrue(emitter.sent.toString().endsWith("-2\nevent:deleted\ndata:{\"id\":2}\n\n"));
+  }
+
+  @Test
+  void a_reconnecting_subscriber_gets_the_events_after_its_last_event_id() throws Exception {
+    String epoch = epoch();
+    feed.deleted(1);
+    feed.deleted(2);
+    feed.deleted(3);
+    feed.deleted(4);
+
+    // events 2, 3 and 4 are kept
+    RecordingEmitter resumed = subscribe(epoch + "-2");
+    RecordingEmitter oldest = subscribe(epoch + "-1");
+    RecordingEmitter current = subscribe(epoch + "-4");
+
+    assertEquals("id:" + epoch + "-3\nevent:deleted\ndata:{\"id\":3}\n\n"
+        + "id:" + epoch + "-4\nevent:deleted\ndata:{\"id\":4}\n\n", resumed.sent.toString());
+    assertTrue(oldest.sent.toString().startsWith("id:" + epoch + "-2\n"));
+    assertEquals("", current.sent.toString());
+  }
+
+  @Test
+  void unknown_last_event_ids_get_a_reset() throws Exception {
+    String epoch = epoch();
+    feed.deleted(1);
+    feed.deleted(2);
+    feed.deleted(3);
+    feed.deleted(4);
+    String reset = "id:" + epoch + "-4\nevent:reset\ndata:{}\n\n";
+
+    assertEquals(reset, subscribe(epoch + "-0").sent.toString());
+    assertEquals(reset, subscribe(epoch + "-5").sent.toString());
+    assertEquals(reset, subscribe(epoch + "-x").sent.toString());
+    assertEquals(reset, subscribe("0-3").sent.toString());
+  }
+
+  @Test
+  void heartbeats_go_to_every_subscriber() {
+    RecordingEmitter first = subscribe(null);
+    RecordingEmitter second = subscribe(null);
+
+    feed.heartbeat();
+    runSender();
+
+    assertTrue(first.sent.toString().endsWith("\n\n:heartbeat\n\n"));
+    assertTrue(second.sent.toString().endsWith("\n\n:heartbeat\n\n"));
+  }
+
+  @Test
+  void a_subscriber_that_falls_too_far_behind_is_disconnected() throws Exception {
+    RecordingEmitter slow = subscribe(null);
+
+    feed.deleted(1);
+    feed.deleted(2);
+    feed.deleted(3);
+    feed.deleted(4);
+    // completed by the sender, never by the publishing thread
+    assertFalse(slow.completed);
+    runSender();
+
+    assertTrue(slow.completed);
+    assertEquals("", slow.sent.toString().replaceFirst("id:[0-9a-f]+-0\n\n", ""));
+    assertEquals(0, subscribers());
+  }
+
+  @Test
+  void a_subscriber_whose_send_fails_is_removed() throws Exception {
+    RecordingEmitter broken = subscribe(null);
+    RecordingEmitter healthy = subscribe(null);
+    broken.failing = true;
+
+    feed.deleted(1);
+    runSender();
+    feed.deleted(2);
+    runSender();
+
+    assertEquals(1, subscribers());
+    assertFalse(broken.completed);
+    assertTrue(healthy.sent.toString().endsWith("data:{\"id\":2}\n\n"));
+  }
+
+  @Test
+  void a_subscriber_whose_replay_fails_is_not_kept() throws Exception {
+    String epoch = epoch();
+    feed.deleted(1);
+    feed.deleted(2);
+    runSender();
+    feed.sender = Runnable::run;
+    newEmittersFail = true;
+
+    RecordingEmitter broken = subscribe(epoch + "-0");
+
+    assertEquals("", broken.sent.toString());
+    assertEquals(1, subscribers());
+  }
+
+  @Test
+  void a_subscriber_the_sender_pool_cannot_take_is_disconnected_without_failing_the_publisher() throws Exception {
+    RecordingEmitter healthy = subscribe(null);
+    feed.sender = task -> {
+      throw new TaskRejectedException("full");
+    };
+
+    RecordingEmitter rejected = (RecordingEmitter) feed.subscribe(null);
+    feed.deleted(1);
+
+    assertTrue(rejected.completed);
+    assertTrue(healthy.completed);
+    assertEquals(0, subscribers());
+  }
+
+  @Test
+  void a_completed_stream_is_removed() {
+    RecordingEmitter emitter = subscribe(null);
+
+    emitter.completion.run();
+
+    assertEquals(0, subscribers());
+  }
+}
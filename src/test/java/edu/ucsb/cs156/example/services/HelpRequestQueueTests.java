@@ -0,0 +1,181 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestQueueView;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HelpRequestQueueTests {
+
+  private final HelpRequestQueue queue = new HelpRequestQueue();
+
+  private final HelpRequest early = request(1, "2022-04-20T17:35", false);
+  private final HelpRequest late = request(2, "2022-04-20T18:10", false);
+
+  private static HelpRequest request(long id, String requestTime, boolean solved) {
+    return HelpRequest.builder().id(id).teamId("team" + id)
+        .requestTime(requestTime == null ? null : LocalDateTime.parse(requestTime))
+        .solved(solved).build();
+  }
+
+  private static List<Long> ids(HelpRequestQueueView view) {
+    return view.getRequests().stream().map(HelpRequest::getId).toList();
+  }
+
+  @BeforeEach
+  void setUp() {
+    queue.helpRequestRepository = mock(HelpRequestRepository.class);
+    when(queue.helpRequestRepository.findAllBySolvedFalseOrderByRequestTimeAscIdAsc()).thenReturn(List.of(late, early));
+  }
+
+  @Test
+  void first_view_is_the_whole_queue_in_request_order_and_loads_once() {
+    HelpRequestQueueView first = queue.view(null);
+    HelpRequestQueueView second = queue.view("not a cursor");
+
+    assertTrue(first.getFull());
+    assertEquals(List.of(1L, 2L), ids(first));
+    assertEquals(List.of(), first.getRemoved());
+    assertEquals(first, second);
+    verify(queue.helpRequestRepository, times(1)).findAllBySolvedFalseOrderByRequestTimeAscIdAsc();
+  }
+
+  @Test
+  void polling_with_the_latest_cursor_returns_no_changes() {
+    String cursor = queue.view(null).getCursor();
+
+    HelpRequestQueueView view = queue.view(cursor);
+
+    assertFalse(view.getFull());
+    assertEquals(List.of(), view.getRequests());
+    assertEquals(List.of(), view.getRemoved());
+    assertEquals(cursor, view.getCursor());
+  }
+
+  @Test
+  void delta_has_the_requests_added_or_changed_since_the_cursor() {
+    String cursor = queue.view(null).getCursor();
+    HelpRequest added = request(3, null, false);
+    HelpRequest changed = request(2, "2022-04-20T17:00", false);
+
+    queue.saved(added);
+    queue.saved(changed);
+    HelpRequestQueueView view = queue.view(cursor);
+
+    assertFalse(view.getFull());
+    // requests without a time go last
+    assertEquals(List.of(changed, added), view.getRequests());
+    assertEquals(List.of(), view.getRemoved());
+    assertNotEquals(cursor, view.getCursor());
+    assertEquals(List.of(2L, 1L, 3L), ids(queue.view(null)));
+  }
+
+  @Test
+  void solved_and_deleted_requests_are_removed() {
+    String cursor = queue.view(null).getCursor();
+
+    queue.saved(request(1, "2022-04-20T17:35", true));
+    queue.removed(2);
+    HelpRequestQueueView view = queue.view(cursor);
+
+    assertEquals(List.of(), view.getRequests());
+    assertEquals(List.of(1L, 2L), view.getRemoved());
+    assertEquals(List.of(), queue.view(view.getCursor()).getRemoved());
+    assertEquals(List.of(), queue.view(null).getRequests());
+  }
+
+  @Test
+  void removing_a_request_that_is_not_open_changes_nothing() {
+    String cursor = queue.view(null).getCursor();
+
+    queue.saved(request(7, "2022-04-20T17:35", true));
+    queue.removed(8);
+
+    assertEquals(cursor, queue.view(cursor).getCursor());
+  }
+
+  @Test
+  void a_reopened_request_is_sent_only_as_a_request() {
+    String cursor = queue.view(null).getCursor();
+
+    queue.removed(1);
+    queue.removed(2);
+    queue.saved(early);
+    queue.removed(2);
+    HelpRequestQueueView view = queue.view(cursor);
+
+    assertEquals(List.of(1L), ids(view));
+    assertEquals(List.of(2L), view.getRemoved());
+  }
+
+  @Test
+  void the_mirror_holds_a_copy_of_the_saved_request() {
+    queue.view(null);
+    HelpRequest saved = request(5, "2022-04-20T19:00", false);
+
+    queue.saved(saved);
+    saved.setTeamId("changed later");
+
+    assertEquals("team5", queue.view(null).getRequests().get(2).getTeamId());
+  }
+
+  @Test
+  void writes_before_the_first_view_are_read_from_the_table() {
+    queue.saved(request(5, "2022-04-20T19:00", false));
+    queue.removed(1);
+
+    assertEquals(List.of(1L, 2L), ids(queue.view(null)));
+  }
+
+  @Test
+  void cursors_from_before_a_reload_or_another_instance_get_the_whole_queue() {
+    String cursor = queue.view(null).getCursor();
+    String otherInstance = "0-" + cursor.substring(cursor.indexOf('-') + 1);
+    String fromTheFuture = cursor.substring(0, cursor.indexOf('-') + 1) + "99";
+    String garbled = cursor.substring(0, cursor.indexOf('-') + 1) + "x";
+
+    assertTrue(queue.view(otherInstance).getFull());
+    assertTrue(queue.view(fromTheFuture).getFull());
+    assertTrue(queue.view(garbled).getFull());
+
+    queue.reload();
+    HelpRequestQueueView view = queue.view(cursor);
+
+    assertTrue(view.getFull());
+    assertEquals(List.of(1L, 2L), ids(view));
+    verify(queue.helpRequestRepository, times(2)).findAllBySolvedFalseOrderByRequestTimeAscIdAsc();
+  }
+
+  @Test
+  void cursors_older_than_the_remembered_removals_get_the_whole_queue() {
+    String cursor = queue.view(null).getCursor();
+    for (long id = 100; id < 100 + HelpRequestQueue.MAX_REMOVALS; id++) {
+      queue.saved(request(id, "2022-04-20T19:00", false));
+      queue.removed(id);
+    }
+    String recent = queue.view(null).getCursor();
+
+    // the first removal is still remembered
+    assertFalse(queue.view(cursor).getFull());
+
+    queue.saved(request(99, "2022-04-20T19:00", false));
+    queue.removed(99);
+
+    assertTrue(queue.view(cursor).getFull());
+    assertEquals(List.of(99L), queue.view(recent).getRemoved());
+  }
+}
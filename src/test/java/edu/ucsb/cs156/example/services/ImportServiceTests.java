@@ -0,0 +1,312 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.ExportFormat;
+import edu.ucsb.cs156.example.models.ImportRejection;
+import edu.ucsb.cs156.example.models.ImportReport;
+import edu.ucsb.cs156.example.testconfig.InMemoryTableVersionRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.repository.CrudRepository;
+
+class ImportServiceTests {
+
+  private static final String TABLE = "items";
+
+  private final ImportService service = new ImportService();
+
+  private final InMemoryTableVersionRepository tableVersions = new InMemoryTableVersionRepository();
+
+  @SuppressWarnings("unchecked")
+  private final CrudRepository<UCSBDiningCommonsMenuItem, Long> items = mock(CrudRepository.class);
+
+  private final Function<UCSBDiningCommonsMenuItem, String> anyItem = item -> null;
+
+  @BeforeEach
+  void setUp() {
+    service.mapper = new ObjectMapper();
+    service.batchSize = 2;
+    service.queueBatches = 1;
+    service.tableVersionService = new TableVersionService();
+    service.tableVersionService.tableVersionRepository = tableVersions;
+    service.importExecutor = new SimpleAsyncTaskExecutor("import-writer-");
+  }
+
+  private static InputStream upload(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static UCSBDiningCommonsMenuItem item(String name) {
+    return UCSBDiningCommonsMenuItem.builder().diningCommonsCode("ortega").name(name).station("Grill").build();
+  }
+
+  private String ndjson(List<UCSBDiningCommonsMenuItem> rows) {
+    return rows.stream().map(row -> {
+      try {
+        return service.mapper.writeValueAsString(row) + "\n";
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }).collect(Collectors.joining());
+  }
+
+  private static List<UCSBDiningCommonsMenuItem> items(int count) {
+    return IntStream.range(0, count).mapToObj(i -> item("item " + i)).toList();
+  }
+
+  @Test
+  void ndjson_rows_are_saved_in_batches() throws Exception {
+    List<UCSBDiningCommonsMenuItem> rows = items(5);
+
+    ImportReport report = service.importRows(ExportFormat.NDJSON, upload(ndjson(rows)),
+        UCSBDiningCommonsMenuItem.class, items, TABLE, anyItem);
+
+    verify(items).saveAll(rows.subList(0, 2));
+    verify(items).saveAll(rows.subList(2, 4));
+    verify(items).saveAll(rows.subList(4, 5));
+    assertEquals(5, report.getImported());
+    assertEquals(0, report.getRejected());
+    assertEquals(List.of(), report.getRejections());
+    assertTrue(report.getRowsPerSecond() > 0);
+    assertEquals(3, service.tableVersionService.version(TABLE));
+  }
+
+  @Test
+  void ndjson_rows_that_do_not_parse_or_fail_the_check_are_rejected_by_line() throws Exception {
+    String body = ndjson(List.of(item("ok"))) + "\n{not json\nnull\n" + ndjson(List.of(item("")));
+
+    ImportReport report = service.importRows(ExportFormat.NDJSON, upload(body), UCSBDiningCommonsMenuItem.class,
+        items, TABLE, item -> item.getName().isEmpty() ? "name is required" : null);
+
+    verify(items).saveAll(List.of(item("ok")));
+    assertEquals(1, report.getImported());
+    assertEquals(3, report.getRejected());
+    List<ImportRejection> rejections = report.getRejections();
+    assertEquals(3, rejections.get(0).getLine());
+    assertTrue(rejections.get(0).getReason().startsWith("invalid JSON: "));
+    assertEquals(new ImportRejection(4, "invalid JSON: expected an object"), rejections.get(1));
+    assertEquals(new ImportRejection(5, "name is required"), rejections.get(2));
+  }
+
+  @Test
+  void csv_rows_are_mapped_by_header() throws Exception {
+    String csv = "id,name,station,diningCommonsCode\r\n"
+        + "7,\"Chicken, \"\"Grilled\"\"\",Grill,ortega\r\n"
+        + "\r\n"
+        + ",Salad,Grill,ortega\r\n";
+
+    ImportReport report = service.importRows(ExportFormat.CSV, upload(csv), UCSBDiningCommonsMenuItem.class,
+        items, TABLE, anyItem);
+
+    UCSBDiningCommonsMenuItem first = item("Chicken, \"Grilled\"");
+    first.setId(7);
+    verify(items).saveAll(List.of(first, item("Salad")));
+    assertEquals(2, report.getImported());
+  }
+
+  @Test
+  void csv_rows_with_the_wrong_shape_or_bad_values_are_rejected() throws Exception {
+    @SuppressWarnings("unchecked")
+    CrudRepository<UCSBDiningCommons, String> commons = mock(CrudRepository.class);
+    String csv = "code,name,latitude\n"
+        + "ortega,Ortega\n"
+        + "carrillo,Carrillo,north\n"
+        + "portola\n";
+
+    ImportReport report = service.importRows(ExportFormat.CSV, upload(csv), UCSBDiningCommons.class,
+        commons, TABLE, row -> null);
+
+    assertEquals(0, report.getImported());
+    assertEquals(new ImportRejection(2, "expected 3 fields, found 2"), report.getRejections().get(0));
+    assertEquals(3, report.getRejections().get(1).getLine());
+    assertTrue(report.getRejections().get(1).getReason().startsWith("invalid row: "));
+    assertEquals(new ImportRejection(4, "expected 3 fields, found 1"), report.getRejections().get(2));
+  }
+
+  @Test
+  void csv_fields_guarded_against_formulas_are_read_back_as_exported() throws Exception {
+    String csv = "name,station,diningCommonsCode\n'=Salad,'-Grill,ortega\n";
+
+    service.importRows(ExportFormat.CSV, upload(csv), UCSBDiningCommonsMenuItem.class, items, TABLE, anyItem);
+
+    verify(items).saveAll(List.of(UCSBDiningCommonsMenuItem.builder().diningCommonsCode("ortega").name("=Salad")
+        .station("-Grill").build()));
+  }
+
+  @Test
+  void malformed_csv_stops_the_import_with_a_rejection_at_its_line() throws Exception {
+    String csv = "name,station,diningCommonsCode\n"
+        + "Salad,Grill,ortega\n"
+        + "Soup,\"Grill,ortega\n"
+        + "Pasta,Grill,ortega\n";
+
+    ImportReport report = service.importRows(ExportFormat.CSV, upload(csv), UCSBDiningCommonsMenuItem.class,
+        items, TABLE, anyItem);
+
+    verify(items).saveAll(List.of(item("Salad")));
+    assertEquals(1, report.getImported());
+    assertEquals(List.of(new ImportRejection(3, "malformed CSV: quoted field is never closed")),
+        report.getRejections());
+  }
+
+  @Test
+  void an_empty_csv_upload_imports_nothing() throws Exception {
+    ImportReport report = service.importRows(ExportFormat.CSV, upload(""), UCSBDiningCommonsMenuItem.class,
+        items, TABLE, anyItem);
+
+    verify(items, times(0)).saveAll(any());
+    assertEquals(0, report.getImported());
+  }
+
+  @Test
+  void a_failed_batch_is_retried_row_by_row() throws Exception {
+    List<UCSBDiningCommonsMenuItem> rows = items(2);
+    when(items.saveAll(any())).thenThrow(new DataIntegrityViolationException("batch",
+        new IllegalStateException("value too long")));
+    when(items.save(rows.get(1))).thenThrow(new DataIntegrityViolationException("row",
+        new IllegalStateException("value too long")));
+
+    ImportReport report = service.importRows(ExportFormat.NDJSON, upload(ndjson(rows)),
+        UCSBDiningCommonsMenuItem.class, items, TABLE, anyItem);
+
+    verify(items).save(rows.get(0));
+    assertEquals(1, report.getImported());
+    assertEquals(List.of(new ImportRejection(2, "not saved: value too long")), report.getRejections());
+  }
+
+  @Test
+  void the_parser_waits_for_a_slow_writer() throws Exception {
+    service.batchSize = 1;
+    List<UCSBDiningCommonsMenuItem> rows = items(4);
+    when(items.saveAll(any())).thenAnswer(invocation -> {
+      Thread.sleep(150);
+      return List.of();
+    });
+
+    ImportReport report = service.importRows(ExportFormat.NDJSON, upload(ndjson(rows)),
+        UCSBDiningCommonsMenuItem.class, items, TABLE, anyItem);
+
+    verify(items, times(4)).saveAll(any());
+    assertEquals(4, report.getImported());
+  }
+
+  @Test
+  void a_writer_that_dies_stops_the_import() throws Exception {
+    service.batchSize = 1;
+    when(items.saveAll(any())).thenThrow(new OutOfMemoryError("writer"));
+    AtomicInteger checked = new AtomicInteger();
+
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> service.importRows(ExportFormat.NDJSON, upload(ndjson(items(1000))), UCSBDiningCommonsMenuItem.class,
+            items, TABLE, item -> {
+              checked.incrementAndGet();
+              return null;
+            }));
+
+    assertInstanceOf(OutOfMemoryError.class, e.getCause());
+    assertTrue(checked.get() < 10, "the parser kept reading after the writer failed: " + checked.get());
+  }
+
+  @Test
+  void a_csv_import_also_stops_reading_when_the_writer_dies() throws Exception {
+    service.batchSize = 1;
+    when(items.saveAll(any())).thenThrow(new OutOfMemoryError("writer"));
+    AtomicInteger checked = new AtomicInteger();
+    String csv = "name,station,diningCommonsCode\n" + "Salad,Grill,ortega\n".repeat(1000);
+
+    assertThrows(IllegalStateException.class,
+        () -> service.importRows(ExportFormat.CSV, upload(csv), UCSBDiningCommonsMenuItem.class, items, TABLE,
+            item -> {
+              checked.incrementAndGet();
+              return null;
+            }));
+
+    assertTrue(checked.get() < 10, "the parser kept reading after the writer failed: " + checked.get());
+  }
+
+  @Test
+  void an_import_is_refused_when_the_writer_pool_is_full() throws Exception {
+    service.importExecutor = task -> {
+      throw new TaskRejectedException("full");
+    };
+
+    TaskRejectedException e = assertThrows(TaskRejectedException.class,
+        () -> service.importRows(ExportFormat.NDJSON, upload(""), UCSBDiningCommonsMenuItem.class, items, TABLE,
+            anyItem));
+
+    assertEquals("too many imports in progress, try again later", e.getMessage());
+  }
+
+  @Test
+  void keyed_rows_already_in_the_table_or_the_upload_are_rejected_with_one_lookup_per_batch() throws Exception {
+    @SuppressWarnings("unchecked")
+    CrudRepository<UCSBDiningCommons, String> commons = mock(CrudRepository.class);
+    UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+    UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+    UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola").name("Portola").build();
+    when(commons.findAllById(List.of("ortega", "carrillo"))).thenReturn(List.of(ortega));
+    when(commons.findAllById(List.of("carrillo", "portola"))).thenReturn(List.of(carrillo));
+    when(commons.findAllById(List.of("ortega"))).thenReturn(List.of(ortega));
+    String body = String.join("\n", service.mapper.writeValueAsString(ortega),
+        service.mapper.writeValueAsString(carrillo), service.mapper.writeValueAsString(carrillo),
+        service.mapper.writeValueAsString(portola), service.mapper.writeValueAsString(ortega));
+
+    ImportReport report = service.importRowsWithKeys(ExportFormat.NDJSON, upload(body), UCSBDiningCommons.class,
+        commons, TABLE, UCSBDiningCommons::getCode, row -> null);
+
+    verify(commons).saveAll(List.of(carrillo));
+    verify(commons).saveAll(List.of(portola));
+    verify(commons, times(2)).saveAll(any());
+    assertEquals(2, report.getImported());
+    assertEquals(List.of(new ImportRejection(1, "ortega already exists"), new ImportRejection(3, "carrillo already exists"),
+        new ImportRejection(5, "ortega already exists")), report.getRejections());
+  }
+
+  @Test
+  void an_interrupted_import_throws() throws Exception {
+    Thread.currentThread().interrupt();
+
+    assertThrows(InterruptedIOException.class,
+        () -> service.importRows(ExportFormat.NDJSON, upload(""), UCSBDiningCommonsMenuItem.class, items, TABLE, anyItem));
+
+    assertTrue(Thread.interrupted());
+  }
+
+  @Test
+  void only_the_first_rejections_are_listed() throws Exception {
+    String body = "null\n".repeat(ImportService.MAX_REPORTED_REJECTIONS + 50);
+
+    ImportReport report = service.importRows(ExportFormat.NDJSON, upload(body), UCSBDiningCommonsMenuItem.class,
+        items, TABLE, anyItem);
+
+    assertEquals(ImportService.MAX_REPORTED_REJECTIONS + 50, report.getRejected());
+    assertEquals(ImportService.MAX_REPORTED_REJECTIONS, report.getRejections().size());
+  }
+}
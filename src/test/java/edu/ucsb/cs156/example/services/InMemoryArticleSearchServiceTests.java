@@ -0,0 +1,201 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.models.ArticleSearchResults;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ArticleSearchCases.Case;
+import edu.ucsb.cs156.example.services.ArticleSearchService.QueryTerm;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+class InMemoryArticleSearchServiceTests {
+
+  private final InMemoryArticleSearchService service = new InMemoryArticleSearchService();
+
+  private static Articles article(long id, String title, String explanation, String email) {
+    return Articles.builder().id(id).title(title).explanation(explanation).email(email).build();
+  }
+
+  private List<Long> ids(String query) {
+    return ids(service.search(query, PageRequest.of(0, 10)));
+  }
+
+  private static List<Long> ids(ArticleSearchResults results) {
+    return results.getHits().stream().map(hit -> hit.getArticle().getId()).toList();
+  }
+
+  @BeforeEach
+  void setUp() {
+    service.articlesRepository = mock(ArticlesRepository.class);
+    when(service.articlesRepository.findAll()).thenReturn(List.of(
+        article(1, "Spring Boot testing", "Mocking repositories with Mockito", "cgaucho@ucsb.edu"),
+        article(2, "React hooks", "State in function components, with a Spring backend", "ldelplaya@ucsb.edu"),
+        article(3, "Gauss and the normal curve", null, null)));
+    service.rebuild();
+  }
+
+  @Test
+  void queries_are_split_into_lower_case_words_and_a_star_marks_a_prefix() {
+    assertEquals(List.of(new QueryTerm("e", false), new QueryTerm("mail", true), new QueryTerm("gaucho", false)),
+        ArticleSearchService.parse("  -E-mail*  Gaucho gaucho "));
+    assertEquals(List.of(), ArticleSearchService.words(null));
+  }
+
+  @Test
+  void every_word_of_the_query_must_match() {
+    assertEquals(List.of(1L, 2L), ids("spring"));
+    assertEquals(List.of(2L), ids("Spring hooks"));
+    assertEquals(List.of(), ids("spring gauss"));
+    assertEquals(List.of(1L), ids("ucsb cgaucho"));
+  }
+
+  @Test
+  void emails_urls_and_punctuated_words_are_split_into_letters_and_digits() {
+    when(service.articlesRepository.findAll()).thenReturn(ArticleSearchCases.ARTICLES);
+    service.rebuild();
+
+    for (Case searchCase : ArticleSearchCases.CASES) {
+      assertEquals(searchCase.ids(), ids(searchCase.query()).stream().sorted().toList(), searchCase.query());
+    }
+  }
+
+  @Test
+  void a_prefix_matches_every_word_it_starts() {
+    assertEquals(List.of(), ids("gau"));
+    assertEquals(List.of(3L), ids("gau*"));
+    assertEquals(List.of(1L), ids("cgau*"));
+    assertEquals(List.of(1L), ids("mock*"));
+  }
+
+  @Test
+  void an_empty_query_matches_nothing() {
+    ArticleSearchResults results = service.search(" *- ", PageRequest.of(0, 10));
+
+    assertEquals(0, results.getTotal());
+    assertEquals(List.of(), results.getHits());
+  }
+
+  @Test
+  void hits_are_scored_with_bm25() {
+    when(service.articlesRepository.findAll()).thenReturn(List.of(
+        article(1, null, "alpha beta", null),
+        article(2, null, "gamma", null)));
+    service.rebuild();
+
+    List<ArticleSearchHit> hits = service.search("alpha", PageRequest.of(0, 10)).getHits();
+
+    // idf = ln(1 + (2 - 1 + 0.5) / (1 + 0.5)); length 2 against an average of 1.5
+    double norm = 1.2 * (1 - 0.75 + 0.75 * 2 / 1.5);
+    assertEquals(Math.log(2) * 2.2 / (1 + norm), hits.get(0).getScore(), 1e-12);
+  }
+
+  @Test
+  void title_words_and_shorter_articles_rank_higher_and_ties_go_by_id() {
+    when(service.articlesRepository.findAll()).thenReturn(List.of(
+        article(1, null, "search engines and ranking functions", null),
+        article(2, null, "search", null),
+        article(3, "search", null, null),
+        article(4, null, "search", null)));
+    service.rebuild();
+
+    assertEquals(List.of(3L, 2L, 4L, 1L), ids("search"));
+  }
+
+  @Test
+  void pages_are_slices_of_the_ranking() {
+    when(service.articlesRepository.findAll()).thenReturn(List.of(
+        article(1, null, "word one two three four", null),
+        article(2, null, "word one two three", null),
+        article(3, null, "word one two", null),
+        article(4, null, "word one", null),
+        article(5, null, "word", null)));
+    service.rebuild();
+
+    ArticleSearchResults second = service.search("word", PageRequest.of(1, 2));
+    ArticleSearchResults last = service.search("word", PageRequest.of(2, 2));
+    ArticleSearchResults past = service.search("word", PageRequest.of(3, 2));
+
+    assertEquals(List.of(3L, 2L), ids(second));
+    assertEquals(5, second.getTotal());
+    assertEquals(1, second.getPage());
+    assertEquals(2, second.getSize());
+    assertEquals(List.of(1L), ids(last));
+    assertEquals(List.of(), ids(past));
+    assertEquals(5, past.getTotal());
+  }
+
+  @Test
+  void indexed_replaces_the_previous_version_of_an_article() {
+    Articles edited = article(2, "Vue", null, null);
+
+    service.indexed(edited);
+    edited.setTitle("changed later");
+
+    assertEquals(List.of(1L), ids("spring"));
+    assertEquals(List.of(2L), ids("vue"));
+    assertEquals(List.of(), ids("react"));
+    assertEquals(List.of(), ids("ldelplaya*"));
+    assertEquals("Vue", service.search("vue", PageRequest.of(0, 10)).getHits().get(0).getArticle().getTitle());
+  }
+
+  @Test
+  void indexed_adds_a_new_article() {
+    service.indexed(article(4, "New", null, null));
+
+    assertEquals(List.of(4L), ids("new"));
+  }
+
+  @Test
+  void removed_articles_are_no_longer_found() {
+    service.removed(3);
+    service.removed(99);
+
+    assertEquals(List.of(), ids("gau*"));
+    assertEquals(List.of(1L, 2L), ids("spring"));
+  }
+
+  @Test
+  void updates_made_while_a_rebuild_reads_the_table_are_not_lost() {
+    Articles edited = article(2, "Vue", null, null);
+    when(service.articlesRepository.findAll()).thenAnswer(invocation -> {
+      // read before these writes committed
+      List<Articles> before = List.of(article(1, "Spring", null, null), article(2, "React", null, null),
+          article(3, "Gauss", null, null));
+      service.indexed(edited);
+      service.removed(3);
+      service.indexed(article(4, "New", null, null));
+      return before;
+    });
+
+    service.rebuild();
+    edited.setTitle("changed later");
+
+    assertEquals(List.of(2L), ids("vue"));
+    assertEquals(List.of(), ids("react"));
+    assertEquals(List.of(), ids("gauss"));
+    assertEquals(List.of(4L), ids("new"));
+    assertEquals("Vue", service.search("vue", PageRequest.of(0, 10)).getHits().get(0).getArticle().getTitle());
+
+    service.removed(4);
+    assertEquals(List.of(), ids("new"));
+  }
+
+  @Test
+  void rebuild_starts_from_the_table() {
+    service.indexed(article(4, "Spring again", null, null));
+    when(service.articlesRepository.findAll()).thenReturn(List.of(article(5, "Spring", null, null)));
+
+    service.rebuild();
+
+    assertEquals(List.of(5L), ids("spring"));
+  }
+}
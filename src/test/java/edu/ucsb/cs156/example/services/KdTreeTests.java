@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class KdTreeTests {
+
+  private static double distanceSquared(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  @Test
+  void nearest_matches_a_brute_force_scan() {
+    Random random = new Random(156);
+    List<double[]> points = new ArrayList<>();
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      points.add(new double[] { random.nextDouble(), random.nextDouble(), random.nextDouble() });
+      ids.add(i);
+    }
+    KdTree<Integer> tree = new KdTree<>(ids, points);
+
+    for (int query = 0; query < 200; query++) {
+      double[] target = { random.nextDouble(), random.nextDouble(), random.nextDouble() };
+      int k = 1 + random.nextInt(8);
+      List<Integer> expected = IntStream.range(0, points.size()).boxed()
+          .sorted(Comparator.comparingDouble(i -> distanceSquared(points.get(i), target)))
+          .limit(k).toList();
+
+      List<KdTree.Neighbor<Integer>> nearest = tree.nearest(target, k);
+
+      assertEquals(expected, nearest.stream().map(KdTree.Neighbor::value).toList());
+      assertEquals(distanceSquared(points.get(expected.get(0)), target), nearest.get(0).distanceSquared());
+    }
+  }
+
+  @Test
+  void asking_for_more_than_the_tree_holds_returns_everything() {
+    KdTree<String> tree = new KdTree<>(List.of("a", "b"),
+        List.of(new double[] { 0, 0, 0 }, new double[] { 1, 0, 0 }));
+
+    List<KdTree.Neighbor<String>> nearest = tree.nearest(new double[] { 0.9, 0, 0 }, 5);
+
+    assertEquals(2, tree.size());
+    assertEquals(List.of("b", "a"), nearest.stream().map(KdTree.Neighbor::value).toList());
+  }
+
+  @Test
+  void an_empty_tree_has_no_neighbours() {
+    KdTree<String> tree = new KdTree<>(List.of(), List.of());
+
+    assertEquals(List.of(), tree.nearest(new double[] { 0, 0, 0 }, 3));
+  }
+}
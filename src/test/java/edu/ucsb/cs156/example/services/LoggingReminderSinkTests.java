@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.RecommendationReminder;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class LoggingReminderSinkTests {
+
+  @Test
+  void reminders_are_logged() {
+    RecommendationRequest request = RecommendationRequest.builder().id(1L).requesterEmail("cgaucho@ucsb.edu")
+        .dateNeeded(LocalDateTime.parse("2022-04-22T00:00")).build();
+
+    assertDoesNotThrow(() -> new LoggingReminderSink()
+        .remind(new RecommendationReminder(RecommendationReminder.Kind.OVERDUE, request)));
+  }
+}
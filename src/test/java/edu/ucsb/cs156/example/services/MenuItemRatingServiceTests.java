@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemRatingSummary;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingSummaryRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository.Rating;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class MenuItemRatingServiceTests {
+
+  private final MenuItemRatingService service = new MenuItemRatingService();
+
+  @BeforeEach
+  void setUp() {
+    service.menuItemReviewRepository = mock(MenuItemReviewRepository.class);
+    service.menuItemRatingSummaryRepository = mock(MenuItemRatingSummaryRepository.class);
+  }
+
+  private static MenuItemRatingSummary summary(long itemId, long reviewCount, long starSum, long fiveStars) {
+    return MenuItemRatingSummary.builder().itemId(itemId).reviewCount(reviewCount).starSum(starSum)
+        .fiveStars(fiveStars).build();
+  }
+
+  @Test
+  void delta_fills_the_matching_histogram_bucket() {
+    assertEquals(new MenuItemRatingSummary(1, 1, 3, 0, 0, 1, 0, 0), MenuItemRatingService.delta(1, 3, 1));
+    assertEquals(new MenuItemRatingSummary(1, -1, -2, 0, -1, 0, 0, 0), MenuItemRatingService.delta(1, 2, -1));
+  }
+
+  @Test
+  void stars_outside_one_to_five_count_but_have_no_bucket() {
+    assertEquals(new MenuItemRatingSummary(1, 1, 0, 0, 0, 0, 0, 0), MenuItemRatingService.delta(1, 0, 1));
+    assertEquals(new MenuItemRatingSummary(1, 1, 6, 0, 0, 0, 0, 0), MenuItemRatingService.delta(1, 6, 1));
+  }
+
+  @Test
+  void adding_to_an_item_with_a_summary_only_updates_it() {
+    MenuItemReview review = MenuItemReview.builder().itemId(4).stars(5).build();
+    when(service.menuItemReviewRepository.save(review)).thenReturn(review);
+    when(service.menuItemRatingSummaryRepository.adjust(4, 1, 5, 0, 0, 0, 0, 1)).thenReturn(1);
+
+    service.add(review);
+
+    verify(service.menuItemRatingSummaryRepository, never()).save(any());
+  }
+
+  private static Rating rating(long itemId, int stars) {
+    return new Rating() {
+      public long getItemId() {
+        return itemId;
+      }
+
+      public int getStars() {
+        return stars;
+      }
+    };
+  }
+
+  @Test
+  void update_adjusts_from_the_rating_it_locked_not_from_the_caller() {
+    // a concurrent update already moved the review to 4 stars
+    when(service.menuItemReviewRepository.findRatingForUpdateById(7)).thenReturn(Optional.of(rating(4, 4)));
+    MenuItemReview incoming = MenuItemReview.builder().itemId(4).stars(2).comments("meh").build();
+
+    MenuItemReview updated = service.update(7, incoming);
+
+    verify(service.menuItemReviewRepository).updateRowById(7, 4, null, 2, null, "meh");
+    verify(service.menuItemRatingSummaryRepository).adjust(4, -1, -4, 0, 0, 0, -1, 0);
+    verify(service.menuItemRatingSummaryRepository).adjust(4, 1, 2, 0, 1, 0, 0, 0);
+    verify(service.menuItemReviewRepository, never()).save(any());
+    assertEquals(MenuItemReview.builder().id(7).itemId(4).stars(2).comments("meh").build(), updated);
+  }
+
+  @Test
+  void delete_adjusts_from_the_rating_it_locked() {
+    when(service.menuItemReviewRepository.findRatingForUpdateById(7)).thenReturn(Optional.of(rating(4, 4)));
+
+    service.delete(7);
+
+    verify(service.menuItemReviewRepository).deleteRowById(7);
+    verify(service.menuItemRatingSummaryRepository).adjust(4, -1, -4, 0, 0, 0, -1, 0);
+  }
+
+  @Test
+  void updating_or_deleting_a_missing_review_writes_nothing() {
+    when(service.menuItemReviewRepository.findRatingForUpdateById(7)).thenReturn(Optional.empty());
+
+    assertThrows(EntityNotFoundException.class, () -> service.update(7, new MenuItemReview()));
+    assertThrows(EntityNotFoundException.class, () -> service.delete(7));
+
+    verify(service.menuItemReviewRepository, never()).deleteRowById(anyLong());
+    verify(service.menuItemRatingSummaryRepository, never()).adjust(anyLong(), anyLong(), anyLong(), anyLong(),
+        anyLong(), anyLong(), anyLong(), anyLong());
+  }
+
+  @Test
+  void average_is_zero_without_reviews() {
+    assertEquals(0.0, summary(1, 0, 0, 0).getAverage());
+    assertEquals(4.5, summary(1, 2, 9, 1).getAverage());
+  }
+
+  @Test
+  void rebuild_saves_changed_totals_and_deletes_items_without_reviews() {
+    MenuItemRatingSummary unchanged = summary(1, 1, 5, 1);
+    MenuItemRatingSummary drifted = summary(2, 1, 5, 1);
+    MenuItemRatingSummary orphan = summary(3, 1, 5, 1);
+    MenuItemRatingSummary corrected = summary(2, 2, 10, 2);
+    MenuItemRatingSummary missing = summary(4, 1, 5, 1);
+    when(service.menuItemRatingSummaryRepository.findAll()).thenReturn(List.of(unchanged, drifted, orphan));
+    when(service.menuItemReviewRepository.ratingTotals()).thenReturn(List.of(summary(1, 1, 5, 1), corrected, missing));
+
+    int count = service.rebuild();
+
+    assertEquals(3, count);
+    verify(service.menuItemRatingSummaryRepository).saveAll(List.of(corrected, missing));
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Iterable<MenuItemRatingSummary>> deleted = ArgumentCaptor.forClass(Iterable.class);
+    verify(service.menuItemRatingSummaryRepository).deleteAll(deleted.capture());
+    assertEquals(List.of(orphan), List.copyOf((Collection<MenuItemRatingSummary>) deleted.getValue()));
+  }
+}
@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.ArticleSearchHit;
+import edu.ucsb.cs156.example.models.ArticleSearchResults;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository.SearchRank;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+class PostgresArticleSearchServiceTests {
+
+  private final PostgresArticleSearchService service = new PostgresArticleSearchService();
+
+  private final Articles first = Articles.builder().id(1L).title("Spring Boot").build();
+  private final Articles second = Articles.builder().id(2L).title("Spring Data").build();
+
+  private static SearchRank rank(long id, double score) {
+    return new SearchRank() {
+      public Long getId() {
+        return id;
+      }
+
+      public Double getScore() {
+        return score;
+      }
+    };
+  }
+
+  @BeforeEach
+  void setUp() {
+    service.articlesRepository = mock(ArticlesRepository.class);
+  }
+
+  @Test
+  void queries_become_tsqueries_of_the_same_words() {
+    assertEquals("spring & boot:* & e & mail", PostgresArticleSearchService.tsquery("Spring boot* e-mail"));
+    assertEquals("", PostgresArticleSearchService.tsquery("'&! :*"));
+  }
+
+  @Test
+  void an_empty_query_does_not_reach_the_database() {
+    ArticleSearchResults results = service.search("--", PageRequest.of(2, 10));
+
+    assertEquals(new ArticleSearchResults(0, 2, 10, List.of()), results);
+    verify(service.articlesRepository, never()).searchRanks(anyString(), anyInt(), anyLong());
+  }
+
+  @Test
+  void hits_are_loaded_in_rank_order_and_a_short_first_page_is_not_counted() {
+    when(service.articlesRepository.searchRanks("spring", 10, 0))
+        .thenReturn(List.of(rank(2, 0.5), rank(1, 0.25), rank(3, 0.1)));
+    // 3 was deleted in between
+    when(service.articlesRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(first, second));
+
+    ArticleSearchResults results = service.search("spring", PageRequest.of(0, 10));
+
+    assertEquals(List.of(new ArticleSearchHit(second, 0.5), new ArticleSearchHit(first, 0.25)), results.getHits());
+    assertEquals(3, results.getTotal());
+    verify(service.articlesRepository, never()).countSearchMatches(anyString());
+  }
+
+  @Test
+  void no_hits_on_the_first_page_means_none_at_all() {
+    when(service.articlesRepository.searchRanks("gauss", 10, 0)).thenReturn(List.of());
+
+    ArticleSearchResults results = service.search("gauss", PageRequest.of(0, 10));
+
+    assertEquals(new ArticleSearchResults(0, 0, 10, List.of()), results);
+    verify(service.articlesRepository, never()).countSearchMatches(anyString());
+  }
+
+  @Test
+  void a_short_later_page_gives_the_total() {
+    when(service.articlesRepository.searchRanks("spring", 2, 2)).thenReturn(List.of(rank(1, 0.25)));
+    when(service.articlesRepository.findAllById(List.of(1L))).thenReturn(List.of(first));
+
+    ArticleSearchResults results = service.search("spring", PageRequest.of(1, 2));
+
+    assertEquals(3, results.getTotal());
+    verify(service.articlesRepository, never()).countSearchMatches(anyString());
+  }
+
+  @Test
+  void full_pages_and_pages_past_the_end_are_counted() {
+    when(service.articlesRepository.searchRanks("spring:*", 1, 0)).thenReturn(List.of(rank(1, 0.25)));
+    when(service.articlesRepository.findAllById(List.of(1L))).thenReturn(List.of(first));
+    when(service.articlesRepository.countSearchMatches("spring:*")).thenReturn(7L);
+
+    assertEquals(7, service.search("spring*", PageRequest.of(0, 1)).getTotal());
+    assertEquals(7, service.search("spring*", PageRequest.of(9, 1)).getTotal());
+  }
+
+  @Test
+  void writes_need_no_index_maintenance() {
+    service.indexed(first);
+    service.removed(1);
+    service.rebuild();
+
+    verify(service.articlesRepository, never()).findAll();
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.ArticleSearchCases.Case;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+// Runs ArticleSearchCases through ArticlesRepository.SEARCH_VECTOR on a real
+// PostgreSQL, which the normal build does not have.  Point
+// SEARCH_TEST_POSTGRES_URL at any database (a jdbc:postgresql:// URL with
+// user and password parameters) to run it; nothing is written.
+
+@EnabledIfEnvironmentVariable(named = "SEARCH_TEST_POSTGRES_URL", matches = ".+")
+class PostgresArticleSearchVectorTests {
+
+  private static final String ARTICLE_ROWS = String.join(", ",
+      Collections.nCopies(ArticleSearchCases.ARTICLES.size(), "(?, ?, ?, ?)"));
+
+  private static final String MATCHES = "SELECT id FROM (VALUES " + ARTICLE_ROWS + ")"
+      + " AS articles(id, title, explanation, email)"
+      + " WHERE " + ArticlesRepository.SEARCH_VECTOR + " @@ to_tsquery('simple', ?) ORDER BY id";
+
+  @Test
+  void the_search_vector_matches_the_same_articles_as_the_in_memory_index() throws Exception {
+    try (Connection connection = DriverManager.getConnection(System.getenv("SEARCH_TEST_POSTGRES_URL"));
+        PreparedStatement statement = connection.prepareStatement(MATCHES)) {
+      int parameter = 1;
+      for (Articles article : ArticleSearchCases.ARTICLES) {
+        statement.setLong(parameter++, article.getId());
+        statement.setString(parameter++, article.getTitle());
+        statement.setString(parameter++, article.getExplanation());
+        statement.setString(parameter++, article.getEmail());
+      }
+      for (Case searchCase : ArticleSearchCases.CASES) {
+        statement.setString(parameter, PostgresArticleSearchService.tsquery(searchCase.query()));
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery()) {
+          while (rows.next()) {
+            ids.add(rows.getLong(1));
+          }
+        }
+        assertEquals(searchCase.ids(), ids, searchCase.query());
+      }
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.SentRecommendationReminder;
+import edu.ucsb.cs156.example.models.RecommendationReminder;
+import edu.ucsb.cs156.example.models.RecommendationReminder.Kind;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.SentRecommendationReminderRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RecommendationRequestDeadlinesTests {
+
+  private final RecommendationRequestDeadlines deadlines = new RecommendationRequestDeadlines();
+
+  private final List<String> received = new ArrayList<>();
+
+  private static RecommendationRequest request(long id, String dateNeeded, boolean done) {
+    return RecommendationRequest.builder().id(id).requesterEmail("cgaucho@ucsb.edu").professorEmail("phtcon@ucsb.edu")
+        .explanation("request" + id).dateNeeded(dateNeeded == null ? null : LocalDateTime.parse(dateNeeded))
+        .done(done).build();
+  }
+
+  private static List<Long> ids(List<RecommendationRequest> requests) {
+    return requests.stream().map(RecommendationRequest::getId).toList();
+  }
+
+  private void now(String localDateTime) {
+    deadlines.clock = Clock.fixed(LocalDateTime.parse(localDateTime).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+  }
+
+  // the reminders sent when the clock reaches localDateTime
+  private List<String> remindersAt(String localDateTime) {
+    now(localDateTime);
+    received.clear();
+    int sent = deadlines.sendReminders();
+    assertEquals(sent, received.size());
+    return List.copyOf(received);
+  }
+
+  @BeforeEach
+  void setUp() {
+    deadlines.recommendationRequestRepository = mock(RecommendationRequestRepository.class);
+    deadlines.sentRecommendationReminderRepository = mock(SentRecommendationReminderRepository.class);
+    deadlines.reminderSinks = List.of(
+        (RecommendationReminder reminder) -> received.add(reminder.getKind() + " " + reminder.getRequest().getId()));
+    deadlines.leadHours = 24;
+    when(deadlines.recommendationRequestRepository.findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc())
+        .thenReturn(List.of(
+            request(3, "2022-04-19T00:00", false),
+            request(2, "2022-04-20T12:00", false),
+            request(4, "2022-04-22T00:00", false),
+            request(1, "2022-04-22T00:00", false)));
+    now("2022-04-20T00:00");
+  }
+
+  @Test
+  void overdue_and_due_soon_are_ranges_of_the_deadline_order_and_load_once() {
+    assertEquals(List.of(3L), ids(deadlines.overdue()));
+    assertEquals(List.of(2L), ids(deadlines.dueWithin(1)));
+    assertEquals(List.of(2L, 1L, 4L), ids(deadlines.dueWithin(3)));
+
+    now("2022-04-22T00:00");
+    assertEquals(List.of(3L, 2L), ids(deadlines.overdue()));
+    assertEquals(List.of(1L, 4L), ids(deadlines.dueWithin(1)));
+    verify(deadlines.recommendationRequestRepository, times(1))
+        .findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc();
+  }
+
+  @Test
+  void reminders_are_sent_once_as_each_one_comes_due() {
+    // 3 was overdue and 2 already within the lead time when they were loaded
+    assertEquals(List.of(), remindersAt("2022-04-20T00:00"));
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2"), remindersAt("2022-04-20T00:01"));
+    assertEquals(List.of(), remindersAt("2022-04-20T06:00"));
+    assertEquals(List.of("OVERDUE 2", "DUE_SOON 1", "DUE_SOON 4"), remindersAt("2022-04-21T00:01"));
+    assertEquals(List.of("OVERDUE 1", "OVERDUE 4"), remindersAt("2022-04-23T00:00"));
+    assertEquals(List.of(), remindersAt("2022-05-01T00:00"));
+  }
+
+  @Test
+  void a_new_deadline_replaces_the_old_reminders() {
+    deadlines.overdue();
+
+    deadlines.saved(request(1, "2022-04-25T00:00", false));
+    deadlines.saved(request(5, "2022-04-21T00:00", false));
+
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2", "DUE_SOON 5"), remindersAt("2022-04-20T00:01"));
+    assertEquals(List.of("OVERDUE 2", "OVERDUE 5", "DUE_SOON 4"), remindersAt("2022-04-21T00:01"));
+    assertEquals(List.of("OVERDUE 4"), remindersAt("2022-04-22T00:01"));
+    assertEquals(List.of("DUE_SOON 1", "OVERDUE 1"), remindersAt("2022-04-26T00:00"));
+  }
+
+  @Test
+  void other_edits_keep_the_scheduled_reminders() {
+    deadlines.overdue();
+    RecommendationRequest edited = request(2, "2022-04-20T12:00", false);
+    edited.setExplanation("edited");
+
+    deadlines.saved(edited);
+    edited.setExplanation("changed later");
+
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2"), remindersAt("2022-04-20T00:01"));
+    assertEquals("edited", deadlines.dueWithin(1).get(0).getExplanation());
+  }
+
+  @Test
+  void moving_a_deadline_away_and_back_does_not_duplicate_reminders() {
+    deadlines.overdue();
+
+    deadlines.saved(request(1, "2022-04-25T00:00", false));
+    deadlines.saved(request(1, "2022-04-22T00:00", false));
+
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2", "OVERDUE 2", "DUE_SOON 1", "DUE_SOON 4"),
+        remindersAt("2022-04-21T00:01"));
+  }
+
+  @Test
+  void done_deleted_and_undated_requests_leave_the_index_and_get_no_reminders() {
+    deadlines.overdue();
+
+    deadlines.saved(request(2, "2022-04-20T12:00", true));
+    deadlines.saved(request(4, null, false));
+    deadlines.saved(request(6, "2022-04-21T00:00", true));
+    deadlines.removed(1);
+    deadlines.removed(99);
+
+    assertEquals(List.of(), ids(deadlines.dueWithin(7)));
+    assertEquals(List.of("OVERDUE 3"), remindersAt("2022-05-01T00:00"));
+  }
+
+  @Test
+  void a_failing_sink_does_not_stop_the_others() {
+    deadlines.overdue();
+    deadlines.reminderSinks = List.of(
+        reminder -> {
+          throw new IllegalStateException("mail server down");
+        },
+        reminder -> received.add(reminder.getKind() + " " + reminder.getRequest().getId()));
+
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2"), remindersAt("2022-04-20T00:01"));
+  }
+
+  @Test
+  void writes_before_the_first_read_are_left_to_the_load() {
+    deadlines.saved(request(5, "2022-04-21T00:00", false));
+    deadlines.removed(3);
+
+    assertEquals(List.of(3L), ids(deadlines.overdue()));
+  }
+
+  @Test
+  void reload_reads_the_table_again_and_forgets_the_reminders() {
+    deadlines.overdue();
+    when(deadlines.recommendationRequestRepository.findAllByDoneFalseAndDateNeededNotNullOrderByDateNeededAscIdAsc())
+        .thenReturn(List.of(request(7, "2022-04-30T00:00", false)));
+
+    deadlines.reload();
+
+    assertEquals(List.of(7L), ids(deadlines.dueWithin(30)));
+    assertEquals(List.of("DUE_SOON 7", "OVERDUE 7"), remindersAt("2022-05-01T00:00"));
+  }
+
+  @Test
+  void a_reminder_already_sent_is_not_sent_again_after_a_reload_or_restart() {
+    SentRecommendationReminder overdue3 = new SentRecommendationReminder(3, LocalDateTime.parse("2022-04-19T00:00"),
+        Kind.OVERDUE);
+    SentRecommendationReminder dueSoon2 = new SentRecommendationReminder(2, LocalDateTime.parse("2022-04-20T12:00"),
+        Kind.DUE_SOON);
+    SentRecommendationReminder overdue2 = new SentRecommendationReminder(2, LocalDateTime.parse("2022-04-20T12:00"),
+        Kind.OVERDUE);
+    deadlines.overdue();
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2"), remindersAt("2022-04-20T00:01"));
+    verify(deadlines.sentRecommendationReminderRepository).saveAll(List.of(overdue3, dueSoon2));
+    when(deadlines.sentRecommendationReminderRepository.findAll()).thenReturn(List.of(overdue3, dueSoon2));
+
+    deadlines.reload();
+
+    assertEquals(List.of(), remindersAt("2022-04-20T00:02"));
+    assertEquals(List.of("OVERDUE 2"), remindersAt("2022-04-20T12:01"));
+    verify(deadlines.sentRecommendationReminderRepository).saveAll(List.of(overdue2));
+    when(deadlines.sentRecommendationReminderRepository.findAll()).thenReturn(List.of(overdue3, dueSoon2, overdue2));
+
+    deadlines.reload();
+
+    assertEquals(List.of(), remindersAt("2022-04-20T12:02"));
+    verify(deadlines.sentRecommendationReminderRepository, times(3)).deleteForClosedDeadlines();
+    verify(deadlines.sentRecommendationReminderRepository, times(2)).saveAll(any());
+  }
+
+  @Test
+  void a_request_saved_past_its_deadline_is_overdue_on_the_next_run_and_only_once() {
+    deadlines.overdue();
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2"), remindersAt("2022-04-20T00:01"));
+
+    deadlines.saved(request(5, "2022-04-18T00:00", false));
+    deadlines.saved(request(3, "2022-04-19T00:00", true));
+    deadlines.saved(request(3, "2022-04-19T00:00", false));
+
+    assertEquals(List.of("OVERDUE 5"), remindersAt("2022-04-20T00:02"));
+  }
+
+  @Test
+  void deadlines_that_keep_moving_do_not_fill_the_queue() {
+    deadlines.overdue();
+    int queued = deadlines.queuedReminders();
+
+    for (int day = 1; day <= 100; day++) {
+      deadlines.saved(request(1, "2022-06-%02dT00:00".formatted(day % 28 + 1), false));
+    }
+
+    assertTrue(deadlines.queuedReminders() <= 3 * queued, "queue grew to " + deadlines.queuedReminders());
+    assertEquals(List.of("OVERDUE 3", "DUE_SOON 2", "OVERDUE 2", "DUE_SOON 4", "OVERDUE 4"),
+        remindersAt("2022-04-23T00:00"));
+  }
+}
@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SingleRowWriteServiceTests {
+
+  private final SingleRowWriteService service = new SingleRowWriteService();
+
+  @Test
+  void a_statement_that_changes_a_row_succeeds() {
+    assertDoesNotThrow(() -> service.writeRow(UCSBDate.class, 7L, () -> 1));
+  }
+
+  @Test
+  void a_statement_that_changes_nothing_is_not_found() {
+    EntityNotFoundException e = assertThrows(EntityNotFoundException.class,
+        () -> service.writeRow(UCSBDate.class, 7L, () -> 0));
+
+    assertEquals("UCSBDate with id 7 not found", e.getMessage());
+  }
+
+  @Test
+  void the_callback_runs_after_the_statement_and_not_for_a_missing_row() {
+    List<String> calls = new ArrayList<>();
+
+    service.writeRow(UCSBDate.class, 7L, () -> {
+      calls.add("statement");
+      return 1;
+    }, () -> calls.add("then"));
+    assertThrows(EntityNotFoundException.class,
+        () -> service.writeRow(UCSBDate.class, 8L, () -> 0, () -> calls.add("then")));
+
+    assertEquals(List.of("statement", "then"), calls);
+  }
+
+  @Test
+  void create_row_hands_the_saved_row_to_the_callback() {
+    List<String> calls = new ArrayList<>();
+
+    assertEquals("saved", service.createRow(() -> "saved", calls::add));
+
+    assertEquals(List.of("saved"), calls);
+  }
+}
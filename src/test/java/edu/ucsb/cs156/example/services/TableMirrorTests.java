@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class TableMirrorTests {
+
+  // a mirror of a table of strings keyed by length
+  private static class Lengths extends TableMirror<StringBuilder> {
+
+    List<String> table = List.of("a", "bb");
+
+    int loads;
+
+    private final Map<Long, String> rows = new TreeMap<>();
+
+    synchronized Map<Long, String> rows() {
+      ensureLoaded();
+      return new TreeMap<>(rows);
+    }
+
+    @Override
+    protected void load() {
+      loads++;
+      table.forEach(row -> put(copy(new StringBuilder(row))));
+    }
+
+    @Override
+    protected void clear() {
+      rows.clear();
+    }
+
+    @Override
+    protected void put(StringBuilder row) {
+      rows.put((long) row.length(), row.toString());
+    }
+
+    @Override
+    protected void remove(long id) {
+      rows.remove(id);
+    }
+
+    @Override
+    protected StringBuilder copy(StringBuilder row) {
+      return new StringBuilder(row);
+    }
+  }
+
+  private final Lengths mirror = new Lengths();
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void writes_before_the_first_read_are_left_to_the_load() {
+    mirror.saved(new StringBuilder("ccc"));
+    mirror.removed(1);
+
+    assertEquals(Map.of(1L, "a", 2L, "bb"), mirror.rows());
+    mirror.rows();
+    assertEquals(1, mirror.loads);
+  }
+
+  @Test
+  void writes_after_the_load_change_a_copy() {
+    mirror.rows();
+    StringBuilder row = new StringBuilder("ccc");
+
+    mirror.saved(row);
+    mirror.removed(1);
+    row.append("!");
+
+    assertEquals(Map.of(2L, "bb", 3L, "ccc"), mirror.rows());
+  }
+
+  @Test
+  void reload_reads_the_table_again() {
+    mirror.rows();
+    mirror.table = List.of("dddd");
+
+    mirror.reload();
+
+    assertEquals(Map.of(4L, "dddd"), mirror.rows());
+    assertEquals(2, mirror.loads);
+  }
+
+  @Test
+  void a_write_that_rolls_back_reloads_and_one_that_commits_does_not() {
+    mirror.rows();
+    TransactionSynchronizationManager.initSynchronization();
+    mirror.saved(new StringBuilder("ccc"));
+    mirror.removed(1);
+    List<TransactionSynchronization> committed = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+    TransactionSynchronizationManager.clearSynchronization();
+
+    committed.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    assertEquals(Map.of(2L, "bb", 3L, "ccc"), mirror.rows());
+
+    TransactionSynchronizationManager.initSynchronization();
+    mirror.saved(new StringBuilder("eeeee"));
+    List<TransactionSynchronization> rolledBack = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+
+    rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    assertEquals(Map.of(1L, "a", 2L, "bb"), mirror.rows());
+    assertEquals(2, mirror.loads);
+  }
+}
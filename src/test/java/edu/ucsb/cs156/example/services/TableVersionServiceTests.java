@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.TableVersion;
+import edu.ucsb.cs156.example.testconfig.InMemoryTableVersionRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableVersionServiceTests {
+
+  private final TableVersionService tableVersionService = new TableVersionService();
+
+  private final InMemoryTableVersionRepository tableVersionRepository = new InMemoryTableVersionRepository();
+
+  @BeforeEach
+  void setUp() {
+    tableVersionService.tableVersionRepository = tableVersionRepository;
+    tableVersionRepository.save(new TableVersion("a", 0));
+  }
+
+  @Test
+  void versions_start_at_zero_and_are_bumped_per_table_by_each_write() {
+    assertEquals(0, tableVersionService.version("a"));
+
+    assertEquals("saved", tableVersionService.write("a", () -> "saved"));
+    tableVersionService.write("a", () -> { });
+
+    assertEquals(2, tableVersionService.version("a"));
+    assertEquals(0, tableVersionService.version("b"));
+  }
+
+  @Test
+  void a_table_without_a_version_row_gets_one_on_its_first_write() {
+    tableVersionService.write("b", () -> { });
+
+    assertEquals(1, tableVersionService.version("b"));
+  }
+
+  @Test
+  void the_version_is_read_from_the_repository_so_every_instance_agrees() {
+    TableVersionService other = new TableVersionService();
+    other.tableVersionRepository = tableVersionRepository;
+
+    other.write("a", () -> { });
+
+    assertEquals(1, tableVersionService.version("a"));
+    assertEquals(other.etag("a"), tableVersionService.etag("a"));
+  }
+
+  @Test
+  void etag_is_quoted_and_changes_when_the_table_is_written() {
+    String before = tableVersionService.etag("a");
+    String other = tableVersionService.etag("b");
+
+    tableVersionService.write("a", () -> { });
+
+    assertEquals("\"a-0\"", before);
+    assertEquals("\"a-1\"", tableVersionService.etag("a"));
+    assertEquals(other, tableVersionService.etag("b"));
+  }
+
+}
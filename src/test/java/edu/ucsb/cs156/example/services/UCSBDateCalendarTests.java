@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UCSBDateCalendarTests {
+
+  private final UCSBDateCalendar calendar = new UCSBDateCalendar();
+
+  private static UCSBDate date(long id, String localDateTime) {
+    return UCSBDate.builder().id(id).quarterYYYYQ("20222").name("date" + id)
+        .localDateTime(localDateTime == null ? null : LocalDateTime.parse(localDateTime)).build();
+  }
+
+  private static LocalDateTime at(String localDateTime) {
+    return LocalDateTime.parse(localDateTime);
+  }
+
+  private static List<Long> ids(List<UCSBDate> dates) {
+    return dates.stream().map(UCSBDate::getId).toList();
+  }
+
+  @BeforeEach
+  void setUp() {
+    calendar.ucsbDateRepository = mock(UCSBDateRepository.class);
+    when(calendar.ucsbDateRepository.findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc()).thenReturn(List.of(
+        date(1, "2022-01-03T00:00"),
+        date(4, "2022-01-17T00:00"),
+        date(2, "2022-01-17T00:00"),
+        date(3, "2022-03-11T17:00")));
+    calendar.clock = Clock.fixed(at("2022-01-17T00:00").toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+  }
+
+  @Test
+  void a_range_includes_from_and_excludes_to_and_loads_once() {
+    assertEquals(List.of(1L, 2L, 4L), ids(calendar.range(at("2022-01-03T00:00"), at("2022-03-11T17:00"), null, 500)));
+    assertEquals(List.of(2L, 4L, 3L), ids(calendar.range(at("2022-01-03T00:01"), at("2022-12-31T00:00"), null, 500)));
+    assertEquals(List.of(), ids(calendar.range(at("2022-04-01T00:00"), at("2022-05-01T00:00"), null, 500)));
+    verify(calendar.ucsbDateRepository, times(1)).findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc();
+  }
+
+  @Test
+  void an_empty_or_backwards_range_has_no_dates() {
+    assertEquals(List.of(), calendar.range(at("2022-01-17T00:00"), at("2022-01-17T00:00"), null, 500));
+    assertEquals(List.of(), calendar.range(at("2022-12-31T00:00"), at("2022-01-01T00:00"), null, 500));
+  }
+
+  @Test
+  void a_range_is_paged_by_position() {
+    LocalDateTime from = at("2022-01-03T00:00");
+    LocalDateTime to = at("2023-01-01T00:00");
+
+    List<UCSBDate> first = calendar.range(from, to, null, 2);
+    UCSBDateCalendar.Position cursor = UCSBDateCalendar.Position.parse(
+        UCSBDateCalendar.Position.of(first.get(1)).toString());
+    List<UCSBDate> second = calendar.range(from, to, cursor, 2);
+
+    assertEquals(List.of(1L, 2L), ids(first));
+    assertEquals(new UCSBDateCalendar.Position(at("2022-01-17T00:00"), 2), cursor);
+    assertEquals(List.of(4L, 3L), ids(second));
+    assertEquals(List.of(), calendar.range(from, to, UCSBDateCalendar.Position.of(second.get(1)), 2));
+    // a cursor before the range starts at from
+    assertEquals(List.of(2L), ids(calendar.range(at("2022-01-04T00:00"), to,
+        new UCSBDateCalendar.Position(at("2022-01-01T00:00"), 9), 1)));
+  }
+
+  @Test
+  void a_malformed_cursor_is_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> UCSBDateCalendar.Position.parse("2022-01-17T00:00"));
+    assertThrows(IllegalArgumentException.class, () -> UCSBDateCalendar.Position.parse("yesterday,2"));
+    assertThrows(IllegalArgumentException.class, () -> UCSBDateCalendar.Position.parse("2022-01-17T00:00,two"));
+  }
+
+  @Test
+  void upcoming_dates_start_now() {
+    assertEquals(List.of(2L, 4L), ids(calendar.upcoming(2)));
+    assertEquals(List.of(2L, 4L, 3L), ids(calendar.upcoming(10)));
+
+    calendar.clock = Clock.fixed(at("2023-01-01T00:00").toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    assertEquals(List.of(), calendar.upcoming(10));
+  }
+
+  @Test
+  void saved_dates_are_added_moved_or_dropped() {
+    calendar.upcoming(1);
+    UCSBDate moved = date(3, "2022-01-10T00:00");
+
+    calendar.saved(date(5, "2022-02-01T00:00"));
+    calendar.saved(moved);
+    calendar.saved(date(1, null));
+    moved.setName("changed later");
+
+    List<UCSBDate> all = calendar.range(at("2022-01-01T00:00"), at("2023-01-01T00:00"), null, 500);
+    assertEquals(List.of(3L, 2L, 4L, 5L), ids(all));
+    assertEquals("date3", all.get(0).getName());
+  }
+
+  @Test
+  void removed_dates_are_dropped() {
+    calendar.upcoming(1);
+
+    calendar.removed(2);
+    calendar.removed(99);
+
+    assertEquals(List.of(4L, 3L), ids(calendar.upcoming(10)));
+  }
+
+  @Test
+  void writes_before_the_first_read_are_left_to_the_load() {
+    calendar.saved(date(5, "2022-02-01T00:00"));
+    calendar.removed(1);
+
+    assertEquals(List.of(1L, 2L, 4L, 3L), ids(calendar.range(at("2022-01-01T00:00"), at("2023-01-01T00:00"), null, 500)));
+  }
+
+  @Test
+  void reload_reads_the_table_again() {
+    calendar.upcoming(1);
+    calendar.saved(date(5, "2022-02-01T00:00"));
+    when(calendar.ucsbDateRepository.findAllByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc())
+        .thenReturn(List.of(date(6, "2022-06-01T00:00")));
+
+    calendar.reload();
+
+    assertEquals(List.of(6L), ids(calendar.upcoming(10)));
+  }
+}
@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import edu.ucsb.cs156.example.entities.TableVersion;
+import edu.ucsb.cs156.example.repositories.TableVersionRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Stands in for the tableversions table in tests that have no database, so
+// that TableVersionService (and the ETags built from it) behave as they
+// would against a real one.
+
+public class InMemoryTableVersionRepository implements TableVersionRepository {
+
+  private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+  @Override
+  public Optional<Long> findVersion(String tableName) {
+    return Optional.ofNullable(versions.get(tableName));
+  }
+
+  @Override
+  public int increment(String tableName) {
+    return versions.computeIfPresent(tableName, (table, version) -> version + 1) == null ? 0 : 1;
+  }
+
+  @Override
+  public TableVersion save(TableVersion version) {
+    versions.put(version.getTableName(), version.getVersion());
+    return version;
+  }
+}
@@ -1,11 +1,20 @@
 package edu.ucsb.cs156.example.testconfig;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 
 
+import edu.ucsb.cs156.example.repositories.TableVersionRepository;
+import edu.ucsb.cs156.example.services.AdminEmailRegistry;
+import edu.ucsb.cs156.example.services.BulkWriteService;
+import edu.ucsb.cs156.example.services.CurrentUserCache;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.SingleRowWriteService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 
 @TestConfiguration
 public class TestConfig {
@@ -20,4 +29,39 @@ public class TestConfig {
         return new GrantedAuthoritiesService();
     }
 
+    @Bean
+    public CurrentUserCache currentUserCache() {
+        return new CurrentUserCache(300, 10000);
+    }
+
+    @Bean
+    public AdminEmailRegistry adminEmailRegistry() {
+        return new AdminEmailRegistry();
+    }
+
+    @Bean
+    public BulkWriteService bulkWriteService() {
+        return new BulkWriteService();
+    }
+
+    @Bean
+    public SingleRowWriteService singleRowWriteService() {
+        return new SingleRowWriteService();
+    }
+
+    @Bean
+    public TableVersionRepository tableVersionRepository() {
+        return new InMemoryTableVersionRepository();
+    }
+
+    @Bean
+    public TableVersionService tableVersionService() {
+        return new TableVersionService();
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
 }